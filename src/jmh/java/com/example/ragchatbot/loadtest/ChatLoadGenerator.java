@@ -0,0 +1,254 @@
+package com.example.ragchatbot.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replays the questions from a query log against {@code POST /api/chat} and reports throughput
+ * and latency percentiles. Start the service with the offline clients first
+ * ({@code ./gradlew bootRun --args='--spring.profiles.active=stub'}), then run
+ * {@code ./gradlew loadTest -PloadTest.args='--concurrency=16 --duration=60s'}.
+ *
+ * <p>Options (defaults in brackets):
+ * <ul>
+ *   <li>{@code --url} [http://localhost:8080]</li>
+ *   <li>{@code --questions} query log to replay [logs/sql-queries.json]</li>
+ *   <li>{@code --concurrency} in-flight requests [8]</li>
+ *   <li>{@code --rate} requests per second; 0 runs closed-loop, each worker sending as soon as its
+ *       previous request returns [0]. With a rate, latency is measured from each request's
+ *       scheduled start, so queueing behind a slow server counts against it.</li>
+ *   <li>{@code --duration} measured period [60s]; {@code --warmup} unmeasured lead-in [10s]</li>
+ *   <li>{@code --unique} suffix each question with a run id and sequence number so every request
+ *       misses the caches and exercises the full pipeline; false replays questions verbatim [true]</li>
+ *   <li>{@code --timeout} per-request timeout [60s]</li>
+ * </ul>
+ */
+public final class ChatLoadGenerator {
+
+    private static final double[] PERCENTILES = {50, 90, 95, 99, 99.9};
+
+    private final HttpClient httpClient;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final URI chatUri;
+    private final List<String> questions;
+    private final boolean unique;
+    private final Duration requestTimeout;
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLong sequence = new AtomicLong();
+    private final LatencyLog latencies = new LatencyLog();
+    private final AtomicLong cacheHits = new AtomicLong();
+    private final Map<String, AtomicLong> failures = new HashMap<>();
+
+    private volatile long measureFromNanos;
+    private volatile long measureUntilNanos;
+
+    private ChatLoadGenerator(URI baseUri, List<String> questions, boolean unique, Duration requestTimeout) {
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        this.chatUri = baseUri.resolve("/api/chat");
+        this.questions = questions;
+        this.unique = unique;
+        this.requestTimeout = requestTimeout;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parseOptions(args);
+        List<String> questions = loadQuestions(Paths.get(options.getOrDefault("questions", "logs/sql-queries.json")));
+        if (questions.isEmpty()) {
+            throw new IllegalArgumentException("No questions to replay");
+        }
+        int concurrency = Integer.parseInt(options.getOrDefault("concurrency", "8"));
+        double rate = Double.parseDouble(options.getOrDefault("rate", "0"));
+        Duration duration = parseDuration(options.getOrDefault("duration", "60s"));
+        Duration warmup = parseDuration(options.getOrDefault("warmup", "10s"));
+
+        ChatLoadGenerator generator = new ChatLoadGenerator(
+                URI.create(options.getOrDefault("url", "http://localhost:8080")),
+                questions,
+                Boolean.parseBoolean(options.getOrDefault("unique", "true")),
+                parseDuration(options.getOrDefault("timeout", "60s")));
+        System.out.printf(Locale.ROOT, "Replaying %d questions against %s: concurrency=%d, rate=%s, warmup=%ds, duration=%ds%n",
+                questions.size(), generator.chatUri, concurrency, rate > 0 ? rate + "/s" : "closed-loop",
+                warmup.toSeconds(), duration.toSeconds());
+        generator.run(concurrency, rate, warmup, duration);
+        generator.report(duration);
+    }
+
+    private void run(int concurrency, double rate, Duration warmup, Duration duration) throws InterruptedException {
+        long start = System.nanoTime();
+        measureFromNanos = start + warmup.toNanos();
+        measureUntilNanos = measureFromNanos + duration.toNanos();
+        ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+        try {
+            if (rate > 0) {
+                // Open loop: requests are issued on schedule whether or not earlier ones have returned
+                long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+                for (long scheduled = start; scheduled < measureUntilNanos; scheduled += intervalNanos) {
+                    long delay = scheduled - System.nanoTime();
+                    if (delay > 0) {
+                        TimeUnit.NANOSECONDS.sleep(delay);
+                    }
+                    long intendedStart = scheduled;
+                    workers.execute(() -> send(intendedStart));
+                }
+            } else {
+                for (int i = 0; i < concurrency; i++) {
+                    workers.execute(() -> {
+                        while (System.nanoTime() < measureUntilNanos) {
+                            send(System.nanoTime());
+                        }
+                    });
+                }
+            }
+        } finally {
+            workers.shutdown();
+            // Requests still in flight finish within their timeout; anything queued past that is dropped
+            if (!workers.awaitTermination(requestTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                workers.shutdownNow();
+            }
+        }
+    }
+
+    private void send(long intendedStartNanos) {
+        long n = sequence.getAndIncrement();
+        String question = questions.get((int) (n % questions.size()));
+        if (unique) {
+            question = question + " (run " + runId + " " + n + ")";
+        }
+        String outcome;
+        boolean cacheHit = false;
+        try {
+            HttpRequest request = HttpRequest.newBuilder(chatUri)
+                    .timeout(requestTimeout)
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(Map.of("query", question))))
+                    .build();
+            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+            outcome = response.statusCode() / 100 == 2 ? null : "HTTP " + response.statusCode();
+            cacheHit = response.body().contains("\"fromCache\":true");
+        } catch (IOException e) {
+            outcome = e.getClass().getSimpleName();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        long latencyNanos = System.nanoTime() - intendedStartNanos;
+        if (intendedStartNanos < measureFromNanos || intendedStartNanos >= measureUntilNanos) {
+            return;
+        }
+        latencies.add(latencyNanos);
+        if (cacheHit) {
+            cacheHits.incrementAndGet();
+        }
+        if (outcome != null) {
+            synchronized (failures) {
+                failures.computeIfAbsent(outcome, k -> new AtomicLong()).incrementAndGet();
+            }
+        }
+    }
+
+    private void report(Duration duration) {
+        long[] sorted = latencies.sorted();
+        long failed;
+        synchronized (failures) {
+            failed = failures.values().stream().mapToLong(AtomicLong::get).sum();
+        }
+        System.out.printf(Locale.ROOT, "%nRequests:   %d (%d failed, %d served from cache)%n", sorted.length, failed, cacheHits.get());
+        System.out.printf(Locale.ROOT, "Throughput: %.1f req/s%n", sorted.length / (double) duration.toSeconds());
+        if (sorted.length > 0) {
+            double meanMs = Arrays.stream(sorted).average().orElse(0) / 1e6;
+            System.out.printf(Locale.ROOT, "Latency ms: mean=%.1f", meanMs);
+            for (double percentile : PERCENTILES) {
+                System.out.printf(Locale.ROOT, " p%s=%.1f", percentile % 1 == 0 ? String.valueOf((int) percentile) : String.valueOf(percentile),
+                        percentileOf(sorted, percentile) / 1e6);
+            }
+            System.out.printf(Locale.ROOT, " max=%.1f%n", sorted[sorted.length - 1] / 1e6);
+        }
+        synchronized (failures) {
+            failures.forEach((outcome, count) -> System.out.printf(Locale.ROOT, "Failures:   %s x %d%n", outcome, count.get()));
+        }
+    }
+
+    private static long percentileOf(long[] sorted, double percentile) {
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))];
+    }
+
+    private static List<String> loadQuestions(Path queryLog) throws IOException {
+        List<String> questions = new ArrayList<>();
+        for (JsonNode entry : new ObjectMapper().readTree(queryLog.toFile())) {
+            JsonNode query = entry.get("query");
+            if (query != null && !query.asText().isBlank()) {
+                questions.add(query.asText());
+            }
+        }
+        return questions;
+    }
+
+    private static Map<String, String> parseOptions(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got: " + arg);
+            }
+            int split = arg.indexOf('=');
+            options.put(arg.substring(2, split), arg.substring(split + 1));
+        }
+        return options;
+    }
+
+    /**
+     * Parses durations like {@code 500ms}, {@code 30s} or {@code 5m}.
+     */
+    private static Duration parseDuration(String text) {
+        if (text.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(text.substring(0, text.length() - 2)));
+        }
+        if (text.endsWith("m")) {
+            return Duration.ofMinutes(Long.parseLong(text.substring(0, text.length() - 1)));
+        }
+        return Duration.ofSeconds(Long.parseLong(text.endsWith("s") ? text.substring(0, text.length() - 1) : text));
+    }
+
+    /**
+     * Append-only latency samples in nanoseconds.
+     */
+    private static final class LatencyLog {
+        private long[] samples = new long[4096];
+        private int size;
+
+        synchronized void add(long nanos) {
+            if (size == samples.length) {
+                samples = Arrays.copyOf(samples, size * 2);
+            }
+            samples[size++] = nanos;
+        }
+
+        synchronized long[] sorted() {
+            long[] copy = Arrays.copyOf(samples, size);
+            Arrays.sort(copy);
+            return copy;
+        }
+    }
+}
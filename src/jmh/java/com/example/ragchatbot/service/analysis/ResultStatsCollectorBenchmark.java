@@ -0,0 +1,50 @@
+package com.example.ragchatbot.service.analysis;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+import com.example.ragchatbot.service.data.SyntheticResults;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link ResultStatsCollector#summarize(BigQueryResult)}, which scans every row, for each
+ * result shape from 10 to 1M rows.
+ * Run with {@code ./gradlew jmh -Pjmh.includes=ResultStatsCollectorBenchmark -Pjmh.profilers=gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultStatsCollectorBenchmark {
+
+    @Param({"ranking", "trend", "multi_metric", "wide"})
+    public String shape;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int rowCount;
+
+    private final ResultStatsCollector collector = new ResultStatsCollector();
+    private BigQueryResult result;
+
+    @Setup
+    public void setUp() {
+        result = SyntheticResults.of(shape, rowCount);
+    }
+
+    @Benchmark
+    public ResultStatsSummary summarize() {
+        return collector.summarize(result);
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.ragchatbot.service.data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Synthetic {@link BigQueryResult}s shaped like the answers the chat endpoint returns, for the
+ * formatting benchmarks. Cell values are drawn from small pools of shared objects so that a
+ * million-row dataset fits comfortably in a forked benchmark JVM.
+ */
+public final class SyntheticResults {
+
+    /** Shapes understood by {@link #of(String, int)}. */
+    public static final String RANKING = "ranking";
+    public static final String TREND = "trend";
+    public static final String MULTI_METRIC = "multi_metric";
+    public static final String WIDE = "wide";
+
+    private static final int POOL_SIZE = 1024;
+    private static final String[] TEAMS = strings("team_", 350);
+    private static final String[] PLAYERS = strings("player_", POOL_SIZE);
+    private static final String[] CONFERENCES = strings("conf_", 32);
+    private static final Long[] LONGS = new Long[POOL_SIZE];
+    private static final Double[] DOUBLES = new Double[POOL_SIZE];
+
+    static {
+        for (int i = 0; i < POOL_SIZE; i++) {
+            LONGS[i] = (long) i;
+            DOUBLES[i] = 40.0 + (i * 37 % POOL_SIZE) / 10.0;
+        }
+    }
+
+    private SyntheticResults() {
+    }
+
+    public static BigQueryResult of(String shape, int rowCount) {
+        List<List<Object>> rows = new ArrayList<>(rowCount);
+        switch (shape) {
+            case RANKING -> {
+                for (int row = 0; row < rowCount; row++) {
+                    rows.add(List.of(TEAMS[row % TEAMS.length], DOUBLES[row % POOL_SIZE]));
+                }
+                return BigQueryResult.fromCachedData(List.of("team_name", "total_points"),
+                        List.of("STRING", "FLOAT64"), rows);
+            }
+            case TREND -> {
+                // Seasons ascend; each season lists a handful of teams
+                for (int row = 0; row < rowCount; row++) {
+                    rows.add(List.of(LONGS[(row / 5) % POOL_SIZE], TEAMS[row % 5], DOUBLES[row % POOL_SIZE]));
+                }
+                return BigQueryResult.fromCachedData(List.of("season", "team_name", "avg_points"),
+                        List.of("INT64", "STRING", "FLOAT64"), rows);
+            }
+            case MULTI_METRIC -> {
+                for (int row = 0; row < rowCount; row++) {
+                    rows.add(List.of(PLAYERS[row % POOL_SIZE], DOUBLES[row % POOL_SIZE],
+                            DOUBLES[(row * 7) % POOL_SIZE], DOUBLES[(row * 13) % POOL_SIZE]));
+                }
+                return BigQueryResult.fromCachedData(List.of("player_name", "points", "rebounds", "assists"),
+                        List.of("STRING", "FLOAT64", "FLOAT64", "FLOAT64"), rows);
+            }
+            case WIDE -> {
+                for (int row = 0; row < rowCount; row++) {
+                    rows.add(List.of(TEAMS[row % TEAMS.length], LONGS[row % 20], LONGS[30], LONGS[row % POOL_SIZE],
+                            LONGS[(row * 3) % POOL_SIZE], LONGS[(row * 5) % POOL_SIZE], DOUBLES[row % POOL_SIZE],
+                            CONFERENCES[row % CONFERENCES.length]));
+                }
+                return BigQueryResult.fromCachedData(
+                        List.of("team", "season", "games", "points", "rebounds", "assists", "win_pct", "conference"),
+                        List.of("STRING", "INT64", "INT64", "INT64", "INT64", "INT64", "FLOAT64", "STRING"), rows);
+            }
+            default -> throw new IllegalArgumentException("Unknown shape: " + shape);
+        }
+    }
+
+    /**
+     * A user question and generated SQL that would produce the given shape.
+     */
+    public static String[] questionAndSql(String shape) {
+        return switch (shape) {
+            case RANKING -> new String[]{"Top teams by total points",
+                    "SELECT team_name, SUM(points) AS total_points FROM `bigquery-public-data.ncaa_basketball.mbb_teams_games_sr` "
+                            + "GROUP BY team_name ORDER BY total_points DESC"};
+            case TREND -> new String[]{"How did average points change over the seasons for the top teams",
+                    "SELECT season, team_name, AVG(points) AS avg_points FROM `bigquery-public-data.ncaa_basketball.mbb_teams_games_sr` "
+                            + "GROUP BY season, team_name ORDER BY season"};
+            case MULTI_METRIC -> new String[]{"Compare points, rebounds and assists for players",
+                    "SELECT full_name AS player_name, AVG(points) AS points, AVG(rebounds) AS rebounds, AVG(assists) AS assists "
+                            + "FROM `bigquery-public-data.ncaa_basketball.mbb_players_games_sr` GROUP BY full_name"};
+            default -> new String[]{"Show a table of team season stats",
+                    "SELECT market AS team, season, games, points, rebounds, assists, win_pct, conference "
+                            + "FROM `bigquery-public-data.ncaa_basketball.mbb_teams`"};
+        };
+    }
+
+    private static String[] strings(String prefix, int count) {
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = prefix + i;
+        }
+        return values;
+    }
+}
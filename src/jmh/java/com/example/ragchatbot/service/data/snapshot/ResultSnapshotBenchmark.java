@@ -0,0 +1,108 @@
+package com.example.ragchatbot.service.data.snapshot;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares a cache hit served from the stored JSON results (parse, then
+ * {@code BigQueryResult.fromCachedData}) with one served from a mapped snapshot, reading every
+ * cell in both cases. Run with {@code ./gradlew jmh -Pjmh.includes=ResultSnapshotBenchmark};
+ * add {@code -Pjmh.profilers=gc} to compare allocation per hit.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResultSnapshotBenchmark {
+
+    @Param({"100x4", "100x40"})
+    public String shape;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private Path directory;
+    private String json;
+    private ResultSnapshot mapped;
+
+    @Setup
+    public void setUp() throws Exception {
+        String[] dimensions = shape.split("x");
+        int rowCount = Integer.parseInt(dimensions[0]);
+        int columnCount = Integer.parseInt(dimensions[1]);
+        List<String> columns = new ArrayList<>();
+        List<String> types = new ArrayList<>();
+        for (int column = 0; column < columnCount; column++) {
+            columns.add("col_" + column);
+            types.add(column % 2 == 0 ? "STRING" : "FLOAT64");
+        }
+        List<List<Object>> rows = new ArrayList<>();
+        for (int row = 0; row < rowCount; row++) {
+            List<Object> values = new ArrayList<>();
+            for (int column = 0; column < columnCount; column++) {
+                values.add(column % 2 == 0 ? "team_" + (row % 25) : row * 1.5 + column);
+            }
+            rows.add(values);
+        }
+
+        Map<String, Object> results = new HashMap<>();
+        results.put("columns", columns);
+        results.put("columnTypes", types);
+        results.put("rows", rows);
+        json = objectMapper.writeValueAsString(results);
+
+        directory = Files.createTempDirectory("snapshot-bench");
+        Path file = directory.resolve("result.rsnp");
+        ResultSnapshotWriter.write(file, "SELECT 1", columns, types, rows);
+        mapped = ResultSnapshot.open(file);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(directory.resolve("result.rsnp"));
+        Files.deleteIfExists(directory);
+    }
+
+    @Benchmark
+    @SuppressWarnings("unchecked")
+    public void jsonResults(Blackhole blackhole) throws Exception {
+        Map<String, Object> results = objectMapper.readValue(json, Map.class);
+        BigQueryResult result = BigQueryResult.fromCachedData((List<String>) results.get("columns"),
+                (List<String>) results.get("columnTypes"), (List<List<Object>>) results.get("rows"));
+        consume(result, blackhole);
+    }
+
+    @Benchmark
+    public void mappedSnapshot(Blackhole blackhole) {
+        consume(BigQueryResult.fromSnapshot(mapped), blackhole);
+    }
+
+    private static void consume(BigQueryResult result, Blackhole blackhole) {
+        for (List<Object> row : result.getAllRows()) {
+            for (Object value : row) {
+                blackhole.consume(value);
+            }
+        }
+    }
+}
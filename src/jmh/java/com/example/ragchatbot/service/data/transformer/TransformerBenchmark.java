@@ -0,0 +1,72 @@
+package com.example.ragchatbot.service.data.transformer;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+import com.example.ragchatbot.service.data.SyntheticResults;
+import com.example.ragchatbot.service.data.TransformedData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures each {@link ResultTransformer#transform(BigQueryResult)} on the result shape it is
+ * normally selected for, from 10 to 1M rows, with the default downsampling limits.
+ * Run with {@code ./gradlew jmh -Pjmh.includes=TransformerBenchmark -Pjmh.profilers=gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformerBenchmark {
+
+    @Param({"bar", "pie", "line", "bubble", "table"})
+    public String chartType;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int rowCount;
+
+    private ResultTransformer transformer;
+    private BigQueryResult result;
+
+    @Setup
+    public void setUp() {
+        switch (chartType) {
+            case "bar" -> {
+                transformer = new BarChartTransformer();
+                result = SyntheticResults.of(SyntheticResults.RANKING, rowCount);
+            }
+            case "pie" -> {
+                transformer = new PieChartTransformer();
+                result = SyntheticResults.of(SyntheticResults.RANKING, rowCount);
+            }
+            case "line" -> {
+                transformer = new LineChartTransformer();
+                result = SyntheticResults.of(SyntheticResults.TREND, rowCount);
+            }
+            case "bubble" -> {
+                transformer = new BubbleChartTransformer();
+                result = SyntheticResults.of(SyntheticResults.MULTI_METRIC, rowCount);
+            }
+            default -> {
+                transformer = new TableTransformer();
+                result = SyntheticResults.of(SyntheticResults.WIDE, rowCount);
+            }
+        }
+    }
+
+    @Benchmark
+    public TransformedData transform() {
+        return transformer.transform(result);
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.ragchatbot.service.data.transformer;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+import com.example.ragchatbot.service.visualization.QueryIntent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the {@link TransformerFactory#getTransformer} selection loop, where every transformer's
+ * {@code canTransform} probes the result's column metadata and rows. Each shape ends at a
+ * different transformer, so the later ones pay for the earlier rejections too.
+ * Run with {@code ./gradlew jmh -Pjmh.includes=TransformerSelectionBenchmark -Pjmh.profilers=gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransformerSelectionBenchmark {
+
+    @Param({"ranking", "distribution", "trend", "correlation", "table"})
+    public String shape;
+
+    private TransformerFactory factory;
+    private BigQueryResult result;
+    private QueryIntent intent;
+
+    @Setup
+    public void setUp() {
+        factory = new TransformerFactory(List.of(new TableTransformer(), new BarChartTransformer(),
+                new PieChartTransformer(), new BubbleChartTransformer(), new LineChartTransformer()));
+
+        List<String> columns;
+        List<String> types;
+        List<List<Object>> rows = new ArrayList<>();
+        switch (shape) {
+            case "ranking", "distribution" -> {
+                int rowCount = "ranking".equals(shape) ? 25 : 8;
+                columns = List.of("team_name", "points");
+                types = List.of("STRING", "FLOAT64");
+                for (int row = 0; row < rowCount; row++) {
+                    rows.add(List.of("team_" + row, 60.0 + row));
+                }
+                intent = new QueryIntent("ranking".equals(shape)
+                        ? Map.of("bar", 2.0) : Map.of("pie", 3.0), "ranking".equals(shape) ? "comparison" : "distribution");
+            }
+            case "trend" -> {
+                columns = List.of("season", "points");
+                types = List.of("INT64", "FLOAT64");
+                for (int row = 0; row < 80; row++) {
+                    rows.add(List.of(1940L + row, 60.0 + row % 40));
+                }
+                intent = new QueryIntent(Map.of("line", 2.0), "trend");
+            }
+            case "correlation" -> {
+                columns = List.of("player_name", "points", "rebounds", "assists");
+                types = List.of("STRING", "FLOAT64", "FLOAT64", "FLOAT64");
+                for (int row = 0; row < 500; row++) {
+                    rows.add(List.of("player_" + row, 10.0 + row % 30, 4.0 + row % 12, 2.0 + row % 9));
+                }
+                intent = new QueryIntent(Map.of("bubble", 1.0), "correlation");
+            }
+            default -> {
+                columns = List.of("game_id", "home_team", "away_team", "home_points", "away_points", "game_date");
+                types = List.of("STRING", "STRING", "STRING", "INT64", "INT64", "DATE");
+                for (int row = 0; row < 1000; row++) {
+                    rows.add(List.of("g" + row, "home_" + row % 30, "away_" + row % 29, 60L + row % 50, 58L + row % 47,
+                            "2024-01-" + (1 + row % 28)));
+                }
+                intent = new QueryIntent(Map.of("table", 1.0), "general");
+            }
+        }
+        result = BigQueryResult.fromCachedData(columns, types, rows);
+    }
+
+    @Benchmark
+    public ResultTransformer select() {
+        return factory.getTransformer(result, intent);
+    }
+}
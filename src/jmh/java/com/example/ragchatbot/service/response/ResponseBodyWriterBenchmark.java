@@ -0,0 +1,93 @@
+package com.example.ragchatbot.service.response;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+import com.example.ragchatbot.service.data.TransformedData;
+import com.example.ragchatbot.service.data.transformer.TableTransformer;
+import com.example.ragchatbot.service.visualization.TableStrategy;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares serializing a table response the way the controller used to (padded row copies,
+ * a copy of the response map, then {@code ObjectMapper.writeValueAsBytes}) with streaming it
+ * through {@link ResponseBodyWriter}. Run with
+ * {@code ./gradlew jmh -Pjmh.includes=ResponseBodyWriterBenchmark -Pjmh.profilers=gc} and compare
+ * {@code gc.alloc.rate.norm} per response.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ResponseBodyWriterBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int rowCount;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ResponseBodyWriter bodyWriter = new ResponseBodyWriter(objectMapper, 4, 64 * 1024 * 1024);
+    private final TableTransformer transformer = new TableTransformer();
+    private final TableStrategy strategy = new TableStrategy();
+    private BigQueryResult result;
+
+    @Setup
+    public void setUp() {
+        List<String> columns = List.of("team", "season", "games", "points", "rebounds", "assists", "win_pct", "conference");
+        List<String> types = List.of("STRING", "INT64", "INT64", "INT64", "INT64", "INT64", "FLOAT64", "STRING");
+        List<List<Object>> rows = new ArrayList<>(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            rows.add(List.of("team_" + (row % 350), 2000L + row % 20, 30L, 2000L + row % 700,
+                    1100L + row % 300, 450L + row % 200, (row % 1000) / 1000.0, "conf_" + (row % 32)));
+        }
+        result = BigQueryResult.fromCachedData(columns, types, rows);
+    }
+
+    @Benchmark
+    public byte[] copiedMapsWithObjectMapper() throws Exception {
+        List<String> columnNames = result.getColumnNames();
+        List<List<Object>> formattedRows = new ArrayList<>();
+        for (List<Object> row : result.getAllRows()) {
+            List<Object> formattedRow = new ArrayList<>();
+            for (int i = 0; i < columnNames.size(); i++) {
+                formattedRow.add(i < row.size() ? row.get(i) : null);
+            }
+            formattedRows.add(formattedRow);
+        }
+        TransformedData transformedData = new TransformedData("table");
+        transformedData.put("columns", columnNames);
+        transformedData.put("rows", formattedRows);
+
+        Map<String, Object> response = new HashMap<>(responseBody(transformedData));
+        response.put("fromCache", false);
+        return objectMapper.writeValueAsBytes(response);
+    }
+
+    @Benchmark
+    public byte[] streamedRowsWithBodyWriter() throws Exception {
+        return bodyWriter.write(responseBody(transformer.transform(result)), Map.of("fromCache", false));
+    }
+
+    private Map<String, Object> responseBody(TransformedData transformedData) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("tableData", strategy.format(transformedData));
+        response.put("message", "Here are the season totals.");
+        return response;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.ragchatbot.service.visualization;
+
+import com.example.ragchatbot.service.analysis.ResultStatsCollector;
+import com.example.ragchatbot.service.data.BigQueryResult;
+import com.example.ragchatbot.service.data.SyntheticResults;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures {@link QueryAnalyzer#analyze(String, String, BigQueryResult)} (question keywords, SQL
+ * patterns and result-shape scoring) for each result shape from 10 to 1M rows.
+ * Run with {@code ./gradlew jmh -Pjmh.includes=QueryAnalyzerBenchmark -Pjmh.profilers=gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QueryAnalyzerBenchmark {
+
+    @Param({"ranking", "trend", "multi_metric", "wide"})
+    public String shape;
+
+    @Param({"10", "1000", "100000", "1000000"})
+    public int rowCount;
+
+    private final QueryAnalyzer queryAnalyzer = new QueryAnalyzer(
+            new SqlPatternAnalyzer(), new QueryPatternDetector(), new ResultStatsCollector());
+    private BigQueryResult result;
+    private String question;
+    private String sql;
+
+    @Setup
+    public void setUp() {
+        result = SyntheticResults.of(shape, rowCount);
+        String[] questionAndSql = SyntheticResults.questionAndSql(shape);
+        question = questionAndSql[0];
+        sql = questionAndSql[1];
+    }
+
+    @Benchmark
+    public QueryIntent analyze() {
+        return queryAnalyzer.analyze(question, sql, result);
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.ragchatbot.service.visualization;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+import com.example.ragchatbot.service.data.TransformedData;
+import com.example.ragchatbot.service.data.transformer.BarChartTransformer;
+import com.example.ragchatbot.service.data.transformer.BubbleChartTransformer;
+import com.example.ragchatbot.service.data.transformer.LineChartTransformer;
+import com.example.ragchatbot.service.data.transformer.PieChartTransformer;
+import com.example.ragchatbot.service.data.transformer.ResultTransformer;
+import com.example.ragchatbot.service.data.transformer.TableTransformer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares handing transformed data to the response the way strategies used to (a copy from
+ * {@code getData()} plus another copy in {@code format}) with the read-only views they return
+ * now, for each chart type. Both variants iterate the resulting entries, as serialization does.
+ * Run with {@code ./gradlew jmh -Pjmh.includes=StrategyHandOffBenchmark -Pjmh.profilers=gc}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StrategyHandOffBenchmark {
+
+    @Param({"bar", "line", "pie", "bubble", "table"})
+    public String chartType;
+
+    private TransformedData transformedData;
+    private VisualizationStrategy strategy;
+
+    @Setup
+    public void setUp() {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int row = 0; row < 1000; row++) {
+            rows.add(List.of("team_" + (row % 300), 2000L + row, 60.0 + row % 40, 30.0 + row % 15, 10.0 + row % 9));
+        }
+        BigQueryResult result = BigQueryResult.fromCachedData(
+                List.of("team_name", "season", "points", "rebounds", "assists"),
+                List.of("STRING", "INT64", "FLOAT64", "FLOAT64", "FLOAT64"), rows);
+
+        ResultTransformer transformer = switch (chartType) {
+            case "bar" -> new BarChartTransformer();
+            case "line" -> new LineChartTransformer();
+            case "pie" -> new PieChartTransformer();
+            case "bubble" -> new BubbleChartTransformer();
+            default -> new TableTransformer();
+        };
+        strategy = switch (chartType) {
+            case "bar" -> new BarChartStrategy();
+            // Team names make the line transformer emit one series per team
+            case "line" -> new MultiLineChartStrategy();
+            case "pie" -> new PieChartStrategy();
+            case "bubble" -> new BubbleChartStrategy();
+            default -> new TableStrategy();
+        };
+        transformedData = transformer.transform(result);
+    }
+
+    @Benchmark
+    public void copiedMaps(Blackhole blackhole) {
+        Map<String, Object> graphData = new HashMap<>();
+        graphData.putAll(new HashMap<>(transformedData.getData()));
+        if (!"table".equals(chartType)) {
+            graphData.put("chartType", strategy.getChartType());
+        }
+        consume(graphData, blackhole);
+    }
+
+    @Benchmark
+    public void readOnlyView(Blackhole blackhole) {
+        consume(strategy.format(transformedData), blackhole);
+    }
+
+    private static void consume(Map<String, Object> graphData, Blackhole blackhole) {
+        for (Map.Entry<String, Object> entry : graphData.entrySet()) {
+            blackhole.consume(entry.getKey());
+            blackhole.consume(entry.getValue());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.ragchatbot.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the single-pass signature normalizer with the original regex passes.
+ * Run with {@code ./gradlew jmh -Pjmh.includes=SqlSignatureUtilBenchmark}; add
+ * {@code -Pjmh.profilers=gc} to compare allocation per operation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SqlSignatureUtilBenchmark {
+
+    private static final String SHORT_SQL =
+            "SELECT market, COUNT(*) FROM `bigquery-public-data.ncaa_basketball.mbb_teams` GROUP BY market LIMIT 10";
+
+    private static final String TYPICAL_SQL = "SELECT\n"
+            + "  full_name,\n"
+            + "  AVG(three_points_made) AS avg_three_pointers_per_game\n"
+            + "FROM\n"
+            + "  `bigquery-public-data.ncaa_basketball.mbb_players_games_sr`\n"
+            + "WHERE\n"
+            + "  season BETWEEN 2003 AND 2014\n"
+            + "  AND played = TRUE\n"
+            + "  AND team_market = 'Duke'\n"
+            + "GROUP BY\n"
+            + "  full_name,\n"
+            + "  player_id\n"
+            + "ORDER BY\n"
+            + "  avg_three_pointers_per_game DESC\n"
+            + "LIMIT\n"
+            + "  5";
+
+    @Param({"short", "typical", "large"})
+    public String size;
+
+    private String sql;
+    private SqlSignature left;
+    private SqlSignature right;
+
+    @Setup
+    public void setUp() {
+        switch (size) {
+            case "short":
+                sql = SHORT_SQL;
+                break;
+            case "typical":
+                sql = TYPICAL_SQL;
+                break;
+            default:
+                StringBuilder builder = new StringBuilder("WITH ");
+                for (int i = 0; i < 40; i++) {
+                    if (i > 0) {
+                        builder.append(",\n");
+                    }
+                    builder.append("cte_").append(i).append(" AS (")
+                            .append(TYPICAL_SQL.replace("2003", String.valueOf(1990 + i)))
+                            .append(")");
+                }
+                builder.append("\nSELECT * FROM cte_0");
+                sql = builder.toString();
+                break;
+        }
+        left = SqlSignatureUtil.signature(sql);
+        right = SqlSignatureUtil.signature(sql.replace("5", "7"));
+    }
+
+    @Benchmark
+    public String regexNormalize() {
+        return SqlSignatureUtil.normalizeWithRegex(sql.trim());
+    }
+
+    @Benchmark
+    public String singlePassNormalize() {
+        return SqlSignatureUtil.normalize(sql);
+    }
+
+    @Benchmark
+    public SqlSignature singlePassSignature() {
+        return SqlSignatureUtil.signature(sql);
+    }
+
+    @Benchmark
+    public boolean compareByText() {
+        return left.getNormalizedSql().equals(right.getNormalizedSql());
+    }
+
+    @Benchmark
+    public boolean compareByFingerprint() {
+        return left.equals(right);
+    }
+}
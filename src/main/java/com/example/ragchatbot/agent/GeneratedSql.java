@@ -0,0 +1,46 @@
+package com.example.ragchatbot.agent;
+
+/**
+ * SQL produced by the agent, with the model that wrote it (or the template it was filled from).
+ * A fast-tier or template result can still be escalated to the larger model if it turns out not
+ * to answer the question.
+ */
+public final class GeneratedSql {
+
+    private final String sql;
+    private final ModelRouter.ModelRoute route;
+    private final String escalationReason;
+
+    GeneratedSql(String sql, ModelRouter.ModelRoute route, String escalationReason) {
+        this.sql = sql;
+        this.route = route;
+        this.escalationReason = escalationReason;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public String getModel() {
+        return route.getModel();
+    }
+
+    public String getTier() {
+        return route.getTier();
+    }
+
+    /**
+     * Why the larger model was called after the fast one, or null if it was not.
+     */
+    public String getEscalationReason() {
+        return escalationReason;
+    }
+
+    /**
+     * True if this came from the fast model or a template, so a larger model is still available
+     * to retry with.
+     */
+    public boolean canEscalate() {
+        return !ModelRouter.TIER_PRO.equals(route.getTier());
+    }
+}
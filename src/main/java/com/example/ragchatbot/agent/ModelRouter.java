@@ -0,0 +1,139 @@
+package com.example.ragchatbot.agent;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Chooses the Gemini model for a question. Short, single-subject questions of the kind the
+ * prompt's rules cover directly ("top 10 scorers in 2016", "points per season for Duke") go to
+ * the fast model; questions with comparisons, conditions or several subjects go to the
+ * configured model. Length is counted in content words, ignoring greetings and stop words
+ * ("hi can you give me the ..."), since the same simple question is phrased in many ways. The
+ * agent and controller escalate a fast-model answer to the configured model when it fails
+ * validation or execution, or returns no rows.
+ */
+@Component
+public class ModelRouter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ModelRouter.class);
+
+    public static final String TIER_FAST = "fast";
+    public static final String TIER_PRO = "pro";
+    public static final String TIER_TEMPLATE = "template";
+
+    // Signals that the question needs more than one aggregation over one filtered set
+    private static final List<String> COMPLEX_MARKERS = List.of(
+            "compar", "versus", " vs ", " vs. ", "between", "correlat", "relationship",
+            "difference", "differ", "ratio", "growth", "improve", "change from", "year over year",
+            "more than", "less than", "fewer than", "at least", "at most", "without", "except",
+            "excluding", "both", "either", "neither", "whereas", "while", "but not", "only when",
+            "percentage of", "share of", "rank within", "within each", "for each", "breakdown by");
+    private static final Pattern CONJUNCTIONS = Pattern.compile("\\b(and|or)\\b");
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}']+");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "the", "of", "in", "on", "at", "to", "from", "for", "by", "with", "across", "all",
+            "based", "is", "are", "was", "were", "be", "me", "us", "i", "we", "you", "it", "this", "that",
+            "dataset", "data", "please", "hi", "hey", "hello", "can", "could", "would", "will", "give",
+            "show", "tell", "find", "list", "get", "want", "need", "what", "which", "who", "how");
+
+    private final boolean enabled;
+    private final String fastModel;
+    private final String proModel;
+    private final int maxWords;
+
+    @Autowired
+    public ModelRouter(@Value("${routing.enabled:true}") boolean enabled,
+                       @Value("${gcp.vertexai.fast-model:gemini-2.5-flash}") String fastModel,
+                       @Value("${gcp.vertexai.model:gemini-pro}") String proModel,
+                       @Value("${routing.simple.max-words:12}") int maxWords) {
+        this.enabled = enabled && fastModel != null && !fastModel.isBlank() && !fastModel.equals(proModel);
+        this.fastModel = fastModel;
+        this.proModel = proModel;
+        this.maxWords = maxWords;
+        logger.info("Model routing initialized: enabled={}, fastModel={}, proModel={}, maxWords={}",
+                this.enabled, fastModel, proModel, maxWords);
+    }
+
+    /**
+     * A router that always picks {@code model}.
+     */
+    public static ModelRouter single(String model) {
+        return new ModelRouter(false, null, model, 0);
+    }
+
+    /**
+     * @return The model and tier for the question, with the reason for the choice
+     */
+    public ModelRoute route(String question) {
+        if (!enabled) {
+            return new ModelRoute(proModel, TIER_PRO, "routing_disabled");
+        }
+        String text = " " + question.toLowerCase(Locale.ROOT).trim() + " ";
+        long words = WORD.matcher(text).results().filter(word -> !STOP_WORDS.contains(word.group())).count();
+        if (words > maxWords) {
+            return new ModelRoute(proModel, TIER_PRO, "long_question");
+        }
+        for (String marker : COMPLEX_MARKERS) {
+            if (text.contains(marker)) {
+                return new ModelRoute(proModel, TIER_PRO, "complex_question");
+            }
+        }
+        if (CONJUNCTIONS.matcher(text).results().count() > 1) {
+            return new ModelRoute(proModel, TIER_PRO, "complex_question");
+        }
+        return new ModelRoute(fastModel, TIER_FAST, "simple_question");
+    }
+
+    /**
+     * The route recorded for SQL filled from a mined template instead of generated by a model.
+     */
+    public static ModelRoute template(String templateId) {
+        return new ModelRoute("template:" + templateId, TIER_TEMPLATE, "template_match");
+    }
+
+    /**
+     * The route used when a fast-model answer is escalated.
+     */
+    public ModelRoute escalation(String reason) {
+        return new ModelRoute(proModel, TIER_PRO, reason);
+    }
+
+    /**
+     * A routing decision.
+     */
+    public static final class ModelRoute {
+        private final String model;
+        private final String tier;
+        private final String reason;
+
+        public ModelRoute(String model, String tier, String reason) {
+            this.model = model;
+            this.tier = tier;
+            this.reason = reason;
+        }
+
+        public String getModel() {
+            return model;
+        }
+
+        public String getTier() {
+            return tier;
+        }
+
+        public String getReason() {
+            return reason;
+        }
+
+        public boolean isFast() {
+            return TIER_FAST.equals(tier);
+        }
+    }
+}
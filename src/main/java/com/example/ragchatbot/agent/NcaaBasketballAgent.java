@@ -1,30 +1,33 @@
 package com.example.ragchatbot.agent;
 
 import com.example.ragchatbot.service.BigQuerySchemaService;
-import com.google.genai.Client;
-import com.google.genai.types.GenerateContentResponse;
-import jakarta.annotation.PostConstruct;
+import com.example.ragchatbot.service.client.GeminiClient;
+import com.example.ragchatbot.service.client.GeminiResponse;
+import com.example.ragchatbot.service.limit.BackendGuards;
+import com.example.ragchatbot.service.limit.BackendLimiters;
+import com.example.ragchatbot.service.limit.BackendOverloadedException;
+import com.example.ragchatbot.service.limit.CircuitOpenException;
+import com.example.ragchatbot.service.limit.DeadlineExceededException;
+import com.example.ragchatbot.service.limit.RequestDeadline;
+import com.example.ragchatbot.service.metrics.PipelineMetrics;
+import com.example.ragchatbot.service.template.SqlTemplateMatcher;
+import com.example.ragchatbot.service.template.SqlTemplateService;
+import com.example.ragchatbot.util.SqlSignatureUtil;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
+import java.util.Optional;
 
 @Component
 public class NcaaBasketballAgent {
 
     private static final Logger logger = LoggerFactory.getLogger(NcaaBasketballAgent.class);
 
-    @Value("${gcp.project-id}")
-    private String projectId;
-
-    @Value("${gcp.vertexai.location:us-central1}")
-    private String location;
-
-    @Value("${gcp.vertexai.model:gemini-pro}")
-    private String modelName;
-
     @Value("${gcp.bigquery.dataset}")
     private String datasetName;
 
@@ -32,36 +35,113 @@ public class NcaaBasketballAgent {
     private String schemaName;
 
     private final BigQuerySchemaService schemaService;
-    private Client genAiClient;
+    private final PipelineMetrics metrics;
+    private final ObservationRegistry observationRegistry;
+    private final GeminiClient geminiClient;
+    private final BackendLimiters limiters;
+    private final BackendGuards guards;
+    private final ModelRouter router;
+    private final SqlTemplateService templates;
 
-    public NcaaBasketballAgent(BigQuerySchemaService schemaService) {
+    public NcaaBasketballAgent(GeminiClient geminiClient, BackendLimiters limiters, BackendGuards guards,
+                               ModelRouter router, SqlTemplateService templates, BigQuerySchemaService schemaService,
+                               PipelineMetrics metrics, ObservationRegistry observationRegistry) {
+        this.geminiClient = geminiClient;
+        this.limiters = limiters;
+        this.guards = guards;
+        this.router = router;
+        this.templates = templates;
         this.schemaService = schemaService;
+        this.metrics = metrics;
+        this.observationRegistry = observationRegistry;
+    }
+
+    public String generateSql(String userQuery) throws IOException, InterruptedException {
+        return generate(userQuery, RequestDeadline.none()).getSql();
     }
 
-    @PostConstruct
-    public void initialize() {
-        logger.info("Initializing Vertex AI client: projectId={}, location={}, model={}", 
-                projectId, location, modelName);
+    /**
+     * Generates SQL for a question within the request's deadline. A question matching a SQL
+     * template mined from the query log is answered from the template without calling Gemini;
+     * otherwise the model {@link ModelRouter} picks is used. A fast-model answer that fails
+     * validation, or a failed fast-model call, is retried once with the configured model.
+     *
+     * @throws DeadlineExceededException if Gemini did not answer within the remaining budget
+     * @throws CircuitOpenException if Gemini calls are failing fast after repeated errors
+     */
+    public GeneratedSql generate(String userQuery, RequestDeadline deadline) throws IOException, InterruptedException {
+        Optional<GeneratedSql> fromTemplate = fromTemplate(userQuery);
+        if (fromTemplate.isPresent()) {
+            return fromTemplate.get();
+        }
+        ModelRouter.ModelRoute route = router.route(userQuery);
+        metrics.recordModelRoute(route.getTier(), route.getReason());
+        logger.debug("Model routed: model={}, tier={}, reason={}", route.getModel(), route.getTier(), route.getReason());
+        if (!route.isFast()) {
+            return new GeneratedSql(generateSql(userQuery, route, deadline), route, null);
+        }
         try {
-            // Initialize Vertex AI client using builder pattern
-            // The client will use Application Default Credentials (ADC) for authentication
-            this.genAiClient = Client.builder()
-                    .project(projectId)
-                    .location(location)
-                    .vertexAI(true)
-                    .build();
-            logger.info("Vertex AI client initialized successfully: projectId={}, location={}, model={}", 
-                    projectId, location, modelName);
-        } catch (Exception e) {
-            logger.error("Failed to initialize Vertex AI client: projectId={}, location={}, error={}", 
-                    projectId, location, e.getMessage(), e);
-            throw new RuntimeException("Failed to initialize Vertex AI client", e);
+            return new GeneratedSql(generateSql(userQuery, route, deadline), route, null);
+        } catch (BackendOverloadedException | CircuitOpenException | DeadlineExceededException e) {
+            // Retrying on the larger model would only add load or overrun the budget
+            throw e;
+        } catch (RuntimeException e) {
+            return escalate(userQuery, deadline,
+                    e.getCause() instanceof IllegalArgumentException ? "validation" : "generation_error");
         }
     }
 
-    public String generateSql(String userQuery) throws IOException, InterruptedException {
-        logger.debug("Starting SQL generation: userQueryLength={}", userQuery.length());
+    /**
+     * Generates SQL with the configured (larger) model after a fast-model answer did not work out.
+     *
+     * @param reason Why the fast model's answer was rejected, recorded in metrics and the result
+     */
+    public GeneratedSql escalate(String userQuery, RequestDeadline deadline, String reason)
+            throws IOException, InterruptedException {
+        ModelRouter.ModelRoute route = router.escalation(reason);
+        metrics.recordModelEscalation(reason);
+        logger.info("Escalating SQL generation: model={}, reason={}", route.getModel(), reason);
+        return new GeneratedSql(generateSql(userQuery, route, deadline), route, reason);
+    }
+
+    private Optional<GeneratedSql> fromTemplate(String userQuery) {
+        Optional<SqlTemplateMatcher.Match> match = templates.match(userQuery);
+        if (match.isEmpty()) {
+            return Optional.empty();
+        }
+        String sql = match.get().getSql();
+        try {
+            validateSqlCompleteness(sql);
+            validateSqlSafety(sql);
+        } catch (IllegalArgumentException e) {
+            return Optional.empty();
+        }
+        ModelRouter.ModelRoute route = ModelRouter.template(match.get().getTemplate().getId());
+        metrics.recordModelRoute(route.getTier(), route.getReason());
+        logger.info("SQL filled from template: template={}, pattern={}, sqlLength={}",
+                match.get().getTemplate().getId(), match.get().getPattern(), sql.length());
+        return Optional.of(new GeneratedSql(sql, route, null));
+    }
+
+    private String generateSql(String userQuery, ModelRouter.ModelRoute route, RequestDeadline deadline)
+            throws IOException, InterruptedException {
+        logger.debug("Starting SQL generation: userQueryLength={}, model={}", userQuery.length(), route.getModel());
         
+        Observation observation = Observation.createNotStarted("chat.sql.generation", observationRegistry)
+                .lowCardinalityKeyValue("gemini.model", route.getModel())
+                .lowCardinalityKeyValue("model.tier", route.getTier())
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            return generateSql(userQuery, route.getModel(), deadline, observation);
+        } catch (Exception e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    private String generateSql(String userQuery, String modelName, RequestDeadline deadline, Observation observation) throws IOException, InterruptedException {
         long startTime = System.currentTimeMillis();
         String schemaContext = schemaService.getSchemaContext();
         logger.debug("Schema context retrieved: schemaContextLength={}", schemaContext.length());
@@ -76,10 +156,20 @@ public class NcaaBasketballAgent {
         
         try {
             long apiCallStart = System.currentTimeMillis();
-            GenerateContentResponse response = genAiClient.models.generateContent(modelName, fullPrompt, null);
+            // Each attempt (two when hedged) takes its own limiter permit and span
+            GeminiResponse response = guards.gemini(deadline, () -> limiters.gemini(() -> Observation
+                    .createNotStarted("chat.gemini.call", observationRegistry)
+                    .lowCardinalityKeyValue("gemini.model", modelName)
+                    .observe(() -> geminiClient.generateContent(modelName, fullPrompt))));
             long apiCallTime = System.currentTimeMillis() - apiCallStart;
+            metrics.recordGeminiCall(modelName, apiCallTime);
+            metrics.recordGeminiTokens(response.getPromptTokenCount(),
+                    response.getCandidatesTokenCount(), response.getTotalTokenCount());
+            if (response.getTotalTokenCount() != null) {
+                observation.highCardinalityKeyValue("gemini.tokens", String.valueOf(response.getTotalTokenCount()));
+            }
             logger.info("Vertex AI API call completed: model={}, apiCallTimeMs={}, responseSize={}", 
-                    modelName, apiCallTime, response.text() != null ? response.text().length() : 0);
+                    modelName, apiCallTime, response.getText() != null ? response.getText().length() : 0);
             
             String sql = extractSqlFromResponse(response);
             logger.debug("SQL extracted from response: sqlLength={}", sql.length());
@@ -92,7 +182,9 @@ public class NcaaBasketballAgent {
             validateSqlSafety(sql);
             logger.debug("SQL safety validation passed: sqlLength={}", sql.length());
             
+            observation.highCardinalityKeyValue("sql.signature", SqlSignatureUtil.signature(sql).toHex());
             long totalTime = System.currentTimeMillis() - startTime;
+            metrics.recordSqlGeneration(totalTime);
             logger.info("SQL generation completed: totalTimeMs={}, apiCallTimeMs={}, sqlLength={}", 
                     totalTime, apiCallTime, sql.length());
             
@@ -104,6 +196,9 @@ public class NcaaBasketballAgent {
                 throw (IOException) e;
             } else if (e instanceof InterruptedException) {
                 throw (InterruptedException) e;
+            } else if (e instanceof BackendOverloadedException || e instanceof CircuitOpenException
+                    || e instanceof DeadlineExceededException) {
+                throw (RuntimeException) e;
             } else {
                 throw new RuntimeException("Error generating SQL", e);
             }
@@ -140,9 +235,9 @@ public class NcaaBasketballAgent {
                + "LIMIT 10\n";
     }
 
-    private String extractSqlFromResponse(GenerateContentResponse response) {
+    private String extractSqlFromResponse(GeminiResponse response) {
         // Extract text from the response
-        String text = response.text();
+        String text = response.getText();
         
         // Remove markdown code blocks if present (```sql or ``` wrappers)
         text = text.replaceAll("```sql", "").replaceAll("```", "").trim();
@@ -170,6 +265,7 @@ public class NcaaBasketballAgent {
         if (!isValid) {
             logger.error("Invalid SQL - does not start with SELECT or WITH: sqlPreview={}", 
                     sql.length() > 200 ? sql.substring(0, 200) + "..." : sql);
+            metrics.recordValidationRejection("incomplete");
             throw new IllegalArgumentException("Generated SQL is incomplete. SQL must start with SELECT or WITH. Got: " + 
                     (sql.length() > 100 ? sql.substring(0, 100) + "..." : sql));
         }
@@ -178,6 +274,7 @@ public class NcaaBasketballAgent {
         if (trimmedSql.startsWith("SELECT") && !trimmedSql.contains("FROM")) {
             logger.error("Invalid SQL - SELECT without FROM: sqlPreview={}", 
                     sql.length() > 200 ? sql.substring(0, 200) + "..." : sql);
+            metrics.recordValidationRejection("incomplete");
             throw new IllegalArgumentException("Generated SQL is incomplete. SELECT query must contain FROM clause.");
         }
         
@@ -192,6 +289,7 @@ public class NcaaBasketballAgent {
             if (upperSql.contains(keyword)) {
                 logger.warn("Unsafe SQL detected: keyword={}, sqlPreview={}", 
                         keyword, sql.length() > 200 ? sql.substring(0, 200) + "..." : sql);
+                metrics.recordValidationRejection("unsafe");
                 throw new IllegalArgumentException("Unsafe SQL detected: " + keyword + " operations are not allowed");
             }
         }
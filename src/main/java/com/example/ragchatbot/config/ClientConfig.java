@@ -0,0 +1,62 @@
+package com.example.ragchatbot.config;
+
+import com.example.ragchatbot.service.client.BigQueryClient;
+import com.example.ragchatbot.service.client.GcpBigQueryClient;
+import com.example.ragchatbot.service.client.GeminiClient;
+import com.example.ragchatbot.service.client.StubBigQueryClient;
+import com.example.ragchatbot.service.client.StubGeminiClient;
+import com.example.ragchatbot.service.client.VertexGeminiClient;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Selects the Gemini and BigQuery clients: {@code clients.mode=gcp} (default) uses Vertex AI and
+ * BigQuery, {@code clients.mode=stub} uses local stubs so the service runs without credentials.
+ */
+@Configuration
+public class ClientConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "clients.mode", havingValue = "gcp", matchIfMissing = true)
+    public GeminiClient vertexGeminiClient(@Value("${gcp.project-id}") String projectId,
+                                           @Value("${gcp.vertexai.location:us-central1}") String location) {
+        return new VertexGeminiClient(projectId, location);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "clients.mode", havingValue = "gcp", matchIfMissing = true)
+    public BigQueryClient gcpBigQueryClient() {
+        return new GcpBigQueryClient();
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "clients.mode", havingValue = "stub")
+    public GeminiClient stubGeminiClient(
+            @Value("${clients.stub.gemini.replay-file:logs/sql-queries.json}") String replayFile,
+            @Value("${clients.stub.gemini.latency-median-ms:1500}") long latencyMedianMs,
+            @Value("${clients.stub.gemini.latency-p99-ms:6000}") long latencyP99Ms,
+            @Value("${clients.stub.gemini.error-rate:0.0}") double errorRate,
+            @Value("${gcp.vertexai.fast-model:gemini-2.5-flash}") String fastModel,
+            @Value("${clients.stub.gemini.fast.latency-median-ms:500}") long fastLatencyMedianMs,
+            @Value("${clients.stub.gemini.fast.latency-p99-ms:2000}") long fastLatencyP99Ms,
+            @Value("${clients.stub.gemini.fast.invalid-rate:0.0}") double fastInvalidRate) throws IOException {
+        return new StubGeminiClient(StubGeminiClient.loadReplayEntries(Paths.get(replayFile)),
+                latencyMedianMs, latencyP99Ms, errorRate, fastModel, fastLatencyMedianMs, fastLatencyP99Ms, fastInvalidRate);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "clients.mode", havingValue = "stub")
+    public BigQueryClient stubBigQueryClient(
+            @Value("${clients.stub.bigquery.latency-median-ms:800}") long latencyMedianMs,
+            @Value("${clients.stub.bigquery.latency-p99-ms:5000}") long latencyP99Ms,
+            @Value("${clients.stub.bigquery.error-rate:0.0}") double errorRate,
+            @Value("${clients.stub.bigquery.rows-median:20}") long rowsMedian,
+            @Value("${clients.stub.bigquery.rows-p99:2000}") long rowsP99) {
+        return new StubBigQueryClient(latencyMedianMs, latencyP99Ms, errorRate, rowsMedian, rowsP99);
+    }
+}
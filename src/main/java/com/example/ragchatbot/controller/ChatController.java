@@ -1,23 +1,54 @@
 package com.example.ragchatbot.controller;
 
+import com.example.ragchatbot.agent.GeneratedSql;
 import com.example.ragchatbot.agent.NcaaBasketballAgent;
 import com.example.ragchatbot.service.BigQueryExecutionService;
+import com.example.ragchatbot.service.BigQueryJobFailedException;
+import com.example.ragchatbot.service.BigQueryTimeoutException;
 import com.example.ragchatbot.service.ChatResponseFormatter;
+import com.example.ragchatbot.service.QueryLogWriter;
 import com.example.ragchatbot.service.SqlQueryStorageService;
+import com.example.ragchatbot.service.SupersetResultService;
+import com.example.ragchatbot.service.backfill.BackfillJob;
+import com.example.ragchatbot.service.backfill.BackfillJobManager;
 import com.example.ragchatbot.service.data.BigQueryResult;
+import com.example.ragchatbot.service.data.snapshot.ResultSnapshot;
+import com.example.ragchatbot.service.engine.FollowUpService;
+import com.example.ragchatbot.service.limit.BackendGuards;
+import com.example.ragchatbot.service.limit.BackendLimiters;
+import com.example.ragchatbot.service.limit.BackendOverloadedException;
+import com.example.ragchatbot.service.limit.CircuitOpenException;
+import com.example.ragchatbot.service.limit.DeadlineExceededException;
+import com.example.ragchatbot.service.limit.RequestDeadline;
+import com.example.ragchatbot.service.metrics.PipelineMetrics;
 import com.example.ragchatbot.service.response.FormattingResult;
 import com.example.ragchatbot.service.response.QueryLogMetadataBuilder;
+import com.example.ragchatbot.service.response.RenderedResponseCache;
+import com.example.ragchatbot.service.response.ResponseBodyWriter;
+import com.example.ragchatbot.service.response.SpeculativeChartRenderer;
+import com.example.ragchatbot.service.visualization.ChartQueryRewrite;
+import com.example.ragchatbot.service.visualization.ChartQueryRewriter;
+import com.example.ragchatbot.util.SqlSignatureUtil;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import jakarta.servlet.http.HttpServletRequest;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.slf4j.MDC;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api")
@@ -37,14 +68,55 @@ public class ChatController {
     @Autowired
     private SqlQueryStorageService sqlQueryStorageService;
 
+    @Autowired
+    private BackfillJobManager backfillJobManager;
+
+    @Autowired
+    private QueryLogWriter queryLogWriter;
+
+    @Autowired
+    private RenderedResponseCache renderedResponseCache;
+
+    @Autowired
+    private ResponseBodyWriter responseBodyWriter;
+
+    @Autowired
+    private ChartQueryRewriter chartQueryRewriter;
+
+    @Autowired
+    private SpeculativeChartRenderer speculativeChartRenderer;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Autowired
+    private ObservationRegistry observationRegistry;
+
+    @Autowired
+    private BackendLimiters backendLimiters;
+
+    @Autowired
+    private BackendGuards backendGuards;
+
+    @Autowired
+    private SupersetResultService supersetResults;
+
+    @Autowired
+    private FollowUpService followUps;
+
     @PostMapping("/chat")
-    public ResponseEntity<Map<String, Object>> chat(
+    public ResponseEntity<?> chat(
             @RequestBody Map<String, String> request,
             HttpServletRequest httpRequest) {
         
         String requestId = UUID.randomUUID().toString();
         MDC.put("requestId", requestId);
         long startTime = System.currentTimeMillis();
+        // The HTTP server span is the trace root; tag it so traces and request logs can be joined
+        Observation requestObservation = observationRegistry.getCurrentObservation();
+        if (requestObservation != null) {
+            requestObservation.highCardinalityKeyValue("chat.request.id", requestId);
+        }
         
         try {
             logger.info("Received chat request: requestId={}, remoteAddr={}, userAgent={}", 
@@ -61,75 +133,191 @@ public class ChatController {
             logger.info("Processing query: requestId={}, queryLength={}, queryPreview={}", 
                     requestId, query.length(), query.length() > 100 ? query.substring(0, 100) + "..." : query);
 
-            // Check cache by user query text (before generating SQL)
-            Map<String, Object> cachedQuery = sqlQueryStorageService.findCachedResultsByQuery(query);
+            // "Sort by rebounds" after an earlier answer: evaluated over that answer's rows in process
+            String previousResponseId = request.get("previousResponseId");
+            if (previousResponseId != null) {
+                Optional<FollowUpService.FollowUpAnswer> followUp = followUps.answer(previousResponseId, query);
+                if (followUp.isPresent()) {
+                    return answerFollowUp(requestId, query, previousResponseId, followUp.get(), startTime);
+                }
+            }
+
+            // Identical question answered by the current pipeline: return the stored body as-is
+            Optional<byte[]> rendered = lookupCache("rendered", () -> renderedResponseCache.get(query), Optional::isPresent);
+            metrics.recordCacheLookup("rendered", rendered.isPresent());
+            if (rendered.isPresent()) {
+                Optional<String> responseId = followUps.registerStored(query);
+                byte[] body = responseId.isPresent()
+                        ? responseBodyWriter.withField(rendered.get(), "responseId", responseId.get()) : rendered.get();
+                long totalTime = System.currentTimeMillis() - startTime;
+                metrics.recordChatRequest("rendered", totalTime);
+                logger.info("Request completed from rendered cache: requestId={}, totalTimeMs={}, bytes={}",
+                        requestId, totalTime, body.length);
+                return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+            }
+
+            // Check cache by user query text (before generating SQL); mapped snapshots first
+            Optional<ResultSnapshot> cachedSnapshot = lookupCache("snapshot",
+                    () -> sqlQueryStorageService.findCachedSnapshot(query), Optional::isPresent);
+            Map<String, Object> cachedQuery = cachedSnapshot.isPresent()
+                    ? null : lookupCache("results", () -> sqlQueryStorageService.findCachedResultsByQuery(query), r -> r != null);
+            metrics.recordCacheLookup("results", cachedSnapshot.isPresent() || cachedQuery != null);
             Map<String, Object> response;
+            Optional<Map<String, Object>> alternates;
+            Optional<String> responseId;
+            boolean fromCache;
             long queryTime;
             
-            if (cachedQuery != null) {
+            if (cachedSnapshot.isPresent() || cachedQuery != null) {
                 // Cache hit - use cached results (skip SQL generation)
-                logger.info("Using cached results: requestId={}", requestId);
+                logger.info("Using cached results: requestId={}, snapshot={}", requestId, cachedSnapshot.isPresent());
                 queryTime = 0;
                 
-                Map<String, Object> cachedResults = sqlQueryStorageService.getCachedResults(cachedQuery);
-                
-                // Get cached SQL for logging
-                String cachedSql = (String) cachedQuery.get("sql");
-                
                 // Format response using cached data
                 long formatStart = System.currentTimeMillis();
-                FormattingResult formattingResult = formatter.formatResponseFromCache(query, cachedSql, cachedResults);
-                response = new HashMap<>(formattingResult.getResponseBody());
+                FormattingResult formattingResult;
+                if (cachedSnapshot.isPresent()) {
+                    formattingResult = formatter.formatResponseFromSnapshot(query, cachedSnapshot.get());
+                } else {
+                    Map<String, Object> cachedResults = sqlQueryStorageService.getCachedResults(cachedQuery);
+                    String cachedSql = (String) cachedQuery.get("sql");
+                    formattingResult = formatter.formatResponseFromCache(query, cachedSql, cachedResults);
+                }
+                response = formattingResult.getResponseBody();
+                alternates = formattingResult.getAlternates();
                 long formatTime = System.currentTimeMillis() - formatStart;
-                
-                // Add cache indicator to response
-                response.put("fromCache", true);
+                metrics.recordFormat(formatTime);
+                responseId = followUps.registerStored(query);
+                fromCache = true;
                 
                 long totalTime = System.currentTimeMillis() - startTime;
+                metrics.recordChatRequest(cachedSnapshot.isPresent() ? "snapshot" : "cache", totalTime);
                 logger.info("Request completed from cache: requestId={}, totalTimeMs={}, formatTimeMs={}", 
                         requestId, totalTime, formatTime);
             } else {
                 // Cache miss - generate SQL and execute BigQuery
                 logger.info("Cache miss, generating SQL and executing BigQuery: requestId={}", requestId);
+                // A backend just hit its concurrency limit: serve cached answers only until it recovers
+                backendLimiters.rejectWhileShedding();
+                // Gemini and BigQuery share one time budget, counted from when the request arrived
+                RequestDeadline deadline = backendGuards.newDeadline(startTime);
                 
-                // Generate SQL using ADK agent
+                // Generate SQL using ADK agent; templated questions skip Gemini, simple ones go to the fast model
                 long sqlGenStart = System.currentTimeMillis();
-                String sql = agent.generateSql(query);
+                GeneratedSql generated = agent.generate(query, deadline);
                 long sqlGenTime = System.currentTimeMillis() - sqlGenStart;
-                logger.info("SQL generated: requestId={}, sqlGenerationTimeMs={}, sqlLength={}, sqlPreview={}", 
-                        requestId, sqlGenTime, sql.length(), sql.length() > 200 ? sql.substring(0, 200) + "..." : sql);
-                
+                logger.info("SQL generated: requestId={}, model={}, sqlGenerationTimeMs={}, sqlLength={}, sqlPreview={}", 
+                        requestId, generated.getModel(), sqlGenTime, generated.getSql().length(),
+                        generated.getSql().length() > 200 ? generated.getSql().substring(0, 200) + "..." : generated.getSql());
+
                 long queryStart = System.currentTimeMillis();
-                BigQueryResult bigQueryResult = bigQueryService.executeQueryRich(sql);
+                LiveQuery live;
+                try {
+                    live = executeLive(requestId, query, generated.getSql(), deadline);
+                } catch (BigQueryJobFailedException e) {
+                    if (!generated.canEscalate()) {
+                        throw e;
+                    }
+                    logger.warn("{}-tier SQL failed in BigQuery, escalating: requestId={}, error={}",
+                            generated.getTier(), requestId, e.getMessage());
+                    generated = agent.escalate(query, deadline, "execution");
+                    live = executeLive(requestId, query, generated.getSql(), deadline);
+                }
+                // An empty answer from the fast model or a template is treated as low confidence
+                if (live.result.getRowCount() == 0 && generated.canEscalate()) {
+                    logger.info("{}-tier SQL returned no rows, escalating: requestId={}", generated.getTier(), requestId);
+                    generated = agent.escalate(query, deadline, "empty_result");
+                    live = executeLive(requestId, query, generated.getSql(), deadline);
+                }
+                BigQueryResult bigQueryResult = live.result;
                 queryTime = System.currentTimeMillis() - queryStart;
                 logger.info("Query executed: requestId={}, queryExecutionTimeMs={}, rowCount={}, columnCount={}", 
                         requestId, queryTime, bigQueryResult.getRowCount(), bigQueryResult.getColumnCount());
 
                 // Format response using new transformer pipeline with SQL analysis
                 long formatStart = System.currentTimeMillis();
-                FormattingResult formattingResult = formatter.formatResponse(query, sql, bigQueryResult);
-                response = new HashMap<>(formattingResult.getResponseBody());
+                // Intent is analyzed on the generated SQL, which reflects the question
+                FormattingResult formattingResult = formatter.formatResponse(query, live.sql, bigQueryResult);
+                response = formattingResult.getResponseBody();
+                alternates = formattingResult.getAlternates();
                 long formatTime = System.currentTimeMillis() - formatStart;
+                metrics.recordFormat(formatTime);
 
-                Map<String, Object> metadata = QueryLogMetadataBuilder.build(sql, formattingResult);
-                sqlQueryStorageService.storeQuery(query, sql, bigQueryResult, metadata);
+                // Logged with the SQL that produced the results; the generated SQL is kept in metadata
+                Map<String, Object> metadata = QueryLogMetadataBuilder.build(live.executedSql, formattingResult);
+                live.rewrite.ifPresent(r -> metadata.put("chartRewrite", r.toMap()));
+                metadata.put("model", generated.getModel());
+                if (generated.getEscalationReason() != null) {
+                    metadata.put("modelEscalation", generated.getEscalationReason());
+                }
+                if (live.derivedFrom != null) {
+                    metadata.put("derivedFrom", SqlSignatureUtil.signature(live.derivedFrom).toHex());
+                }
+                // Persisted in the background; the response never waits on disk I/O
+                queryLogWriter.enqueue(query, live.executedSql, bigQueryResult, metadata);
 
-                response.put("fromCache", false);
+                // A chart rewrite folds rows into "Other", which follow-ups would count as a category
+                responseId = live.rewrite.isPresent()
+                        ? Optional.empty() : followUps.register(live.executedSql, bigQueryResult);
+                fromCache = false;
                 
                 long totalTime = System.currentTimeMillis() - startTime;
-                logger.info("Request completed successfully: requestId={}, totalTimeMs={}, sqlGenTimeMs={}, queryTimeMs={}, formatTimeMs={}", 
-                        requestId, totalTime, sqlGenTime, queryTime, formatTime);
+                metrics.recordChatRequest(live.derivedFrom != null ? "derived" : "live", totalTime);
+                logger.info("Request completed successfully: requestId={}, totalTimeMs={}, sqlGenTimeMs={}, queryTimeMs={}, formatTimeMs={}, model={}", 
+                        requestId, totalTime, sqlGenTime, queryTime, formatTime, generated.getModel());
             }
 
-            return ResponseEntity.ok(response);
+            // Serialized once here. The cached copy and this response differ only in fields added in
+            // front of those bytes: alternates handles expire and response ids are per response, so
+            // the cached copy carries neither.
+            byte[] serialized = responseBodyWriter.write(response, Map.of());
+            renderedResponseCache.put(query, responseBodyWriter.withField(serialized, "fromCache", true));
+            byte[] body = responseBodyWriter.withField(serialized, "fromCache", fromCache);
+            if (alternates.isPresent()) {
+                body = responseBodyWriter.withField(body, "alternates", alternates.get());
+            }
+            if (responseId.isPresent()) {
+                body = responseBodyWriter.withField(body, "responseId", responseId.get());
+            }
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
 
+        } catch (BackendOverloadedException e) {
+            long totalTime = System.currentTimeMillis() - startTime;
+            metrics.recordChatRequest("shed", totalTime);
+            logger.warn("Request shed under load: requestId={}, backend={}, totalTimeMs={}",
+                    requestId, e.getBackend(), totalTime);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", "The service is busy. Previously answered questions are still available; please retry shortly.");
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(backendLimiters.getRetryAfterSeconds()))
+                    .body(errorResponse);
+        } catch (CircuitOpenException e) {
+            long totalTime = System.currentTimeMillis() - startTime;
+            metrics.recordChatRequest("unavailable", totalTime);
+            logger.warn("Request failed fast, circuit open: requestId={}, backend={}, totalTimeMs={}",
+                    requestId, e.getBackend(), totalTime);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", "The service is temporarily unavailable. Previously answered questions are still available; please retry shortly.");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+                    .body(errorResponse);
+        } catch (DeadlineExceededException | BigQueryTimeoutException e) {
+            long totalTime = System.currentTimeMillis() - startTime;
+            metrics.recordChatRequest("timeout", totalTime);
+            logger.warn("Request exceeded its deadline: requestId={}, error={}, totalTimeMs={}",
+                    requestId, e.getMessage(), totalTime);
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("message", "The question took too long to answer; please retry or simplify it.");
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body(errorResponse);
         } catch (IllegalArgumentException e) {
+            metrics.recordChatRequest("rejected", System.currentTimeMillis() - startTime);
             logger.error("Invalid request: requestId={}, error={}", requestId, e.getMessage(), e);
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("message", "Invalid request: " + e.getMessage());
             return ResponseEntity.badRequest().body(errorResponse);
         } catch (Exception e) {
             long totalTime = System.currentTimeMillis() - startTime;
+            metrics.recordChatRequest("error", totalTime);
             logger.error("Error processing query: requestId={}, error={}, totalTimeMs={}", 
                     requestId, e.getMessage(), totalTime, e);
             Map<String, Object> errorResponse = new HashMap<>();
@@ -140,35 +328,172 @@ public class ChatController {
         }
     }
 
+    /**
+     * Returns a chart type rendered speculatively for an earlier chat response, or 404 once the
+     * handle has expired (the client then asks the chat endpoint again).
+     */
+    @GetMapping("/chat/alternates/{handle}/{chartType}")
+    public ResponseEntity<Map<String, Object>> getAlternateChart(@PathVariable String handle,
+                                                                 @PathVariable String chartType) {
+        return speculativeChartRenderer.getAlternate(handle, chartType)
+                .map(graphData -> {
+                    Map<String, Object> response = new HashMap<>();
+                    response.put("graphData", graphData);
+                    response.put("fromCache", true);
+                    return ResponseEntity.ok(response);
+                })
+                .orElseGet(() -> {
+                    Map<String, Object> errorResponse = new HashMap<>();
+                    errorResponse.put("message", "No alternate chart available: " + chartType);
+                    return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+                });
+    }
+
+    /**
+     * Starts a background backfill of stored queries that lack results.
+     * Returns 202 with the job id, or 409 with the active job if one is already running.
+     */
     @PostMapping("/queries/process")
     public ResponseEntity<Map<String, Object>> processQueries(HttpServletRequest httpRequest) {
         String requestId = UUID.randomUUID().toString();
         MDC.put("requestId", requestId);
-        long startTime = System.currentTimeMillis();
         
         try {
             logger.info("Received process queries request: requestId={}, remoteAddr={}", 
                     requestId, httpRequest.getRemoteAddr());
             
-            Map<String, Object> stats = sqlQueryStorageService.processQueriesAndUpdateResults();
-            
-            long totalTime = System.currentTimeMillis() - startTime;
-            stats.put("processingTimeMs", totalTime);
-            logger.info("Query processing completed: requestId={}, totalTimeMs={}, stats={}", 
-                    requestId, totalTime, stats);
-            
-            return ResponseEntity.ok(stats);
+            Optional<BackfillJob> submitted = backfillJobManager.submit();
+            if (submitted.isEmpty()) {
+                Map<String, Object> conflict = new HashMap<>();
+                conflict.put("message", "A query processing job is already running");
+                backfillJobManager.getActiveJob().ifPresent(job -> conflict.put("jobId", job.getId()));
+                logger.warn("Process queries request rejected, job already active: requestId={}", requestId);
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(conflict);
+            }
+
+            BackfillJob job = submitted.get();
+            Map<String, Object> response = job.toMap();
+            response.put("statusUrl", "/api/queries/process/" + job.getId());
+            logger.info("Query processing job started: requestId={}, jobId={}", requestId, job.getId());
+            return ResponseEntity.accepted().body(response);
         } catch (Exception e) {
-            long totalTime = System.currentTimeMillis() - startTime;
-            logger.error("Error processing queries: requestId={}, error={}, totalTimeMs={}", 
-                    requestId, e.getMessage(), totalTime, e);
+            logger.error("Error starting query processing: requestId={}, error={}", requestId, e.getMessage(), e);
             Map<String, Object> errorResponse = new HashMap<>();
             errorResponse.put("message", "Error processing queries: " + e.getMessage());
-            errorResponse.put("processingTimeMs", totalTime);
             return ResponseEntity.internalServerError().body(errorResponse);
         } finally {
             MDC.clear();
         }
     }
-}
 
+    /**
+     * Reports status, progress, throughput, failures and ETA of a backfill job.
+     */
+    @GetMapping("/queries/process/{jobId}")
+    public ResponseEntity<Map<String, Object>> getProcessQueriesJob(@PathVariable String jobId) {
+        return backfillJobManager.getJob(jobId)
+                .map(job -> ResponseEntity.ok(job.toMap()))
+                .orElseGet(() -> jobNotFound(jobId));
+    }
+
+    /**
+     * Cancels a backfill job. Results already checkpointed are kept.
+     */
+    @DeleteMapping("/queries/process/{jobId}")
+    public ResponseEntity<Map<String, Object>> cancelProcessQueriesJob(@PathVariable String jobId) {
+        return backfillJobManager.cancel(jobId)
+                .map(job -> ResponseEntity.status(HttpStatus.ACCEPTED).body(job.toMap()))
+                .orElseGet(() -> jobNotFound(jobId));
+    }
+
+    /**
+     * Formats a follow-up answered from a previous result. Its meaning depends on that result,
+     * so it is neither cached nor logged under the question text; it gets a response id of its
+     * own so follow-ups can be chained.
+     */
+    private ResponseEntity<?> answerFollowUp(String requestId, String query, String previousResponseId,
+                                             FollowUpService.FollowUpAnswer answer, long startTime) throws IOException {
+        long formatStart = System.currentTimeMillis();
+        FormattingResult formattingResult = formatter.formatResponse(query, answer.getSql(), answer.getResult());
+        long formatTime = System.currentTimeMillis() - formatStart;
+        metrics.recordFormat(formatTime);
+
+        Map<String, Object> overrides = new HashMap<>();
+        overrides.put("fromCache", false);
+        formattingResult.getAlternates().ifPresent(descriptor -> overrides.put("alternates", descriptor));
+        followUps.register(answer.getSql(), answer.getResult()).ifPresent(id -> overrides.put("responseId", id));
+        byte[] body = responseBodyWriter.write(formattingResult.getResponseBody(), overrides);
+
+        long totalTime = System.currentTimeMillis() - startTime;
+        metrics.recordChatRequest("followup", totalTime);
+        logger.info("Request completed from previous result: requestId={}, previousResponseId={}, totalTimeMs={}, formatTimeMs={}, rowCount={}",
+                requestId, previousResponseId, totalTime, formatTime, answer.getResult().getRowCount());
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    /**
+     * Rewrites generated SQL for its chart where possible and runs it within the request's deadline,
+     * unless a stored result contains the answer.
+     */
+    private LiveQuery executeLive(String requestId, String query, String sql, RequestDeadline deadline)
+            throws InterruptedException {
+        // Bar/pie-shaped queries return only the top categories plus "Other"
+        Optional<ChartQueryRewrite> rewrite = chartQueryRewriter.rewrite(query, sql);
+        String executedSql = rewrite.map(ChartQueryRewrite::getSql).orElse(sql);
+        rewrite.ifPresent(r -> logger.info("SQL rewritten for chart: requestId={}, chartType={}, maxCategories={}",
+                requestId, r.getChartType(), r.getMaxCategories()));
+        // "Top 5" after a stored "top 10" with the same filters is sliced locally, not re-run
+        Optional<SupersetResultService.DerivedResult> derived = supersetResults.derive(executedSql);
+        if (derived.isPresent()) {
+            logger.info("Result derived from stored superset: requestId={}, sourceSignature={}, rowCount={}",
+                    requestId, SqlSignatureUtil.signature(derived.get().getSourceSql()).toHex(),
+                    derived.get().getResult().getRowCount());
+            return new LiveQuery(sql, executedSql, rewrite, derived.get().getResult(), derived.get().getSourceSql());
+        }
+        BigQueryResult result = bigQueryService.executeQueryRich(executedSql, backendGuards.bigQueryTimeoutMs(deadline));
+        return new LiveQuery(sql, executedSql, rewrite, result, null);
+    }
+
+    private <T> T lookupCache(String cache, Supplier<T> lookup, Predicate<T> hit) {
+        Observation observation = Observation.createNotStarted("chat.cache.lookup", observationRegistry)
+                .lowCardinalityKeyValue("cache", cache)
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            T value = lookup.get();
+            observation.lowCardinalityKeyValue("cache.hit", String.valueOf(hit.test(value)));
+            return value;
+        } catch (RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    private ResponseEntity<Map<String, Object>> jobNotFound(String jobId) {
+        Map<String, Object> errorResponse = new HashMap<>();
+        errorResponse.put("message", "Unknown job: " + jobId);
+        return ResponseEntity.status(HttpStatus.NOT_FOUND).body(errorResponse);
+    }
+
+    /**
+     * Generated SQL, the SQL actually run for it, and the result, with the stored SQL the result
+     * was derived from when no BigQuery job ran.
+     */
+    private static final class LiveQuery {
+        private final String sql;
+        private final String executedSql;
+        private final Optional<ChartQueryRewrite> rewrite;
+        private final BigQueryResult result;
+        private final String derivedFrom;
+
+        LiveQuery(String sql, String executedSql, Optional<ChartQueryRewrite> rewrite, BigQueryResult result,
+                  String derivedFrom) {
+            this.sql = sql;
+            this.executedSql = executedSql;
+            this.rewrite = rewrite;
+            this.result = result;
+            this.derivedFrom = derivedFrom;
+        }
+    }
+}
@@ -1,15 +1,17 @@
 package com.example.ragchatbot.service;
 
+import com.example.ragchatbot.service.client.BigQueryClient;
+import com.example.ragchatbot.service.client.BigQueryJob;
 import com.example.ragchatbot.service.data.BigQueryResult;
-import com.google.cloud.bigquery.BigQuery;
-import com.google.cloud.bigquery.BigQueryOptions;
-import com.google.cloud.bigquery.Job;
-import com.google.cloud.bigquery.JobId;
-import com.google.cloud.bigquery.JobInfo;
-import com.google.cloud.bigquery.QueryJobConfiguration;
-import com.google.cloud.bigquery.TableResult;
+import com.example.ragchatbot.service.limit.BackendGuards;
+import com.example.ragchatbot.service.limit.BackendLimiters;
+import com.example.ragchatbot.service.metrics.PipelineMetrics;
+import com.example.ragchatbot.util.SqlSignatureUtil;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -21,14 +23,28 @@ public class BigQueryExecutionService {
 
     private static final Logger logger = LoggerFactory.getLogger(BigQueryExecutionService.class);
 
-    private final BigQuery bigQuery;
+    private final BigQueryClient bigQuery;
+    private final BackendLimiters limiters;
+    private final BackendGuards guards;
+    private final PipelineMetrics metrics;
+    private final ObservationRegistry observationRegistry;
 
-    public BigQueryExecutionService() {
-        logger.info("Initializing BigQuery service");
-        this.bigQuery = BigQueryOptions.getDefaultInstance().getService();
+    @Autowired
+    public BigQueryExecutionService(BigQueryClient bigQuery, BackendLimiters limiters, BackendGuards guards,
+                                    PipelineMetrics metrics, ObservationRegistry observationRegistry) {
+        logger.info("Initializing BigQuery service: client={}", bigQuery.getClass().getSimpleName());
+        this.bigQuery = bigQuery;
+        this.limiters = limiters;
+        this.guards = guards;
+        this.metrics = metrics;
+        this.observationRegistry = observationRegistry;
         logger.info("BigQuery service initialized successfully");
     }
 
+    public BigQueryExecutionService(BigQueryClient bigQuery, PipelineMetrics metrics, ObservationRegistry observationRegistry) {
+        this(bigQuery, BackendLimiters.unlimited(), BackendGuards.disabled(), metrics, observationRegistry);
+    }
+
     public List<List<Object>> executeQuery(String sql) throws InterruptedException {
         long startTime = System.currentTimeMillis();
         String jobId = UUID.randomUUID().toString();
@@ -36,57 +52,45 @@ public class BigQueryExecutionService {
                 jobId, sql.length(), sql.length() > 200 ? sql.substring(0, 200) + "..." : sql);
         
         try {
-            QueryJobConfiguration queryConfig = QueryJobConfiguration.newBuilder(sql)
-                    .setUseLegacySql(false)
-                    .build();
-
-            JobId bigQueryJobId = JobId.of(jobId);
             long jobCreateStart = System.currentTimeMillis();
-            Job queryJob = bigQuery.create(JobInfo.newBuilder(queryConfig).setJobId(bigQueryJobId).build());
+            BigQueryJob queryJob = bigQuery.submit(jobId, sql, 0);
             long jobCreateTime = System.currentTimeMillis() - jobCreateStart;
             logger.debug("BigQuery job created: jobId={}, jobCreateTimeMs={}", jobId, jobCreateTime);
 
             // Wait for the query to complete
             long waitStart = System.currentTimeMillis();
-            queryJob = queryJob.waitFor();
+            queryJob.await(0);
             long waitTime = System.currentTimeMillis() - waitStart;
             logger.debug("BigQuery job completed: jobId={}, waitTimeMs={}", jobId, waitTime);
-
-            if (queryJob == null) {
-                logger.error("BigQuery job no longer exists: jobId={}", jobId);
-                throw new RuntimeException("Job no longer exists");
-            }
+            metrics.recordBigQueryWait(waitTime);
             
-            var error = queryJob.getStatus().getError();
+            String error = queryJob.getError();
             if (error != null) {
-                logger.error("BigQuery query failed: jobId={}, error={}", jobId, error.toString());
-                throw new RuntimeException("Query failed: " + error.toString());
+                logger.error("BigQuery query failed: jobId={}, error={}", jobId, error);
+                throw new BigQueryJobFailedException("Query failed: " + error);
             }
 
+            metrics.recordBigQueryBytesProcessed(queryJob.getTotalBytesProcessed());
             long resultStart = System.currentTimeMillis();
-            TableResult result = queryJob.getQueryResults();
-            
-            List<List<Object>> rows = new ArrayList<>();
-            result.iterateAll().forEach(row -> {
-                List<Object> rowData = new ArrayList<>();
-                row.forEach(fieldValue -> rowData.add(fieldValue.getValue()));
-                rows.add(rowData);
-            });
+            List<List<Object>> rows = new ArrayList<>(queryJob.fetchResults().getAllRows());
             long resultTime = System.currentTimeMillis() - resultStart;
             
             long totalTime = System.currentTimeMillis() - startTime;
             logger.info("BigQuery query executed successfully: jobId={}, totalTimeMs={}, waitTimeMs={}, resultTimeMs={}, rowCount={}", 
                     jobId, totalTime, waitTime, resultTime, rows.size());
+            metrics.recordBigQuery("success", totalTime);
 
             return rows;
         } catch (InterruptedException e) {
             long totalTime = System.currentTimeMillis() - startTime;
             logger.error("BigQuery query interrupted: jobId={}, totalTimeMs={}", jobId, totalTime, e);
+            metrics.recordBigQuery("interrupted", totalTime);
             throw e;
         } catch (Exception e) {
             long totalTime = System.currentTimeMillis() - startTime;
             logger.error("BigQuery query execution failed: jobId={}, error={}, totalTimeMs={}", 
                     jobId, e.getMessage(), totalTime, e);
+            metrics.recordBigQuery(e instanceof BigQueryTimeoutException ? "timeout" : "failure", totalTime);
             throw e;
         }
     }
@@ -97,35 +101,19 @@ public class BigQueryExecutionService {
         logger.debug("Getting column names: jobId={}, sqlLength={}", jobId, sql.length());
         
         try {
-            QueryJobConfiguration queryConfig = QueryJobConfiguration.newBuilder(sql)
-                    .setUseLegacySql(false)
-                    .build();
-
-            JobId bigQueryJobId = JobId.of(jobId);
-            Job queryJob = bigQuery.create(JobInfo.newBuilder(queryConfig).setJobId(bigQueryJobId).build());
+            BigQueryJob queryJob = bigQuery.submit(jobId, sql, 0);
             logger.debug("BigQuery job created for column names: jobId={}", jobId);
 
-            queryJob = queryJob.waitFor();
-
-            if (queryJob == null) {
-                logger.error("BigQuery job no longer exists: jobId={}", jobId);
-                throw new RuntimeException("Job no longer exists");
-            }
+            queryJob.await(0);
             
-            var error = queryJob.getStatus().getError();
+            String error = queryJob.getError();
             if (error != null) {
                 logger.error("BigQuery query failed while getting column names: jobId={}, error={}", 
-                        jobId, error.toString());
-                throw new RuntimeException("Query failed: " + error.toString());
+                        jobId, error);
+                throw new BigQueryJobFailedException("Query failed: " + error);
             }
 
-            TableResult result = queryJob.getQueryResults();
-            List<String> columnNames = new ArrayList<>();
-            
-            var schema = result.getSchema();
-            if (schema != null && schema.getFields() != null) {
-                schema.getFields().forEach(field -> columnNames.add(field.getName()));
-            }
+            List<String> columnNames = new ArrayList<>(queryJob.fetchResults().getColumnNames());
 
             long totalTime = System.currentTimeMillis() - startTime;
             logger.debug("Column names retrieved: jobId={}, columnCount={}, totalTimeMs={}", 
@@ -150,59 +138,128 @@ public class BigQueryExecutionService {
      * @throws InterruptedException if the query execution is interrupted
      */
     public BigQueryResult executeQueryRich(String sql) throws InterruptedException {
+        return executeQueryRich(sql, 0);
+    }
+
+    /**
+     * Executes a BigQuery SQL query with a deadline. The timeout is sent to BigQuery as the job
+     * timeout (so the server stops the job) and also bounds the client-side wait; a job still
+     * running when the wait ends is cancelled.
+     *
+     * @param sql The SQL query to execute
+     * @param timeoutMs Maximum job duration in milliseconds, or 0 for no limit
+     * @return BigQueryResult wrapper containing the TableResult and metadata
+     * @throws InterruptedException if the query execution is interrupted
+     * @throws BigQueryTimeoutException if the job does not finish within the timeout
+     * @throws com.example.ragchatbot.service.limit.BackendOverloadedException if the BigQuery
+     *         concurrency limit is saturated; no job was submitted
+     * @throws com.example.ragchatbot.service.limit.CircuitOpenException if BigQuery calls are
+     *         failing fast after repeated errors; no job was submitted
+     */
+    public BigQueryResult executeQueryRich(String sql, long timeoutMs) throws InterruptedException {
+        // The permit is held from submission until the first page is fetched
+        return guards.bigQuery(() -> limiters.bigQuery(() -> execute(sql, timeoutMs)));
+    }
+
+    /**
+     * Executes a query for background work (backfill, template mining). It is limited and guarded
+     * like a chat query, but being turned away by the concurrency limit does not make the chat
+     * endpoint shed load.
+     *
+     * @param sql The SQL query to execute
+     * @param timeoutMs Maximum job duration in milliseconds, or 0 for no limit
+     * @throws com.example.ragchatbot.service.limit.BackendOverloadedException if the BigQuery
+     *         concurrency limit is saturated; no job was submitted
+     */
+    public BigQueryResult executeBackgroundQueryRich(String sql, long timeoutMs) throws InterruptedException {
+        return guards.bigQuery(() -> limiters.backgroundBigQuery(() -> execute(sql, timeoutMs)));
+    }
+
+    private BigQueryResult execute(String sql, long timeoutMs) throws InterruptedException {
         long startTime = System.currentTimeMillis();
         String jobId = UUID.randomUUID().toString();
-        logger.info("Executing BigQuery query (rich): jobId={}, sqlLength={}, sqlPreview={}", 
-                jobId, sql.length(), sql.length() > 200 ? sql.substring(0, 200) + "..." : sql);
+        logger.info("Executing BigQuery query (rich): jobId={}, sqlLength={}, timeoutMs={}, sqlPreview={}", 
+                jobId, sql.length(), timeoutMs, sql.length() > 200 ? sql.substring(0, 200) + "..." : sql);
         
-        try {
-            QueryJobConfiguration queryConfig = QueryJobConfiguration.newBuilder(sql)
-                    .setUseLegacySql(false)
-                    .build();
-
-            JobId bigQueryJobId = JobId.of(jobId);
+        // Job create, wait and first-page fetch are child spans; later pages load lazily while formatting
+        Observation observation = Observation.createNotStarted("chat.bigquery.query", observationRegistry)
+                .highCardinalityKeyValue("sql.signature", SqlSignatureUtil.signature(sql).toHex())
+                .highCardinalityKeyValue("bigquery.job.id", jobId)
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
             long jobCreateStart = System.currentTimeMillis();
-            Job queryJob = bigQuery.create(JobInfo.newBuilder(queryConfig).setJobId(bigQueryJobId).build());
+            BigQueryJob queryJob = stage("chat.bigquery.job.create")
+                    .observe(() -> bigQuery.submit(jobId, sql, timeoutMs));
             long jobCreateTime = System.currentTimeMillis() - jobCreateStart;
             logger.debug("BigQuery job created: jobId={}, jobCreateTimeMs={}", jobId, jobCreateTime);
 
             // Wait for the query to complete
             long waitStart = System.currentTimeMillis();
-            queryJob = queryJob.waitFor();
+            boolean done = stage("chat.bigquery.job.wait")
+                    .observeChecked(() -> queryJob.await(timeoutMs > 0 ? remaining(startTime, timeoutMs) : 0));
             long waitTime = System.currentTimeMillis() - waitStart;
             logger.debug("BigQuery job completed: jobId={}, waitTimeMs={}", jobId, waitTime);
+            metrics.recordBigQueryWait(waitTime);
 
-            if (queryJob == null) {
-                logger.error("BigQuery job no longer exists: jobId={}", jobId);
-                throw new RuntimeException("Job no longer exists");
+            if (!done) {
+                throw timedOut(jobId, timeoutMs);
             }
             
-            var error = queryJob.getStatus().getError();
+            String error = queryJob.getError();
             if (error != null) {
-                logger.error("BigQuery query failed: jobId={}, error={}", jobId, error.toString());
-                throw new RuntimeException("Query failed: " + error.toString());
+                logger.error("BigQuery query failed: jobId={}, error={}", jobId, error);
+                throw new BigQueryJobFailedException("Query failed: " + error);
             }
 
+            metrics.recordBigQueryBytesProcessed(queryJob.getTotalBytesProcessed());
             long resultStart = System.currentTimeMillis();
-            TableResult tableResult = queryJob.getQueryResults();
-            BigQueryResult result = new BigQueryResult(tableResult);
+            BigQueryResult result = stage("chat.bigquery.fetch").observeChecked(() -> queryJob.fetchResults());
             long resultTime = System.currentTimeMillis() - resultStart;
+            observation.highCardinalityKeyValue("row.count", String.valueOf(result.getRowCount()));
             
             long totalTime = System.currentTimeMillis() - startTime;
             logger.info("BigQuery query executed successfully (rich): jobId={}, totalTimeMs={}, waitTimeMs={}, resultTimeMs={}, rowCount={}, columnCount={}", 
                     jobId, totalTime, waitTime, resultTime, result.getRowCount(), result.getColumnCount());
+            metrics.recordBigQuery("success", totalTime);
 
             return result;
         } catch (InterruptedException e) {
             long totalTime = System.currentTimeMillis() - startTime;
             logger.error("BigQuery query interrupted: jobId={}, totalTimeMs={}", jobId, totalTime, e);
+            metrics.recordBigQuery("interrupted", totalTime);
+            observation.error(e);
+            cancelQuietly(jobId);
             throw e;
         } catch (Exception e) {
             long totalTime = System.currentTimeMillis() - startTime;
             logger.error("BigQuery query execution failed: jobId={}, error={}, totalTimeMs={}", 
                     jobId, e.getMessage(), totalTime, e);
+            metrics.recordBigQuery(e instanceof BigQueryTimeoutException ? "timeout" : "failure", totalTime);
+            observation.error(e);
             throw e;
+        } finally {
+            observation.stop();
         }
     }
-}
 
+    private Observation stage(String name) {
+        return Observation.createNotStarted(name, observationRegistry);
+    }
+
+    private static long remaining(long startTime, long timeoutMs) {
+        return Math.max(1, timeoutMs - (System.currentTimeMillis() - startTime));
+    }
+
+    private BigQueryTimeoutException timedOut(String jobId, long timeoutMs) {
+        cancelQuietly(jobId);
+        return new BigQueryTimeoutException("Query did not complete within " + timeoutMs + " ms (jobId=" + jobId + ")");
+    }
+
+    private void cancelQuietly(String jobId) {
+        try {
+            bigQuery.cancel(jobId);
+        } catch (Exception e) {
+            logger.warn("Failed to cancel BigQuery job: jobId={}, error={}", jobId, e.getMessage());
+        }
+    }
+}
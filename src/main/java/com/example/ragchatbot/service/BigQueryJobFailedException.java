@@ -0,0 +1,12 @@
+package com.example.ragchatbot.service;
+
+/**
+ * Raised when BigQuery ran a job and reported an error for it, typically because the SQL is
+ * invalid for the dataset (unknown column, type mismatch). The message carries BigQuery's error.
+ */
+public class BigQueryJobFailedException extends RuntimeException {
+
+    public BigQueryJobFailedException(String message) {
+        super(message);
+    }
+}
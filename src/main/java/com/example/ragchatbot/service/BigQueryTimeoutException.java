@@ -0,0 +1,12 @@
+package com.example.ragchatbot.service;
+
+/**
+ * Raised when a BigQuery job does not finish within its deadline. The job has already been
+ * cancelled by the time this is thrown.
+ */
+public class BigQueryTimeoutException extends RuntimeException {
+
+    public BigQueryTimeoutException(String message) {
+        super(message);
+    }
+}
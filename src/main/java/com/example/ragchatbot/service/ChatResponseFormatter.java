@@ -3,6 +3,7 @@ package com.example.ragchatbot.service;
 import com.example.ragchatbot.service.analysis.ResultStatsCollector;
 import com.example.ragchatbot.service.analysis.ResultStatsSummary;
 import com.example.ragchatbot.service.data.BigQueryResult;
+import com.example.ragchatbot.service.data.snapshot.ResultSnapshot;
 import com.example.ragchatbot.service.data.TransformedData;
 import com.example.ragchatbot.service.data.transformer.ResultTransformer;
 import com.example.ragchatbot.service.data.transformer.TransformerFactory;
@@ -10,8 +11,11 @@ import com.example.ragchatbot.service.response.FormattingResult;
 import com.example.ragchatbot.service.response.QueryLogInsightsService;
 import com.example.ragchatbot.service.response.QueryLogRecommendation;
 import com.example.ragchatbot.service.response.ResponseTemplateEngine;
+import com.example.ragchatbot.service.response.SpeculativeChartRenderer;
 import com.example.ragchatbot.service.response.TemplateResult;
 import com.example.ragchatbot.service.visualization.*;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -30,20 +34,36 @@ public class ChatResponseFormatter {
     private final ResultStatsCollector resultStatsCollector;
     private final ResponseTemplateEngine templateEngine;
     private final QueryLogInsightsService queryLogInsightsService;
+    private final SpeculativeChartRenderer speculativeChartRenderer;
+    private final ObservationRegistry observationRegistry;
 
-    @Autowired
     public ChatResponseFormatter(QueryAnalyzer queryAnalyzer,
                                  TransformerFactory transformerFactory,
                                  List<VisualizationStrategy> strategies,
                                  ResultStatsCollector resultStatsCollector,
                                  ResponseTemplateEngine templateEngine,
                                  QueryLogInsightsService queryLogInsightsService) {
+        this(queryAnalyzer, transformerFactory, strategies, resultStatsCollector, templateEngine,
+                queryLogInsightsService, SpeculativeChartRenderer.disabled(transformerFactory), ObservationRegistry.NOOP);
+    }
+
+    @Autowired
+    public ChatResponseFormatter(QueryAnalyzer queryAnalyzer,
+                                 TransformerFactory transformerFactory,
+                                 List<VisualizationStrategy> strategies,
+                                 ResultStatsCollector resultStatsCollector,
+                                 ResponseTemplateEngine templateEngine,
+                                 QueryLogInsightsService queryLogInsightsService,
+                                 SpeculativeChartRenderer speculativeChartRenderer,
+                                 ObservationRegistry observationRegistry) {
         this.queryAnalyzer = queryAnalyzer;
         this.transformerFactory = transformerFactory;
         this.strategies = strategies != null ? new ArrayList<>(strategies) : new ArrayList<>();
         this.resultStatsCollector = resultStatsCollector;
         this.templateEngine = templateEngine;
         this.queryLogInsightsService = queryLogInsightsService;
+        this.speculativeChartRenderer = speculativeChartRenderer;
+        this.observationRegistry = observationRegistry;
 
         this.strategies.sort((s1, s2) -> Integer.compare(s2.getPriority(), s1.getPriority()));
         logger.info("ChatResponseFormatter initialized with {} strategies and transformer factory", this.strategies.size());
@@ -62,6 +82,22 @@ public class ChatResponseFormatter {
      * This is the preferred method that uses optimized data transformation with SQL analysis.
      */
     public FormattingResult formatResponse(String userQuery, String sql, BigQueryResult bigQueryResult) {
+        Observation observation = Observation.createNotStarted("chat.format", observationRegistry)
+                .highCardinalityKeyValue("row.count", String.valueOf(bigQueryResult != null ? bigQueryResult.getRowCount() : 0))
+                .start();
+        try (Observation.Scope scope = observation.openScope()) {
+            FormattingResult result = formatRich(userQuery, sql, bigQueryResult);
+            observation.lowCardinalityKeyValue("chart.type", result.getSelectedChartType());
+            return result;
+        } catch (RuntimeException e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+
+    private FormattingResult formatRich(String userQuery, String sql, BigQueryResult bigQueryResult) {
         long startTime = System.currentTimeMillis();
         if (bigQueryResult == null || bigQueryResult.getRowCount() == 0) {
             logger.info("No data found for query: userQueryLength={}", userQuery != null ? userQuery.length() : 0);
@@ -80,25 +116,22 @@ public class ChatResponseFormatter {
         logger.debug("Formatting response (rich): columnCount={}, rowCount={}",
                 bigQueryResult.getColumnCount(), bigQueryResult.getRowCount());
 
-        ResultStatsSummary statsSummary = resultStatsCollector.summarize(bigQueryResult);
-        QueryIntent queryIntent = queryAnalyzer.analyze(userQuery, sql, bigQueryResult);
+        ResultStatsSummary statsSummary = step("chat.format.stats").observe(() -> resultStatsCollector.summarize(bigQueryResult));
+        QueryIntent queryIntent = step("chat.format.analyze").observe(() -> queryAnalyzer.analyze(userQuery, sql, bigQueryResult));
         Optional<QueryLogRecommendation> recommendation = queryLogInsightsService.findRecommendation(sql, userQuery);
 
         String targetChartType = determineTargetChartType(queryIntent, recommendation);
 
-        ResultTransformer transformer = transformerFactory.getTransformer(bigQueryResult, queryIntent, targetChartType);
-        TransformedData transformedData = transformer.transform(bigQueryResult);
-        VisualizationStrategy strategy = selectStrategy(transformedData, targetChartType);
+        ResultTransformer transformer = step("chat.format.select")
+                .observe(() -> transformerFactory.getTransformer(bigQueryResult, queryIntent, targetChartType));
+        TransformedData transformedData = step("chat.format.transform")
+                .lowCardinalityKeyValue("chart.type", transformer.getTargetChartType())
+                .observe(() -> transformer.transform(bigQueryResult, queryIntent));
+        VisualizationStrategy strategy = selectStrategyOrTable(transformedData, targetChartType);
 
-        if (strategy == null) {
-            logger.warn("No strategy found for transformed data, using table fallback");
-            strategy = strategies.stream()
-                    .filter(s -> s.getChartType().equals("table"))
-                    .findFirst()
-                    .orElseThrow(() -> new IllegalStateException("Table strategy not found"));
-        }
-
-        Map<String, Object> formattedData = strategy.format(transformedData);
+        Map<String, Object> formattedData = step("chat.format.render")
+                .lowCardinalityKeyValue("chart.type", strategy.getChartType())
+                .observe(() -> strategy.format(transformedData));
         String chartType = strategy.getChartType();
 
         TemplateResult template = templateEngine.buildTemplate(userQuery, chartType, queryIntent, statsSummary);
@@ -110,11 +143,18 @@ public class ChatResponseFormatter {
         }
         response.put("message", template.composeMessage());
 
+        // Other chart types the user may switch to are rendered in the background
+        Optional<Map<String, Object>> alternates = speculativeChartRenderer.speculate(bigQueryResult, queryIntent,
+                transformer.getTargetChartType(), alternate -> {
+                    TransformedData alternateData = alternate.transform(bigQueryResult, queryIntent);
+                    return selectStrategyOrTable(alternateData, alternate.getTargetChartType()).format(alternateData);
+                });
+
         long formatTime = System.currentTimeMillis() - startTime;
         logger.info("Response formatted (rich): formatTimeMs={}, chartType={}, rowCount={}",
                 formatTime, chartType, bigQueryResult.getRowCount());
 
-        return new FormattingResult(response, queryIntent, statsSummary, chartType, template, recommendation);
+        return new FormattingResult(response, queryIntent, statsSummary, chartType, template, recommendation, alternates);
     }
 
     /**
@@ -139,18 +179,38 @@ public class ChatResponseFormatter {
         List<List<Object>> rows = (List<List<Object>>) cachedResults.get("rows");
         
         if (rows == null || rows.isEmpty()) {
-            Map<String, Object> response = new HashMap<>();
-            response.put("message", "No data found for your query.");
-            TemplateResult template = templateEngine.buildTemplate(userQuery, "table",
-                    queryAnalyzer.analyze(userQuery, sql, null), ResultStatsSummary.empty());
-            return new FormattingResult(response, queryAnalyzer.analyze(userQuery, sql, null),
-                    ResultStatsSummary.empty(), "table", template, Optional.empty());
+            return noCachedData(userQuery, sql);
         }
 
         BigQueryResult bigQueryResult = BigQueryResult.fromCachedData(columns, columnTypes, rows);
         return formatResponse(userQuery, sql, bigQueryResult);
     }
 
+    /**
+     * Formats response from a mapped result snapshot, reading rows in place instead of
+     * rebuilding them from the JSON results map.
+     *
+     * @param userQuery The user's natural language query
+     * @param snapshot The cached result snapshot, which also records the SQL
+     * @return Formatted response map
+     */
+    public FormattingResult formatResponseFromSnapshot(String userQuery, ResultSnapshot snapshot) {
+        logger.info("Formatting response from snapshot: rowCount={}", snapshot.getRowCount());
+        if (snapshot.getRowCount() == 0) {
+            return noCachedData(userQuery, snapshot.getSql());
+        }
+        return formatResponse(userQuery, snapshot.getSql(), BigQueryResult.fromSnapshot(snapshot));
+    }
+
+    private FormattingResult noCachedData(String userQuery, String sql) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("message", "No data found for your query.");
+        TemplateResult template = templateEngine.buildTemplate(userQuery, "table",
+                queryAnalyzer.analyze(userQuery, sql, null), ResultStatsSummary.empty());
+        return new FormattingResult(response, queryAnalyzer.analyze(userQuery, sql, null),
+                ResultStatsSummary.empty(), "table", template, Optional.empty());
+    }
+
     /**
      * Legacy method for backward compatibility.
      * Converts List<List<Object>> to BigQueryResult format and uses the new pipeline.
@@ -265,6 +325,22 @@ public class ChatResponseFormatter {
         return transformedData;
     }
     
+    private Observation step(String name) {
+        return Observation.createNotStarted(name, observationRegistry);
+    }
+
+    private VisualizationStrategy selectStrategyOrTable(TransformedData transformedData, String requestedChartType) {
+        VisualizationStrategy strategy = selectStrategy(transformedData, requestedChartType);
+        if (strategy == null) {
+            logger.warn("No strategy found for transformed data, using table fallback");
+            strategy = strategies.stream()
+                    .filter(s -> s.getChartType().equals("table"))
+                    .findFirst()
+                    .orElseThrow(() -> new IllegalStateException("Table strategy not found"));
+        }
+        return strategy;
+    }
+
     /**
      * Selects the best matching strategy based on transformed data.
      */
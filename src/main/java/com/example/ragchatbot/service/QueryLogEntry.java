@@ -0,0 +1,52 @@
+package com.example.ragchatbot.service;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+
+/**
+ * A query log entry waiting to be persisted: the user query, generated SQL, optional
+ * BigQuery result and analysis metadata, stamped with the time the request was served.
+ */
+public class QueryLogEntry {
+    private final String userQuery;
+    private final String generatedSql;
+    private final BigQueryResult bigQueryResult;
+    private final Map<String, Object> analysisMetadata;
+    private final LocalDateTime timestamp;
+
+    public QueryLogEntry(String userQuery, String generatedSql, BigQueryResult bigQueryResult,
+                         Map<String, Object> analysisMetadata) {
+        this(userQuery, generatedSql, bigQueryResult, analysisMetadata, LocalDateTime.now());
+    }
+
+    public QueryLogEntry(String userQuery, String generatedSql, BigQueryResult bigQueryResult,
+                         Map<String, Object> analysisMetadata, LocalDateTime timestamp) {
+        this.userQuery = userQuery;
+        this.generatedSql = generatedSql;
+        this.bigQueryResult = bigQueryResult;
+        this.analysisMetadata = analysisMetadata;
+        this.timestamp = timestamp;
+    }
+
+    public String getUserQuery() {
+        return userQuery;
+    }
+
+    public String getGeneratedSql() {
+        return generatedSql;
+    }
+
+    public BigQueryResult getBigQueryResult() {
+        return bigQueryResult;
+    }
+
+    public Map<String, Object> getAnalysisMetadata() {
+        return analysisMetadata;
+    }
+
+    public LocalDateTime getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,316 @@
+package com.example.ragchatbot.service;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Write-behind front end for {@link SqlQueryStorageService}. Chat requests hand their query log
+ * entry to a bounded queue and return; a single writer thread drains the queue and persists
+ * entries in batches, so one file rewrite and fsync is shared by every entry that arrived while
+ * the previous batch was being written (group commit).
+ */
+@Service
+public class QueryLogWriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryLogWriter.class);
+    private static final long IDLE_POLL_MS = 100;
+
+    /**
+     * What {@link #enqueue} does when the queue is full.
+     */
+    public enum OverflowPolicy {
+        /** Wait up to the configured block timeout for space, then drop the new entry. */
+        BLOCK,
+        /** Drop the new entry immediately. */
+        DROP_NEWEST,
+        /** Evict the oldest queued entry to make room for the new one. */
+        DROP_OLDEST,
+        /** Persist the new entry synchronously on the calling thread. */
+        CALLER_RUNS
+    }
+
+    private final SqlQueryStorageService storageService;
+    private final boolean enabled;
+    private final BlockingQueue<QueryLogEntry> queue;
+    private final int maxBatchSize;
+    private final long maxBatchDelayMs;
+    private final OverflowPolicy overflowPolicy;
+    private final long blockTimeoutMs;
+    private final long shutdownTimeoutMs;
+
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong written = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    // Entries handed to the writer and entries it has finished with (written, skipped or failed)
+    private final Object progressLock = new Object();
+    private long accepted;
+    private long completed;
+
+    // Read-held while an entry is handed to the queue, write-held to stop accepting entries
+    private final ReentrantReadWriteLock lifecycleLock = new ReentrantReadWriteLock();
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public QueryLogWriter(SqlQueryStorageService storageService,
+                          @Value("${sql.storage.write-behind.enabled:true}") boolean enabled,
+                          @Value("${sql.storage.write-behind.queue-capacity:1000}") int queueCapacity,
+                          @Value("${sql.storage.write-behind.max-batch-size:50}") int maxBatchSize,
+                          @Value("${sql.storage.write-behind.max-batch-delay-ms:20}") long maxBatchDelayMs,
+                          @Value("${sql.storage.write-behind.overflow-policy:DROP_OLDEST}") OverflowPolicy overflowPolicy,
+                          @Value("${sql.storage.write-behind.block-timeout-ms:50}") long blockTimeoutMs,
+                          @Value("${sql.storage.write-behind.shutdown-timeout-ms:10000}") long shutdownTimeoutMs) {
+        this.storageService = storageService;
+        this.enabled = enabled;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueCapacity));
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxBatchDelayMs = Math.max(0, maxBatchDelayMs);
+        this.overflowPolicy = overflowPolicy;
+        this.blockTimeoutMs = Math.max(0, blockTimeoutMs);
+        this.shutdownTimeoutMs = shutdownTimeoutMs;
+    }
+
+    @PostConstruct
+    public synchronized void start() {
+        if (!enabled || running) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::runWriter, "query-log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+        logger.info("Query log write-behind started: queueCapacity={}, maxBatchSize={}, overflowPolicy={}",
+                queue.remainingCapacity() + queue.size(), maxBatchSize, overflowPolicy);
+    }
+
+    /**
+     * Queues an entry for persistence. Never performs disk I/O on the calling thread unless
+     * write-behind is disabled, the writer has been shut down, or the overflow policy is
+     * {@link OverflowPolicy#CALLER_RUNS} and the queue is full.
+     *
+     * @return false if the entry was dropped
+     */
+    public boolean enqueue(String userQuery, String generatedSql, BigQueryResult bigQueryResult,
+                           Map<String, Object> analysisMetadata) {
+        return enqueue(new QueryLogEntry(userQuery, generatedSql, bigQueryResult, analysisMetadata));
+    }
+
+    public boolean enqueue(QueryLogEntry entry) {
+        enqueued.incrementAndGet();
+        lifecycleLock.readLock().lock();
+        try {
+            if (running) {
+                return handOff(entry);
+            }
+        } finally {
+            lifecycleLock.readLock().unlock();
+        }
+        writeSynchronously(entry);
+        return true;
+    }
+
+    /**
+     * Queues an entry for the writer thread, applying the overflow policy if the queue is full.
+     * Called under the lifecycle read lock, so shutdown cannot drain the queue in between.
+     */
+    private boolean handOff(QueryLogEntry entry) {
+        synchronized (progressLock) {
+            accepted++;
+        }
+        if (queue.offer(entry)) {
+            return true;
+        }
+        switch (overflowPolicy) {
+            case BLOCK:
+                try {
+                    if (queue.offer(entry, blockTimeoutMs, TimeUnit.MILLISECONDS)) {
+                        return true;
+                    }
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                break;
+            case DROP_OLDEST:
+                while (!queue.offer(entry)) {
+                    if (queue.poll() != null) {
+                        recordDropped(1);
+                    }
+                }
+                return true;
+            case CALLER_RUNS:
+                writeSynchronously(entry);
+                markCompleted(1);
+                return true;
+            case DROP_NEWEST:
+            default:
+                break;
+        }
+        recordDropped(1);
+        return false;
+    }
+
+    /**
+     * Blocks until every entry accepted before this call has been persisted (or given up on).
+     *
+     * @return false if the timeout elapsed first
+     */
+    public boolean flush(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        synchronized (progressLock) {
+            long target = accepted;
+            while (completed < target) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0 || !running) {
+                    return completed >= target;
+                }
+                progressLock.wait(remaining);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Stops accepting work and persists whatever is still queued before the application exits.
+     * The writer thread is never interrupted, since that would abort an in-progress file write.
+     */
+    @PreDestroy
+    public void shutdown() {
+        Thread thread;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            // Waits for in-flight handoffs; later enqueue calls see running == false and write synchronously
+            lifecycleLock.writeLock().lock();
+            try {
+                running = false;
+            } finally {
+                lifecycleLock.writeLock().unlock();
+            }
+            thread = writerThread;
+        }
+        try {
+            thread.join(shutdownTimeoutMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (thread.isAlive()) {
+            logger.warn("Query log writer did not finish within shutdown timeout: pending={}", queue.size());
+        }
+        // Anything enqueued after the writer exited, or left behind if it timed out
+        List<QueryLogEntry> remaining = new ArrayList<>();
+        queue.drainTo(remaining);
+        if (!remaining.isEmpty()) {
+            writeBatch(remaining);
+        }
+        logger.info("Query log write-behind stopped: written={}, dropped={}, failed={}",
+                written.get(), dropped.get(), failed.get());
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("overflowPolicy", overflowPolicy.name());
+        stats.put("queued", queue.size());
+        stats.put("enqueued", enqueued.get());
+        stats.put("written", written.get());
+        stats.put("dropped", dropped.get());
+        stats.put("failed", failed.get());
+        stats.put("batches", batches.get());
+        return stats;
+    }
+
+    private void runWriter() {
+        List<QueryLogEntry> batch = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                QueryLogEntry first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                // Shutdown is signalled through the running flag; keep draining
+            }
+            if (!batch.isEmpty()) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Tops up a batch with whatever is already queued, then lingers briefly for stragglers so
+     * bursts of requests share one commit.
+     */
+    private void collectBatch(List<QueryLogEntry> batch) throws InterruptedException {
+        queue.drainTo(batch, maxBatchSize - batch.size());
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(maxBatchDelayMs);
+        while (batch.size() < maxBatchSize) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            QueryLogEntry next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+            queue.drainTo(batch, maxBatchSize - batch.size());
+        }
+    }
+
+    private void writeBatch(List<QueryLogEntry> batch) {
+        try {
+            int appended = storageService.storeQueries(batch);
+            written.addAndGet(appended);
+            batches.incrementAndGet();
+            logger.debug("Query log batch committed: batchSize={}, appended={}", batch.size(), appended);
+        } catch (Exception e) {
+            failed.addAndGet(batch.size());
+            logger.error("Failed to persist query log batch: batchSize={}, error={}", batch.size(), e.getMessage(), e);
+        } finally {
+            markCompleted(batch.size());
+        }
+    }
+
+    private void writeSynchronously(QueryLogEntry entry) {
+        try {
+            written.addAndGet(storageService.storeQueries(List.of(entry)));
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            logger.error("Failed to store SQL query: error={}", e.getMessage(), e);
+        }
+    }
+
+    private void recordDropped(int count) {
+        long total = dropped.addAndGet(count);
+        markCompleted(count);
+        logger.warn("Query log queue full, entry dropped: overflowPolicy={}, totalDropped={}", overflowPolicy, total);
+    }
+
+    private void markCompleted(int count) {
+        synchronized (progressLock) {
+            completed += count;
+            progressLock.notifyAll();
+        }
+    }
+}
@@ -1,12 +1,17 @@
 package com.example.ragchatbot.service;
 
+import com.example.ragchatbot.service.backfill.BackfillPlan;
 import com.example.ragchatbot.service.data.BigQueryResult;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.type.CollectionType;
+import com.example.ragchatbot.service.data.snapshot.ResultSnapshot;
+import com.example.ragchatbot.service.storage.JsonFileQueryStore;
+import com.example.ragchatbot.service.storage.MvStoreQueryStore;
+import com.example.ragchatbot.service.storage.QueryEntries;
+import com.example.ragchatbot.service.storage.QueryStore;
+import com.example.ragchatbot.service.storage.ResultSnapshotStore;
 import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
@@ -19,17 +24,17 @@ import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
-import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
 public class SqlQueryStorageService {
 
     private static final Logger logger = LoggerFactory.getLogger(SqlQueryStorageService.class);
-    private final ObjectMapper objectMapper = new ObjectMapper();
-    private Path storageFile;
+    private QueryStore store;
+    private ResultSnapshotStore snapshotStore;
 
     @Value("${sql.storage.file:logs/sql-queries.json}")
     private String storageFilePath;
@@ -37,32 +42,67 @@ public class SqlQueryStorageService {
     @Value("${sql.storage.max-result-rows:100}")
     private int maxResultRows;
 
-    @Autowired
-    private BigQueryExecutionService bigQueryExecutionService;
+    // "json" keeps the single sql-queries.json file; "mvstore" uses the indexed embedded store
+    @Value("${sql.storage.backend:json}")
+    private String backend;
+
+    @Value("${sql.storage.mvstore.file:logs/sql-queries.mv.db}")
+    private String mvStoreFilePath;
+
+    @Value("${sql.storage.snapshots.enabled:true}")
+    private boolean snapshotsEnabled;
+
+    @Value("${sql.storage.snapshots.dir:logs/snapshots}")
+    private String snapshotDirectory;
+
+    @Value("${sql.storage.snapshots.max-open:256}")
+    private int maxOpenSnapshots;
 
     @PostConstruct
     public void initialize() {
         try {
-            storageFile = Paths.get(storageFilePath);
-            
-            // Create parent directories if they don't exist
-            Files.createDirectories(storageFile.getParent());
-            
-            // Create file if it doesn't exist
-            if (!Files.exists(storageFile)) {
-                Files.createFile(storageFile);
-                // Initialize with empty array
-                Files.write(storageFile, "[]".getBytes());
-                logger.info("Created SQL query storage file: {}", storageFile.toAbsolutePath());
+            Path storageFile = Paths.get(storageFilePath);
+            if ("mvstore".equalsIgnoreCase(backend)) {
+                store = new MvStoreQueryStore(Paths.get(mvStoreFilePath));
+                importJsonLogIfEmpty(storageFile);
             } else {
-                logger.info("Using existing SQL query storage file: {}", storageFile.toAbsolutePath());
+                store = new JsonFileQueryStore(storageFile);
+            }
+            if (snapshotsEnabled) {
+                snapshotStore = new ResultSnapshotStore(Paths.get(snapshotDirectory), maxOpenSnapshots);
             }
         } catch (IOException e) {
-            logger.error("Failed to initialize SQL query storage file: {}", storageFilePath, e);
+            logger.error("Failed to initialize SQL query storage: backend={}, file={}", backend, storageFilePath, e);
             throw new RuntimeException("Failed to initialize SQL query storage", e);
         }
     }
 
+    /**
+     * Seeds a new MVStore from an existing JSON log so switching backends keeps the history.
+     */
+    private void importJsonLogIfEmpty(Path jsonFile) throws IOException {
+        if (store.count() > 0 || !Files.exists(jsonFile)) {
+            return;
+        }
+        List<Map<String, Object>> existing = new JsonFileQueryStore(jsonFile).readAll();
+        if (!existing.isEmpty()) {
+            int imported = store.insertIfAbsent(existing);
+            logger.info("Imported JSON query log into MVStore: file={}, entries={}, imported={}",
+                    jsonFile.toAbsolutePath(), existing.size(), imported);
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        try {
+            if (store != null) {
+                store.close();
+            }
+        } catch (IOException e) {
+            logger.warn("Failed to close SQL query storage: error={}", e.getMessage());
+        }
+    }
+
     /**
      * Stores query and SQL without results (backward compatible).
      */
@@ -92,99 +132,55 @@ public class SqlQueryStorageService {
     public void storeQuery(String userQuery, String generatedSql, BigQueryResult bigQueryResult,
                            Map<String, Object> analysisMetadata) {
         try {
-            synchronized (this) {
-                // Read existing queries
-                List<Map<String, Object>> queries = readQueries();
-                
-                // Check if this query already exists (don't store duplicates)
-                String normalizedNewQuery = normalizeQueryText(userQuery);
-                for (Map<String, Object> existingQuery : queries) {
-                    String existingQueryText = (String) existingQuery.get("query");
-                    if (existingQueryText != null && 
-                        normalizeQueryText(existingQueryText).equals(normalizedNewQuery)) {
-                        logger.debug("Query already exists, skipping storage: query={}", 
-                                userQuery.substring(0, Math.min(50, userQuery.length())));
-                        return;
-                    }
-                }
-                
-                // Create new query entry
-                Map<String, Object> queryEntry = new HashMap<>();
-                queryEntry.put("query", userQuery);
-                queryEntry.put("sql", generatedSql);
-                queryEntry.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
-                
-                // Add results if available
-                if (bigQueryResult != null) {
-                    Map<String, Object> results = new HashMap<>();
-                    results.put("columns", bigQueryResult.getColumnNames());
-                    results.put("columnTypes", bigQueryResult.getColumnTypes().stream()
-                            .map(Enum::name)
-                            .collect(Collectors.toList()));
-                    results.put("rowCount", bigQueryResult.getRowCount());
-                    results.put("columnCount", bigQueryResult.getColumnCount());
-                    
-                    // Store rows (limit to maxResultRows to prevent huge files)
-                    List<List<Object>> allRows = bigQueryResult.getAllRows();
-                    int rowsToStore = Math.min(allRows.size(), maxResultRows);
-                    List<List<Object>> rowsToSave = new ArrayList<>();
-                    for (int i = 0; i < rowsToStore; i++) {
-                        rowsToSave.add(allRows.get(i));
-                    }
-                    results.put("rows", rowsToSave);
-                    
-                    if (allRows.size() > maxResultRows) {
-                        results.put("truncated", true);
-                        results.put("totalRows", allRows.size());
-                        logger.debug("Result truncated: stored {} of {} rows", rowsToStore, allRows.size());
-                    } else {
-                        results.put("truncated", false);
-                    }
-                    
-                    queryEntry.put("results", results);
-                }
-
-                if (analysisMetadata != null && !analysisMetadata.isEmpty()) {
-                    queryEntry.put("analysis", analysisMetadata);
-                    Object normalized = analysisMetadata.get("normalizedSql");
-                    if (normalized instanceof String normalizedSql && !normalizedSql.isEmpty()) {
-                        queryEntry.put("normalizedSql", normalizedSql);
-                    }
-                }
-                
-                // Add to list
-                queries.add(queryEntry);
-                
-                // Write back to file
-                writeQueries(queries);
-                
-                logger.debug("Stored SQL query: queryLength={}, sqlLength={}, hasResults={}", 
-                        userQuery.length(), generatedSql.length(), bigQueryResult != null);
-            }
+            storeQueries(List.of(new QueryLogEntry(userQuery, generatedSql, bigQueryResult, analysisMetadata)));
         } catch (Exception e) {
             logger.error("Failed to store SQL query: error={}", e.getMessage(), e);
             // Don't throw exception - storage failure shouldn't break the main flow
         }
     }
 
-    private List<Map<String, Object>> readQueries() throws IOException {
-        if (!Files.exists(storageFile) || Files.size(storageFile) == 0) {
-            return new ArrayList<>();
+    /**
+     * Appends a batch of entries with a single commit to the store, so the cost of writing and
+     * syncing is shared by every entry in the batch. Entries whose query text is already
+     * stored, or repeated earlier in the batch, are skipped.
+     *
+     * @return The number of entries actually appended
+     * @throws IOException if the storage file could not be read or written
+     */
+    public int storeQueries(List<QueryLogEntry> entries) throws IOException {
+        if (entries.isEmpty()) {
+            return 0;
         }
-        
-        String content = Files.readString(storageFile);
-        if (content.trim().isEmpty()) {
-            return new ArrayList<>();
+        // Materialize results before taking the lock; paging through a TableResult can be slow
+        List<Map<String, Object>> newEntries = new ArrayList<>(entries.size());
+        for (QueryLogEntry entry : entries) {
+            newEntries.add(toQueryEntry(entry));
         }
-        
-        CollectionType listType = objectMapper.getTypeFactory()
-                .constructCollectionType(List.class, Map.class);
-        return objectMapper.readValue(content, listType);
+
+        int appended = store.insertIfAbsent(newEntries);
+        logger.debug("Stored SQL queries: batchSize={}, appended={}", entries.size(), appended);
+        return appended;
     }
 
-    private void writeQueries(List<Map<String, Object>> queries) throws IOException {
-        String json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(queries);
-        Files.writeString(storageFile, json);
+    private Map<String, Object> toQueryEntry(QueryLogEntry entry) {
+        Map<String, Object> queryEntry = new HashMap<>();
+        queryEntry.put("query", entry.getUserQuery());
+        queryEntry.put("sql", entry.getGeneratedSql());
+        queryEntry.put("timestamp", entry.getTimestamp().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+
+        if (entry.getBigQueryResult() != null) {
+            queryEntry.put("results", toResultsMap(entry.getBigQueryResult()));
+        }
+
+        Map<String, Object> analysisMetadata = entry.getAnalysisMetadata();
+        if (analysisMetadata != null && !analysisMetadata.isEmpty()) {
+            queryEntry.put("analysis", analysisMetadata);
+            Object normalized = analysisMetadata.get("normalizedSql");
+            if (normalized instanceof String normalizedSql && !normalizedSql.isEmpty()) {
+                queryEntry.put("normalizedSql", normalizedSql);
+            }
+        }
+        return queryEntry;
     }
 
     /**
@@ -195,28 +191,16 @@ public class SqlQueryStorageService {
      */
     public Map<String, Object> findCachedResultsByQuery(String userQuery) {
         try {
-            synchronized (this) {
-                List<Map<String, Object>> queries = readQueries();
-                String normalizedInput = normalizeQueryText(userQuery);
-                
-                for (Map<String, Object> queryEntry : queries) {
-                    String cachedQuery = (String) queryEntry.get("query");
-                    
-                    // Match on normalized query text
-                    if (cachedQuery != null && 
-                        normalizeQueryText(cachedQuery).equals(normalizedInput) &&
-                        queryEntry.containsKey("results") && 
-                        queryEntry.get("results") != null) {
-                        
-                        logger.info("Cache hit: queryLength={}, normalizedQuery={}", 
-                                userQuery.length(), normalizedInput.substring(0, Math.min(50, normalizedInput.length())));
-                        return queryEntry;
-                    }
-                }
-                
-                logger.debug("Cache miss: queryLength={}", userQuery.length());
-                return null;
+            String normalizedInput = QueryEntries.normalizeQueryText(userQuery);
+            Optional<Map<String, Object>> cached = store.findWithResults(normalizedInput);
+            if (cached.isPresent()) {
+                logger.info("Cache hit: queryLength={}, normalizedQuery={}", 
+                        userQuery.length(), normalizedInput.substring(0, Math.min(50, normalizedInput.length())));
+                return cached.get();
             }
+            
+            logger.debug("Cache miss: queryLength={}", userQuery.length());
+            return null;
         } catch (Exception e) {
             logger.error("Failed to search cache by query: error={}", e.getMessage(), e);
             return null;
@@ -224,19 +208,37 @@ public class SqlQueryStorageService {
     }
 
     /**
-     * Normalizes user query text for comparison.
-     * Removes punctuation, extra whitespace, and converts to lowercase.
+     * Finds cached results as a mapped binary snapshot. The first hit for a query converts its
+     * stored results into a snapshot; later hits read the snapshot without parsing anything.
+     *
+     * @param userQuery The user's natural language query
+     * @return The snapshot, or empty on a cache miss, when snapshots are disabled, or when the
+     *         stored results cannot be snapshotted (callers then fall back to
+     *         {@link #findCachedResultsByQuery(String)})
      */
-    private String normalizeQueryText(String query) {
-        if (query == null) {
-            return "";
+    public Optional<ResultSnapshot> findCachedSnapshot(String userQuery) {
+        if (snapshotStore == null) {
+            return Optional.empty();
+        }
+        String normalizedInput = QueryEntries.normalizeQueryText(userQuery);
+        try {
+            Optional<ResultSnapshot> snapshot = snapshotStore.find(normalizedInput);
+            if (snapshot.isEmpty()) {
+                Optional<Map<String, Object>> cached = store.findWithResults(normalizedInput);
+                if (cached.isEmpty()) {
+                    return Optional.empty();
+                }
+                snapshot = Optional.of(snapshotStore.write(normalizedInput, (String) cached.get().get("sql"),
+                        getCachedResults(cached.get())));
+                logger.debug("Created result snapshot: normalizedQuery={}",
+                        normalizedInput.substring(0, Math.min(50, normalizedInput.length())));
+            }
+            logger.info("Cache hit (snapshot): queryLength={}, rowCount={}", userQuery.length(), snapshot.get().getRowCount());
+            return snapshot;
+        } catch (Exception e) {
+            logger.warn("Result snapshot unavailable, falling back to stored results: error={}", e.getMessage());
+            return Optional.empty();
         }
-        
-        return query
-            .toLowerCase()
-            .replaceAll("[^a-z0-9\\s]", "")       // Remove punctuation
-            .replaceAll("\\s+", " ")              // Normalize whitespace
-            .trim();
     }
 
     /**
@@ -263,132 +265,134 @@ public class SqlQueryStorageService {
     }
 
     /**
-     * Processes the SQL queries JSON file by:
-     * 1. Removing duplicates (based on SQL query)
-     * 2. Executing queries without results via BigQuery
-     * 3. Updating the JSON file with results
-     * 
-     * @return Map containing statistics about the processing
+     * Converts a BigQuery result into the persisted "results" structure, keeping at most
+     * {@code sql.storage.max-result-rows} rows. Safe to call without holding the storage lock.
+     *
+     * @param bigQueryResult The BigQuery result
+     * @return Map with columns, columnTypes, rows, counts and truncation flags
      */
-    public Map<String, Object> processQueriesAndUpdateResults() {
-        Map<String, Object> stats = new HashMap<>();
-        int duplicatesRemoved = 0;
-        int queriesProcessed = 0;
-        int queriesSucceeded = 0;
-        int queriesFailed = 0;
-        List<String> errors = new ArrayList<>();
+    public Map<String, Object> toResultsMap(BigQueryResult bigQueryResult) {
+        Map<String, Object> results = new HashMap<>();
+        results.put("columns", bigQueryResult.getColumnNames());
+        results.put("columnTypes", bigQueryResult.getColumnTypes().stream()
+                .map(Enum::name)
+                .collect(Collectors.toList()));
+        results.put("rowCount", bigQueryResult.getRowCount());
+        results.put("columnCount", bigQueryResult.getColumnCount());
+        
+        // Store rows (limit to maxResultRows to prevent huge files)
+        List<List<Object>> allRows = bigQueryResult.getAllRows();
+        int rowsToStore = Math.min(allRows.size(), maxResultRows);
+        List<List<Object>> rowsToSave = new ArrayList<>();
+        for (int i = 0; i < rowsToStore; i++) {
+            rowsToSave.add(allRows.get(i));
+        }
+        results.put("rows", rowsToSave);
+        
+        if (allRows.size() > maxResultRows) {
+            results.put("truncated", true);
+            results.put("totalRows", allRows.size());
+            logger.debug("Result truncated: stored {} of {} rows", rowsToStore, allRows.size());
+        } else {
+            results.put("truncated", false);
+        }
+        return results;
+    }
 
+    /**
+     * Prepares a results backfill: removes entries with duplicate SQL (keeping the first
+     * occurrence), persists the deduplicated file and lists the SQL still lacking results.
+     * Only this step and {@link #applyBackfillResults(Map)} hold the storage lock; query
+     * execution in between does not block chat traffic.
+     *
+     * @return Backfill plan with deduplication statistics and pending SQL
+     */
+    public BackfillPlan prepareBackfill() {
         try {
             synchronized (this) {
-                logger.info("Starting query processing: reading queries from {}", storageFile.toAbsolutePath());
-                
-                // Read all queries
-                List<Map<String, Object>> queries = readQueries();
-                int originalCount = queries.size();
-                logger.info("Read {} queries from file", originalCount);
+                logger.info("Preparing backfill: backend={}", store.getClass().getSimpleName());
+                int originalCount = (int) store.count();
 
                 // Remove duplicates based on SQL query (keep the first occurrence)
-                Map<String, Map<String, Object>> uniqueQueries = new LinkedHashMap<>();
-                for (Map<String, Object> query : queries) {
-                    String sql = (String) query.get("sql");
-                    if (sql != null && !uniqueQueries.containsKey(sql)) {
-                        uniqueQueries.put(sql, query);
-                    } else if (sql != null) {
-                        duplicatesRemoved++;
-                        logger.debug("Removed duplicate query with SQL: {}", 
-                                sql.length() > 100 ? sql.substring(0, 100) + "..." : sql);
-                    }
-                }
-
-                List<Map<String, Object>> deduplicatedQueries = new ArrayList<>(uniqueQueries.values());
-                logger.info("Removed {} duplicates, {} unique queries remaining", 
-                        duplicatesRemoved, deduplicatedQueries.size());
-
-                // Process queries without results
-                for (Map<String, Object> queryEntry : deduplicatedQueries) {
-                    // Check if query already has results
-                    if (queryEntry.containsKey("results") && queryEntry.get("results") != null) {
-                        continue;
-                    }
-
-                    String sql = (String) queryEntry.get("sql");
-                    if (sql == null || sql.trim().isEmpty()) {
-                        logger.warn("Skipping query entry with empty SQL");
-                        continue;
-                    }
-
-                    queriesProcessed++;
-                    logger.info("Processing query {}/{}: sqlLength={}, sqlPreview={}", 
-                            queriesProcessed, deduplicatedQueries.size(), 
-                            sql.length(), sql.length() > 200 ? sql.substring(0, 200) + "..." : sql);
-
-                    try {
-                        // Execute query via BigQuery
-                        BigQueryResult bigQueryResult = bigQueryExecutionService.executeQueryRich(sql);
-                        
-                        // Update query entry with results
-                        Map<String, Object> results = new HashMap<>();
-                        results.put("columns", bigQueryResult.getColumnNames());
-                        results.put("columnTypes", bigQueryResult.getColumnTypes().stream()
-                                .map(Enum::name)
-                                .collect(Collectors.toList()));
-                        results.put("rowCount", bigQueryResult.getRowCount());
-                        results.put("columnCount", bigQueryResult.getColumnCount());
-                        
-                        // Store rows (limit to maxResultRows)
-                        List<List<Object>> allRows = bigQueryResult.getAllRows();
-                        int rowsToStore = Math.min(allRows.size(), maxResultRows);
-                        List<List<Object>> rowsToSave = new ArrayList<>();
-                        for (int i = 0; i < rowsToStore; i++) {
-                            rowsToSave.add(allRows.get(i));
-                        }
-                        results.put("rows", rowsToSave);
-                        
-                        if (allRows.size() > maxResultRows) {
-                            results.put("truncated", true);
-                            results.put("totalRows", allRows.size());
-                        } else {
-                            results.put("truncated", false);
-                        }
-                        
-                        queryEntry.put("results", results);
-                        queriesSucceeded++;
-                        
-                        logger.info("Successfully processed query {}/{}: rowCount={}, columnCount={}", 
-                                queriesProcessed, deduplicatedQueries.size(), 
-                                bigQueryResult.getRowCount(), bigQueryResult.getColumnCount());
-                    } catch (Exception e) {
-                        queriesFailed++;
-                        String errorMsg = String.format("Failed to execute query: %s", e.getMessage());
-                        errors.add(errorMsg);
-                        logger.error("Failed to process query {}/{}: error={}", 
-                                queriesProcessed, deduplicatedQueries.size(), e.getMessage(), e);
-                    }
-                }
+                int duplicatesRemoved = store.removeDuplicateSql();
+                int finalCount = originalCount - duplicatesRemoved;
+                List<String> pendingSql = store.findSqlWithoutResults();
 
-                // Write updated queries back to file
-                writeQueries(deduplicatedQueries);
-                logger.info("Updated queries written to file: totalQueries={}, processed={}, succeeded={}, failed={}", 
-                        deduplicatedQueries.size(), queriesProcessed, queriesSucceeded, queriesFailed);
-
-                // Build statistics
-                stats.put("originalCount", originalCount);
-                stats.put("duplicatesRemoved", duplicatesRemoved);
-                stats.put("finalCount", deduplicatedQueries.size());
-                stats.put("queriesProcessed", queriesProcessed);
-                stats.put("queriesSucceeded", queriesSucceeded);
-                stats.put("queriesFailed", queriesFailed);
-                if (!errors.isEmpty()) {
-                    stats.put("errors", errors);
-                }
+                logger.info("Backfill prepared: originalCount={}, duplicatesRemoved={}, finalCount={}, pending={}", 
+                        originalCount, duplicatesRemoved, finalCount, pendingSql.size());
+                return new BackfillPlan(originalCount, duplicatesRemoved, finalCount, pendingSql);
             }
-        } catch (Exception e) {
-            logger.error("Failed to process queries: error={}", e.getMessage(), e);
-            stats.put("error", e.getMessage());
-            throw new RuntimeException("Failed to process queries", e);
+        } catch (IOException e) {
+            logger.error("Failed to prepare backfill: error={}", e.getMessage(), e);
+            throw new RuntimeException("Failed to prepare backfill", e);
+        }
+    }
+
+    /**
+     * Merges a batch of backfilled results into the stored entries. Entries stored concurrently
+     * are preserved; entries that already have results are left untouched.
+     *
+     * @param resultsBySql Results keyed by the exact SQL text they were produced from
+     * @return Number of entries updated
+     */
+    public int applyBackfillResults(Map<String, Map<String, Object>> resultsBySql) {
+        if (resultsBySql.isEmpty()) {
+            return 0;
+        }
+        try {
+            int updated = store.applyResults(resultsBySql);
+            logger.debug("Applied backfill batch: batchSize={}, entriesUpdated={}", resultsBySql.size(), updated);
+            return updated;
+        } catch (IOException e) {
+            logger.error("Failed to apply backfill results: error={}", e.getMessage(), e);
+            throw new RuntimeException("Failed to apply backfill results", e);
+        }
+    }
+
+    /**
+     * Finds stored queries whose SQL signature fingerprint matches, using the store's
+     * signature index where it has one.
+     */
+    public List<Map<String, Object>> findQueriesBySignature(String fingerprint) {
+        try {
+            return store.findBySignature(fingerprint);
+        } catch (IOException e) {
+            logger.error("Failed to search queries by signature: error={}", e.getMessage(), e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Finds stored queries logged in {@code [from, to)}, oldest first.
+     */
+    public List<Map<String, Object>> findQueriesBetween(LocalDateTime from, LocalDateTime to) {
+        try {
+            return store.findByTimestampRange(from, to);
+        } catch (IOException e) {
+            logger.error("Failed to search queries by timestamp: error={}", e.getMessage(), e);
+            return Collections.emptyList();
+        }
+    }
+
+    /**
+     * Returns up to {@code limit} of the most recently stored queries, newest first.
+     */
+    public List<Map<String, Object>> findNewestQueries(int limit) {
+        try {
+            return store.findNewest(limit);
+        } catch (IOException e) {
+            logger.error("Failed to read newest queries: error={}", e.getMessage(), e);
+            return Collections.emptyList();
         }
+    }
 
-        return stats;
+    public long countQueries() {
+        try {
+            return store.count();
+        } catch (IOException e) {
+            logger.error("Failed to count stored queries: error={}", e.getMessage(), e);
+            return 0;
+        }
     }
 
     /**
@@ -396,9 +400,7 @@ public class SqlQueryStorageService {
      */
     public List<Map<String, Object>> readAllQueriesSnapshot() {
         try {
-            synchronized (this) {
-                return new ArrayList<>(readQueries());
-            }
+            return store.readAll();
         } catch (IOException e) {
             logger.error("Failed to read SQL query snapshot: {}", e.getMessage(), e);
             return Collections.emptyList();
@@ -0,0 +1,252 @@
+package com.example.ragchatbot.service;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+import com.example.ragchatbot.service.metrics.PipelineMetrics;
+import com.example.ragchatbot.service.sql.QueryContainment;
+import com.example.ragchatbot.service.sql.SelectQuery;
+import com.example.ragchatbot.service.sql.SqlParseException;
+import com.example.ragchatbot.service.sql.SqlParser;
+import com.example.ragchatbot.service.storage.QueryEntries;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers queries from the stored results of a query that contains them (see
+ * {@link QueryContainment}): "top 5 scorers in 2016" from the stored "top 10 scorers in 2016",
+ * or a re-sorted or filtered view of a complete stored result, without a BigQuery job. Stored
+ * results are indexed in memory by the parts of the SQL that must match, most recent first, and
+ * the index is updated in the background from the entries logged since the last run.
+ */
+@Service
+public class SupersetResultService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SupersetResultService.class);
+
+    private final SqlQueryStorageService storageService;
+    private final PipelineMetrics metrics;
+    private final boolean enabled;
+    private final int maxEntries;
+    private final long refreshIntervalMs;
+    private final ScheduledExecutorService refresher;
+
+    private volatile Map<String, List<StoredQuery>> index = Collections.emptyMap();
+    // Owned by the refresher thread: indexed results by SQL, oldest first
+    private final LinkedHashMap<String, StoredQuery> recent = new LinkedHashMap<>();
+    private LocalDateTime indexedThrough;
+    private long indexedEntries = -1;
+
+    @Autowired
+    public SupersetResultService(SqlQueryStorageService storageService, PipelineMetrics metrics,
+                                 @Value("${sql.containment.enabled:true}") boolean enabled,
+                                 @Value("${sql.containment.max-entries:2000}") int maxEntries,
+                                 @Value("${sql.containment.refresh-interval-ms:30000}") long refreshIntervalMs) {
+        this.storageService = storageService;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.refreshIntervalMs = Math.max(1000, refreshIntervalMs);
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "superset-result-indexer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        logger.info("Superset results initialized: enabled={}, maxEntries={}, refreshIntervalMs={}",
+                enabled, this.maxEntries, this.refreshIntervalMs);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            refresher.scheduleWithFixedDelay(this::refreshSafely, 0, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * Derives the result of {@code sql} from a stored result that contains it.
+     *
+     * @return The derived result and the stored SQL it came from, or empty if no stored result
+     *         contains the query
+     */
+    public Optional<DerivedResult> derive(String sql) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Optional<DerivedResult> derived = Optional.empty();
+        SelectQuery query = parse(sql);
+        if (query != null) {
+            for (StoredQuery stored : index.getOrDefault(QueryContainment.coreKey(query), List.of())) {
+                Optional<QueryContainment> containment =
+                        QueryContainment.check(stored.query, stored.rows.size(), stored.truncated, query);
+                if (containment.isPresent()) {
+                    derived = Optional.of(stored.derive(containment.get()));
+                    break;
+                }
+            }
+        }
+        metrics.recordCacheLookup("superset", derived.isPresent());
+        return derived;
+    }
+
+    /**
+     * Updates the index if the query log changed since the last run. Growth is applied
+     * incrementally from the entries logged since the newest one indexed; the first run, or a
+     * log that shrank, reloads from the newest {@code maxEntries} entries. Neither reads the
+     * whole log.
+     */
+    void refresh() {
+        long entries = storageService.countQueries();
+        if (entries == indexedEntries) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        boolean reload = indexedEntries < 0 || entries < indexedEntries || indexedThrough == null;
+        List<Map<String, Object>> read;
+        if (reload) {
+            read = new ArrayList<>(storageService.findNewestQueries(maxEntries));
+            Collections.reverse(read);
+            recent.clear();
+            indexedThrough = null;
+        } else {
+            // Inclusive lower bound: entries sharing the cursor's timestamp are re-applied, which is harmless
+            read = storageService.findQueriesBetween(indexedThrough, LocalDateTime.now().plusDays(1));
+        }
+        for (Map<String, Object> entry : read) {
+            apply(entry);
+        }
+        Map<String, List<StoredQuery>> rebuilt = new HashMap<>();
+        List<StoredQuery> newestFirst = new ArrayList<>(recent.values());
+        Collections.reverse(newestFirst);
+        for (StoredQuery stored : newestFirst) {
+            rebuilt.computeIfAbsent(QueryContainment.coreKey(stored.query), key -> new ArrayList<>()).add(stored);
+        }
+        index = rebuilt;
+        indexedEntries = entries;
+        logger.info("Superset result index updated: reload={}, entriesRead={}, indexed={}, cores={}, durationMs={}",
+                reload, read.size(), recent.size(), rebuilt.size(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Makes an entry the most recent result for its SQL, evicting the oldest SQL past
+     * {@code maxEntries}. Entries without usable results leave an older result for the same SQL
+     * in place; chart-rewritten results carry a folded "Other" row and are never indexed.
+     */
+    private void apply(Map<String, Object> entry) {
+        LocalDateTime timestamp = QueryEntries.timestampOf(entry);
+        if (timestamp != null && (indexedThrough == null || timestamp.isAfter(indexedThrough))) {
+            indexedThrough = timestamp;
+        }
+        String sql = QueryEntries.sqlOf(entry);
+        if (sql == null || QueryEntries.isChartRewritten(entry)) {
+            return;
+        }
+        StoredQuery stored = StoredQuery.of(sql, entry.get("results"));
+        if (stored == null) {
+            return;
+        }
+        recent.remove(sql);
+        recent.put(sql, stored);
+        if (recent.size() > maxEntries) {
+            recent.remove(recent.keySet().iterator().next());
+        }
+    }
+
+    private void refreshSafely() {
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            // Keep serving from the previous index; the next run retries
+            logger.warn("Superset result index rebuild failed: error={}", e.getMessage(), e);
+        }
+    }
+
+    private static SelectQuery parse(String sql) {
+        try {
+            return SqlParser.parse(sql).getQuery();
+        } catch (SqlParseException e) {
+            return null;
+        }
+    }
+
+    /**
+     * A result derived from a stored one.
+     */
+    public static final class DerivedResult {
+        private final String sourceSql;
+        private final BigQueryResult result;
+
+        private DerivedResult(String sourceSql, BigQueryResult result) {
+            this.sourceSql = sourceSql;
+            this.result = result;
+        }
+
+        public String getSourceSql() {
+            return sourceSql;
+        }
+
+        public BigQueryResult getResult() {
+            return result;
+        }
+    }
+
+    private static final class StoredQuery {
+        private final String sql;
+        private final SelectQuery query;
+        private final List<String> columnTypes;
+        private final List<List<Object>> rows;
+        private final boolean truncated;
+
+        private StoredQuery(String sql, SelectQuery query, List<String> columnTypes, List<List<Object>> rows,
+                            boolean truncated) {
+            this.sql = sql;
+            this.query = query;
+            this.columnTypes = columnTypes;
+            this.rows = rows;
+            this.truncated = truncated;
+        }
+
+        @SuppressWarnings("unchecked")
+        private static StoredQuery of(String sql, Object results) {
+            if (!(results instanceof Map<?, ?> map) || !(map.get("columnTypes") instanceof List<?> types)
+                    || !(map.get("rows") instanceof List<?> rows)) {
+                return null;
+            }
+            SelectQuery query = parse(sql);
+            if (query == null || types.size() != query.getSelectItems().size()) {
+                return null;
+            }
+            return new StoredQuery(sql, query, (List<String>) types, (List<List<Object>>) rows,
+                    Boolean.TRUE.equals(map.get("truncated")));
+        }
+
+        private DerivedResult derive(QueryContainment containment) {
+            List<String> types = new ArrayList<>();
+            for (int column : containment.getProjection()) {
+                types.add(columnTypes.get(column));
+            }
+            return new DerivedResult(sql,
+                    BigQueryResult.fromCachedData(containment.getColumnNames(), types, containment.apply(rows)));
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.ragchatbot.service.backfill;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A backfill started through the job API, with its lifecycle state and live progress.
+ */
+public class BackfillJob {
+
+    public enum State {
+        QUEUED,
+        RUNNING,
+        COMPLETED,
+        CANCELLED,
+        FAILED;
+
+        public boolean isTerminal() {
+            return this == COMPLETED || this == CANCELLED || this == FAILED;
+        }
+    }
+
+    private final String id;
+    private final BackfillProgress progress = new BackfillProgress();
+    private final Instant createdAt = Instant.now();
+    private volatile State state = State.QUEUED;
+    private volatile Instant startedAt;
+    private volatile Instant finishedAt;
+    private volatile Map<String, Object> result;
+    private volatile String error;
+
+    BackfillJob(String id) {
+        this.id = id;
+    }
+
+    /**
+     * @return false if the job was cancelled while queued and must not run
+     */
+    synchronized boolean markRunning() {
+        if (state != State.QUEUED) {
+            return false;
+        }
+        startedAt = Instant.now();
+        state = State.RUNNING;
+        return true;
+    }
+
+    synchronized void markFinished(Map<String, Object> stats) {
+        result = stats;
+        finishedAt = Instant.now();
+        state = progress.isCancelRequested() ? State.CANCELLED : State.COMPLETED;
+    }
+
+    synchronized void markFailed(String message) {
+        error = message;
+        finishedAt = Instant.now();
+        state = State.FAILED;
+    }
+
+    /**
+     * Requests cancellation. A queued job is cancelled immediately; a running job stops
+     * after in-flight queries have been interrupted.
+     *
+     * @return false if the job had already finished
+     */
+    synchronized boolean cancel() {
+        if (state.isTerminal()) {
+            return false;
+        }
+        progress.requestCancel();
+        if (state == State.QUEUED) {
+            finishedAt = Instant.now();
+            state = State.CANCELLED;
+        }
+        return true;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public BackfillProgress getProgress() {
+        return progress;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("jobId", id);
+        map.put("status", state.name());
+        map.put("createdAt", createdAt.toString());
+        map.put("startedAt", startedAt != null ? startedAt.toString() : null);
+        map.put("finishedAt", finishedAt != null ? finishedAt.toString() : null);
+        map.put("cancelRequested", progress.isCancelRequested());
+        map.put("progress", progress.toMap());
+        map.put("errors", progress.getErrors());
+        if (result != null) {
+            map.put("result", result);
+        }
+        if (error != null) {
+            map.put("error", error);
+        }
+        return map;
+    }
+}
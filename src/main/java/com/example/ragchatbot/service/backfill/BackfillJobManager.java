@@ -0,0 +1,121 @@
+package com.example.ragchatbot.service.backfill;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.slf4j.MDC;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Runs backfills as background jobs so the HTTP request that starts one returns immediately.
+ * At most one backfill runs at a time; recently finished jobs stay queryable until they are
+ * evicted by newer ones.
+ */
+@Service
+public class BackfillJobManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackfillJobManager.class);
+
+    private final QueryBackfillService backfillService;
+    private final ExecutorService jobExecutor;
+    private final Map<String, BackfillJob> jobs;
+    private BackfillJob activeJob;
+
+    public BackfillJobManager(QueryBackfillService backfillService,
+                              @Value("${sql.backfill.retained-jobs:20}") int retainedJobs) {
+        this.backfillService = backfillService;
+        this.jobExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "backfill-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+        int capacity = Math.max(1, retainedJobs);
+        this.jobs = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, BackfillJob> eldest) {
+                return size() > capacity && eldest.getValue().getState().isTerminal();
+            }
+        };
+    }
+
+    /**
+     * Starts a backfill in the background.
+     *
+     * @return The new job, or empty if a backfill is already queued or running
+     */
+    public synchronized Optional<BackfillJob> submit() {
+        if (activeJob != null && !activeJob.getState().isTerminal()) {
+            return Optional.empty();
+        }
+        BackfillJob job = new BackfillJob(UUID.randomUUID().toString());
+        jobs.put(job.getId(), job);
+        activeJob = job;
+        jobExecutor.execute(() -> runJob(job));
+        logger.info("Backfill job submitted: jobId={}", job.getId());
+        return Optional.of(job);
+    }
+
+    public synchronized Optional<BackfillJob> getJob(String jobId) {
+        return Optional.ofNullable(jobs.get(jobId));
+    }
+
+    /**
+     * Returns the queued or running job, if any.
+     */
+    public synchronized Optional<BackfillJob> getActiveJob() {
+        if (activeJob == null || activeJob.getState().isTerminal()) {
+            return Optional.empty();
+        }
+        return Optional.of(activeJob);
+    }
+
+    /**
+     * Requests cancellation of a job.
+     *
+     * @return The job, or empty if it is unknown
+     */
+    public synchronized Optional<BackfillJob> cancel(String jobId) {
+        BackfillJob job = jobs.get(jobId);
+        if (job == null) {
+            return Optional.empty();
+        }
+        if (job.cancel()) {
+            logger.info("Backfill job cancellation requested: jobId={}, state={}", jobId, job.getState());
+        }
+        return Optional.of(job);
+    }
+
+    private void runJob(BackfillJob job) {
+        if (!job.markRunning()) {
+            logger.info("Backfill job cancelled before start: jobId={}", job.getId());
+            return;
+        }
+        MDC.put("backfillJobId", job.getId());
+        try {
+            logger.info("Backfill job started: jobId={}", job.getId());
+            Map<String, Object> stats = backfillService.run(job.getProgress());
+            job.markFinished(stats);
+            logger.info("Backfill job finished: jobId={}, state={}, elapsedMs={}",
+                    job.getId(), job.getState(), job.getProgress().getElapsedMillis());
+        } catch (Exception e) {
+            job.markFailed(e.getMessage());
+            logger.error("Backfill job failed: jobId={}, error={}", job.getId(), e.getMessage(), e);
+        } finally {
+            MDC.remove("backfillJobId");
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        getActiveJob().ifPresent(job -> job.cancel());
+        jobExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.ragchatbot.service.backfill;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Outcome of the deduplication step of a backfill and the SQL still lacking results.
+ */
+public class BackfillPlan {
+    private final int originalCount;
+    private final int duplicatesRemoved;
+    private final int finalCount;
+    private final List<String> pendingSql;
+
+    public BackfillPlan(int originalCount, int duplicatesRemoved, int finalCount, List<String> pendingSql) {
+        this.originalCount = originalCount;
+        this.duplicatesRemoved = duplicatesRemoved;
+        this.finalCount = finalCount;
+        this.pendingSql = Collections.unmodifiableList(new ArrayList<>(pendingSql));
+    }
+
+    public int getOriginalCount() {
+        return originalCount;
+    }
+
+    public int getDuplicatesRemoved() {
+        return duplicatesRemoved;
+    }
+
+    public int getFinalCount() {
+        return finalCount;
+    }
+
+    public List<String> getPendingSql() {
+        return pendingSql;
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.ragchatbot.service.backfill;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Thread-safe progress counters for a running backfill, updated by worker threads and read
+ * by whoever reports on the run.
+ */
+public class BackfillProgress {
+
+    private static final int MAX_RECORDED_ERRORS = 50;
+
+    private final AtomicInteger total = new AtomicInteger();
+    private final AtomicInteger succeeded = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicInteger timedOut = new AtomicInteger();
+    private final AtomicInteger skipped = new AtomicInteger();
+    private final AtomicInteger persisted = new AtomicInteger();
+    private final List<String> errors = new ArrayList<>();
+    private volatile long startedAtMillis;
+    private volatile long finishedAtMillis;
+    private volatile boolean cancelRequested;
+
+    void start(int pendingCount) {
+        total.set(pendingCount);
+        startedAtMillis = System.currentTimeMillis();
+    }
+
+    void finish() {
+        finishedAtMillis = System.currentTimeMillis();
+    }
+
+    void recordSuccess() {
+        succeeded.incrementAndGet();
+    }
+
+    void recordFailure(String sql, String message) {
+        failed.incrementAndGet();
+        recordError(sql, message);
+    }
+
+    void recordTimeout(String sql, String message) {
+        timedOut.incrementAndGet();
+        recordError(sql, message);
+    }
+
+    void recordSkipped() {
+        skipped.incrementAndGet();
+    }
+
+    void recordSkipped(int count) {
+        skipped.addAndGet(count);
+    }
+
+    void recordPersisted(int count) {
+        persisted.addAndGet(count);
+    }
+
+    private void recordError(String sql, String message) {
+        synchronized (errors) {
+            if (errors.size() < MAX_RECORDED_ERRORS) {
+                String preview = sql.length() > 100 ? sql.substring(0, 100) + "..." : sql;
+                errors.add(String.format("Failed to execute query: %s (sql=%s)", message, preview));
+            }
+        }
+    }
+
+    public int getTotal() {
+        return total.get();
+    }
+
+    /**
+     * Queries that have finished, whether they succeeded, failed, timed out or were skipped.
+     */
+    public int getCompleted() {
+        return succeeded.get() + failed.get() + timedOut.get() + skipped.get();
+    }
+
+    public int getSucceeded() {
+        return succeeded.get();
+    }
+
+    /**
+     * Failed queries, including timeouts.
+     */
+    public int getFailed() {
+        return failed.get() + timedOut.get();
+    }
+
+    public int getTimedOut() {
+        return timedOut.get();
+    }
+
+    public int getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * Successful results already written to storage.
+     */
+    public int getPersisted() {
+        return persisted.get();
+    }
+
+    /**
+     * Asks the run to stop: queued queries are skipped and in-flight BigQuery jobs are cancelled.
+     */
+    public void requestCancel() {
+        cancelRequested = true;
+    }
+
+    public boolean isCancelRequested() {
+        return cancelRequested;
+    }
+
+    public long getElapsedMillis() {
+        if (startedAtMillis == 0) {
+            return 0;
+        }
+        long end = finishedAtMillis != 0 ? finishedAtMillis : System.currentTimeMillis();
+        return end - startedAtMillis;
+    }
+
+    /**
+     * Finished queries per second since the run started.
+     */
+    public double getThroughputPerSecond() {
+        long elapsed = getElapsedMillis();
+        return elapsed > 0 ? getCompleted() * 1000.0 / elapsed : 0.0;
+    }
+
+    /**
+     * Estimated time to finish at the current throughput, or null before any query has finished.
+     */
+    public Long getEstimatedRemainingMillis() {
+        double throughput = getThroughputPerSecond();
+        if (throughput <= 0) {
+            return null;
+        }
+        int remaining = Math.max(0, getTotal() - getCompleted());
+        return (long) (remaining * 1000.0 / throughput);
+    }
+
+    public List<String> getErrors() {
+        synchronized (errors) {
+            return new ArrayList<>(errors);
+        }
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("total", getTotal());
+        map.put("completed", getCompleted());
+        map.put("succeeded", getSucceeded());
+        map.put("failed", getFailed());
+        map.put("timedOut", getTimedOut());
+        map.put("skipped", getSkipped());
+        map.put("persisted", getPersisted());
+        map.put("elapsedMs", getElapsedMillis());
+        map.put("throughputPerSecond", Math.round(getThroughputPerSecond() * 100) / 100.0);
+        map.put("etaMs", getEstimatedRemainingMillis());
+        map.put("percentComplete", getTotal() == 0 ? 100 : getCompleted() * 100 / getTotal());
+        return map;
+    }
+}
@@ -0,0 +1,257 @@
+package com.example.ragchatbot.service.backfill;
+
+import com.example.ragchatbot.service.BigQueryExecutionService;
+import com.example.ragchatbot.service.BigQueryTimeoutException;
+import com.example.ragchatbot.service.SqlQueryStorageService;
+import com.example.ragchatbot.service.data.BigQueryResult;
+import com.example.ragchatbot.service.limit.BackendOverloadedException;
+import com.example.ragchatbot.service.limit.CircuitOpenException;
+import com.example.ragchatbot.util.TokenBucketRateLimiter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Executes stored queries that have no cached results and writes the results back.
+ * <p>
+ * Queries run on a bounded worker pool, each with its own BigQuery deadline, and job
+ * submission is rate limited to stay within BigQuery quotas. The storage lock is only held
+ * while deduplicating up front and while merging a batch of finished results, so chat traffic
+ * keeps flowing during a long backfill. Results are checkpointed every
+ * {@code sql.backfill.checkpoint-size} successes; an interrupted run can simply be started
+ * again and only picks up entries that still lack results.
+ */
+@Service
+public class QueryBackfillService {
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryBackfillService.class);
+    private static final long CANCEL_POLL_INTERVAL_MS = 200;
+
+    private final SqlQueryStorageService storageService;
+    private final BigQueryExecutionService bigQueryExecutionService;
+    private final int parallelism;
+    private final long queryTimeoutMs;
+    private final double maxQueriesPerSecond;
+    private final int checkpointSize;
+
+    public QueryBackfillService(SqlQueryStorageService storageService,
+                                BigQueryExecutionService bigQueryExecutionService,
+                                @Value("${sql.backfill.parallelism:4}") int parallelism,
+                                @Value("${sql.backfill.query-timeout-ms:120000}") long queryTimeoutMs,
+                                @Value("${sql.backfill.max-queries-per-second:2}") double maxQueriesPerSecond,
+                                @Value("${sql.backfill.checkpoint-size:10}") int checkpointSize) {
+        this.storageService = storageService;
+        this.bigQueryExecutionService = bigQueryExecutionService;
+        this.parallelism = Math.max(1, parallelism);
+        this.queryTimeoutMs = queryTimeoutMs;
+        this.maxQueriesPerSecond = maxQueriesPerSecond;
+        this.checkpointSize = Math.max(1, checkpointSize);
+    }
+
+    /**
+     * Processes the SQL queries log by:
+     * 1. Removing duplicates (based on SQL query)
+     * 2. Executing queries without results via BigQuery, in parallel
+     * 3. Updating the log with results in checkpointed batches
+     *
+     * @return Map containing statistics about the processing
+     */
+    public Map<String, Object> processQueriesAndUpdateResults() {
+        return run(new BackfillProgress());
+    }
+
+    /**
+     * Runs a backfill, reporting into the given progress object as queries complete.
+     *
+     * @param progress Progress tracker, readable from other threads while the run is active
+     * @return Map containing statistics about the processing
+     */
+    public Map<String, Object> run(BackfillProgress progress) {
+        BackfillPlan plan = storageService.prepareBackfill();
+        List<String> pendingSql = plan.getPendingSql();
+        progress.start(pendingSql.size());
+
+        try {
+            if (!pendingSql.isEmpty()) {
+                executeAll(pendingSql, progress);
+            }
+        } finally {
+            progress.finish();
+        }
+
+        logger.info("Backfill completed: total={}, succeeded={}, failed={}, timedOut={}, persisted={}, elapsedMs={}",
+                progress.getTotal(), progress.getSucceeded(), progress.getFailed(), progress.getTimedOut(),
+                progress.getPersisted(), progress.getElapsedMillis());
+        return buildStats(plan, progress);
+    }
+
+    private void executeAll(List<String> pendingSql, BackfillProgress progress) {
+        int workers = Math.min(parallelism, pendingSql.size());
+        ExecutorService executor = Executors.newFixedThreadPool(workers, newThreadFactory());
+        CompletionService<Completed> completionService = new ExecutorCompletionService<>(executor);
+        TokenBucketRateLimiter rateLimiter = new TokenBucketRateLimiter(maxQueriesPerSecond, workers);
+
+        logger.info("Starting backfill: pending={}, workers={}, queryTimeoutMs={}, maxQueriesPerSecond={}",
+                pendingSql.size(), workers, queryTimeoutMs, maxQueriesPerSecond);
+
+        for (String sql : pendingSql) {
+            completionService.submit(() -> executeOne(sql, rateLimiter, progress));
+        }
+
+        Map<String, Map<String, Object>> batch = new LinkedHashMap<>();
+        int outstanding = pendingSql.size();
+        boolean cancelled = false;
+        try {
+            while (outstanding > 0) {
+                if (!cancelled && progress.isCancelRequested()) {
+                    cancelled = true;
+                    // Interrupts in-flight jobs (which cancel their BigQuery job); queued ones never start
+                    List<Runnable> notStarted = executor.shutdownNow();
+                    progress.recordSkipped(notStarted.size());
+                    outstanding -= notStarted.size();
+                    logger.info("Backfill cancellation requested: skipped={}, inFlight={}", notStarted.size(), outstanding);
+                    continue;
+                }
+                Future<Completed> future = completionService.poll(CANCEL_POLL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                if (future == null) {
+                    continue;
+                }
+                outstanding--;
+                Completed completed = resultOf(future);
+                if (completed != null && completed.results != null) {
+                    batch.put(completed.sql, completed.results);
+                    if (batch.size() >= checkpointSize) {
+                        checkpoint(batch, progress);
+                    }
+                }
+                logProgress(progress);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warn("Backfill interrupted: completed={}/{}", progress.getCompleted(), progress.getTotal());
+        } finally {
+            executor.shutdownNow();
+            checkpoint(batch, progress);
+        }
+    }
+
+    private Completed resultOf(Future<Completed> future) throws InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            // executeOne handles its own failures; this is a bug rather than a query error
+            logger.error("Backfill worker failed unexpectedly: error={}", e.getCause().getMessage(), e.getCause());
+            return null;
+        }
+    }
+
+    private Completed executeOne(String sql, TokenBucketRateLimiter rateLimiter, BackfillProgress progress) {
+        if (progress.isCancelRequested()) {
+            progress.recordSkipped();
+            return new Completed(sql, null);
+        }
+        try {
+            rateLimiter.acquire();
+            BigQueryResult result = bigQueryExecutionService.executeBackgroundQueryRich(sql, queryTimeoutMs);
+            Map<String, Object> results = storageService.toResultsMap(result);
+            progress.recordSuccess();
+            return new Completed(sql, results);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            progress.recordSkipped();
+        } catch (BigQueryTimeoutException e) {
+            logger.warn("Backfill query timed out: error={}", e.getMessage());
+            progress.recordTimeout(sql, e.getMessage());
+        } catch (BackendOverloadedException e) {
+            // Never submitted; the entry stays pending for the next run
+            logger.warn("Backfill query shed by the BigQuery concurrency limit: error={}", e.getMessage());
+            progress.recordSkipped();
+        } catch (CircuitOpenException e) {
+            logger.warn("Backfill query skipped while the BigQuery circuit is open: error={}", e.getMessage());
+            progress.recordSkipped();
+        } catch (Exception e) {
+            logger.error("Backfill query failed: error={}", e.getMessage(), e);
+            progress.recordFailure(sql, e.getMessage());
+        }
+        return new Completed(sql, null);
+    }
+
+    private void checkpoint(Map<String, Map<String, Object>> batch, BackfillProgress progress) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            int updated = storageService.applyBackfillResults(batch);
+            progress.recordPersisted(updated);
+            logger.info("Backfill checkpoint written: batchSize={}, entriesUpdated={}, persistedTotal={}",
+                    batch.size(), updated, progress.getPersisted());
+        } catch (RuntimeException e) {
+            // Results stay pending in storage and are picked up by the next run
+            logger.error("Failed to write backfill checkpoint: batchSize={}, error={}", batch.size(), e.getMessage(), e);
+        }
+        batch.clear();
+    }
+
+    private void logProgress(BackfillProgress progress) {
+        int completed = progress.getCompleted();
+        int total = progress.getTotal();
+        int step = Math.max(1, total / 10);
+        if (completed % step == 0 || completed == total) {
+            logger.info("Backfill progress: completed={}/{}, succeeded={}, failed={}, elapsedMs={}",
+                    completed, total, progress.getSucceeded(), progress.getFailed(), progress.getElapsedMillis());
+        }
+    }
+
+    private Map<String, Object> buildStats(BackfillPlan plan, BackfillProgress progress) {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("originalCount", plan.getOriginalCount());
+        stats.put("duplicatesRemoved", plan.getDuplicatesRemoved());
+        stats.put("finalCount", plan.getFinalCount());
+        stats.put("queriesProcessed", progress.getCompleted());
+        stats.put("queriesSucceeded", progress.getSucceeded());
+        stats.put("queriesFailed", progress.getFailed());
+        stats.put("queriesTimedOut", progress.getTimedOut());
+        stats.put("queriesSkipped", progress.getSkipped());
+        stats.put("resultsPersisted", progress.getPersisted());
+        stats.put("cancelled", progress.isCancelRequested());
+        List<String> errors = progress.getErrors();
+        if (!errors.isEmpty()) {
+            stats.put("errors", errors);
+        }
+        return stats;
+    }
+
+    private static ThreadFactory newThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "query-backfill-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private static final class Completed {
+        private final String sql;
+        private final Map<String, Object> results;
+
+        private Completed(String sql, Map<String, Object> results) {
+            this.sql = sql;
+            this.results = results;
+        }
+    }
+}
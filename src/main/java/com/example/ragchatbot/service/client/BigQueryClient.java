@@ -0,0 +1,24 @@
+package com.example.ragchatbot.service.client;
+
+/**
+ * Query-job backend used by {@link com.example.ragchatbot.service.BigQueryExecutionService}.
+ * The service owns deadlines, metrics and tracing; implementations only submit, wait for and
+ * read jobs. {@link GcpBigQueryClient} talks to BigQuery; {@link StubBigQueryClient} fabricates
+ * results locally (see {@code clients.mode}). Implementations must be safe for concurrent use.
+ */
+public interface BigQueryClient {
+
+    /**
+     * Submits a standard-SQL query job.
+     *
+     * @param jobId Caller-chosen job id
+     * @param sql Query text
+     * @param timeoutMs Server-side job timeout in milliseconds, or 0 for none
+     */
+    BigQueryJob submit(String jobId, String sql, long timeoutMs);
+
+    /**
+     * Requests cancellation of a job. Best effort; a job that already finished is left alone.
+     */
+    void cancel(String jobId);
+}
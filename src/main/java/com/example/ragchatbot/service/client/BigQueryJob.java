@@ -0,0 +1,34 @@
+package com.example.ragchatbot.service.client;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+
+/**
+ * A submitted query job, as returned by {@link BigQueryClient#submit}.
+ */
+public interface BigQueryJob {
+
+    String getJobId();
+
+    /**
+     * Blocks until the job finishes or the wait runs out.
+     *
+     * @param maxWaitMs Longest time to wait in milliseconds, or 0 to wait until the job finishes
+     * @return true if the job finished, false if it is still running
+     */
+    boolean await(long maxWaitMs) throws InterruptedException;
+
+    /**
+     * Error reported by a finished job, or null if it succeeded.
+     */
+    String getError();
+
+    /**
+     * Bytes scanned by a finished job, or null when the backend does not report it.
+     */
+    Long getTotalBytesProcessed();
+
+    /**
+     * Reads the results of a finished, successful job.
+     */
+    BigQueryResult fetchResults() throws InterruptedException;
+}
@@ -0,0 +1,109 @@
+package com.example.ragchatbot.service.client;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+import com.google.cloud.RetryOption;
+import com.google.cloud.bigquery.BigQuery;
+import com.google.cloud.bigquery.BigQueryException;
+import com.google.cloud.bigquery.BigQueryOptions;
+import com.google.cloud.bigquery.Job;
+import com.google.cloud.bigquery.JobId;
+import com.google.cloud.bigquery.JobInfo;
+import com.google.cloud.bigquery.JobStatistics;
+import com.google.cloud.bigquery.QueryJobConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.threeten.bp.Duration;
+
+/**
+ * BigQuery jobs through the Cloud client library, authenticated with Application Default
+ * Credentials.
+ */
+public class GcpBigQueryClient implements BigQueryClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(GcpBigQueryClient.class);
+
+    private final BigQuery bigQuery;
+
+    public GcpBigQueryClient() {
+        this(BigQueryOptions.getDefaultInstance().getService());
+    }
+
+    public GcpBigQueryClient(BigQuery bigQuery) {
+        this.bigQuery = bigQuery;
+    }
+
+    @Override
+    public BigQueryJob submit(String jobId, String sql, long timeoutMs) {
+        QueryJobConfiguration.Builder configBuilder = QueryJobConfiguration.newBuilder(sql)
+                .setUseLegacySql(false);
+        if (timeoutMs > 0) {
+            configBuilder.setJobTimeoutMs(timeoutMs);
+        }
+        Job job = bigQuery.create(JobInfo.newBuilder(configBuilder.build()).setJobId(JobId.of(jobId)).build());
+        return new GcpBigQueryJob(jobId, job);
+    }
+
+    @Override
+    public void cancel(String jobId) {
+        bigQuery.cancel(JobId.of(jobId));
+    }
+
+    private static final class GcpBigQueryJob implements BigQueryJob {
+
+        private final String jobId;
+        private Job job;
+
+        GcpBigQueryJob(String jobId, Job job) {
+            this.jobId = jobId;
+            this.job = job;
+        }
+
+        @Override
+        public String getJobId() {
+            return jobId;
+        }
+
+        @Override
+        public boolean await(long maxWaitMs) throws InterruptedException {
+            long waitStart = System.currentTimeMillis();
+            Job waited;
+            try {
+                waited = maxWaitMs > 0
+                        ? job.waitFor(RetryOption.totalTimeout(Duration.ofMillis(maxWaitMs)))
+                        : job.waitFor();
+            } catch (BigQueryException e) {
+                // The polling retry gives up with an exception when the total timeout elapses
+                if (maxWaitMs > 0 && System.currentTimeMillis() - waitStart >= maxWaitMs) {
+                    return false;
+                }
+                throw e;
+            }
+            if (waited == null) {
+                logger.error("BigQuery job no longer exists: jobId={}", jobId);
+                throw new RuntimeException("Job no longer exists");
+            }
+            job = waited;
+            return waited.isDone();
+        }
+
+        @Override
+        public String getError() {
+            var error = job.getStatus().getError();
+            return error != null ? error.toString() : null;
+        }
+
+        @Override
+        public Long getTotalBytesProcessed() {
+            JobStatistics statistics = job.getStatistics();
+            if (statistics instanceof JobStatistics.QueryStatistics queryStatistics) {
+                return queryStatistics.getTotalBytesProcessed();
+            }
+            return null;
+        }
+
+        @Override
+        public BigQueryResult fetchResults() throws InterruptedException {
+            return new BigQueryResult(job.getQueryResults());
+        }
+    }
+}
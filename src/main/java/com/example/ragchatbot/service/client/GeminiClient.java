@@ -0,0 +1,19 @@
+package com.example.ragchatbot.service.client;
+
+/**
+ * Text-generation backend used by {@link com.example.ragchatbot.agent.NcaaBasketballAgent}.
+ * {@link VertexGeminiClient} calls Vertex AI; {@link StubGeminiClient} answers locally so the
+ * chat pipeline can run without GCP credentials (see {@code clients.mode}).
+ * Implementations must be safe for concurrent use.
+ */
+public interface GeminiClient {
+
+    /**
+     * Generates a completion for a single-turn prompt.
+     *
+     * @param model Model name, e.g. {@code gemini-2.5-pro}
+     * @param prompt Full prompt text
+     * @return Generated text with token usage when the backend reports it
+     */
+    GeminiResponse generateContent(String model, String prompt);
+}
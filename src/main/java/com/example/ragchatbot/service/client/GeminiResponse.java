@@ -0,0 +1,35 @@
+package com.example.ragchatbot.service.client;
+
+/**
+ * Generated text plus token usage. Token counts are null when the backend did not report them.
+ */
+public final class GeminiResponse {
+
+    private final String text;
+    private final Integer promptTokenCount;
+    private final Integer candidatesTokenCount;
+    private final Integer totalTokenCount;
+
+    public GeminiResponse(String text, Integer promptTokenCount, Integer candidatesTokenCount, Integer totalTokenCount) {
+        this.text = text;
+        this.promptTokenCount = promptTokenCount;
+        this.candidatesTokenCount = candidatesTokenCount;
+        this.totalTokenCount = totalTokenCount;
+    }
+
+    public String getText() {
+        return text;
+    }
+
+    public Integer getPromptTokenCount() {
+        return promptTokenCount;
+    }
+
+    public Integer getCandidatesTokenCount() {
+        return candidatesTokenCount;
+    }
+
+    public Integer getTotalTokenCount() {
+        return totalTokenCount;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.ragchatbot.service.client;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Log-normal distribution parameterised by its median and 99th percentile, which is how service
+ * latencies and result sizes are usually described. Used by the stub clients.
+ */
+final class LogNormalDistribution {
+
+    // Standard normal quantile at 0.99
+    private static final double Z_99 = 2.3263478740408408;
+
+    private final double median;
+    private final double sigma;
+
+    LogNormalDistribution(double median, double p99) {
+        this.median = Math.max(0.0, median);
+        this.sigma = median > 0 && p99 > median ? Math.log(p99 / median) / Z_99 : 0.0;
+    }
+
+    long sample() {
+        if (median == 0.0) {
+            return 0L;
+        }
+        return Math.round(median * Math.exp(sigma * ThreadLocalRandom.current().nextGaussian()));
+    }
+}
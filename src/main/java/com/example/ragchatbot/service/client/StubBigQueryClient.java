@@ -0,0 +1,181 @@
+package com.example.ragchatbot.service.client;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+import com.example.ragchatbot.service.sql.SelectItem;
+import com.example.ragchatbot.service.sql.SelectQuery;
+import com.example.ragchatbot.service.sql.SqlExpression;
+import com.example.ragchatbot.service.sql.SqlParseException;
+import com.example.ragchatbot.service.sql.SqlParser;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Offline stand-in for BigQuery. Jobs finish after a log-normally distributed delay and a
+ * configurable fraction fail. Results have the columns of the query's SELECT list, typed from
+ * the expressions (COUNT is INT64, other aggregates and arithmetic FLOAT64, season/year columns
+ * INT64, everything else STRING), and a log-normally distributed row count capped by LIMIT.
+ * Values are strings, as the real client returns them.
+ */
+public class StubBigQueryClient implements BigQueryClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(StubBigQueryClient.class);
+
+    private static final Set<String> FLOAT_FUNCTIONS = Set.of(
+            "AVG", "SUM", "MIN", "MAX", "ROUND", "STDDEV", "SAFE_DIVIDE", "PERCENTILE_CONT");
+    private static final Set<String> ARITHMETIC_OPERATORS = Set.of("+", "-", "*", "/");
+
+    private final LogNormalDistribution latency;
+    private final LogNormalDistribution rowCount;
+    private final double errorRate;
+
+    public StubBigQueryClient(long latencyMedianMs, long latencyP99Ms, double errorRate,
+                              long rowsMedian, long rowsP99) {
+        this.latency = new LogNormalDistribution(latencyMedianMs, latencyP99Ms);
+        this.rowCount = new LogNormalDistribution(rowsMedian, rowsP99);
+        this.errorRate = errorRate;
+        logger.info("Stub BigQuery client initialized: latencyMedianMs={}, latencyP99Ms={}, errorRate={}, rowsMedian={}, rowsP99={}",
+                latencyMedianMs, latencyP99Ms, errorRate, rowsMedian, rowsP99);
+    }
+
+    @Override
+    public BigQueryJob submit(String jobId, String sql, long timeoutMs) {
+        boolean failed = errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate;
+        return new StubJob(jobId, sql, System.currentTimeMillis() + latency.sample(), failed);
+    }
+
+    @Override
+    public void cancel(String jobId) {
+        // Stub jobs hold no server-side resources
+        logger.debug("Stub BigQuery job cancelled: jobId={}", jobId);
+    }
+
+    private BigQueryResult fabricate(String sql) {
+        List<String> names = new ArrayList<>();
+        List<String> types = new ArrayList<>();
+        Long limit = null;
+        try {
+            SelectQuery query = SqlParser.parse(sql).getQuery();
+            limit = query.getLimit();
+            for (SelectItem item : query.getSelectItems()) {
+                String name = item.getOutputName() != null ? item.getOutputName() : "f" + names.size() + "_";
+                names.add(name);
+                types.add(typeOf(item.getExpression(), name));
+            }
+        } catch (SqlParseException e) {
+            logger.debug("Stub BigQuery could not parse SQL, using default columns: error={}", e.getMessage());
+        }
+        if (names.isEmpty() || types.contains(null)) {
+            names = List.of("label", "value");
+            types = List.of("STRING", "FLOAT64");
+        }
+
+        long rows = Math.max(1, rowCount.sample());
+        if (limit != null) {
+            rows = Math.min(rows, limit);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<List<Object>> data = new ArrayList<>((int) rows);
+        for (int r = 0; r < rows; r++) {
+            List<Object> row = new ArrayList<>(names.size());
+            for (int c = 0; c < names.size(); c++) {
+                row.add(valueOf(types.get(c), names.get(c), r, random));
+            }
+            data.add(row);
+        }
+        return BigQueryResult.fromCachedData(names, types, data);
+    }
+
+    /**
+     * Type of a select item, or null for {@code *} (the stub cannot know the table's columns).
+     */
+    private static String typeOf(SqlExpression expression, String name) {
+        if (expression.getKind() == SqlExpression.Kind.STAR) {
+            return null;
+        }
+        String lowerName = name.toLowerCase(Locale.ROOT);
+        if (expression.getKind() == SqlExpression.Kind.FUNCTION) {
+            if ("COUNT".equals(expression.getName())) {
+                return "INT64";
+            }
+            if (FLOAT_FUNCTIONS.contains(expression.getName())) {
+                return "FLOAT64";
+            }
+        }
+        if (expression.getKind() == SqlExpression.Kind.BINARY && ARITHMETIC_OPERATORS.contains(expression.getName())) {
+            return "FLOAT64";
+        }
+        if (lowerName.contains("season") || lowerName.contains("year")) {
+            return "INT64";
+        }
+        return "STRING";
+    }
+
+    private static String valueOf(String type, String name, int row, ThreadLocalRandom random) {
+        switch (type) {
+            case "INT64":
+                String lowerName = name.toLowerCase(Locale.ROOT);
+                if (lowerName.contains("season") || lowerName.contains("year")) {
+                    return String.valueOf(2000 + row % 25);
+                }
+                return String.valueOf(random.nextInt(1, 1000));
+            case "FLOAT64":
+                return String.valueOf(Math.round(random.nextDouble(0.0, 100.0) * 100.0) / 100.0);
+            default:
+                return name + " " + (row + 1);
+        }
+    }
+
+    private final class StubJob implements BigQueryJob {
+
+        private final String jobId;
+        private final String sql;
+        private final long completesAt;
+        private final boolean failed;
+
+        StubJob(String jobId, String sql, long completesAt, boolean failed) {
+            this.jobId = jobId;
+            this.sql = sql;
+            this.completesAt = completesAt;
+            this.failed = failed;
+        }
+
+        @Override
+        public String getJobId() {
+            return jobId;
+        }
+
+        @Override
+        public boolean await(long maxWaitMs) throws InterruptedException {
+            long remaining = completesAt - System.currentTimeMillis();
+            if (maxWaitMs > 0 && remaining > maxWaitMs) {
+                Thread.sleep(maxWaitMs);
+                return false;
+            }
+            if (remaining > 0) {
+                Thread.sleep(remaining);
+            }
+            return true;
+        }
+
+        @Override
+        public String getError() {
+            return failed ? "Stub BigQuery job failed (injected error)" : null;
+        }
+
+        @Override
+        public Long getTotalBytesProcessed() {
+            return null;
+        }
+
+        @Override
+        public BigQueryResult fetchResults() {
+            return fabricate(sql);
+        }
+    }
+}
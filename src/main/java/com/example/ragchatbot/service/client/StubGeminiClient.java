@@ -0,0 +1,141 @@
+package com.example.ragchatbot.service.client;
+
+import com.example.ragchatbot.service.storage.QueryEntries;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Offline stand-in for Gemini. Answers with the SQL logged for the question in a query log
+ * (normally {@code logs/sql-queries.json}), so downstream stages see realistic queries, after
+ * a log-normally distributed delay; a configurable fraction of calls fail.
+ *
+ * <p>The question is read from the agent's prompt ("User query: ..."). Questions that only
+ * extend a logged one (e.g. with a load generator's uniqueness suffix) get that entry's SQL;
+ * unknown questions get a logged query chosen by hash.
+ *
+ * <p>A fast model can be given its own latency and a rate of unusable (non-SQL) answers, to
+ * exercise model routing and escalation.
+ */
+public class StubGeminiClient implements GeminiClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(StubGeminiClient.class);
+
+    private static final String QUESTION_PREFIX = "User query: ";
+    private static final String FALLBACK_SQL = "SELECT market AS team_name, COUNT(*) AS games\n"
+            + "FROM `bigquery-public-data.ncaa_basketball.mbb_teams_games_sr`\n"
+            + "GROUP BY team_name\nORDER BY games DESC\nLIMIT 10";
+
+    private final List<ReplayEntry> entries;
+    private final LogNormalDistribution latency;
+    private final double errorRate;
+    private final String fastModel;
+    private final LogNormalDistribution fastLatency;
+    private final double fastInvalidRate;
+
+    public StubGeminiClient(List<ReplayEntry> entries, long latencyMedianMs, long latencyP99Ms, double errorRate) {
+        this(entries, latencyMedianMs, latencyP99Ms, errorRate, null, latencyMedianMs, latencyP99Ms, 0.0);
+    }
+
+    /**
+     * @param fastModel Model name that gets the fast latency and invalid-answer rate; null for none
+     * @param fastInvalidRate Fraction of fast-model answers that are prose instead of SQL
+     */
+    public StubGeminiClient(List<ReplayEntry> entries, long latencyMedianMs, long latencyP99Ms, double errorRate,
+                            String fastModel, long fastLatencyMedianMs, long fastLatencyP99Ms, double fastInvalidRate) {
+        this.entries = List.copyOf(entries);
+        this.latency = new LogNormalDistribution(latencyMedianMs, latencyP99Ms);
+        this.errorRate = errorRate;
+        this.fastModel = fastModel;
+        this.fastLatency = new LogNormalDistribution(fastLatencyMedianMs, fastLatencyP99Ms);
+        this.fastInvalidRate = fastInvalidRate;
+        logger.info("Stub Gemini client initialized: replayEntries={}, latencyMedianMs={}, latencyP99Ms={}, errorRate={}, fastModel={}, fastLatencyMedianMs={}",
+                this.entries.size(), latencyMedianMs, latencyP99Ms, errorRate, fastModel, fastLatencyMedianMs);
+    }
+
+    /**
+     * Loads question/SQL pairs from a JSON query log. A missing file leaves only the fallback query.
+     */
+    public static List<ReplayEntry> loadReplayEntries(Path queryLog) throws IOException {
+        List<ReplayEntry> entries = new ArrayList<>();
+        if (!Files.exists(queryLog)) {
+            logger.warn("Stub Gemini replay file not found, using fallback SQL: file={}", queryLog.toAbsolutePath());
+            return entries;
+        }
+        JsonNode root = new ObjectMapper().readTree(queryLog.toFile());
+        for (JsonNode entry : root) {
+            JsonNode query = entry.get("query");
+            JsonNode sql = entry.get("sql");
+            if (query != null && sql != null && !sql.asText().isBlank()) {
+                entries.add(new ReplayEntry(query.asText(), sql.asText()));
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public GeminiResponse generateContent(String model, String prompt) {
+        boolean fast = fastModel != null && fastModel.equals(model);
+        try {
+            Thread.sleep((fast ? fastLatency : latency).sample());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Stub Gemini call interrupted", e);
+        }
+        if (errorRate > 0 && ThreadLocalRandom.current().nextDouble() < errorRate) {
+            throw new RuntimeException("Stub Gemini call failed (injected error)");
+        }
+        String sql = fast && fastInvalidRate > 0 && ThreadLocalRandom.current().nextDouble() < fastInvalidRate
+                ? "I could not determine which table answers this question."
+                : sqlFor(questionOf(prompt));
+        int promptTokens = prompt.length() / 4;
+        int candidateTokens = sql.length() / 4;
+        return new GeminiResponse(sql, promptTokens, candidateTokens, promptTokens + candidateTokens);
+    }
+
+    private String sqlFor(String question) {
+        if (entries.isEmpty()) {
+            return FALLBACK_SQL;
+        }
+        String normalized = QueryEntries.normalizeQueryText(question);
+        ReplayEntry best = null;
+        for (ReplayEntry entry : entries) {
+            if (entry.normalizedQuery.equals(normalized)) {
+                return entry.sql;
+            }
+            if (normalized.startsWith(entry.normalizedQuery)
+                    && (best == null || entry.normalizedQuery.length() > best.normalizedQuery.length())) {
+                best = entry;
+            }
+        }
+        return best != null ? best.sql : entries.get(Math.floorMod(normalized.hashCode(), entries.size())).sql;
+    }
+
+    private static String questionOf(String prompt) {
+        int start = prompt.lastIndexOf(QUESTION_PREFIX);
+        if (start < 0) {
+            return prompt;
+        }
+        start += QUESTION_PREFIX.length();
+        int end = prompt.indexOf("\n", start);
+        return end < 0 ? prompt.substring(start) : prompt.substring(start, end);
+    }
+
+    public static final class ReplayEntry {
+        private final String normalizedQuery;
+        private final String sql;
+
+        public ReplayEntry(String question, String sql) {
+            this.normalizedQuery = QueryEntries.normalizeQueryText(question);
+            this.sql = sql;
+        }
+    }
+}
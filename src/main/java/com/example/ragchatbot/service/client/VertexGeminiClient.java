@@ -0,0 +1,45 @@
+package com.example.ragchatbot.service.client;
+
+import com.google.genai.Client;
+import com.google.genai.types.GenerateContentResponse;
+import com.google.genai.types.GenerateContentResponseUsageMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Optional;
+
+/**
+ * Gemini on Vertex AI. Authenticates with Application Default Credentials.
+ */
+public class VertexGeminiClient implements GeminiClient {
+
+    private static final Logger logger = LoggerFactory.getLogger(VertexGeminiClient.class);
+
+    private final Client genAiClient;
+
+    public VertexGeminiClient(String projectId, String location) {
+        logger.info("Initializing Vertex AI client: projectId={}, location={}", projectId, location);
+        try {
+            this.genAiClient = Client.builder()
+                    .project(projectId)
+                    .location(location)
+                    .vertexAI(true)
+                    .build();
+            logger.info("Vertex AI client initialized successfully: projectId={}, location={}", projectId, location);
+        } catch (Exception e) {
+            logger.error("Failed to initialize Vertex AI client: projectId={}, location={}, error={}",
+                    projectId, location, e.getMessage(), e);
+            throw new RuntimeException("Failed to initialize Vertex AI client", e);
+        }
+    }
+
+    @Override
+    public GeminiResponse generateContent(String model, String prompt) {
+        GenerateContentResponse response = genAiClient.models.generateContent(model, prompt, null);
+        Optional<GenerateContentResponseUsageMetadata> usage = response.usageMetadata();
+        return new GeminiResponse(response.text(),
+                usage.flatMap(GenerateContentResponseUsageMetadata::promptTokenCount).orElse(null),
+                usage.flatMap(GenerateContentResponseUsageMetadata::candidatesTokenCount).orElse(null),
+                usage.flatMap(GenerateContentResponseUsageMetadata::totalTokenCount).orElse(null));
+    }
+}
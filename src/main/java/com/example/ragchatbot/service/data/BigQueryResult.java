@@ -1,5 +1,6 @@
 package com.example.ragchatbot.service.data;
 
+import com.example.ragchatbot.service.data.snapshot.ResultSnapshot;
 import com.google.cloud.bigquery.Field;
 import com.google.cloud.bigquery.FieldValue;
 import com.google.cloud.bigquery.FieldValueList;
@@ -11,20 +12,37 @@ import java.util.*;
 /**
  * Rich wrapper around BigQuery TableResult that provides convenient access
  * to column metadata, type information, and efficient data access.
+ * Column metadata, numeric/categorical classification and rows are computed once and exposed
+ * as unmodifiable views, so the accessors transformers call while selecting a chart allocate
+ * nothing.
  */
 public class BigQueryResult {
     private final TableResult tableResult;
     private final List<String> columnNames;
     private final List<StandardSQLTypeName> columnTypes;
     private final Map<String, Integer> columnIndexMap;
+    private final boolean[] numericColumnFlags;
+    private final List<Integer> numericColumnIndexes;
+    private final List<Integer> categoricalColumnIndexes;
+    private final List<String> numericColumnNames;
+    private final List<String> categoricalColumnNames;
     private final int rowCount;
-    private List<List<Object>> cachedRows;
+    private final ResultSnapshot snapshot;
+    // Filled lazily; volatile because alternates may be rendered from the same result on other threads
+    private volatile List<List<Object>> cachedRows;
+    private volatile List<List<Object>> cachedColumns;
 
     public BigQueryResult(TableResult tableResult) {
         this.tableResult = tableResult;
-        this.columnNames = extractColumnNames(tableResult);
-        this.columnTypes = extractColumnTypes(tableResult);
+        this.snapshot = null;
+        this.columnNames = Collections.unmodifiableList(extractColumnNames(tableResult));
+        this.columnTypes = Collections.unmodifiableList(extractColumnTypes(tableResult));
         this.columnIndexMap = buildColumnIndexMap();
+        this.numericColumnFlags = classifyColumns();
+        this.numericColumnIndexes = columnIndexes(true);
+        this.categoricalColumnIndexes = columnIndexes(false);
+        this.numericColumnNames = namesOf(numericColumnIndexes);
+        this.categoricalColumnNames = namesOf(categoricalColumnIndexes);
         this.rowCount = (int) tableResult.getTotalRows();
     }
 
@@ -34,11 +52,17 @@ public class BigQueryResult {
      */
     private BigQueryResult(List<String> columnNames, List<StandardSQLTypeName> columnTypes, List<List<Object>> rows) {
         this.tableResult = null;
-        this.columnNames = new ArrayList<>(columnNames);
-        this.columnTypes = new ArrayList<>(columnTypes);
+        this.snapshot = null;
+        this.columnNames = Collections.unmodifiableList(new ArrayList<>(columnNames));
+        this.columnTypes = Collections.unmodifiableList(new ArrayList<>(columnTypes));
         this.columnIndexMap = buildColumnIndexMap();
+        this.numericColumnFlags = classifyColumns();
+        this.numericColumnIndexes = columnIndexes(true);
+        this.categoricalColumnIndexes = columnIndexes(false);
+        this.numericColumnNames = namesOf(numericColumnIndexes);
+        this.categoricalColumnNames = namesOf(categoricalColumnIndexes);
         this.rowCount = rows != null ? rows.size() : 0;
-        this.cachedRows = rows != null ? new ArrayList<>(rows) : new ArrayList<>();
+        this.cachedRows = Collections.unmodifiableList(rows != null ? new ArrayList<>(rows) : new ArrayList<>());
     }
 
     /**
@@ -54,6 +78,35 @@ public class BigQueryResult {
         return new BigQueryResult(columnNames, columnTypes, rows);
     }
 
+    /**
+     * Creates a BigQueryResult backed by a mapped result snapshot. Rows and columns are views
+     * over the snapshot rather than copies.
+     */
+    public static BigQueryResult fromSnapshot(ResultSnapshot snapshot) {
+        return new BigQueryResult(snapshot);
+    }
+
+    private BigQueryResult(ResultSnapshot snapshot) {
+        this.tableResult = null;
+        this.snapshot = snapshot;
+        List<String> names = new ArrayList<>(snapshot.getColumnCount());
+        List<String> typeNames = new ArrayList<>(snapshot.getColumnCount());
+        for (int i = 0; i < snapshot.getColumnCount(); i++) {
+            names.add(snapshot.getColumnName(i));
+            typeNames.add(snapshot.getColumnType(i));
+        }
+        this.columnNames = Collections.unmodifiableList(names);
+        this.columnTypes = Collections.unmodifiableList(convertStringTypesToEnum(typeNames));
+        this.columnIndexMap = buildColumnIndexMap();
+        this.numericColumnFlags = classifyColumns();
+        this.numericColumnIndexes = columnIndexes(true);
+        this.categoricalColumnIndexes = columnIndexes(false);
+        this.numericColumnNames = namesOf(numericColumnIndexes);
+        this.categoricalColumnNames = namesOf(categoricalColumnIndexes);
+        this.rowCount = snapshot.getRowCount();
+        this.cachedRows = snapshot.rows();
+    }
+
     /**
      * Converts string type names to StandardSQLTypeName enum values.
      */
@@ -110,12 +163,18 @@ public class BigQueryResult {
         return tableResult;
     }
 
+    /**
+     * @return Unmodifiable column names
+     */
     public List<String> getColumnNames() {
-        return new ArrayList<>(columnNames);
+        return columnNames;
     }
 
+    /**
+     * @return Unmodifiable column types
+     */
     public List<StandardSQLTypeName> getColumnTypes() {
-        return new ArrayList<>(columnTypes);
+        return columnTypes;
     }
 
     public int getRowCount() {
@@ -151,59 +210,46 @@ public class BigQueryResult {
     }
 
     /**
-     * Gets all values for a specific column by index.
+     * Gets all values for a specific column by index, as an unmodifiable list. Columns are
+     * extracted together in a single pass over the rows the first time any column is requested,
+     * so reading several columns of a live result pages through it only once.
      */
     public List<Object> getColumnByIndex(int columnIndex) {
         if (columnIndex < 0 || columnIndex >= columnNames.size()) {
             return Collections.emptyList();
         }
 
-        List<Object> columnValues = new ArrayList<>();
-        
-        // If tableResult is null (cached data), use cachedRows
-        if (tableResult == null) {
-            if (cachedRows == null) {
-                return Collections.emptyList();
-            }
-            for (List<Object> row : cachedRows) {
-                if (columnIndex < row.size()) {
-                    columnValues.add(row.get(columnIndex));
-                }
-            }
-            return columnValues;
+        if (snapshot != null) {
+            return snapshot.column(columnIndex);
         }
-        
-        // Otherwise, use tableResult
-        for (FieldValueList row : tableResult.iterateAll()) {
-            if (columnIndex < row.size()) {
-                FieldValue fieldValue = row.get(columnIndex);
-                columnValues.add(fieldValue.getValue());
-            }
+
+        if (cachedColumns == null) {
+            cacheColumns();
         }
-        return columnValues;
+        return cachedColumns.get(columnIndex);
     }
 
     /**
-     * Gets a specific row by index.
+     * Gets a specific row by index, as an unmodifiable view.
      */
     public List<Object> getRow(int index) {
         if (cachedRows == null) {
             cacheRows();
         }
         if (index >= 0 && index < cachedRows.size()) {
-            return new ArrayList<>(cachedRows.get(index));
+            return Collections.unmodifiableList(cachedRows.get(index));
         }
         return Collections.emptyList();
     }
 
     /**
-     * Gets all rows as List<List<Object>>.
+     * Gets all rows as an unmodifiable List<List<Object>>. Rows must not be modified.
      */
     public List<List<Object>> getAllRows() {
         if (cachedRows == null) {
             cacheRows();
         }
-        return new ArrayList<>(cachedRows);
+        return cachedRows;
     }
 
     /**
@@ -215,58 +261,49 @@ public class BigQueryResult {
     }
 
     public boolean isNumericColumn(int columnIndex) {
-        StandardSQLTypeName type = getColumnType(columnIndex);
-        return type != null && isNumericType(type);
+        return columnIndex >= 0 && columnIndex < numericColumnFlags.length && numericColumnFlags[columnIndex];
     }
 
     /**
-     * Gets all numeric column names.
+     * Gets all numeric column names (unmodifiable).
      */
     public List<String> getNumericColumns() {
-        List<String> numericColumns = new ArrayList<>();
-        for (int i = 0; i < columnNames.size(); i++) {
-            if (isNumericColumn(i)) {
-                numericColumns.add(columnNames.get(i));
-            }
-        }
-        return numericColumns;
+        return numericColumnNames;
     }
 
     /**
-     * Gets all categorical (non-numeric) column names.
+     * Gets all categorical (non-numeric) column names (unmodifiable).
      */
     public List<String> getCategoricalColumns() {
-        List<String> categoricalColumns = new ArrayList<>();
-        for (int i = 0; i < columnNames.size(); i++) {
-            if (!isNumericColumn(i)) {
-                categoricalColumns.add(columnNames.get(i));
-            }
-        }
-        return categoricalColumns;
+        return categoricalColumnNames;
+    }
+
+    /**
+     * Gets the indexes of all numeric columns, ascending (unmodifiable).
+     */
+    public List<Integer> getNumericColumnIndexes() {
+        return numericColumnIndexes;
+    }
+
+    /**
+     * Gets the indexes of all categorical (non-numeric) columns, ascending (unmodifiable).
+     */
+    public List<Integer> getCategoricalColumnIndexes() {
+        return categoricalColumnIndexes;
     }
 
     /**
      * Gets the first numeric column index, or -1 if none found.
      */
     public int getFirstNumericColumnIndex() {
-        for (int i = 0; i < columnTypes.size(); i++) {
-            if (isNumericType(columnTypes.get(i))) {
-                return i;
-            }
-        }
-        return -1;
+        return numericColumnIndexes.isEmpty() ? -1 : numericColumnIndexes.get(0);
     }
 
     /**
      * Gets the first categorical column index, or -1 if none found.
      */
     public int getFirstCategoricalColumnIndex() {
-        for (int i = 0; i < columnTypes.size(); i++) {
-            if (!isNumericType(columnTypes.get(i))) {
-                return i;
-            }
-        }
-        return -1;
+        return categoricalColumnIndexes.isEmpty() ? -1 : categoricalColumnIndexes.get(0);
     }
 
     private List<String> extractColumnNames(TableResult result) {
@@ -299,20 +336,65 @@ public class BigQueryResult {
         return map;
     }
 
+    private boolean[] classifyColumns() {
+        boolean[] numeric = new boolean[columnNames.size()];
+        for (int i = 0; i < numeric.length; i++) {
+            numeric[i] = i < columnTypes.size() && columnTypes.get(i) != null && isNumericType(columnTypes.get(i));
+        }
+        return numeric;
+    }
+
+    private List<Integer> columnIndexes(boolean numeric) {
+        List<Integer> indexes = new ArrayList<>();
+        for (int i = 0; i < numericColumnFlags.length; i++) {
+            if (numericColumnFlags[i] == numeric) {
+                indexes.add(i);
+            }
+        }
+        return Collections.unmodifiableList(indexes);
+    }
+
+    private List<String> namesOf(List<Integer> indexes) {
+        List<String> names = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            names.add(columnNames.get(index));
+        }
+        return Collections.unmodifiableList(names);
+    }
+
+    private void cacheColumns() {
+        List<List<Object>> rows = getAllRows();
+        List<List<Object>> columns = new ArrayList<>(columnNames.size());
+        for (int i = 0; i < columnNames.size(); i++) {
+            columns.add(new ArrayList<>(rows.size()));
+        }
+        for (List<Object> row : rows) {
+            int width = Math.min(row.size(), columns.size());
+            for (int i = 0; i < width; i++) {
+                columns.get(i).add(row.get(i));
+            }
+        }
+        for (int i = 0; i < columns.size(); i++) {
+            columns.set(i, Collections.unmodifiableList(columns.get(i)));
+        }
+        cachedColumns = columns;
+    }
+
     private void cacheRows() {
         // If tableResult is null (cached data), rows are already cached in constructor
         if (tableResult == null) {
             return;
         }
         
-        cachedRows = new ArrayList<>();
+        List<List<Object>> rows = new ArrayList<>();
         for (FieldValueList row : tableResult.iterateAll()) {
             List<Object> rowData = new ArrayList<>();
             for (FieldValue fieldValue : row) {
                 rowData.add(fieldValue.getValue());
             }
-            cachedRows.add(rowData);
+            rows.add(rowData);
         }
+        cachedRows = Collections.unmodifiableList(rows);
     }
 
     private boolean isNumericType(StandardSQLTypeName type) {
@@ -0,0 +1,15 @@
+package com.example.ragchatbot.service.data;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+
+/**
+ * Payload values that can write themselves to a streaming {@link JsonGenerator}, so large chart
+ * and table data goes straight from the result into the response bytes without building an
+ * intermediate object graph first.
+ */
+public interface JsonWritable {
+
+    void writeJson(JsonGenerator generator) throws IOException;
+}
@@ -0,0 +1,63 @@
+package com.example.ragchatbot.service.data;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Table rows padded or cut to a fixed column count, as a read-only view over the result rows.
+ * Serializing writes each cell straight from the source row instead of copying every row first.
+ */
+public class TableRows extends AbstractList<List<Object>> implements JsonWritable {
+
+    private final List<List<Object>> sourceRows;
+    private final int columnCount;
+
+    public TableRows(List<List<Object>> sourceRows, int columnCount) {
+        this.sourceRows = sourceRows;
+        this.columnCount = columnCount;
+    }
+
+    @Override
+    public List<Object> get(int index) {
+        List<Object> row = sourceRows.get(index);
+        return new AbstractList<>() {
+            @Override
+            public Object get(int column) {
+                if (column < 0 || column >= columnCount) {
+                    throw new IndexOutOfBoundsException("Column " + column + " of " + columnCount);
+                }
+                return column < row.size() ? row.get(column) : null;
+            }
+
+            @Override
+            public int size() {
+                return columnCount;
+            }
+        };
+    }
+
+    @Override
+    public int size() {
+        return sourceRows.size();
+    }
+
+    @Override
+    public void writeJson(JsonGenerator generator) throws IOException {
+        generator.writeStartArray(this, sourceRows.size());
+        for (List<Object> row : sourceRows) {
+            generator.writeStartArray(row, columnCount);
+            int cells = Math.min(columnCount, row.size());
+            for (int column = 0; column < cells; column++) {
+                JsonValues.write(generator, row.get(column));
+            }
+            for (int column = cells; column < columnCount; column++) {
+                generator.writeNull();
+            }
+            generator.writeEndArray();
+        }
+        generator.writeEndArray();
+    }
+}
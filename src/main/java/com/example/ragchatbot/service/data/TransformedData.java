@@ -1,33 +1,60 @@
 package com.example.ragchatbot.service.data;
 
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
 
 /**
  * Container for transformed data that is optimized for a specific visualization type.
  * Provides a flexible key-value structure for storing chart-specific data.
+ * Readers get unmodifiable views rather than copies, so handing the data to a strategy and on
+ * into the response allocates nothing per entry.
  */
 public class TransformedData {
     private final Map<String, Object> data;
     private final String chartType;
     private final Map<String, String> metadata;
+    private final Map<String, Object> dataView;
+    private final Map<String, String> metadataView;
 
     public TransformedData(String chartType) {
         this.chartType = chartType;
         this.data = new HashMap<>();
         this.metadata = new HashMap<>();
+        this.dataView = Collections.unmodifiableMap(data);
+        this.metadataView = Collections.unmodifiableMap(metadata);
     }
 
+    /**
+     * @return A read-only view of the data; later puts are visible through it
+     */
     public Map<String, Object> getData() {
-        return new HashMap<>(data);
+        return dataView;
+    }
+
+    /**
+     * Returns a read-only view of the data with one additional entry, e.g. the chart type a
+     * strategy adds, replacing any entry with the same key. Nothing is copied.
+     */
+    public Map<String, Object> viewWith(String key, Object value) {
+        return new EntryOverlay(data, key, value);
     }
 
     public String getChartType() {
         return chartType;
     }
 
+    /**
+     * @return A read-only view of the metadata
+     */
     public Map<String, String> getMetadata() {
-        return new HashMap<>(metadata);
+        return metadataView;
     }
 
     public Object get(String key) {
@@ -53,5 +80,82 @@ public class TransformedData {
     public void putAll(Map<String, Object> map) {
         data.putAll(map);
     }
-}
 
+    /**
+     * Unmodifiable map of the base entries plus one extra entry that takes precedence.
+     */
+    private static final class EntryOverlay extends AbstractMap<String, Object> {
+        private final Map<String, Object> base;
+        private final String key;
+        private final Object value;
+
+        EntryOverlay(Map<String, Object> base, String key, Object value) {
+            this.base = base;
+            this.key = key;
+            this.value = value;
+        }
+
+        @Override
+        public Object get(Object candidate) {
+            return Objects.equals(key, candidate) ? value : base.get(candidate);
+        }
+
+        @Override
+        public boolean containsKey(Object candidate) {
+            return Objects.equals(key, candidate) || base.containsKey(candidate);
+        }
+
+        @Override
+        public int size() {
+            return base.containsKey(key) ? base.size() : base.size() + 1;
+        }
+
+        @Override
+        public Set<Entry<String, Object>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public Iterator<Entry<String, Object>> iterator() {
+                    return new Iterator<>() {
+                        private final Iterator<Entry<String, Object>> entries = base.entrySet().iterator();
+                        private Entry<String, Object> next = advance();
+                        private boolean overlayReturned;
+
+                        private Entry<String, Object> advance() {
+                            while (entries.hasNext()) {
+                                Entry<String, Object> entry = entries.next();
+                                if (!Objects.equals(key, entry.getKey())) {
+                                    return entry;
+                                }
+                            }
+                            return null;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return next != null || !overlayReturned;
+                        }
+
+                        @Override
+                        public Entry<String, Object> next() {
+                            if (next != null) {
+                                Entry<String, Object> current = next;
+                                next = advance();
+                                return current;
+                            }
+                            if (overlayReturned) {
+                                throw new NoSuchElementException();
+                            }
+                            overlayReturned = true;
+                            return new SimpleImmutableEntry<>(key, value);
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return EntryOverlay.this.size();
+                }
+            };
+        }
+    }
+}
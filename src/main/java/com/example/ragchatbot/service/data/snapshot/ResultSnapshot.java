@@ -0,0 +1,249 @@
+package com.example.ragchatbot.service.data.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+
+import static com.example.ragchatbot.service.data.snapshot.ResultSnapshotFormat.*;
+
+/**
+ * Read-only view over a result snapshot written by {@link ResultSnapshotWriter}. Opening a
+ * snapshot maps the file and reads only the header and column table; values are read from the
+ * mapped buffer on access, and dictionary strings are decoded once and then reused, so
+ * repeated reads of a snapshot allocate nothing beyond boxing.
+ *
+ * <p>All reads use absolute buffer positions, so one instance can be shared between threads.
+ */
+public final class ResultSnapshot {
+
+    private final ByteBuffer buffer;
+    private final int rowCount;
+    private final int columnCount;
+    private final int sqlId;
+    private final int[] nameIds;
+    private final int[] typeIds;
+    private final byte[] encodings;
+    private final boolean[] hasNulls;
+    private final int[] valueOffsets;
+    private final int[] blockOffsets;
+    private final int dictionaryCount;
+    private final int dictionaryOffsetsStart;
+    private final int dictionaryDataStart;
+    private final String[] decodedStrings;
+    private final List<List<Object>> rows;
+
+    private ResultSnapshot(ByteBuffer buffer) {
+        this.buffer = buffer.order(BYTE_ORDER);
+        if (buffer.limit() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IllegalArgumentException("Not a result snapshot");
+        }
+        if (buffer.getShort(4) != VERSION) {
+            throw new IllegalArgumentException("Unsupported result snapshot version: " + buffer.getShort(4));
+        }
+        this.rowCount = buffer.getInt(8);
+        this.columnCount = buffer.getInt(12);
+        int dictionaryOffset = buffer.getInt(16);
+        this.sqlId = buffer.getInt(20);
+
+        this.nameIds = new int[columnCount];
+        this.typeIds = new int[columnCount];
+        this.encodings = new byte[columnCount];
+        this.hasNulls = new boolean[columnCount];
+        this.blockOffsets = new int[columnCount];
+        this.valueOffsets = new int[columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            int entry = HEADER_SIZE + column * COLUMN_ENTRY_SIZE;
+            nameIds[column] = buffer.getInt(entry);
+            typeIds[column] = buffer.getInt(entry + 4);
+            encodings[column] = buffer.get(entry + 8);
+            hasNulls[column] = buffer.get(entry + 9) != 0;
+            blockOffsets[column] = buffer.getInt(entry + 12);
+            valueOffsets[column] = blockOffsets[column] + (hasNulls[column] ? nullBitmapSize(rowCount) : 0)
+                    + (encodings[column] == ENCODING_TAGGED ? rowCount : 0);
+        }
+
+        this.dictionaryCount = buffer.getInt(dictionaryOffset);
+        this.dictionaryOffsetsStart = dictionaryOffset + 4;
+        this.dictionaryDataStart = dictionaryOffsetsStart + 4 * (dictionaryCount + 1);
+        this.decodedStrings = new String[dictionaryCount];
+        this.rows = new RowList();
+    }
+
+    /**
+     * Maps a snapshot file read-only. The mapping stays valid after the file channel closes.
+     */
+    public static ResultSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new ResultSnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Wraps an encoded snapshot already in memory, e.g. the output of {@link ResultSnapshotWriter#encode}.
+     */
+    public static ResultSnapshot wrap(ByteBuffer buffer) {
+        return new ResultSnapshot(buffer.duplicate());
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getColumnCount() {
+        return columnCount;
+    }
+
+    /**
+     * @return The SQL the snapshot was produced from, or null if it was not recorded
+     */
+    public String getSql() {
+        return dictionaryString(sqlId);
+    }
+
+    public String getColumnName(int column) {
+        return dictionaryString(nameIds[column]);
+    }
+
+    /**
+     * @return The BigQuery type name recorded for the column, e.g. "INT64"
+     */
+    public String getColumnType(int column) {
+        return dictionaryString(typeIds[column]);
+    }
+
+    public boolean isNull(int row, int column) {
+        if (!hasNulls[column]) {
+            return false;
+        }
+        return (buffer.get(blockOffsets[column] + (row >>> 3)) & (1 << (row & 7))) != 0;
+    }
+
+    /**
+     * Reads a value as the Java type it was written with (String, Integer, Long, Double or Boolean).
+     */
+    public Object getValue(int row, int column) {
+        checkIndex(row, column);
+        if (isNull(row, column)) {
+            return null;
+        }
+        int values = valueOffsets[column];
+        return switch (encodings[column]) {
+            case ENCODING_INT32 -> buffer.getInt(values + 4 * row);
+            case ENCODING_INT64 -> buffer.getLong(values + 8 * row);
+            case ENCODING_FLOAT64 -> buffer.getDouble(values + 8 * row);
+            case ENCODING_BOOL -> buffer.get(values + row) != 0;
+            case ENCODING_STRING -> dictionaryString(buffer.getInt(values + 4 * row));
+            default -> taggedValue(row, column);
+        };
+    }
+
+    /**
+     * Reads a numeric value without boxing; nulls and non-numeric values read as NaN.
+     */
+    public double getDouble(int row, int column) {
+        checkIndex(row, column);
+        if (isNull(row, column)) {
+            return Double.NaN;
+        }
+        int values = valueOffsets[column];
+        return switch (encodings[column]) {
+            case ENCODING_INT32 -> buffer.getInt(values + 4 * row);
+            case ENCODING_INT64 -> buffer.getLong(values + 8 * row);
+            case ENCODING_FLOAT64 -> buffer.getDouble(values + 8 * row);
+            default -> getValue(row, column) instanceof Number number ? number.doubleValue() : Double.NaN;
+        };
+    }
+
+    /**
+     * All rows as a list of row views. Rows and cells are read from the snapshot on access.
+     */
+    public List<List<Object>> rows() {
+        return rows;
+    }
+
+    /**
+     * A single column as a list view.
+     */
+    public List<Object> column(int column) {
+        if (column < 0 || column >= columnCount) {
+            throw new IndexOutOfBoundsException("Column " + column + " of " + columnCount);
+        }
+        return new AbstractList<>() {
+            @Override
+            public Object get(int row) {
+                return getValue(row, column);
+            }
+
+            @Override
+            public int size() {
+                return rowCount;
+            }
+        };
+    }
+
+    private Object taggedValue(int row, int column) {
+        long payload = buffer.getLong(valueOffsets[column] + 8 * row);
+        return switch (buffer.get(blockOffsets[column] + (hasNulls[column] ? nullBitmapSize(rowCount) : 0) + row)) {
+            case TAG_INT32 -> (int) payload;
+            case TAG_INT64 -> payload;
+            case TAG_FLOAT64 -> Double.longBitsToDouble(payload);
+            case TAG_BOOL -> payload != 0;
+            case TAG_STRING -> dictionaryString((int) payload);
+            default -> null;
+        };
+    }
+
+    private String dictionaryString(int id) {
+        if (id < 0) {
+            return null;
+        }
+        // Racy but benign: concurrent readers may decode the same immutable string twice
+        String decoded = decodedStrings[id];
+        if (decoded == null) {
+            int start = buffer.getInt(dictionaryOffsetsStart + 4 * id);
+            int end = buffer.getInt(dictionaryOffsetsStart + 4 * (id + 1));
+            byte[] bytes = new byte[end - start];
+            buffer.get(dictionaryDataStart + start, bytes);
+            decoded = new String(bytes, StandardCharsets.UTF_8);
+            decodedStrings[id] = decoded;
+        }
+        return decoded;
+    }
+
+    private void checkIndex(int row, int column) {
+        if (row < 0 || row >= rowCount || column < 0 || column >= columnCount) {
+            throw new IndexOutOfBoundsException("Cell (" + row + ", " + column + ") of "
+                    + rowCount + "x" + columnCount + " snapshot");
+        }
+    }
+
+    private final class RowList extends AbstractList<List<Object>> {
+        @Override
+        public List<Object> get(int row) {
+            if (row < 0 || row >= rowCount) {
+                throw new IndexOutOfBoundsException("Row " + row + " of " + rowCount);
+            }
+            return new AbstractList<>() {
+                @Override
+                public Object get(int column) {
+                    return getValue(row, column);
+                }
+
+                @Override
+                public int size() {
+                    return columnCount;
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return rowCount;
+        }
+    }
+}
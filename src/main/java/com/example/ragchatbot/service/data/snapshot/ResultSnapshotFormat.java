@@ -0,0 +1,52 @@
+package com.example.ragchatbot.service.data.snapshot;
+
+import java.nio.ByteOrder;
+
+/**
+ * Layout constants for result snapshot files. All integers are little-endian.
+ *
+ * <pre>
+ * header      int magic, short version, short reserved, int rowCount, int columnCount,
+ *             int dictionaryOffset, int sqlId
+ * columns     per column: int nameId, int typeId, byte encoding, byte hasNulls,
+ *             short reserved, int blockOffset
+ * dictionary  int count, int[count + 1] byte offsets, UTF-8 bytes
+ * blocks      per column: null bitmap ((rowCount + 7) / 8 bytes) if hasNulls, then values:
+ *             INT32 int[], INT64 long[], FLOAT64 double[], BOOL byte[], STRING int[] dictionary
+ *             ids, TAGGED byte[] tags followed by long[] payloads
+ * </pre>
+ *
+ * Strings (column names, types, SQL and string values) are stored once in the dictionary and
+ * referenced by id; -1 means null.
+ */
+final class ResultSnapshotFormat {
+
+    static final int MAGIC = 0x52534e31; // "RSN1"
+    static final short VERSION = 1;
+    static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
+
+    static final int HEADER_SIZE = 4 + 2 + 2 + 4 + 4 + 4 + 4;
+    static final int COLUMN_ENTRY_SIZE = 4 + 4 + 1 + 1 + 2 + 4;
+
+    static final byte ENCODING_INT32 = 1;
+    static final byte ENCODING_INT64 = 2;
+    static final byte ENCODING_FLOAT64 = 3;
+    static final byte ENCODING_BOOL = 4;
+    static final byte ENCODING_STRING = 5;
+    static final byte ENCODING_TAGGED = 6;
+
+    // Value tags for TAGGED columns, which hold values of more than one Java type
+    static final byte TAG_NULL = 0;
+    static final byte TAG_INT32 = 1;
+    static final byte TAG_INT64 = 2;
+    static final byte TAG_FLOAT64 = 3;
+    static final byte TAG_BOOL = 4;
+    static final byte TAG_STRING = 5;
+
+    private ResultSnapshotFormat() {
+    }
+
+    static int nullBitmapSize(int rowCount) {
+        return (rowCount + 7) / 8;
+    }
+}
@@ -0,0 +1,249 @@
+package com.example.ragchatbot.service.data.snapshot;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.ragchatbot.service.data.snapshot.ResultSnapshotFormat.*;
+
+/**
+ * Encodes cached query results into the columnar snapshot format read by {@link ResultSnapshot}.
+ * Each column gets the narrowest encoding that preserves the Java type of its values, so a
+ * snapshot reads back exactly the rows it was written from.
+ */
+public final class ResultSnapshotWriter {
+
+    private ResultSnapshotWriter() {
+    }
+
+    /**
+     * Writes a snapshot next to {@code target} and atomically moves it into place, so readers
+     * never map a partially written file.
+     *
+     * @throws IllegalArgumentException if a value is not a String, Integer, Long, Double or Boolean
+     */
+    public static void write(Path target, String sql, List<String> columns, List<String> columnTypes,
+                             List<List<Object>> rows) throws IOException {
+        ByteBuffer encoded = encode(sql, columns, columnTypes, rows);
+        // A unique temp file per write: concurrent writers of the same snapshot must not share one
+        Path tempFile = Files.createTempFile(target.toAbsolutePath().getParent(), target.getFileName() + ".", ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.WRITE)) {
+                while (encoded.hasRemaining()) {
+                    channel.write(encoded);
+                }
+            }
+            try {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Encodes a snapshot into a heap buffer positioned at 0.
+     */
+    public static ByteBuffer encode(String sql, List<String> columns, List<String> columnTypes,
+                                    List<List<Object>> rows) {
+        int rowCount = rows.size();
+        int columnCount = columns.size();
+        Map<String, Integer> dictionary = new LinkedHashMap<>();
+
+        int sqlId = intern(dictionary, sql);
+        int[] nameIds = new int[columnCount];
+        int[] typeIds = new int[columnCount];
+        byte[] encodings = new byte[columnCount];
+        boolean[] hasNulls = new boolean[columnCount];
+        int[] blockSizes = new int[columnCount];
+        for (int column = 0; column < columnCount; column++) {
+            nameIds[column] = intern(dictionary, columns.get(column));
+            typeIds[column] = intern(dictionary, columnTypes != null && column < columnTypes.size()
+                    ? columnTypes.get(column) : null);
+            encodings[column] = chooseEncoding(rows, column);
+            hasNulls[column] = hasNulls(rows, column);
+            if (encodings[column] == ENCODING_STRING || encodings[column] == ENCODING_TAGGED) {
+                for (List<Object> row : rows) {
+                    if (valueAt(row, column) instanceof String value) {
+                        intern(dictionary, value);
+                    }
+                }
+            }
+            blockSizes[column] = blockSize(encodings[column], hasNulls[column], rowCount);
+        }
+
+        List<byte[]> dictionaryBytes = new ArrayList<>(dictionary.size());
+        int dictionaryDataSize = 0;
+        for (String value : dictionary.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            dictionaryBytes.add(bytes);
+            dictionaryDataSize += bytes.length;
+        }
+
+        int dictionaryOffset = HEADER_SIZE + columnCount * COLUMN_ENTRY_SIZE;
+        int blocksOffset = dictionaryOffset + 4 + 4 * (dictionaryBytes.size() + 1) + dictionaryDataSize;
+        int totalSize = blocksOffset;
+        for (int size : blockSizes) {
+            totalSize += size;
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(totalSize).order(BYTE_ORDER);
+        buffer.putInt(MAGIC).putShort(VERSION).putShort((short) 0)
+                .putInt(rowCount).putInt(columnCount).putInt(dictionaryOffset).putInt(sqlId);
+
+        int blockOffset = blocksOffset;
+        for (int column = 0; column < columnCount; column++) {
+            buffer.putInt(nameIds[column]).putInt(typeIds[column])
+                    .put(encodings[column]).put((byte) (hasNulls[column] ? 1 : 0)).putShort((short) 0)
+                    .putInt(blockOffset);
+            blockOffset += blockSizes[column];
+        }
+
+        buffer.putInt(dictionaryBytes.size());
+        int offset = 0;
+        for (byte[] bytes : dictionaryBytes) {
+            buffer.putInt(offset);
+            offset += bytes.length;
+        }
+        buffer.putInt(offset);
+        for (byte[] bytes : dictionaryBytes) {
+            buffer.put(bytes);
+        }
+
+        for (int column = 0; column < columnCount; column++) {
+            writeBlock(buffer, rows, column, encodings[column], hasNulls[column], dictionary);
+        }
+        return buffer.flip();
+    }
+
+    private static void writeBlock(ByteBuffer buffer, List<List<Object>> rows, int column, byte encoding,
+                                   boolean hasNulls, Map<String, Integer> dictionary) {
+        int rowCount = rows.size();
+        if (hasNulls) {
+            byte[] bitmap = new byte[nullBitmapSize(rowCount)];
+            for (int row = 0; row < rowCount; row++) {
+                if (valueAt(rows.get(row), column) == null) {
+                    bitmap[row >>> 3] |= (byte) (1 << (row & 7));
+                }
+            }
+            buffer.put(bitmap);
+        }
+        if (encoding == ENCODING_TAGGED) {
+            for (List<Object> row : rows) {
+                buffer.put(tagOf(valueAt(row, column)));
+            }
+        }
+        for (List<Object> row : rows) {
+            Object value = valueAt(row, column);
+            switch (encoding) {
+                case ENCODING_INT32 -> buffer.putInt(value != null ? (Integer) value : 0);
+                case ENCODING_INT64 -> buffer.putLong(value != null ? (Long) value : 0L);
+                case ENCODING_FLOAT64 -> buffer.putDouble(value != null ? (Double) value : 0.0);
+                case ENCODING_BOOL -> buffer.put((byte) (Boolean.TRUE.equals(value) ? 1 : 0));
+                case ENCODING_STRING -> buffer.putInt(value != null ? dictionary.get((String) value) : -1);
+                default -> buffer.putLong(taggedPayload(value, dictionary));
+            }
+        }
+    }
+
+    private static byte chooseEncoding(List<List<Object>> rows, int column) {
+        byte tag = TAG_NULL;
+        for (List<Object> row : rows) {
+            byte valueTag = tagOf(valueAt(row, column));
+            if (valueTag == TAG_NULL || valueTag == tag) {
+                continue;
+            }
+            if (tag != TAG_NULL) {
+                return ENCODING_TAGGED;
+            }
+            tag = valueTag;
+        }
+        return switch (tag) {
+            case TAG_INT32 -> ENCODING_INT32;
+            case TAG_INT64 -> ENCODING_INT64;
+            case TAG_FLOAT64 -> ENCODING_FLOAT64;
+            case TAG_BOOL -> ENCODING_BOOL;
+            default -> ENCODING_STRING;
+        };
+    }
+
+    private static byte tagOf(Object value) {
+        if (value == null) {
+            return TAG_NULL;
+        }
+        if (value instanceof String) {
+            return TAG_STRING;
+        }
+        if (value instanceof Integer) {
+            return TAG_INT32;
+        }
+        if (value instanceof Long) {
+            return TAG_INT64;
+        }
+        if (value instanceof Double) {
+            return TAG_FLOAT64;
+        }
+        if (value instanceof Boolean) {
+            return TAG_BOOL;
+        }
+        throw new IllegalArgumentException("Unsupported snapshot value type: " + value.getClass().getName());
+    }
+
+    private static long taggedPayload(Object value, Map<String, Integer> dictionary) {
+        if (value == null) {
+            return 0L;
+        }
+        if (value instanceof String text) {
+            return dictionary.get(text);
+        }
+        if (value instanceof Double number) {
+            return Double.doubleToRawLongBits(number);
+        }
+        if (value instanceof Boolean flag) {
+            return flag ? 1L : 0L;
+        }
+        return ((Number) value).longValue();
+    }
+
+    private static int blockSize(byte encoding, boolean hasNulls, int rowCount) {
+        int size = hasNulls ? nullBitmapSize(rowCount) : 0;
+        return size + switch (encoding) {
+            case ENCODING_INT32, ENCODING_STRING -> 4 * rowCount;
+            case ENCODING_BOOL -> rowCount;
+            case ENCODING_TAGGED -> 9 * rowCount;
+            default -> 8 * rowCount;
+        };
+    }
+
+    private static boolean hasNulls(List<List<Object>> rows, int column) {
+        for (List<Object> row : rows) {
+            if (valueAt(row, column) == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Object valueAt(List<Object> row, int column) {
+        return row != null && column < row.size() ? row.get(column) : null;
+    }
+
+    private static int intern(Map<String, Integer> dictionary, String value) {
+        if (value == null) {
+            return -1;
+        }
+        return dictionary.computeIfAbsent(value, key -> dictionary.size());
+    }
+}
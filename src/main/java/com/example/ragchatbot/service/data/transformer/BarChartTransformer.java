@@ -5,6 +5,7 @@ import com.example.ragchatbot.service.data.TransformedData;
 import com.example.ragchatbot.service.visualization.QueryIntent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
@@ -13,11 +14,27 @@ import java.util.List;
 /**
  * Transforms BigQuery results into optimized data structure for bar charts.
  * Best for: categorical comparisons, rankings, top/bottom lists.
+ * Beyond the configured category limit, the smallest bars are folded into "Other" when the
+ * measure is additive; otherwise only the largest bars are kept and the chart is marked truncated.
  */
 @Component
 public class BarChartTransformer implements ResultTransformer {
     
     private static final Logger logger = LoggerFactory.getLogger(BarChartTransformer.class);
+    // Readable row counts when downsampling is off and every row becomes a bar
+    private static final int MAX_STRONG_INTENT_ROWS = 50;
+    private static final int MAX_MODERATE_INTENT_ROWS = 30;
+
+    private final ChartDownsampling downsampling;
+
+    public BarChartTransformer() {
+        this(ChartDownsampling.defaults());
+    }
+
+    @Autowired
+    public BarChartTransformer(ChartDownsampling downsampling) {
+        this.downsampling = downsampling;
+    }
     
     @Override
     public boolean canTransform(BigQueryResult result, QueryIntent intent) {
@@ -33,12 +50,12 @@ public class BarChartTransformer implements ResultTransformer {
         if (hasStrongBarIntent) {
             // Data structure check: 
             // - 1 categorical + 1-2 numeric columns
-            // - 2-50 rows (readable on bar chart)
+            // - 2+ rows; beyond the category limit the transform keeps the largest
             // - Has numeric columns for y-axis
             List<String> numericCols = result.getNumericColumns();
             
             boolean hasNumeric = !numericCols.isEmpty();
-            boolean reasonableRowCount = result.getRowCount() >= 2 && result.getRowCount() <= 50;
+            boolean reasonableRowCount = result.getRowCount() >= 2 && fitsChart(result, MAX_STRONG_INTENT_ROWS);
             boolean reasonableColumnCount = result.getColumnCount() >= 2 && result.getColumnCount() <= 4;
             
             if (hasNumeric && reasonableRowCount && reasonableColumnCount) {
@@ -51,7 +68,7 @@ public class BarChartTransformer implements ResultTransformer {
         // Fallback: moderate bar intent with suitable data structure
         if (intent.getScore("bar") > 0.5) {
             List<String> numericCols = result.getNumericColumns();
-            if (!numericCols.isEmpty() && result.getRowCount() <= 30) {
+            if (!numericCols.isEmpty() && fitsChart(result, MAX_MODERATE_INTENT_ROWS)) {
                 logger.debug("BarChartTransformer: Moderate intent match - score={}, rows={}", 
                         intent.getScore("bar"), result.getRowCount());
                 return true;
@@ -61,8 +78,21 @@ public class BarChartTransformer implements ResultTransformer {
         return false;
     }
     
+    /**
+     * With a category limit the transform reduces any number of rows to a readable chart;
+     * without one, every row is drawn.
+     */
+    private boolean fitsChart(BigQueryResult result, int maxUnlimitedRows) {
+        return downsampling.limitFor("bar") != Integer.MAX_VALUE || result.getRowCount() <= maxUnlimitedRows;
+    }
+
     @Override
     public TransformedData transform(BigQueryResult result) {
+        return transform(result, null);
+    }
+
+    @Override
+    public TransformedData transform(BigQueryResult result, QueryIntent intent) {
         logger.debug("Transforming data for bar chart: rowCount={}, columnCount={}", 
                 result.getRowCount(), result.getColumnCount());
         
@@ -81,49 +111,73 @@ public class BarChartTransformer implements ResultTransformer {
             yColumnIndex = result.getColumnCount() > 1 ? 1 : -1;
         }
         
+        List<List<Object>> rows = result.getAllRows();
+        List<Object> yValues = new ArrayList<>(rows.size());
+        for (List<Object> row : rows) {
+            yValues.add(extractYValue(row, yColumnIndex));
+        }
+
+        // Too many bars: keep the largest and fold the remainder into a single "Other" bar, if
+        // the measure can be summed; an "Other" average or maximum would be meaningless
+        int maxCategories = downsampling.limitFor("bar");
+        boolean foldOther = yColumnIndex >= 0
+                && ChartDownsampling.isAdditive(intent, result.getColumnNames().get(yColumnIndex));
+        int[] selected = rows.size() > maxCategories
+                ? Downsampling.largest(Downsampling.toDoubles(yValues), foldOther ? maxCategories - 1 : maxCategories)
+                : null;
+        int rowCount = selected != null ? selected.length : rows.size();
+
         List<Object> xData = new ArrayList<>();
         List<Object> yData = new ArrayList<>();
         List<String> labels = new ArrayList<>();
         
-        List<List<Object>> rows = result.getAllRows();
-        for (List<Object> row : rows) {
+        for (int i = 0; i < rowCount; i++) {
+            int rowIndex = selected != null ? selected[i] : i;
+            List<Object> row = rows.get(rowIndex);
             // X-axis data (categorical)
             if (xColumnIndex >= 0 && xColumnIndex < row.size()) {
                 xData.add(row.get(xColumnIndex));
             } else {
-                xData.add(xData.size() + 1); // Use index as fallback
+                xData.add(rowIndex + 1); // Use index as fallback
             }
             
             // Y-axis data (numeric)
-            if (yColumnIndex >= 0 && yColumnIndex < row.size()) {
-                Object yValue = row.get(yColumnIndex);
-                if (yValue instanceof Number) {
-                    yData.add(yValue);
-                } else if (yValue != null) {
-                    try {
-                        yData.add(Double.parseDouble(yValue.toString()));
-                    } catch (NumberFormatException e) {
-                        yData.add(0.0);
-                    }
-                } else {
-                    yData.add(0.0);
-                }
-            } else {
-                yData.add(0.0);
-            }
+            yData.add(yValues.get(rowIndex));
             
             // Create label from first few columns
             StringBuilder label = new StringBuilder();
-            for (int i = 0; i < Math.min(3, result.getColumnCount()); i++) {
-                if (i < row.size() && row.get(i) != null) {
+            for (int c = 0; c < Math.min(3, result.getColumnCount()); c++) {
+                if (c < row.size() && row.get(c) != null) {
                     if (label.length() > 0) label.append(" - ");
-                    label.append(result.getColumnNames().get(i))
+                    label.append(result.getColumnNames().get(c))
                           .append(": ")
-                          .append(row.get(i));
+                          .append(row.get(c));
                 }
             }
             labels.add(label.toString());
         }
+
+        if (selected != null && !foldOther) {
+            transformedData.put("truncated", true);
+            transformedData.put("totalCategories", rows.size());
+            logger.debug("Truncated bar categories: categories={}, kept={}", rows.size(), selected.length);
+        } else if (selected != null) {
+            double otherTotal = 0.0;
+            int otherCount = 0;
+            int next = 0;
+            for (int rowIndex = 0; rowIndex < rows.size(); rowIndex++) {
+                if (next < selected.length && selected[next] == rowIndex) {
+                    next++;
+                } else {
+                    otherTotal += ((Number) yValues.get(rowIndex)).doubleValue();
+                    otherCount++;
+                }
+            }
+            xData.add(ChartDownsampling.OTHER_LABEL);
+            yData.add(otherTotal);
+            labels.add(ChartDownsampling.OTHER_LABEL + ": " + otherCount + " more");
+            logger.debug("Folded bar categories into Other: categories={}, kept={}", rows.size(), selected.length);
+        }
         
         transformedData.put("x", xData);
         transformedData.put("y", yData);
@@ -143,5 +197,22 @@ public class BarChartTransformer implements ResultTransformer {
     public int getPriority() {
         return 30; // Medium-high priority
     }
+
+    private Object extractYValue(List<Object> row, int yColumnIndex) {
+        if (yColumnIndex >= 0 && yColumnIndex < row.size()) {
+            Object yValue = row.get(yColumnIndex);
+            if (yValue instanceof Number) {
+                return yValue;
+            }
+            if (yValue != null) {
+                try {
+                    return Double.parseDouble(yValue.toString());
+                } catch (NumberFormatException e) {
+                    return 0.0;
+                }
+            }
+        }
+        return 0.0;
+    }
 }
 
@@ -5,6 +5,7 @@ import com.example.ragchatbot.service.data.TransformedData;
 import com.example.ragchatbot.service.visualization.QueryIntent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
@@ -18,6 +19,17 @@ import java.util.List;
 public class BubbleChartTransformer implements ResultTransformer {
     
     private static final Logger logger = LoggerFactory.getLogger(BubbleChartTransformer.class);
+
+    private final ChartDownsampling downsampling;
+
+    public BubbleChartTransformer() {
+        this(ChartDownsampling.defaults());
+    }
+
+    @Autowired
+    public BubbleChartTransformer(ChartDownsampling downsampling) {
+        this.downsampling = downsampling;
+    }
     
     @Override
     public boolean canTransform(BigQueryResult result, QueryIntent intent) {
@@ -102,7 +114,24 @@ public class BubbleChartTransformer implements ResultTransformer {
             }
         }
         
-        for (List<Object> row : rows) {
+        // Too many bubbles: keep the largest ones, which dominate the chart anyway
+        int maxPoints = downsampling.limitFor("bubble");
+        int[] selected = null;
+        if (rows.size() > maxPoints) {
+            double[] absoluteSizes = new double[rows.size()];
+            for (int i = 0; i < rows.size(); i++) {
+                List<Object> row = rows.get(i);
+                absoluteSizes[i] = sizeColumnIndex < row.size() && row.get(sizeColumnIndex) instanceof Number number
+                        ? Math.abs(number.doubleValue()) : 0.0;
+            }
+            selected = Downsampling.largest(absoluteSizes, maxPoints);
+            logger.debug("Kept largest bubbles: points={}, kept={}", rows.size(), selected.length);
+        }
+        int pointCount = selected != null ? selected.length : rows.size();
+
+        for (int i = 0; i < pointCount; i++) {
+            int rowIndex = selected != null ? selected[i] : i;
+            List<Object> row = rows.get(rowIndex);
             // X-axis data
             double xValue = 0.0;
             if (xColumnIndex < row.size()) {
@@ -158,7 +187,7 @@ public class BubbleChartTransformer implements ResultTransformer {
             if (labelColumnIndex >= 0 && labelColumnIndex < row.size() && row.get(labelColumnIndex) != null) {
                 labels.add(row.get(labelColumnIndex).toString());
             } else {
-                labels.add("Item " + (labels.size() + 1));
+                labels.add("Item " + (rowIndex + 1));
             }
         }
         
@@ -0,0 +1,99 @@
+package com.example.ragchatbot.service.data.transformer;
+
+import com.example.ragchatbot.service.sql.SelectItem;
+import com.example.ragchatbot.service.sql.SqlExpression;
+import com.example.ragchatbot.service.sql.SqlStatement;
+import com.example.ragchatbot.service.visualization.QueryIntent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Set;
+
+/**
+ * Per-chart-type limits on how many points, categories or slices a transformer emits. Lines are
+ * downsampled with {@link Downsampling#largestTriangleThreeBuckets}; bar and pie charts keep the
+ * largest categories and, when the measure is additive, fold the rest into a single "Other"
+ * entry; bubble charts keep the largest bubbles.
+ */
+@Component
+public class ChartDownsampling {
+
+    public static final String OTHER_LABEL = "Other";
+
+    private static final Set<String> ADDITIVE_AGGREGATES = Set.of("SUM", "COUNT", "COUNTIF");
+
+    private final boolean enabled;
+    private final int lineMaxPoints;
+    private final int multiLineMaxPointsPerSeries;
+    private final int barMaxCategories;
+    private final int pieMaxSlices;
+    private final int bubbleMaxPoints;
+
+    @Autowired
+    public ChartDownsampling(@Value("${chart.downsample.enabled:true}") boolean enabled,
+                             @Value("${chart.downsample.line.max-points:1000}") int lineMaxPoints,
+                             @Value("${chart.downsample.multi-line.max-points-per-series:500}") int multiLineMaxPointsPerSeries,
+                             @Value("${chart.downsample.bar.max-categories:30}") int barMaxCategories,
+                             @Value("${chart.downsample.pie.max-slices:10}") int pieMaxSlices,
+                             @Value("${chart.downsample.bubble.max-points:500}") int bubbleMaxPoints) {
+        this.enabled = enabled;
+        this.lineMaxPoints = lineMaxPoints;
+        this.multiLineMaxPointsPerSeries = multiLineMaxPointsPerSeries;
+        this.barMaxCategories = barMaxCategories;
+        this.pieMaxSlices = pieMaxSlices;
+        this.bubbleMaxPoints = bubbleMaxPoints;
+    }
+
+    /**
+     * The limits used when transformers are created outside Spring.
+     */
+    public static ChartDownsampling defaults() {
+        return new ChartDownsampling(true, 1000, 500, 30, 10, 500);
+    }
+
+    /**
+     * @param chartType "line", "multi_line", "bar", "pie" or "bubble"
+     * @return The maximum number of points (per series for multi-line charts), including an
+     *         "Other" entry where one is added; {@link Integer#MAX_VALUE} if unlimited
+     */
+    public int limitFor(String chartType) {
+        if (!enabled) {
+            return Integer.MAX_VALUE;
+        }
+        int limit = switch (chartType) {
+            case "line" -> lineMaxPoints;
+            case "multi_line" -> multiLineMaxPointsPerSeries;
+            case "bar" -> barMaxCategories;
+            case "pie" -> pieMaxSlices;
+            case "bubble" -> bubbleMaxPoints;
+            default -> 0;
+        };
+        return limit > 0 ? limit : Integer.MAX_VALUE;
+    }
+
+    /**
+     * Whether the values of a result column can be summed into an "Other" entry: the column is a
+     * {@code SUM}, {@code COUNT} or {@code COUNTIF} of the query. Averages, ratios, maxima,
+     * distinct counts and columns of SQL that could not be parsed are not.
+     */
+    public static boolean isAdditive(QueryIntent intent, String column) {
+        SqlStatement statement = intent != null && intent.getSqlAnalysis() != null
+                ? intent.getSqlAnalysis().getStatement() : null;
+        if (statement == null) {
+            return false;
+        }
+        SelectItem item = statement.getQuery().findSelectItem(column);
+        return item != null && isAdditiveAggregate(item.getExpression());
+    }
+
+    /**
+     * Whether per-group values of the expression add up to the value over the union of the groups.
+     */
+    public static boolean isAdditiveAggregate(SqlExpression expression) {
+        return expression.getKind() == SqlExpression.Kind.FUNCTION
+                && !expression.isWindowFunction()
+                && !expression.isDistinct()
+                && ADDITIVE_AGGREGATES.contains(expression.getName());
+    }
+}
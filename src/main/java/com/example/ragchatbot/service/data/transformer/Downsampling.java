@@ -0,0 +1,122 @@
+package com.example.ragchatbot.service.data.transformer;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Row selection used by the chart transformers to keep payloads bounded. Both selections return
+ * row indexes in their original order, so transformers can build labels only for the rows they
+ * keep.
+ */
+public final class Downsampling {
+
+    private Downsampling() {
+    }
+
+    /**
+     * Largest-triangle-three-buckets: keeps the first and last points and, from each of the
+     * {@code threshold - 2} buckets in between, the point forming the largest triangle with the
+     * previously kept point and the average of the next bucket. Preserves peaks and troughs far
+     * better than taking every n-th point.
+     *
+     * @param x X positions, ascending (row positions work for ordinal axes)
+     * @param y Y values
+     * @param threshold Maximum number of points to keep
+     * @return Indexes of the kept points, ascending; all indexes if nothing needs to be dropped
+     */
+    public static int[] largestTriangleThreeBuckets(double[] x, double[] y, int threshold) {
+        int length = y.length;
+        if (threshold >= length) {
+            return IntStream.range(0, length).toArray();
+        }
+        if (threshold < 3) {
+            return threshold <= 0 ? new int[0] : threshold == 1 ? new int[] {0} : new int[] {0, length - 1};
+        }
+
+        int[] sampled = new int[threshold];
+        int count = 0;
+        double every = (double) (length - 2) / (threshold - 2);
+        int anchor = 0;
+        sampled[count++] = anchor;
+
+        for (int bucket = 0; bucket < threshold - 2; bucket++) {
+            int averageStart = (int) Math.floor((bucket + 1) * every) + 1;
+            int averageEnd = Math.min((int) Math.floor((bucket + 2) * every) + 1, length);
+            double averageX = 0;
+            double averageY = 0;
+            for (int i = averageStart; i < averageEnd; i++) {
+                averageX += x[i];
+                averageY += y[i];
+            }
+            int averageLength = averageEnd - averageStart;
+            if (averageLength > 0) {
+                averageX /= averageLength;
+                averageY /= averageLength;
+            } else {
+                averageX = x[length - 1];
+                averageY = y[length - 1];
+            }
+
+            int rangeStart = (int) Math.floor(bucket * every) + 1;
+            int rangeEnd = (int) Math.floor((bucket + 1) * every) + 1;
+            double maxArea = -1;
+            int selected = rangeStart;
+            for (int i = rangeStart; i < rangeEnd; i++) {
+                double area = Math.abs((x[anchor] - averageX) * (y[i] - y[anchor])
+                        - (x[anchor] - x[i]) * (averageY - y[anchor]));
+                if (area > maxArea) {
+                    maxArea = area;
+                    selected = i;
+                }
+            }
+            sampled[count++] = selected;
+            anchor = selected;
+        }
+
+        sampled[count] = length - 1;
+        return sampled;
+    }
+
+    /**
+     * Indexes of the {@code limit} largest values, in their original order. Ties keep the
+     * earlier row.
+     */
+    public static int[] largest(double[] values, int limit) {
+        if (limit >= values.length) {
+            return IntStream.range(0, values.length).toArray();
+        }
+        int[] selected = IntStream.range(0, values.length)
+                .boxed()
+                .sorted(Comparator.<Integer>comparingDouble(i -> values[i]).reversed()
+                        .thenComparingInt(i -> i))
+                .limit(Math.max(0, limit))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        Arrays.sort(selected);
+        return selected;
+    }
+
+    /**
+     * Numeric values as doubles, for ranking; anything else counts as 0.
+     */
+    public static double[] toDoubles(List<?> values) {
+        double[] doubles = new double[values.size()];
+        for (int i = 0; i < doubles.length; i++) {
+            doubles[i] = values.get(i) instanceof Number number ? number.doubleValue() : 0.0;
+        }
+        return doubles;
+    }
+
+    /**
+     * Row positions as x values, for axes that are ordinal rather than numeric.
+     */
+    public static double[] positions(int length) {
+        double[] positions = new double[length];
+        for (int i = 0; i < length; i++) {
+            positions[i] = i;
+        }
+        return positions;
+    }
+}
@@ -5,6 +5,7 @@ import com.example.ragchatbot.service.data.TransformedData;
 import com.example.ragchatbot.service.visualization.QueryIntent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
@@ -17,11 +18,23 @@ import java.util.Map;
 /**
  * Transforms BigQuery results into optimized data structure for line charts.
  * Best for: trends over time, sequential data, continuous progressions.
+ * Long series are downsampled with largest-triangle-three-buckets (see {@link ChartDownsampling}).
  */
 @Component
 public class LineChartTransformer implements ResultTransformer {
     
     private static final Logger logger = LoggerFactory.getLogger(LineChartTransformer.class);
+
+    private final ChartDownsampling downsampling;
+
+    public LineChartTransformer() {
+        this(ChartDownsampling.defaults());
+    }
+
+    @Autowired
+    public LineChartTransformer(ChartDownsampling downsampling) {
+        this.downsampling = downsampling;
+    }
     
     @Override
     public boolean canTransform(BigQueryResult result, QueryIntent intent) {
@@ -119,47 +132,37 @@ public class LineChartTransformer implements ResultTransformer {
 
         // If we have a series column, build multi-series data structure
         if (hasSeries) {
-            Map<String, SeriesData> seriesMap = new LinkedHashMap<>();
-
-            for (List<Object> row : rows) {
-                String seriesName = safeString(row, seriesColumnIndex, "Series " + (seriesMap.size() + 1));
-                SeriesData data = seriesMap.computeIfAbsent(seriesName, name -> new SeriesData());
-
-                Object xValue = extractXValue(row, xColumnIndex, data.x.size());
-                double yValue = extractNumericValue(row, yColumnIndex);
-
-                data.x.add(xValue);
-                data.y.add(yValue);
-                data.labels.add(buildLabel(row, result));
+            Map<String, List<Integer>> seriesRows = new LinkedHashMap<>();
+            for (int i = 0; i < rows.size(); i++) {
+                String seriesName = safeString(rows.get(i), seriesColumnIndex, "Series " + (seriesRows.size() + 1));
+                seriesRows.computeIfAbsent(seriesName, name -> new ArrayList<>()).add(i);
             }
 
-            // Populate series array
+            // Populate series array, downsampling each series on its own
+            int maxPointsPerSeries = downsampling.limitFor("multi_line");
             List<Map<String, Object>> seriesList = new ArrayList<>();
-            for (Map.Entry<String, SeriesData> entry : seriesMap.entrySet()) {
+            for (Map.Entry<String, List<Integer>> entry : seriesRows.entrySet()) {
+                SeriesData data = buildSeries(result, rows, entry.getValue(), xColumnIndex, yColumnIndex, maxPointsPerSeries);
                 Map<String, Object> series = new HashMap<>();
                 series.put("name", entry.getKey());
-                series.put("x", entry.getValue().x);
-                series.put("y", entry.getValue().y);
-                series.put("labels", entry.getValue().labels);
+                series.put("x", data.x);
+                series.put("y", data.y);
+                series.put("labels", data.labels);
                 seriesList.add(series);
             }
 
             transformedData.put("series", seriesList);
         } else {
             // Single-series fallback (current behavior)
-            List<Object> xData = new ArrayList<>();
-            List<Object> yData = new ArrayList<>();
-            List<String> labels = new ArrayList<>();
-
-            for (List<Object> row : rows) {
-                xData.add(extractXValue(row, xColumnIndex, xData.size()));
-                yData.add(extractNumericValue(row, yColumnIndex));
-                labels.add(buildLabel(row, result));
+            List<Integer> allRows = new ArrayList<>(rows.size());
+            for (int i = 0; i < rows.size(); i++) {
+                allRows.add(i);
             }
+            SeriesData data = buildSeries(result, rows, allRows, xColumnIndex, yColumnIndex, downsampling.limitFor("line"));
 
-            transformedData.put("x", xData);
-            transformedData.put("y", yData);
-            transformedData.put("labels", labels);
+            transformedData.put("x", data.x);
+            transformedData.put("y", data.y);
+            transformedData.put("labels", data.labels);
         }
 
         transformedData.put("xLabel", xColumnIndex >= 0 ? result.getColumnNames().get(xColumnIndex) : "Index");
@@ -220,6 +223,49 @@ public class LineChartTransformer implements ResultTransformer {
         return result.getFirstNumericColumnIndex();
     }
 
+    /**
+     * Builds one series from the given rows, downsampled to at most {@code maxPoints}. Points are
+     * selected before any labels are built, so transform time follows the output size. Numeric
+     * x values are used as positions when ascending; otherwise the axis is treated as ordinal.
+     */
+    private SeriesData buildSeries(BigQueryResult result, List<List<Object>> rows, List<Integer> rowIndexes,
+                                   int xColumnIndex, int yColumnIndex, int maxPoints) {
+        int[] selected;
+        if (rowIndexes.size() > maxPoints) {
+            double[] xPositions = new double[rowIndexes.size()];
+            double[] yValues = new double[rowIndexes.size()];
+            boolean numericX = xColumnIndex >= 0;
+            for (int point = 0; point < rowIndexes.size(); point++) {
+                List<Object> row = rows.get(rowIndexes.get(point));
+                Object xValue = extractXValue(row, xColumnIndex, point);
+                if (numericX && xValue instanceof Number number
+                        && (point == 0 || number.doubleValue() >= xPositions[point - 1])) {
+                    xPositions[point] = number.doubleValue();
+                } else {
+                    numericX = false;
+                }
+                yValues[point] = extractNumericValue(row, yColumnIndex);
+            }
+            selected = Downsampling.largestTriangleThreeBuckets(
+                    numericX ? xPositions : Downsampling.positions(rowIndexes.size()), yValues, maxPoints);
+            logger.debug("Downsampled line series: points={}, kept={}", rowIndexes.size(), selected.length);
+        } else {
+            selected = new int[rowIndexes.size()];
+            for (int point = 0; point < selected.length; point++) {
+                selected[point] = point;
+            }
+        }
+
+        SeriesData data = new SeriesData();
+        for (int point : selected) {
+            List<Object> row = rows.get(rowIndexes.get(point));
+            data.x.add(extractXValue(row, xColumnIndex, point));
+            data.y.add(extractNumericValue(row, yColumnIndex));
+            data.labels.add(buildLabel(row, result));
+        }
+        return data;
+    }
+
     private Object extractXValue(List<Object> row, int xColumnIndex, int fallbackIndex) {
         if (xColumnIndex >= 0 && xColumnIndex < row.size()) {
             return row.get(xColumnIndex);
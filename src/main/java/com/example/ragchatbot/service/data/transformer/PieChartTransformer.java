@@ -5,6 +5,7 @@ import com.example.ragchatbot.service.data.TransformedData;
 import com.example.ragchatbot.service.visualization.QueryIntent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
@@ -12,12 +13,26 @@ import java.util.*;
 /**
  * Transforms BigQuery results into optimized data structure for pie charts.
  * Best for: part-to-whole relationships, distributions, percentages.
+ * Beyond the configured slice limit, the smallest slices are folded into "Other" when the
+ * measure is additive; otherwise only the largest slices are kept and the chart is marked truncated.
  */
 @Component
 public class PieChartTransformer implements ResultTransformer {
     
     private static final Logger logger = LoggerFactory.getLogger(PieChartTransformer.class);
-    private static final int MAX_PIE_SEGMENTS = 10;
+    // Readable slice count when downsampling is off and every row becomes a slice
+    private static final int MAX_UNLIMITED_SEGMENTS = 10;
+
+    private final ChartDownsampling downsampling;
+
+    public PieChartTransformer() {
+        this(ChartDownsampling.defaults());
+    }
+
+    @Autowired
+    public PieChartTransformer(ChartDownsampling downsampling) {
+        this.downsampling = downsampling;
+    }
     
     @Override
     public boolean canTransform(BigQueryResult result, QueryIntent intent) {
@@ -35,7 +50,9 @@ public class PieChartTransformer implements ResultTransformer {
                 int numericColIndex = result.getFirstNumericColumnIndex();
                 // Pie charts need positive values and reasonable number of segments
                 boolean allPositive = areAllNumericValuesPositive(result, numericColIndex);
-                boolean reasonableSegments = result.getRowCount() <= MAX_PIE_SEGMENTS && result.getRowCount() >= 2;
+                // Beyond the slice limit the transform keeps the largest slices
+                boolean reasonableSegments = result.getRowCount() >= 2
+                        && (downsampling.limitFor("pie") != Integer.MAX_VALUE || result.getRowCount() <= MAX_UNLIMITED_SEGMENTS);
                 
                 if (allPositive && reasonableSegments) {
                     logger.debug("PieChartTransformer: Strong distribution intent match - score={}, intent={}, rows={}, allPositive={}", 
@@ -55,6 +72,11 @@ public class PieChartTransformer implements ResultTransformer {
     
     @Override
     public TransformedData transform(BigQueryResult result) {
+        return transform(result, null);
+    }
+
+    @Override
+    public TransformedData transform(BigQueryResult result, QueryIntent intent) {
         logger.debug("Transforming data for pie chart: rowCount={}, columnCount={}", 
                 result.getRowCount(), result.getColumnCount());
         
@@ -73,37 +95,56 @@ public class PieChartTransformer implements ResultTransformer {
             valueColumnIndex = result.getColumnCount() > 1 ? 1 : -1;
         }
         
+        List<List<Object>> rows = result.getAllRows();
+        double[] rowValues = new double[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            rowValues[i] = extractValue(rows.get(i), valueColumnIndex);
+        }
+
+        // Too many slices: keep the largest and fold the remainder into a single "Other" slice, if
+        // the measure can be summed; an "Other" average or maximum would be meaningless
+        int maxSlices = downsampling.limitFor("pie");
+        boolean foldOther = valueColumnIndex >= 0
+                && ChartDownsampling.isAdditive(intent, result.getColumnNames().get(valueColumnIndex));
+        int[] selected = rows.size() > maxSlices
+                ? Downsampling.largest(rowValues, foldOther ? maxSlices - 1 : maxSlices)
+                : null;
+        int sliceCount = selected != null ? selected.length : rows.size();
+
         List<String> labels = new ArrayList<>();
         List<Object> values = new ArrayList<>();
         
-        List<List<Object>> rows = result.getAllRows();
-        for (List<Object> row : rows) {
+        for (int i = 0; i < sliceCount; i++) {
+            int rowIndex = selected != null ? selected[i] : i;
+            List<Object> row = rows.get(rowIndex);
             // Label (categorical)
             if (labelColumnIndex >= 0 && labelColumnIndex < row.size()) {
                 labels.add(row.get(labelColumnIndex) != null ? 
                           row.get(labelColumnIndex).toString() : "Unknown");
             } else {
-                labels.add("Item " + (labels.size() + 1));
+                labels.add("Item " + (rowIndex + 1));
             }
             
-            // Value (numeric)
-            if (valueColumnIndex >= 0 && valueColumnIndex < row.size()) {
-                Object value = row.get(valueColumnIndex);
-                double numericValue = 0.0;
-                if (value instanceof Number) {
-                    numericValue = ((Number) value).doubleValue();
-                } else if (value != null) {
-                    try {
-                        numericValue = Double.parseDouble(value.toString());
-                    } catch (NumberFormatException e) {
-                        numericValue = 0.0;
-                    }
+            values.add(rowValues[rowIndex]);
+        }
+
+        if (selected != null && !foldOther) {
+            transformedData.put("truncated", true);
+            transformedData.put("totalCategories", rows.size());
+            logger.debug("Truncated pie slices: slices={}, kept={}", rows.size(), selected.length);
+        } else if (selected != null) {
+            double otherTotal = 0.0;
+            int next = 0;
+            for (int rowIndex = 0; rowIndex < rows.size(); rowIndex++) {
+                if (next < selected.length && selected[next] == rowIndex) {
+                    next++;
+                } else {
+                    otherTotal += rowValues[rowIndex];
                 }
-                // Ensure non-negative for pie chart
-                values.add(Math.max(0.0, numericValue));
-            } else {
-                values.add(0.0);
             }
+            labels.add(ChartDownsampling.OTHER_LABEL);
+            values.add(otherTotal);
+            logger.debug("Folded pie slices into Other: slices={}, kept={}", rows.size(), selected.length);
         }
         
         transformedData.put("labels", labels);
@@ -141,6 +182,25 @@ public class PieChartTransformer implements ResultTransformer {
         return true;
     }
     
+    private double extractValue(List<Object> row, int valueColumnIndex) {
+        if (valueColumnIndex >= 0 && valueColumnIndex < row.size()) {
+            Object value = row.get(valueColumnIndex);
+            double numericValue = 0.0;
+            if (value instanceof Number) {
+                numericValue = ((Number) value).doubleValue();
+            } else if (value != null) {
+                try {
+                    numericValue = Double.parseDouble(value.toString());
+                } catch (NumberFormatException e) {
+                    numericValue = 0.0;
+                }
+            }
+            // Ensure non-negative for pie chart
+            return Math.max(0.0, numericValue);
+        }
+        return 0.0;
+    }
+    
     @Override
     public String getTargetChartType() {
         return "pie";
@@ -26,6 +26,18 @@ public interface ResultTransformer {
      * @return TransformedData optimized for the target chart type
      */
     TransformedData transform(BigQueryResult result);
+
+    /**
+     * Transforms the result using what is known about the query that produced it, e.g. whether
+     * a measure may be summed when categories are folded together.
+     *
+     * @param result The BigQuery result to transform
+     * @param intent The query intent, with the SQL analysis of the query; may be null
+     * @return TransformedData optimized for the target chart type
+     */
+    default TransformedData transform(BigQueryResult result, QueryIntent intent) {
+        return transform(result);
+    }
     
     /**
      * Returns the chart type this transformer produces.
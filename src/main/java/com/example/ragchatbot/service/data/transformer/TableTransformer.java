@@ -1,13 +1,13 @@
 package com.example.ragchatbot.service.data.transformer;
 
 import com.example.ragchatbot.service.data.BigQueryResult;
+import com.example.ragchatbot.service.data.TableRows;
 import com.example.ragchatbot.service.data.TransformedData;
 import com.example.ragchatbot.service.visualization.QueryIntent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -35,25 +35,9 @@ public class TableTransformer implements ResultTransformer {
         // Get column names
         List<String> columnNames = result.getColumnNames();
         
-        // Get all rows
-        List<List<Object>> rows = result.getAllRows();
-        
-        // Format rows to ensure consistent column count
-        List<List<Object>> formattedRows = new ArrayList<>();
-        for (List<Object> row : rows) {
-            List<Object> formattedRow = new ArrayList<>();
-            for (int i = 0; i < columnNames.size(); i++) {
-                if (i < row.size()) {
-                    formattedRow.add(row.get(i));
-                } else {
-                    formattedRow.add(null);
-                }
-            }
-            formattedRows.add(formattedRow);
-        }
-        
         transformedData.put("columns", columnNames);
-        transformedData.put("rows", formattedRows);
+        // Rows padded to the column count, written straight from the result when serialized
+        transformedData.put("rows", new TableRows(result.getAllRows(), columnNames.size()));
         
         return transformedData;
     }
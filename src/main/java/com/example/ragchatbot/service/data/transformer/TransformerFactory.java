@@ -77,6 +77,24 @@ public class TransformerFactory {
         return tableTransformer;
     }
     
+    /**
+     * Lists the chart transformers that can handle the result, in priority order, up to
+     * {@code limit}. The table transformer is never a candidate; it is always available as
+     * the fallback.
+     */
+    public List<ResultTransformer> getCandidates(BigQueryResult result, QueryIntent intent, int limit) {
+        List<ResultTransformer> candidates = new ArrayList<>();
+        for (ResultTransformer transformer : transformers) {
+            if (candidates.size() >= limit) {
+                break;
+            }
+            if (!transformer.getTargetChartType().equals("table") && transformer.canTransform(result, intent)) {
+                candidates.add(transformer);
+            }
+        }
+        return candidates;
+    }
+
     /**
      * Gets all available transformers.
      * 
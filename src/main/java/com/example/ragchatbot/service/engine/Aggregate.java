@@ -0,0 +1,50 @@
+package com.example.ragchatbot.service.engine;
+
+import java.util.Locale;
+
+/**
+ * An aggregate computed by {@link GroupByOperator}: {@code function(column) AS name}. COUNT
+ * without a column counts rows.
+ */
+public final class Aggregate {
+
+    public enum Function { SUM, AVG, COUNT, MIN, MAX }
+
+    private final Function function;
+    private final String column;
+    private final String name;
+
+    public Aggregate(Function function, String column, String name) {
+        if (column == null && function != Function.COUNT) {
+            throw new IllegalArgumentException(function + " needs a column");
+        }
+        this.function = function;
+        this.column = column;
+        this.name = name;
+    }
+
+    /**
+     * Names the output after the function and column, e.g. {@code sum_points} or {@code count}.
+     */
+    public static Aggregate of(Function function, String column) {
+        String prefix = function.name().toLowerCase(Locale.ROOT);
+        return new Aggregate(function, column, column != null ? prefix + "_" + column : prefix);
+    }
+
+    public Function getFunction() {
+        return function;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    String toSql() {
+        return function.name() + "(" + (column != null ? LocalQuery.identifier(column) : "*") + ") AS "
+                + LocalQuery.identifier(name);
+    }
+}
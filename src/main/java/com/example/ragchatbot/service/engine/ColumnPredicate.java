@@ -0,0 +1,77 @@
+package com.example.ragchatbot.service.engine;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A WHERE conjunct on one column: {@code IN} / {@code NOT IN} a list of values, or a numeric
+ * comparison with a constant. As in SQL, NULLs match neither form.
+ */
+public final class ColumnPredicate {
+
+    private final String column;
+    private final String operator;
+    private final Set<String> values;
+    private final String constant;
+    private final double threshold;
+
+    private ColumnPredicate(String column, String operator, Set<String> values, String constant) {
+        this.column = column;
+        this.operator = operator;
+        this.values = values;
+        this.constant = constant;
+        this.threshold = constant != null ? Double.parseDouble(constant) : Double.NaN;
+    }
+
+    /**
+     * Matches rows whose value, as text, is one of {@code values} (or none of them, if negated).
+     */
+    public static ColumnPredicate in(String column, List<String> values, boolean negated) {
+        return new ColumnPredicate(column, negated ? "NOT IN" : "IN", new LinkedHashSet<>(values), null);
+    }
+
+    /**
+     * @param operator One of {@code >, >=, <, <=}
+     * @param constant A decimal number, rendered into the SQL as written
+     */
+    public static ColumnPredicate compare(String column, String operator, String constant) {
+        if (!List.of(">", ">=", "<", "<=").contains(operator)) {
+            throw new IllegalArgumentException("Unsupported comparison: " + operator);
+        }
+        return new ColumnPredicate(column, operator, null, constant);
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    boolean test(ColumnVector vector, int row) {
+        if (values != null) {
+            Object value = vector.getValue(row);
+            return value != null && values.contains(String.valueOf(value)) == "IN".equals(operator);
+        }
+        double value = vector.getDouble(row);
+        if (Double.isNaN(value)) {
+            return false;
+        }
+        return switch (operator) {
+            case ">" -> value > threshold;
+            case ">=" -> value >= threshold;
+            case "<" -> value < threshold;
+            default -> value <= threshold;
+        };
+    }
+
+    String toSql() {
+        if (values == null) {
+            return LocalQuery.identifier(column) + " " + operator + " " + constant;
+        }
+        List<String> literals = new ArrayList<>(values.size());
+        for (String value : values) {
+            literals.add(LocalQuery.literal(value));
+        }
+        return LocalQuery.identifier(column) + " " + operator + " (" + String.join(", ", literals) + ")";
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.ragchatbot.service.engine;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * One column of a {@link ColumnarTable}: the values as read, plus a primitive copy of numeric
+ * columns so filters, sorts and aggregates run over a {@code double[]} without unboxing. Stored
+ * results keep numbers as JSON strings, so numeric values are parsed once here.
+ */
+public final class ColumnVector {
+
+    private static final Set<String> NUMERIC_TYPES = Set.of(
+            "INT64", "INTEGER", "FLOAT64", "FLOAT", "NUMERIC", "BIGNUMERIC", "DOUBLE");
+
+    private final String name;
+    private final String type;
+    private final Object[] values;
+    // NaN for nulls and unparseable values; null for non-numeric columns
+    private final double[] numbers;
+
+    private ColumnVector(String name, String type, Object[] values, double[] numbers) {
+        this.name = name;
+        this.type = type;
+        this.values = values;
+        this.numbers = numbers;
+    }
+
+    /**
+     * @param type BigQuery type name; INT64, FLOAT64 and NUMERIC columns get a numeric vector
+     */
+    public static ColumnVector of(String name, String type, List<Object> values) {
+        Object[] array = values.toArray();
+        double[] numbers = null;
+        if (type != null && NUMERIC_TYPES.contains(type.toUpperCase(Locale.ROOT))) {
+            numbers = new double[array.length];
+            for (int row = 0; row < array.length; row++) {
+                numbers[row] = toDouble(array[row]);
+            }
+        }
+        return new ColumnVector(name, type, array, numbers);
+    }
+
+    /**
+     * A numeric column computed by an operator, e.g. an aggregate.
+     */
+    static ColumnVector ofNumbers(String name, String type, Object[] values, double[] numbers) {
+        return new ColumnVector(name, type, values, numbers);
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public boolean isNumeric() {
+        return numbers != null;
+    }
+
+    public int size() {
+        return values.length;
+    }
+
+    public Object getValue(int row) {
+        return values[row];
+    }
+
+    /**
+     * @return The numeric value, or NaN for nulls and non-numeric columns
+     */
+    public double getDouble(int row) {
+        return numbers != null ? numbers[row] : Double.NaN;
+    }
+
+    public boolean isNull(int row) {
+        return values[row] == null;
+    }
+
+    /**
+     * Copies the given rows, in order, into a new vector.
+     */
+    ColumnVector gather(int[] rows, int count) {
+        Object[] gathered = new Object[count];
+        double[] gatheredNumbers = numbers != null ? new double[count] : null;
+        for (int i = 0; i < count; i++) {
+            gathered[i] = values[rows[i]];
+            if (gatheredNumbers != null) {
+                gatheredNumbers[i] = numbers[rows[i]];
+            }
+        }
+        return new ColumnVector(name, type, gathered, gatheredNumbers);
+    }
+
+    private static double toDouble(Object value) {
+        if (value instanceof Number number) {
+            return number.doubleValue();
+        }
+        if (value instanceof String text) {
+            try {
+                return Double.parseDouble(text);
+            } catch (NumberFormatException e) {
+                return Double.NaN;
+            }
+        }
+        return Double.NaN;
+    }
+}
@@ -0,0 +1,124 @@
+package com.example.ragchatbot.service.engine;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Column vectors plus a selection vector: the rows of the vectors that are in the table, in
+ * table order. Filters, sorts and limits only produce a new selection over the same vectors;
+ * nothing is copied until a group-by builds new vectors or the table is turned back into a
+ * {@link BigQueryResult}.
+ */
+public final class ColumnarTable {
+
+    private final List<ColumnVector> columns;
+    private final int[] selection;
+    private final int rowCount;
+
+    ColumnarTable(List<ColumnVector> columns, int[] selection, int rowCount) {
+        this.columns = Collections.unmodifiableList(columns);
+        this.selection = selection;
+        this.rowCount = rowCount;
+    }
+
+    /**
+     * Builds the column vectors of a result. Snapshot-backed results are read column by column
+     * from the mapped file.
+     */
+    public static ColumnarTable of(BigQueryResult result) {
+        List<ColumnVector> columns = new ArrayList<>(result.getColumnCount());
+        for (int column = 0; column < result.getColumnCount(); column++) {
+            columns.add(ColumnVector.of(result.getColumnNames().get(column),
+                    result.getColumnType(column).name(), result.getColumnByIndex(column)));
+        }
+        return of(columns);
+    }
+
+    static ColumnarTable of(List<ColumnVector> columns) {
+        int rows = columns.isEmpty() ? 0 : columns.get(0).size();
+        int[] selection = new int[rows];
+        for (int row = 0; row < rows; row++) {
+            selection[row] = row;
+        }
+        return new ColumnarTable(columns, selection, rows);
+    }
+
+    public List<ColumnVector> getColumns() {
+        return columns;
+    }
+
+    public ColumnVector getColumn(int column) {
+        return columns.get(column);
+    }
+
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return The column index, matched case-insensitively, or -1
+     */
+    public int indexOf(String name) {
+        for (int column = 0; column < columns.size(); column++) {
+            if (columns.get(column).getName().equalsIgnoreCase(name)) {
+                return column;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The vector row behind the table's {@code row}-th row.
+     */
+    int vectorRow(int row) {
+        return selection[row];
+    }
+
+    /**
+     * Selected vector rows; only the first {@link #getRowCount()} entries are valid.
+     */
+    int[] selection() {
+        return selection;
+    }
+
+    ColumnarTable withSelection(int[] newSelection, int newRowCount) {
+        return new ColumnarTable(columns, newSelection, newRowCount);
+    }
+
+    ColumnarTable withColumns(List<ColumnVector> newColumns) {
+        return new ColumnarTable(newColumns, selection, rowCount);
+    }
+
+    public Object getValue(int row, int column) {
+        return columns.get(column).getValue(selection[row]);
+    }
+
+    /**
+     * Materializes the selected rows as a result, keeping each column's BigQuery type.
+     */
+    public BigQueryResult toResult() {
+        List<String> names = new ArrayList<>(columns.size());
+        List<String> types = new ArrayList<>(columns.size());
+        for (ColumnVector column : columns) {
+            names.add(column.getName());
+            types.add(column.getType() != null ? column.getType().toUpperCase(Locale.ROOT) : "STRING");
+        }
+        List<List<Object>> rows = new ArrayList<>(rowCount);
+        for (int row = 0; row < rowCount; row++) {
+            List<Object> values = new ArrayList<>(columns.size());
+            for (ColumnVector column : columns) {
+                values.add(column.getValue(selection[row]));
+            }
+            rows.add(values);
+        }
+        return BigQueryResult.fromCachedData(names, types, rows);
+    }
+}
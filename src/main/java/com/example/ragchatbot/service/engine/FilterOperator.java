@@ -0,0 +1,31 @@
+package com.example.ragchatbot.service.engine;
+
+/**
+ * Narrows the selection vector to the rows matching a predicate, keeping their order.
+ */
+public final class FilterOperator implements TableOperator {
+
+    private final ColumnPredicate predicate;
+
+    public FilterOperator(ColumnPredicate predicate) {
+        this.predicate = predicate;
+    }
+
+    @Override
+    public ColumnarTable apply(ColumnarTable input) {
+        int column = input.indexOf(predicate.getColumn());
+        if (column < 0) {
+            throw new IllegalArgumentException("Unknown filter column: " + predicate.getColumn());
+        }
+        ColumnVector vector = input.getColumn(column);
+        int[] selection = input.selection();
+        int[] selected = new int[input.getRowCount()];
+        int count = 0;
+        for (int i = 0; i < input.getRowCount(); i++) {
+            if (predicate.test(vector, selection[i])) {
+                selected[count++] = selection[i];
+            }
+        }
+        return input.withSelection(selected, count);
+    }
+}
@@ -0,0 +1,645 @@
+package com.example.ragchatbot.service.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Turns a follow-up question about a previous result into a {@link LocalQuery} over its columns,
+ * without a model call. It understands the refinements people make to a table they are looking
+ * at:
+ * <ul>
+ *   <li>values from the result: "now just the ACC teams", "without Duke"</li>
+ *   <li>numeric comparisons: "with more than 20 wins", "points over 80"</li>
+ *   <li>sorting: "sort by rebounds", "order by name ascending"</li>
+ *   <li>limits: "top 5", "bottom 3 by assists"</li>
+ *   <li>aggregation: "total points by conference", "how many per conference"</li>
+ *   <li>columns: "only the name and points columns", "hide the season column"</li>
+ * </ul>
+ * Columns are matched by the words of their names. Every word of the question has to be
+ * accounted for; a question with anything left over (a new season, another team, a word the
+ * rules do not know) is not a local follow-up and goes to the model instead.
+ */
+public final class FollowUpInterpreter {
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+(?:\\.\\d+)?");
+    private static final Pattern NUMBER = Pattern.compile("\\d+(?:\\.\\d+)?");
+    private static final Pattern INTEGER = Pattern.compile("\\d{1,6}");
+    private static final Pattern NAME_PART = Pattern.compile("[A-Z]?[a-z]+|[A-Z]+(?![a-z])|\\d+");
+    private static final int MAX_PHRASE_WORDS = 4;
+    private static final int MAX_VALUE_WORDS = 6;
+    private static final int MAX_DISTINCT_VALUES = 5000;
+
+    // Words that carry no meaning of their own in a follow-up
+    private static final Set<String> NOISE = Set.of(
+            "a", "an", "the", "of", "it", "its", "them", "their", "those", "these", "that", "this", "ones", "one",
+            "result", "results", "row", "rows", "data", "table", "list", "now", "then", "and", "also", "instead",
+            "please", "can", "could", "would", "you", "show", "me", "give", "display", "see", "let", "lets", "s",
+            "what", "about", "just", "only", "to", "is", "are", "same", "but", "ok", "okay", "thanks", "keep",
+            "with", "for", "in", "from", "where", "filter", "filtered", "on", "i", "want", "by", "team", "teams",
+            "player", "players", "school", "schools");
+    private static final Set<String> SORT_WORDS = Set.of("sort", "sorted", "order", "ordered", "rank", "ranked");
+    private static final Set<String> SORT_SKIP = Set.of(
+            "by", "on", "it", "them", "the", "results", "rows", "in", "ascending", "descending", "asc", "desc", "order");
+    private static final Set<String> ASCENDING = Set.of(
+            "ascending", "asc", "lowest", "fewest", "least", "smallest", "increasing", "worst");
+    private static final Set<String> DESCENDING = Set.of(
+            "descending", "desc", "highest", "most", "largest", "biggest", "decreasing", "greatest");
+    private static final Set<String> TOP = Set.of("top", "first", "best");
+    private static final Set<String> BOTTOM = Set.of("bottom", "last", "worst");
+    private static final Set<String> NEGATIONS = Set.of(
+            "not", "no", "without", "except", "excluding", "exclude", "hide", "drop", "remove");
+    private static final Set<String> COLUMN_WORDS = Set.of("column", "columns", "field", "fields");
+    private static final Set<String> PROJECTION_CUES = Set.of("only", "just", "show", "keep");
+    private static final Map<String, Aggregate.Function> AGGREGATE_WORDS = Map.of(
+            "total", Aggregate.Function.SUM, "sum", Aggregate.Function.SUM,
+            "average", Aggregate.Function.AVG, "avg", Aggregate.Function.AVG, "mean", Aggregate.Function.AVG,
+            "count", Aggregate.Function.COUNT, "number", Aggregate.Function.COUNT, "many", Aggregate.Function.COUNT,
+            "max", Aggregate.Function.MAX, "min", Aggregate.Function.MIN);
+    // Comparison words and the operator they stand for; two-word forms end with "than"
+    private static final Map<String, String> COMPARATORS = Map.of(
+            "over", ">", "above", ">", "exceeding", ">", "under", "<", "below", "<",
+            "more", ">", "greater", ">", "less", "<", "fewer", "<");
+    // Stems that name a measure loosely; a column is only picked by one of these together with
+    // a more specific word
+    private static final Set<String> GENERIC = Set.of(
+            "total", "sum", "average", "mean", "count", "number", "num", "max", "min", "per");
+    private static final Map<String, String> ALIASES = Map.of(
+            "pts", "point", "reb", "rebound", "ast", "assist", "avg", "average", "pct", "percent",
+            "percentage", "percent", "yr", "year");
+    private static final Set<String> PHRASE_STOPS = Set.of(
+            "and", "then", "in", "with", "where", "only", "just", "from", "by", "per", "each", "for", "to",
+            "ascending", "descending", "asc", "desc", "order", "sort", "sorted", "top", "bottom", "first", "last",
+            "over", "above", "under", "below", "more", "less", "fewer", "greater", "than", "at", "not", "without",
+            "except", "excluding", "exclude", "column", "columns");
+
+    private final ColumnarTable table;
+    private final List<String> words = new ArrayList<>();
+    private final List<String> stems = new ArrayList<>();
+    private final boolean[] used;
+    private final List<Candidate> sourceColumns;
+    private List<Candidate> outputColumns;
+
+    private final List<ColumnPredicate> filters = new ArrayList<>();
+    private List<String> groupBy = List.of();
+    private List<Aggregate> aggregates = List.of();
+    private final List<SortKey> orderBy = new ArrayList<>();
+    private Integer limit;
+    private boolean bottom;
+    private List<String> projection = List.of();
+
+    private FollowUpInterpreter(String question, ColumnarTable table) {
+        this.table = table;
+        Matcher matcher = WORD.matcher(question.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            words.add(matcher.group());
+            stems.add(stem(matcher.group()));
+        }
+        this.used = new boolean[words.size()];
+        this.sourceColumns = new ArrayList<>();
+        for (ColumnVector column : table.getColumns()) {
+            sourceColumns.add(new Candidate(column.getName(), nameStems(column.getName()), column.isNumeric()));
+        }
+        this.outputColumns = sourceColumns;
+    }
+
+    /**
+     * @return The query the question asks for over {@code table}, or empty if it is not a
+     *         follow-up these rules fully understand
+     */
+    public static Optional<LocalQuery> interpret(String question, ColumnarTable table) {
+        if (question == null || table.getColumnCount() == 0) {
+            return Optional.empty();
+        }
+        return new FollowUpInterpreter(question, table).interpret();
+    }
+
+    private Optional<LocalQuery> interpret() {
+        if (words.isEmpty()) {
+            return Optional.empty();
+        }
+        parseGroupBy();
+        if (!parseComparisons() || !parseLimit() || !parseSort() || !parseProjection()) {
+            return Optional.empty();
+        }
+        parseValues();
+        if (!completeOrder()) {
+            return Optional.empty();
+        }
+        if (filters.isEmpty() && groupBy.isEmpty() && orderBy.isEmpty() && limit == null && projection.isEmpty()) {
+            return Optional.empty();
+        }
+        if (!orderBy.isEmpty() || limit != null) {
+            markAll(ASCENDING);
+            markAll(DESCENDING);
+            markAll(SORT_WORDS);
+        }
+        for (int i = 0; i < words.size(); i++) {
+            if (!used[i] && !NOISE.contains(words.get(i)) && !isColumnWord(stems.get(i))) {
+                return Optional.empty();
+            }
+        }
+        return Optional.of(new LocalQuery(filters, groupBy, aggregates, orderBy, limit, projection));
+    }
+
+    /**
+     * "total points by conference", "average rebounds per team", "how many for each conference"
+     */
+    private void parseGroupBy() {
+        for (int g = 0; g < words.size(); g++) {
+            String word = words.get(g);
+            boolean each = word.equals("each");
+            if (!word.equals("by") && !word.equals("per") && !each) {
+                continue;
+            }
+            if (g > 0 && SORT_WORDS.contains(words.get(g - 1))) {
+                continue;
+            }
+            int a = g - 1;
+            while (a >= 0 && !AGGREGATE_WORDS.containsKey(words.get(a)) && !PHRASE_STOPS.contains(words.get(a))) {
+                a--;
+            }
+            if (a < 0 || !AGGREGATE_WORDS.containsKey(words.get(a))) {
+                continue;
+            }
+            Aggregate.Function function = AGGREGATE_WORDS.get(words.get(a));
+            if (words.get(a).equals("many") && (a == 0 || !words.get(a - 1).equals("how"))) {
+                continue;
+            }
+            int key = resolve(phrase(g + 1), sourceColumns, false, false);
+            if (key < 0 || sourceColumns.get(key).numeric) {
+                continue;
+            }
+            String measure = null;
+            if (function != Aggregate.Function.COUNT) {
+                int column = resolve(range(a + 1, g), sourceColumns, true, true);
+                if (column < 0) {
+                    continue;
+                }
+                measure = sourceColumns.get(column).name;
+            }
+            // Mark the clause now that it resolved
+            resolve(phrase(g + 1), sourceColumns, false, true);
+            for (int i = a; i <= g; i++) {
+                if (i == a || i == g || NOISE.contains(words.get(i)) || function == Aggregate.Function.COUNT) {
+                    used[i] = true;
+                }
+            }
+            if (words.get(a).equals("many")) {
+                used[a - 1] = true;
+            }
+            if (each && g > 0 && words.get(g - 1).equals("for")) {
+                used[g - 1] = true;
+            }
+
+            String keyName = sourceColumns.get(key).name;
+            Aggregate aggregate = Aggregate.of(function, measure);
+            groupBy = List.of(keyName);
+            aggregates = List.of(aggregate);
+            Set<String> aggregateStems = new HashSet<>(measure != null ? nameStems(measure) : Set.of());
+            aggregateStems.add(function == Aggregate.Function.AVG ? "average" : function == Aggregate.Function.SUM
+                    ? "total" : function.name().toLowerCase(Locale.ROOT));
+            outputColumns = List.of(sourceColumns.get(key),
+                    new Candidate(aggregate.getName(), aggregateStems, true));
+            return;
+        }
+    }
+
+    /**
+     * "top 5", "bottom 3 by assists", "first 10"
+     */
+    private boolean parseLimit() {
+        for (int i = 0; i + 1 < words.size(); i++) {
+            String word = words.get(i);
+            if (used[i] || (!TOP.contains(word) && !BOTTOM.contains(word) && !word.equals("limit"))) {
+                continue;
+            }
+            int number = words.get(i + 1).equals("to") && word.equals("limit") ? i + 2 : i + 1;
+            if (number >= words.size() || !INTEGER.matcher(words.get(number)).matches()) {
+                continue;
+            }
+            int rows = Integer.parseInt(words.get(number));
+            if (rows < 1) {
+                return false;
+            }
+            limit = rows;
+            bottom = BOTTOM.contains(word);
+            for (int j = i; j <= number; j++) {
+                used[j] = true;
+            }
+            for (int by = number + 1; by < Math.min(words.size(), number + 4); by++) {
+                if (words.get(by).equals("by") && !used[by]) {
+                    int key = resolve(phrase(by + 1), outputColumns, false, true);
+                    if (key < 0) {
+                        return false;
+                    }
+                    used[by] = true;
+                    orderBy.add(new SortKey(outputColumns.get(key).name, descending(outputColumns.get(key))));
+                    break;
+                }
+            }
+            return true;
+        }
+        return true;
+    }
+
+    /**
+     * "sort by rebounds", "order them by name descending"
+     */
+    private boolean parseSort() {
+        if (!orderBy.isEmpty()) {
+            return true;
+        }
+        for (int s = 0; s < words.size(); s++) {
+            if (used[s] || !SORT_WORDS.contains(words.get(s))) {
+                continue;
+            }
+            int start = s + 1;
+            while (start < words.size() && SORT_SKIP.contains(words.get(start))) {
+                start++;
+            }
+            int key = resolve(phrase(start), outputColumns, false, true);
+            if (key < 0) {
+                continue;
+            }
+            for (int i = s; i < start; i++) {
+                used[i] = true;
+            }
+            orderBy.add(new SortKey(outputColumns.get(key).name, descending(outputColumns.get(key))));
+            // "sort by wins then points"
+            for (int next = nextUnused(start); next >= 0 && (words.get(next).equals("then") || words.get(next).equals("and"));
+                 next = nextUnused(next + 1)) {
+                int tieBreaker = resolve(phrase(next + 1), outputColumns, false, true);
+                if (tieBreaker < 0) {
+                    break;
+                }
+                used[next] = true;
+                orderBy.add(new SortKey(outputColumns.get(tieBreaker).name, descending(outputColumns.get(tieBreaker))));
+            }
+            return true;
+        }
+        return true;
+    }
+
+    /**
+     * "with more than 20 wins", "points over 80", "at least 10 assists"
+     */
+    private boolean parseComparisons() {
+        for (int i = 0; i < words.size(); i++) {
+            if (used[i]) {
+                continue;
+            }
+            String word = words.get(i);
+            String operator;
+            int number;
+            if (word.equals("at") && i + 1 < words.size()
+                    && (words.get(i + 1).equals("least") || words.get(i + 1).equals("most"))) {
+                operator = words.get(i + 1).equals("least") ? ">=" : "<=";
+                number = i + 2;
+            } else if (COMPARATORS.containsKey(word)) {
+                operator = COMPARATORS.get(word);
+                number = i + 1 < words.size() && words.get(i + 1).equals("than") ? i + 2 : i + 1;
+            } else {
+                continue;
+            }
+            if (number >= words.size() || used[number] || !NUMBER.matcher(words.get(number)).matches()) {
+                continue;
+            }
+            List<Integer> before = new ArrayList<>();
+            for (int j = i - 1; j >= 0 && before.size() < MAX_PHRASE_WORDS && !used[j]
+                    && !PHRASE_STOPS.contains(words.get(j)); j--) {
+                before.add(0, j);
+            }
+            int column = resolve(before, sourceColumns, true, true);
+            if (column < 0) {
+                column = resolve(phrase(number + 1), sourceColumns, true, true);
+            }
+            if (column < 0) {
+                return false;
+            }
+            for (int j = i; j <= number; j++) {
+                used[j] = true;
+            }
+            filters.add(ColumnPredicate.compare(sourceColumns.get(column).name, operator, words.get(number)));
+        }
+        return true;
+    }
+
+    /**
+     * "only the name and points columns", "hide the season column"
+     */
+    private boolean parseProjection() {
+        int columnWord = -1;
+        for (int i = 0; i < words.size() && columnWord < 0; i++) {
+            if (!used[i] && COLUMN_WORDS.contains(words.get(i))) {
+                columnWord = i;
+            }
+        }
+        if (columnWord < 0) {
+            return true;
+        }
+        int cue = columnWord - 1;
+        while (cue >= 0 && !PROJECTION_CUES.contains(words.get(cue)) && !NEGATIONS.contains(words.get(cue))) {
+            cue--;
+        }
+        if (cue < 0) {
+            return false;
+        }
+        List<String> named = new ArrayList<>();
+        List<Integer> part = new ArrayList<>();
+        for (int i = cue + 1; i <= columnWord; i++) {
+            if (i == columnWord || words.get(i).equals("and")) {
+                int column = resolve(part, outputColumns, false, true);
+                if (column < 0) {
+                    return false;
+                }
+                named.add(outputColumns.get(column).name);
+                used[i] = true;
+                part.clear();
+            } else {
+                part.add(i);
+            }
+        }
+        used[cue] = true;
+        if (NEGATIONS.contains(words.get(cue))) {
+            List<String> kept = new ArrayList<>();
+            for (Candidate column : outputColumns) {
+                if (!named.contains(column.name)) {
+                    kept.add(column.name);
+                }
+            }
+            projection = kept;
+        } else {
+            projection = named;
+        }
+        return !projection.isEmpty();
+    }
+
+    /**
+     * Values of the result's text columns mentioned in the question: "just the ACC teams",
+     * "without Duke and Kansas". Several values of one column become one IN list.
+     */
+    private void parseValues() {
+        Map<String, List<ValueMatch>> dictionary = valueDictionary();
+        if (dictionary.isEmpty()) {
+            return;
+        }
+        Map<String, List<String>> included = new LinkedHashMap<>();
+        Map<String, List<String>> excluded = new LinkedHashMap<>();
+        int negation = -1;
+        for (int i = 0; i < words.size(); i++) {
+            if (NEGATIONS.contains(words.get(i)) && !used[i]) {
+                negation = i;
+            }
+            for (int length = Math.min(MAX_VALUE_WORDS, words.size() - i); length >= 1; length--) {
+                if (length == 1 && NOISE.contains(words.get(i))) {
+                    continue;
+                }
+                List<ValueMatch> matches = isUnused(i, length)
+                        ? dictionary.get(String.join(" ", words.subList(i, i + length))) : null;
+                if (matches == null) {
+                    continue;
+                }
+                ValueMatch match = matches.get(0);
+                (negation >= 0 ? excluded : included)
+                        .computeIfAbsent(match.column, c -> new ArrayList<>()).add(match.value);
+                if (negation >= 0) {
+                    used[negation] = true;
+                }
+                for (int j = i; j < i + length; j++) {
+                    used[j] = true;
+                }
+                i += length - 1;
+                break;
+            }
+        }
+        included.forEach((column, values) -> filters.add(ColumnPredicate.in(column, values, false)));
+        excluded.forEach((column, values) -> filters.add(ColumnPredicate.in(column, values, true)));
+    }
+
+    /**
+     * Grouped results read best first, and "bottom 5" needs something to be the bottom of.
+     */
+    private boolean completeOrder() {
+        if (orderBy.isEmpty() && !aggregates.isEmpty()) {
+            orderBy.add(new SortKey(aggregates.get(0).getName(), !bottom));
+        }
+        return !bottom || !orderBy.isEmpty();
+    }
+
+    private Map<String, List<ValueMatch>> valueDictionary() {
+        Map<String, List<ValueMatch>> dictionary = new HashMap<>();
+        for (int column = 0; column < table.getColumnCount(); column++) {
+            if (table.getColumn(column).isNumeric()) {
+                continue;
+            }
+            String name = table.getColumn(column).getName();
+            Set<String> seen = new HashSet<>();
+            for (int row = 0; row < table.getRowCount() && seen.size() < MAX_DISTINCT_VALUES; row++) {
+                Object value = table.getValue(row, column);
+                if (!(value instanceof String text) || !seen.add(text)) {
+                    continue;
+                }
+                List<String> valueWords = new ArrayList<>();
+                Matcher matcher = WORD.matcher(text.toLowerCase(Locale.ROOT));
+                while (matcher.find()) {
+                    valueWords.add(matcher.group());
+                }
+                if (!valueWords.isEmpty() && valueWords.size() <= MAX_VALUE_WORDS) {
+                    dictionary.computeIfAbsent(String.join(" ", valueWords), k -> new ArrayList<>())
+                            .add(new ValueMatch(name, text));
+                }
+            }
+        }
+        return dictionary;
+    }
+
+    /**
+     * The explicit direction if the question has one; otherwise numbers sort high to low (low
+     * to high for "bottom"), and text A to Z.
+     */
+    private boolean descending(Candidate column) {
+        Boolean explicit = direction();
+        if (explicit != null) {
+            return explicit;
+        }
+        return column.numeric != bottom;
+    }
+
+    /**
+     * The explicit sort direction, if the question has one: true for descending.
+     */
+    private Boolean direction() {
+        for (int i = 0; i < words.size(); i++) {
+            if (!used[i] && DESCENDING.contains(words.get(i))) {
+                return true;
+            }
+            if (!used[i] && ASCENDING.contains(words.get(i))) {
+                return false;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Picks the column whose name words best cover the phrase: most name words matched, then
+     * the shortest name. At least one matched word must be specific (not "total", "average"...).
+     *
+     * @param mark Whether to mark the phrase words up to the last matched one as used
+     * @return Index into {@code candidates}, or -1
+     */
+    private int resolve(List<Integer> phrase, List<Candidate> candidates, boolean numericOnly, boolean mark) {
+        int best = -1;
+        int bestScore = 0;
+        int lastMatched = -1;
+        for (int c = 0; c < candidates.size(); c++) {
+            Candidate candidate = candidates.get(c);
+            if (numericOnly && !candidate.numeric) {
+                continue;
+            }
+            int score = 0;
+            boolean specific = false;
+            int last = -1;
+            for (int index : phrase) {
+                if (candidate.stems.contains(stems.get(index))) {
+                    score++;
+                    specific |= !GENERIC.contains(stems.get(index));
+                    last = index;
+                }
+            }
+            if (specific && (score > bestScore
+                    || (score == bestScore && candidate.stems.size() < candidates.get(best).stems.size()))) {
+                best = c;
+                bestScore = score;
+                lastMatched = last;
+            }
+        }
+        if (best >= 0 && mark) {
+            for (int index : phrase) {
+                if (index <= lastMatched) {
+                    used[index] = true;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Up to {@link #MAX_PHRASE_WORDS} unused words from {@code start}, ending at a stop word or number.
+     */
+    private List<Integer> phrase(int start) {
+        List<Integer> phrase = new ArrayList<>();
+        for (int i = start; i < words.size() && phrase.size() < MAX_PHRASE_WORDS; i++) {
+            if (used[i] || PHRASE_STOPS.contains(words.get(i)) || NUMBER.matcher(words.get(i)).matches()) {
+                break;
+            }
+            phrase.add(i);
+        }
+        return phrase;
+    }
+
+    private List<Integer> range(int from, int to) {
+        List<Integer> range = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            range.add(i);
+        }
+        return range;
+    }
+
+    private int nextUnused(int from) {
+        for (int i = from; i < words.size(); i++) {
+            if (!used[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean isUnused(int start, int length) {
+        for (int i = start; i < start + length; i++) {
+            if (used[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean isColumnWord(String stem) {
+        for (Candidate column : outputColumns) {
+            if (column.stems.contains(stem)) {
+                return true;
+            }
+        }
+        for (Candidate column : sourceColumns) {
+            if (column.stems.contains(stem)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void markAll(Set<String> vocabulary) {
+        for (int i = 0; i < words.size(); i++) {
+            if (vocabulary.contains(words.get(i))) {
+                used[i] = true;
+            }
+        }
+    }
+
+    /**
+     * Words of a column name, split at underscores and case changes: "total_points" and
+     * "totalPoints" are both {total, point}.
+     */
+    static Set<String> nameStems(String name) {
+        Set<String> nameStems = new HashSet<>();
+        Matcher matcher = NAME_PART.matcher(name);
+        while (matcher.find()) {
+            nameStems.add(stem(matcher.group().toLowerCase(Locale.ROOT)));
+        }
+        return nameStems;
+    }
+
+    static String stem(String word) {
+        String alias = ALIASES.get(word);
+        if (alias != null) {
+            return alias;
+        }
+        if (word.length() > 4 && word.endsWith("ies")) {
+            return word.substring(0, word.length() - 3) + "y";
+        }
+        if (word.length() > 3 && word.endsWith("s") && !word.endsWith("ss")) {
+            return word.substring(0, word.length() - 1);
+        }
+        return word;
+    }
+
+    private static final class Candidate {
+        private final String name;
+        private final Set<String> stems;
+        private final boolean numeric;
+
+        private Candidate(String name, Set<String> stems, boolean numeric) {
+            this.name = name;
+            this.stems = stems;
+            this.numeric = numeric;
+        }
+    }
+
+    private static final class ValueMatch {
+        private final String column;
+        private final String value;
+
+        private ValueMatch(String column, String value) {
+            this.column = column;
+            this.value = value;
+        }
+    }
+}
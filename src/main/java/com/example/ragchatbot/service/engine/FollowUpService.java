@@ -0,0 +1,232 @@
+package com.example.ragchatbot.service.engine;
+
+import com.example.ragchatbot.service.SqlQueryStorageService;
+import com.example.ragchatbot.service.data.BigQueryResult;
+import com.example.ragchatbot.service.data.snapshot.ResultSnapshot;
+import com.example.ragchatbot.service.metrics.PipelineMetrics;
+import com.example.ragchatbot.service.storage.QueryEntries;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Answers follow-up questions ("now just the ACC teams", "sort by rebounds") from the result of
+ * the response they refer to, in process. Each chat response gets a response id naming its
+ * result; recent results are held in an LRU of {@code followup.max-results} entries, and turned
+ * into column vectors the first time a follow-up needs them. A follow-up the
+ * {@link FollowUpInterpreter} does not fully understand, or that names a result no longer held
+ * (or one stored truncated or rewritten for a chart), goes through Gemini and BigQuery as before.
+ */
+@Service
+public class FollowUpService {
+
+    private static final Logger logger = LoggerFactory.getLogger(FollowUpService.class);
+
+    private final SqlQueryStorageService storageService;
+    private final PipelineMetrics metrics;
+    private final boolean enabled;
+    private final int maxRows;
+    private final Map<String, HeldResult> results;
+
+    @Autowired
+    public FollowUpService(SqlQueryStorageService storageService, PipelineMetrics metrics,
+                           @Value("${followup.enabled:true}") boolean enabled,
+                           @Value("${followup.max-results:500}") int maxResults,
+                           @Value("${followup.max-rows:50000}") int maxRows) {
+        this.storageService = storageService;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.maxRows = Math.max(1, maxRows);
+        int capacity = Math.max(1, maxResults);
+        this.results = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, HeldResult> eldest) {
+                return size() > capacity;
+            }
+        };
+        logger.info("Follow-up engine initialized: enabled={}, maxResults={}, maxRows={}",
+                enabled, capacity, this.maxRows);
+    }
+
+    /**
+     * Holds a result computed for this response.
+     *
+     * @return The response id, or empty if follow-ups are off or the result is too large to hold
+     */
+    public Optional<String> register(String sql, BigQueryResult result) {
+        if (!enabled || result.getRowCount() > maxRows) {
+            return Optional.empty();
+        }
+        return Optional.of(hold(() -> new PreviousResult(sql, result)));
+    }
+
+    /**
+     * Holds the stored result of a question answered from the query log. Nothing is read until
+     * a follow-up refers to the returned id.
+     */
+    public Optional<String> registerStored(String userQuery) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.of(hold(() -> loadStored(userQuery)));
+    }
+
+    /**
+     * Evaluates a follow-up over the result of an earlier response.
+     *
+     * @return The answer, or empty if the response is unknown or the question is not a follow-up
+     *         that can be answered from its result
+     */
+    public Optional<FollowUpAnswer> answer(String previousResponseId, String question) {
+        if (!enabled || previousResponseId == null) {
+            return Optional.empty();
+        }
+        HeldResult held;
+        synchronized (results) {
+            held = results.get(previousResponseId);
+        }
+        PreviousResult previous = held != null ? held.get() : null;
+        if (previous == null) {
+            metrics.recordFollowUp("unknown_response");
+            logger.info("Follow-up refers to a result no longer held or stored incomplete: previousResponseId={}",
+                    previousResponseId);
+            return Optional.empty();
+        }
+
+        long start = System.nanoTime();
+        Optional<LocalQuery> query = FollowUpInterpreter.interpret(question, previous.table());
+        if (query.isEmpty()) {
+            metrics.recordFollowUp("not_understood");
+            logger.info("Follow-up not answerable locally: previousResponseId={}", previousResponseId);
+            return Optional.empty();
+        }
+        ColumnarTable answer;
+        try {
+            answer = query.get().execute(previous.table());
+        } catch (IllegalArgumentException e) {
+            metrics.recordFollowUp("not_understood");
+            logger.warn("Follow-up plan failed: previousResponseId={}, plan={}, error={}",
+                    previousResponseId, query.get(), e.getMessage());
+            return Optional.empty();
+        }
+        String sql = query.get().toSql(previous.sql);
+        metrics.recordFollowUp("local");
+        logger.info("Follow-up answered locally: previousResponseId={}, inputRows={}, outputRows={}, durationMicros={}, plan={}",
+                previousResponseId, previous.table().getRowCount(), answer.getRowCount(),
+                (System.nanoTime() - start) / 1000, query.get());
+        return Optional.of(new FollowUpAnswer(sql, answer.toResult(), query.get()));
+    }
+
+    private String hold(Supplier<PreviousResult> loader) {
+        String responseId = UUID.randomUUID().toString();
+        synchronized (results) {
+            results.put(responseId, new HeldResult(loader));
+        }
+        return responseId;
+    }
+
+    /**
+     * Loads the stored result of a question, preferring its snapshot. Stored results keep only
+     * the first {@code sql.storage.max-result-rows} rows; a truncated one is not held, since
+     * filters, counts and sums over a prefix would be silently wrong. Neither is the result of
+     * a chart rewrite, whose "Other" row would be taken for a real category.
+     */
+    @SuppressWarnings("unchecked")
+    private PreviousResult loadStored(String userQuery) {
+        Map<String, Object> cachedQuery = storageService.findCachedResultsByQuery(userQuery);
+        if (cachedQuery == null || QueryEntries.isChartRewritten(cachedQuery)) {
+            return null;
+        }
+        Map<String, Object> cached = storageService.getCachedResults(cachedQuery);
+        if (cached == null || Boolean.TRUE.equals(cached.get("truncated"))) {
+            return null;
+        }
+        Optional<ResultSnapshot> snapshot = storageService.findCachedSnapshot(userQuery);
+        if (snapshot.isPresent()) {
+            return new PreviousResult(snapshot.get().getSql(), BigQueryResult.fromSnapshot(snapshot.get()));
+        }
+        if (!(cached.get("rows") instanceof List<?> rows)) {
+            return null;
+        }
+        return new PreviousResult((String) cachedQuery.get("sql"), BigQueryResult.fromCachedData(
+                (List<String>) cached.get("columns"), (List<String>) cached.get("columnTypes"), (List<List<Object>>) rows));
+    }
+
+    /**
+     * A follow-up answered in process.
+     */
+    public static final class FollowUpAnswer {
+        private final String sql;
+        private final BigQueryResult result;
+        private final LocalQuery query;
+
+        private FollowUpAnswer(String sql, BigQueryResult result, LocalQuery query) {
+            this.sql = sql;
+            this.result = result;
+            this.query = query;
+        }
+
+        /**
+         * The answer as SQL over the previous response's SQL; equivalent to what was evaluated.
+         */
+        public String getSql() {
+            return sql;
+        }
+
+        public BigQueryResult getResult() {
+            return result;
+        }
+
+        public LocalQuery getQuery() {
+            return query;
+        }
+    }
+
+    private static final class PreviousResult {
+        private final String sql;
+        private final BigQueryResult result;
+        private ColumnarTable table;
+
+        private PreviousResult(String sql, BigQueryResult result) {
+            this.sql = sql;
+            this.result = result;
+        }
+
+        private synchronized ColumnarTable table() {
+            if (table == null) {
+                table = ColumnarTable.of(result);
+            }
+            return table;
+        }
+    }
+
+    /**
+     * Loads a held result once, on the first follow-up that needs it.
+     */
+    private final class HeldResult {
+        private Supplier<PreviousResult> loader;
+        private PreviousResult loaded;
+
+        private HeldResult(Supplier<PreviousResult> loader) {
+            this.loader = loader;
+        }
+
+        private synchronized PreviousResult get() {
+            if (loader != null) {
+                PreviousResult result = loader.get();
+                loader = null;
+                loaded = result != null && result.sql != null && result.result.getRowCount() <= maxRows ? result : null;
+            }
+            return loaded;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.ragchatbot.service.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Hash aggregation: one output row per distinct combination of key values, in order of first
+ * appearance, with the key columns followed by the aggregates. Aggregates follow SQL: NULL
+ * inputs are skipped, and SUM, AVG, MIN and MAX of a group without values are NULL. SUM, MIN and
+ * MAX of an INT64 column stay INT64; AVG is FLOAT64.
+ */
+public final class GroupByOperator implements TableOperator {
+
+    private final List<String> keys;
+    private final List<Aggregate> aggregates;
+
+    public GroupByOperator(List<String> keys, List<Aggregate> aggregates) {
+        this.keys = List.copyOf(keys);
+        this.aggregates = List.copyOf(aggregates);
+    }
+
+    @Override
+    public ColumnarTable apply(ColumnarTable input) {
+        ColumnVector[] keyVectors = new ColumnVector[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            keyVectors[i] = column(input, keys.get(i));
+        }
+        int rowCount = input.getRowCount();
+        int[] selection = input.selection();
+
+        // Group of each selected row, and the first vector row of each group
+        int[] groupOfRow = new int[rowCount];
+        int[] firstRows = new int[rowCount];
+        int groups = 0;
+        Map<Object, Integer> groupIds = new HashMap<>();
+        for (int i = 0; i < rowCount; i++) {
+            int row = selection[i];
+            Object key;
+            if (keyVectors.length == 1) {
+                key = keyVectors[0].getValue(row);
+            } else {
+                Object[] values = new Object[keyVectors.length];
+                for (int k = 0; k < keyVectors.length; k++) {
+                    values[k] = keyVectors[k].getValue(row);
+                }
+                key = Arrays.asList(values);
+            }
+            Integer group = groupIds.get(key);
+            if (group == null) {
+                group = groups;
+                groupIds.put(key, groups);
+                firstRows[groups++] = row;
+            }
+            groupOfRow[i] = group;
+        }
+
+        List<ColumnVector> output = new ArrayList<>(keys.size() + aggregates.size());
+        for (ColumnVector keyVector : keyVectors) {
+            output.add(keyVector.gather(firstRows, groups));
+        }
+        for (Aggregate aggregate : aggregates) {
+            output.add(aggregate(input, aggregate, groupOfRow, groups));
+        }
+        return ColumnarTable.of(output);
+    }
+
+    private static ColumnVector aggregate(ColumnarTable input, Aggregate aggregate, int[] groupOfRow, int groups) {
+        ColumnVector vector = aggregate.getColumn() != null ? column(input, aggregate.getColumn()) : null;
+        if (vector != null && !vector.isNumeric() && aggregate.getFunction() != Aggregate.Function.COUNT) {
+            throw new IllegalArgumentException(aggregate.getFunction() + " of non-numeric column: " + vector.getName());
+        }
+        int[] selection = input.selection();
+        double[] results = new double[groups];
+        long[] counts = new long[groups];
+        for (int i = 0; i < input.getRowCount(); i++) {
+            int group = groupOfRow[i];
+            if (vector == null) {
+                counts[group]++;
+                continue;
+            }
+            int row = selection[i];
+            double value = vector.getDouble(row);
+            if (aggregate.getFunction() == Aggregate.Function.COUNT ? vector.isNull(row) : Double.isNaN(value)) {
+                continue;
+            }
+            results[group] = switch (aggregate.getFunction()) {
+                case MIN -> counts[group] == 0 ? value : Math.min(results[group], value);
+                case MAX -> counts[group] == 0 ? value : Math.max(results[group], value);
+                case COUNT -> 0;
+                default -> results[group] + value;
+            };
+            counts[group]++;
+        }
+
+        boolean integral = aggregate.getFunction() == Aggregate.Function.COUNT
+                || (aggregate.getFunction() != Aggregate.Function.AVG && isIntegral(vector.getType()));
+        Object[] values = new Object[groups];
+        double[] numbers = new double[groups];
+        for (int group = 0; group < groups; group++) {
+            double result;
+            if (aggregate.getFunction() == Aggregate.Function.COUNT) {
+                result = counts[group];
+            } else if (counts[group] == 0) {
+                result = Double.NaN;
+            } else if (aggregate.getFunction() == Aggregate.Function.AVG) {
+                result = results[group] / counts[group];
+            } else {
+                result = results[group];
+            }
+            numbers[group] = result;
+            values[group] = Double.isNaN(result) ? null : integral ? (Object) (long) result : (Object) result;
+        }
+        return ColumnVector.ofNumbers(aggregate.getName(), integral ? "INT64" : "FLOAT64", values, numbers);
+    }
+
+    private static boolean isIntegral(String type) {
+        return type != null && List.of("INT64", "INTEGER").contains(type.toUpperCase(Locale.ROOT));
+    }
+
+    private static ColumnVector column(ColumnarTable input, String name) {
+        int column = input.indexOf(name);
+        if (column < 0) {
+            throw new IllegalArgumentException("Unknown column: " + name);
+        }
+        return input.getColumn(column);
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.ragchatbot.service.engine;
+
+/**
+ * Keeps the first rows of the selection.
+ */
+public final class LimitOperator implements TableOperator {
+
+    private final int limit;
+
+    public LimitOperator(int limit) {
+        this.limit = limit;
+    }
+
+    @Override
+    public ColumnarTable apply(ColumnarTable input) {
+        return input.withSelection(input.selection(), Math.min(limit, input.getRowCount()));
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.ragchatbot.service.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * A single-block query over a previous result, evaluated in process: filters, then an optional
+ * group-by, then the sort and limit (a top-k when both are given), then the projection. The
+ * same plan renders as SQL that selects from the previous query, so the answer can be logged,
+ * analyzed for charting and re-run in BigQuery like any generated query.
+ */
+public final class LocalQuery {
+
+    private static final Pattern PLAIN_IDENTIFIER = Pattern.compile("[A-Za-z_][A-Za-z0-9_]*");
+
+    private final List<ColumnPredicate> filters;
+    private final List<String> groupBy;
+    private final List<Aggregate> aggregates;
+    private final List<SortKey> orderBy;
+    private final Integer limit;
+    private final List<String> projection;
+
+    /**
+     * @param groupBy Grouping columns; when empty, {@code aggregates} must be empty too
+     * @param limit Maximum rows, or null
+     * @param projection Output columns, or empty for all of them
+     */
+    public LocalQuery(List<ColumnPredicate> filters, List<String> groupBy, List<Aggregate> aggregates,
+                      List<SortKey> orderBy, Integer limit, List<String> projection) {
+        if (groupBy.isEmpty() != aggregates.isEmpty()) {
+            throw new IllegalArgumentException("Group-by needs both keys and aggregates");
+        }
+        this.filters = List.copyOf(filters);
+        this.groupBy = List.copyOf(groupBy);
+        this.aggregates = List.copyOf(aggregates);
+        this.orderBy = List.copyOf(orderBy);
+        this.limit = limit;
+        this.projection = List.copyOf(projection);
+    }
+
+    public List<ColumnPredicate> getFilters() {
+        return filters;
+    }
+
+    public List<String> getGroupBy() {
+        return groupBy;
+    }
+
+    public List<Aggregate> getAggregates() {
+        return aggregates;
+    }
+
+    public List<SortKey> getOrderBy() {
+        return orderBy;
+    }
+
+    public Integer getLimit() {
+        return limit;
+    }
+
+    public List<String> getProjection() {
+        return projection;
+    }
+
+    /**
+     * The operator pipeline for this query.
+     */
+    public List<TableOperator> plan() {
+        List<TableOperator> operators = new ArrayList<>();
+        for (ColumnPredicate filter : filters) {
+            operators.add(new FilterOperator(filter));
+        }
+        if (!groupBy.isEmpty()) {
+            operators.add(new GroupByOperator(groupBy, aggregates));
+        }
+        if (!orderBy.isEmpty() && limit != null) {
+            operators.add(new TopKOperator(orderBy, limit));
+        } else if (!orderBy.isEmpty()) {
+            operators.add(new SortOperator(orderBy));
+        } else if (limit != null) {
+            operators.add(new LimitOperator(limit));
+        }
+        if (!projection.isEmpty()) {
+            operators.add(new ProjectOperator(projection));
+        }
+        return operators;
+    }
+
+    public ColumnarTable execute(ColumnarTable input) {
+        ColumnarTable table = input;
+        for (TableOperator operator : plan()) {
+            table = operator.apply(table);
+        }
+        return table;
+    }
+
+    /**
+     * Renders the query over {@code sourceSql} as a subquery.
+     */
+    public String toSql(String sourceSql) {
+        List<String> select = new ArrayList<>();
+        if (!projection.isEmpty()) {
+            projection.forEach(column -> select.add(outputSql(column)));
+        } else if (!groupBy.isEmpty()) {
+            groupBy.forEach(column -> select.add(identifier(column)));
+            aggregates.forEach(aggregate -> select.add(aggregate.toSql()));
+        } else {
+            select.add("*");
+        }
+        StringBuilder sql = new StringBuilder("SELECT ").append(String.join(", ", select))
+                .append(" FROM (").append(stripTerminator(sourceSql)).append(") AS previous");
+        if (!filters.isEmpty()) {
+            List<String> conditions = new ArrayList<>();
+            filters.forEach(filter -> conditions.add(filter.toSql()));
+            sql.append(" WHERE ").append(String.join(" AND ", conditions));
+        }
+        if (!groupBy.isEmpty()) {
+            List<String> keys = new ArrayList<>();
+            groupBy.forEach(column -> keys.add(identifier(column)));
+            sql.append(" GROUP BY ").append(String.join(", ", keys));
+        }
+        if (!orderBy.isEmpty()) {
+            List<String> keys = new ArrayList<>();
+            orderBy.forEach(key -> keys.add(key.toSql()));
+            sql.append(" ORDER BY ").append(String.join(", ", keys));
+        }
+        if (limit != null) {
+            sql.append(" LIMIT ").append(limit);
+        }
+        return sql.toString();
+    }
+
+    /**
+     * A projected column: an aggregate is selected by its definition, anything else by name.
+     */
+    private String outputSql(String column) {
+        for (Aggregate aggregate : aggregates) {
+            if (aggregate.getName().equalsIgnoreCase(column)) {
+                return aggregate.toSql();
+            }
+        }
+        return identifier(column);
+    }
+
+    private static String stripTerminator(String sql) {
+        String trimmed = sql.trim();
+        while (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+
+    static String identifier(String name) {
+        return PLAIN_IDENTIFIER.matcher(name).matches() ? name : "`" + name.replace("`", "\\`") + "`";
+    }
+
+    static String literal(String value) {
+        return "'" + value.replace("\\", "\\\\").replace("'", "\\'") + "'";
+    }
+
+    @Override
+    public String toString() {
+        return toSql("previous");
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.ragchatbot.service.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Keeps the named columns, in the given order. The vectors and selection are shared.
+ */
+public final class ProjectOperator implements TableOperator {
+
+    private final List<String> columns;
+
+    public ProjectOperator(List<String> columns) {
+        this.columns = List.copyOf(columns);
+    }
+
+    @Override
+    public ColumnarTable apply(ColumnarTable input) {
+        List<ColumnVector> projected = new ArrayList<>(columns.size());
+        for (String name : columns) {
+            int column = input.indexOf(name);
+            if (column < 0) {
+                throw new IllegalArgumentException("Unknown column: " + name);
+            }
+            projected.add(input.getColumn(column));
+        }
+        return input.withColumns(projected);
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.ragchatbot.service.engine;
+
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * An ORDER BY key. Rows compare the way BigQuery orders them: numbers numerically, other values
+ * by their text, and NULLs first ascending and last descending.
+ */
+public final class SortKey {
+
+    private final String column;
+    private final boolean descending;
+
+    public SortKey(String column, boolean descending) {
+        this.column = column;
+        this.descending = descending;
+    }
+
+    public String getColumn() {
+        return column;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * Compares vector rows of {@code table} by the keys in turn.
+     *
+     * @throws IllegalArgumentException if a key names a column the table does not have
+     */
+    static IntBinaryOperator comparator(ColumnarTable table, List<SortKey> keys) {
+        ColumnVector[] vectors = new ColumnVector[keys.size()];
+        boolean[] descending = new boolean[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            int column = table.indexOf(keys.get(i).column);
+            if (column < 0) {
+                throw new IllegalArgumentException("Unknown sort column: " + keys.get(i).column);
+            }
+            vectors[i] = table.getColumn(column);
+            descending[i] = keys.get(i).descending;
+        }
+        return (left, right) -> {
+            for (int i = 0; i < vectors.length; i++) {
+                int order = compare(vectors[i], left, right);
+                if (order != 0) {
+                    return descending[i] ? -order : order;
+                }
+            }
+            return 0;
+        };
+    }
+
+    /**
+     * Ascending order of two vector rows, NULLs (and unparseable numbers) first.
+     */
+    private static int compare(ColumnVector vector, int left, int right) {
+        if (vector.isNumeric()) {
+            double a = vector.getDouble(left);
+            double b = vector.getDouble(right);
+            if (Double.isNaN(a) || Double.isNaN(b)) {
+                return Boolean.compare(!Double.isNaN(a), !Double.isNaN(b));
+            }
+            return Double.compare(a, b);
+        }
+        Object a = vector.getValue(left);
+        Object b = vector.getValue(right);
+        if (a == null || b == null) {
+            return Boolean.compare(a != null, b != null);
+        }
+        return String.valueOf(a).compareTo(String.valueOf(b));
+    }
+
+    String toSql() {
+        return LocalQuery.identifier(column) + (descending ? " DESC" : "");
+    }
+}
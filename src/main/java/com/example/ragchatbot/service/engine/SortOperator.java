@@ -0,0 +1,48 @@
+package com.example.ragchatbot.service.engine;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * Reorders the selection vector by the sort keys. The sort is stable, so rows that tie keep
+ * their input order.
+ */
+public final class SortOperator implements TableOperator {
+
+    private final List<SortKey> keys;
+
+    public SortOperator(List<SortKey> keys) {
+        this.keys = List.copyOf(keys);
+    }
+
+    @Override
+    public ColumnarTable apply(ColumnarTable input) {
+        int count = input.getRowCount();
+        int[] rows = Arrays.copyOf(input.selection(), count);
+        mergeSort(rows, new int[count], 0, count, SortKey.comparator(input, keys));
+        return input.withSelection(rows, count);
+    }
+
+    private static void mergeSort(int[] rows, int[] scratch, int from, int to, IntBinaryOperator comparator) {
+        if (to - from < 2) {
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        mergeSort(rows, scratch, from, middle, comparator);
+        mergeSort(rows, scratch, middle, to, comparator);
+        if (comparator.applyAsInt(rows[middle - 1], rows[middle]) <= 0) {
+            return;
+        }
+        System.arraycopy(rows, from, scratch, from, to - from);
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && comparator.applyAsInt(scratch[left], scratch[right]) <= 0)) {
+                rows[i] = scratch[left++];
+            } else {
+                rows[i] = scratch[right++];
+            }
+        }
+    }
+}
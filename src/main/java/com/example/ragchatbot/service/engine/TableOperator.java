@@ -0,0 +1,10 @@
+package com.example.ragchatbot.service.engine;
+
+/**
+ * One step of a {@link LocalQuery} plan. Operators read whole columns and return a new table;
+ * most only change the selection vector and share the input's column vectors.
+ */
+public interface TableOperator {
+
+    ColumnarTable apply(ColumnarTable input);
+}
@@ -0,0 +1,96 @@
+package com.example.ragchatbot.service.engine;
+
+import java.util.List;
+import java.util.function.IntBinaryOperator;
+
+/**
+ * The first {@code k} rows by the sort keys, without sorting the rest: a bounded heap holds the
+ * best {@code k} rows seen so far, so the cost is {@code O(n log k)}. Ties go to the earlier
+ * row, which gives the same rows as a stable sort followed by a limit.
+ */
+public final class TopKOperator implements TableOperator {
+
+    private final List<SortKey> keys;
+    private final int k;
+
+    public TopKOperator(List<SortKey> keys, int k) {
+        this.keys = List.copyOf(keys);
+        this.k = k;
+    }
+
+    @Override
+    public ColumnarTable apply(ColumnarTable input) {
+        int count = input.getRowCount();
+        if (k >= count) {
+            return new SortOperator(keys).apply(input);
+        }
+        if (k <= 0) {
+            return input.withSelection(input.selection(), 0);
+        }
+        int[] selection = input.selection();
+        IntBinaryOperator byKeys = SortKey.comparator(input, keys);
+        // Orders positions in the selection; the later position loses a tie
+        IntBinaryOperator order = (left, right) -> {
+            int result = byKeys.applyAsInt(selection[left], selection[right]);
+            return result != 0 ? result : Integer.compare(left, right);
+        };
+
+        // Max-heap of positions: the worst of the current best k is at the root
+        int[] heap = new int[k];
+        int size = 0;
+        for (int position = 0; position < count; position++) {
+            if (size < k) {
+                heap[size] = position;
+                siftUp(heap, size++, order);
+            } else if (order.applyAsInt(position, heap[0]) < 0) {
+                heap[0] = position;
+                siftDown(heap, size, order);
+            }
+        }
+
+        // Pop worst-first into the tail of the output
+        int[] rows = new int[k];
+        for (int i = size - 1; i >= 0; i--) {
+            rows[i] = selection[heap[0]];
+            heap[0] = heap[i];
+            siftDown(heap, i, order);
+        }
+        return input.withSelection(rows, size);
+    }
+
+    private static void siftUp(int[] heap, int index, IntBinaryOperator order) {
+        while (index > 0) {
+            int parent = (index - 1) >>> 1;
+            if (order.applyAsInt(heap[index], heap[parent]) <= 0) {
+                return;
+            }
+            swap(heap, index, parent);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(int[] heap, int size, IntBinaryOperator order) {
+        int index = 0;
+        while (true) {
+            int largest = index;
+            int left = 2 * index + 1;
+            if (left < size && order.applyAsInt(heap[left], heap[largest]) > 0) {
+                largest = left;
+            }
+            if (left + 1 < size && order.applyAsInt(heap[left + 1], heap[largest]) > 0) {
+                largest = left + 1;
+            }
+            if (largest == index) {
+                return;
+            }
+            swap(heap, index, largest);
+            index = largest;
+        }
+    }
+
+    private static void swap(int[] heap, int a, int b) {
+        int tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+}
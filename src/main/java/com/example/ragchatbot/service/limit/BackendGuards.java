@@ -0,0 +1,359 @@
+package com.example.ragchatbot.service.limit;
+
+import com.example.ragchatbot.service.metrics.PipelineMetrics;
+import com.example.ragchatbot.util.CircuitBreaker;
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deadlines, circuit breakers and hedging for the live pipeline's backend calls.
+ * <p>
+ * Each cache-miss request gets a {@link RequestDeadline}; the Gemini call and the BigQuery job
+ * time out at the smaller of the remaining budget and their own maximum. Per-backend circuit
+ * breakers fail fast with {@link CircuitOpenException} once the recent failure rate is too
+ * high. Gemini calls run on a dedicated pool so they can be abandoned at the deadline, and can
+ * optionally be hedged: when the first call has not answered after the recent p95 latency, a
+ * second identical call is sent and whichever answers first wins. Each attempt takes its own
+ * concurrency-limiter permit, so a saturated limiter simply rejects the hedge.
+ */
+@Component
+public class BackendGuards {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackendGuards.class);
+    private static final int LATENCY_SAMPLES = 256;
+    private static final int MIN_HEDGE_SAMPLES = 20;
+
+    private final PipelineMetrics metrics;
+    private final CircuitBreaker gemini;
+    private final CircuitBreaker bigQuery;
+    private final long requestBudgetMs;
+    private final long geminiTimeoutMs;
+    private final long bigQueryTimeoutMs;
+    private final boolean hedgeEnabled;
+    private final double hedgePercentile;
+    private final long hedgeMinDelayMs;
+    private final long hedgeInitialDelayMs;
+    private final LatencyWindow geminiLatencies = new LatencyWindow(LATENCY_SAMPLES);
+    private final ExecutorService geminiExecutor;
+
+    @Autowired
+    public BackendGuards(PipelineMetrics metrics,
+                         @Value("${resilience.enabled:true}") boolean enabled,
+                         @Value("${resilience.request-budget-ms:90000}") long requestBudgetMs,
+                         @Value("${resilience.gemini.timeout-ms:45000}") long geminiTimeoutMs,
+                         @Value("${resilience.bigquery.timeout-ms:60000}") long bigQueryTimeoutMs,
+                         @Value("${resilience.circuit.window-size:20}") int windowSize,
+                         @Value("${resilience.circuit.minimum-calls:10}") int minimumCalls,
+                         @Value("${resilience.circuit.failure-rate-threshold:0.5}") double failureRateThreshold,
+                         @Value("${resilience.circuit.open-ms:10000}") long openMs,
+                         @Value("${resilience.circuit.half-open-calls:2}") int halfOpenCalls,
+                         @Value("${resilience.gemini.hedge.enabled:false}") boolean hedgeEnabled,
+                         @Value("${resilience.gemini.hedge.percentile:95}") double hedgePercentile,
+                         @Value("${resilience.gemini.hedge.min-delay-ms:1000}") long hedgeMinDelayMs,
+                         @Value("${resilience.gemini.hedge.initial-delay-ms:5000}") long hedgeInitialDelayMs) {
+        this.metrics = metrics;
+        this.requestBudgetMs = enabled ? requestBudgetMs : 0;
+        this.geminiTimeoutMs = enabled ? geminiTimeoutMs : 0;
+        this.bigQueryTimeoutMs = enabled ? bigQueryTimeoutMs : 0;
+        this.hedgeEnabled = enabled && hedgeEnabled;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeMinDelayMs = hedgeMinDelayMs;
+        this.hedgeInitialDelayMs = hedgeInitialDelayMs;
+        if (enabled) {
+            this.gemini = new CircuitBreaker(BackendLimiters.GEMINI, windowSize, minimumCalls,
+                    failureRateThreshold, openMs, halfOpenCalls);
+            this.bigQuery = new CircuitBreaker(BackendLimiters.BIGQUERY, windowSize, minimumCalls,
+                    failureRateThreshold, openMs, halfOpenCalls);
+            metrics.registerCircuitBreaker(gemini);
+            metrics.registerCircuitBreaker(bigQuery);
+            AtomicInteger counter = new AtomicInteger();
+            ExecutorService pool = Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "gemini-call-" + counter.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Attempts carry the caller's observation, so Gemini spans stay in the request's trace
+            ContextSnapshotFactory snapshotFactory = ContextSnapshotFactory.builder().build();
+            this.geminiExecutor = ContextExecutorService.wrap(pool, snapshotFactory::captureAll);
+            logger.info("Backend guards enabled: requestBudgetMs={}, geminiTimeoutMs={}, bigQueryTimeoutMs={}, hedgeEnabled={}",
+                    requestBudgetMs, geminiTimeoutMs, bigQueryTimeoutMs, this.hedgeEnabled);
+        } else {
+            this.gemini = null;
+            this.bigQuery = null;
+            this.geminiExecutor = null;
+        }
+    }
+
+    private BackendGuards() {
+        this.metrics = null;
+        this.gemini = null;
+        this.bigQuery = null;
+        this.requestBudgetMs = 0;
+        this.geminiTimeoutMs = 0;
+        this.bigQueryTimeoutMs = 0;
+        this.hedgeEnabled = false;
+        this.hedgePercentile = 0;
+        this.hedgeMinDelayMs = 0;
+        this.hedgeInitialDelayMs = 0;
+        this.geminiExecutor = null;
+    }
+
+    /**
+     * Guards that call straight through with no deadlines, for callers constructed outside Spring.
+     */
+    public static BackendGuards disabled() {
+        return new BackendGuards();
+    }
+
+    /**
+     * Starts the time budget of a request that will call the backends.
+     */
+    public RequestDeadline newDeadline(long startMillis) {
+        return RequestDeadline.startingAt(startMillis, requestBudgetMs);
+    }
+
+    /**
+     * BigQuery job timeout for a request: its remaining budget, capped at
+     * {@code resilience.bigquery.timeout-ms}; 0 when neither applies.
+     *
+     * @throws DeadlineExceededException if the budget is already spent
+     */
+    public long bigQueryTimeoutMs(RequestDeadline deadline) {
+        try {
+            return deadline.timeoutMs(BackendLimiters.BIGQUERY, bigQueryTimeoutMs);
+        } catch (DeadlineExceededException e) {
+            recordDeadlineExceeded(BackendLimiters.BIGQUERY);
+            throw e;
+        }
+    }
+
+    /**
+     * Calls Gemini within the request's deadline, behind the Gemini circuit breaker, hedging the
+     * call if enabled.
+     *
+     * @param attempt One Gemini call; may run more than once, concurrently, when hedged
+     * @throws CircuitOpenException if the breaker is open; nothing was sent
+     * @throws DeadlineExceededException if no attempt answered in time; attempts are cancelled
+     */
+    public <T> T gemini(RequestDeadline deadline, BackendLimiters.LimitedCall<T> attempt) throws InterruptedException {
+        if (gemini == null) {
+            return attempt.call();
+        }
+        long timeoutMs;
+        try {
+            timeoutMs = deadline.timeoutMs(BackendLimiters.GEMINI, geminiTimeoutMs);
+        } catch (DeadlineExceededException e) {
+            recordDeadlineExceeded(BackendLimiters.GEMINI);
+            throw e;
+        }
+        acquire(gemini);
+        try {
+            T result = race(attempt, timeoutMs);
+            gemini.onSuccess();
+            return result;
+        } catch (Throwable t) {
+            complete(gemini, t);
+            throw t;
+        }
+    }
+
+    /**
+     * Calls BigQuery behind its circuit breaker. The deadline is enforced by the caller through
+     * the job timeout (see {@link #bigQueryTimeoutMs(RequestDeadline)}), which also cancels the job.
+     *
+     * @throws CircuitOpenException if the breaker is open; nothing was sent
+     */
+    public <T> T bigQuery(BackendLimiters.LimitedCall<T> call) throws InterruptedException {
+        if (bigQuery == null) {
+            return call.call();
+        }
+        acquire(bigQuery);
+        try {
+            T result = call.call();
+            bigQuery.onSuccess();
+            return result;
+        } catch (Throwable t) {
+            complete(bigQuery, t);
+            throw t;
+        }
+    }
+
+    private <T> T race(BackendLimiters.LimitedCall<T> attempt, long timeoutMs) throws InterruptedException {
+        long startNanos = System.nanoTime();
+        long deadlineNanos = timeoutMs > 0 ? startNanos + TimeUnit.MILLISECONDS.toNanos(timeoutMs) : Long.MAX_VALUE;
+        long hedgeDelayMs = hedgeDelayMs();
+        long hedgeAtNanos = hedgeDelayMs >= 0 ? startNanos + TimeUnit.MILLISECONDS.toNanos(hedgeDelayMs) : Long.MAX_VALUE;
+
+        CompletionService<T> completions = new ExecutorCompletionService<>(geminiExecutor);
+        Future<T> primary = completions.submit(() -> timed(attempt));
+        Future<T> hedge = null;
+        int pending = 1;
+        Throwable failure = null;
+        try {
+            while (pending > 0) {
+                long now = System.nanoTime();
+                if (now >= deadlineNanos) {
+                    recordDeadlineExceeded(BackendLimiters.GEMINI);
+                    throw new DeadlineExceededException(BackendLimiters.GEMINI, timeoutMs);
+                }
+                if (hedge == null && now >= hedgeAtNanos) {
+                    if (gemini.getState() == CircuitBreaker.State.CLOSED) {
+                        hedge = completions.submit(() -> timed(attempt));
+                        pending++;
+                        metrics.recordGeminiHedge("issued");
+                        logger.info("Hedging slow Gemini call: hedgeDelayMs={}", hedgeDelayMs);
+                    } else {
+                        // No hedges while the breaker is probing; just wait for the primary
+                        hedgeAtNanos = Long.MAX_VALUE;
+                        metrics.recordGeminiHedge("skipped");
+                    }
+                }
+                long waitUntil = hedge == null ? Math.min(deadlineNanos, hedgeAtNanos) : deadlineNanos;
+                Future<T> done = completions.poll(waitUntil - now, TimeUnit.NANOSECONDS);
+                if (done == null) {
+                    continue;
+                }
+                pending--;
+                try {
+                    T result = done.get();
+                    if (hedge != null) {
+                        metrics.recordGeminiHedge(done == primary ? "primary_won" : "hedge_won");
+                    }
+                    return result;
+                } catch (ExecutionException e) {
+                    // A hedge turned away by the concurrency limit says nothing about the primary
+                    if (failure == null || failure instanceof BackendOverloadedException) {
+                        failure = e.getCause();
+                    }
+                }
+            }
+            throw unchecked(failure);
+        } finally {
+            primary.cancel(true);
+            if (hedge != null) {
+                hedge.cancel(true);
+            }
+        }
+    }
+
+    private <T> T timed(BackendLimiters.LimitedCall<T> attempt) throws InterruptedException {
+        long start = System.currentTimeMillis();
+        T result = attempt.call();
+        geminiLatencies.add(System.currentTimeMillis() - start);
+        return result;
+    }
+
+    /**
+     * Delay before hedging, or -1 for no hedge: the recent latency percentile once enough calls
+     * have completed, the initial delay until then, never below the minimum.
+     */
+    private long hedgeDelayMs() {
+        if (!hedgeEnabled) {
+            return -1;
+        }
+        long observed = geminiLatencies.percentile(hedgePercentile, MIN_HEDGE_SAMPLES);
+        return Math.max(hedgeMinDelayMs, observed >= 0 ? observed : hedgeInitialDelayMs);
+    }
+
+    private void acquire(CircuitBreaker breaker) {
+        if (!breaker.tryAcquire()) {
+            metrics.recordCircuitRejection(breaker.getName());
+            throw new CircuitOpenException(breaker.getName(), breaker.getRetryAfterMillis());
+        }
+    }
+
+    private void complete(CircuitBreaker breaker, Throwable failure) {
+        if (!isBackendFailure(failure)) {
+            breaker.onIgnored();
+            return;
+        }
+        CircuitBreaker.State before = breaker.getState();
+        breaker.onFailure();
+        if (before != CircuitBreaker.State.OPEN && breaker.getState() == CircuitBreaker.State.OPEN) {
+            logger.warn("Circuit opened: backend={}, retryAfterMs={}, error={}",
+                    breaker.getName(), breaker.getRetryAfterMillis(), failure.getMessage());
+        }
+    }
+
+    /**
+     * Whether a failure counts against the backend's health. Calls turned away locally and bad
+     * input do not; errors, timeouts and overload responses from the backend do.
+     */
+    static boolean isBackendFailure(Throwable failure) {
+        return !(failure instanceof BackendOverloadedException
+                || failure instanceof CircuitOpenException
+                || failure instanceof IllegalArgumentException
+                || failure instanceof InterruptedException);
+    }
+
+    private void recordDeadlineExceeded(String stage) {
+        if (metrics != null) {
+            metrics.recordDeadlineExceeded(stage);
+        }
+    }
+
+    private static RuntimeException unchecked(Throwable failure) {
+        if (failure instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        return new RuntimeException(failure);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (geminiExecutor != null) {
+            geminiExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Latencies of the most recent successful calls, in milliseconds.
+     */
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private int count;
+        private int next;
+
+        LatencyWindow(int size) {
+            this.samples = new long[size];
+        }
+
+        synchronized void add(long millis) {
+            samples[next] = millis;
+            next = (next + 1) % samples.length;
+            count = Math.min(count + 1, samples.length);
+        }
+
+        /**
+         * @return The percentile, or -1 with fewer than {@code minSamples} samples
+         */
+        synchronized long percentile(double percentile, int minSamples) {
+            if (count < minSamples) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100.0 * count);
+            return sorted[Math.max(0, Math.min(count - 1, rank - 1))];
+        }
+    }
+}
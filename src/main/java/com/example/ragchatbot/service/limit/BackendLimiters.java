@@ -0,0 +1,189 @@
+package com.example.ragchatbot.service.limit;
+
+import com.example.ragchatbot.service.BigQueryTimeoutException;
+import com.example.ragchatbot.service.metrics.PipelineMetrics;
+import com.example.ragchatbot.util.AdaptiveConcurrencyLimiter;
+import com.google.cloud.bigquery.BigQueryException;
+import com.google.genai.errors.ApiException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * Adaptive concurrency limits in front of Gemini and BigQuery, one {@link AdaptiveConcurrencyLimiter}
+ * per backend. Calls over the limit queue briefly and are then rejected with
+ * {@link BackendOverloadedException}. After a rejected chat call the service is "shedding" for
+ * a short window, during which the chat endpoint answers only from its caches; background work
+ * shares the limits but its rejections do not start that window.
+ */
+@Component
+public class BackendLimiters {
+
+    private static final Logger logger = LoggerFactory.getLogger(BackendLimiters.class);
+
+    public static final String GEMINI = "gemini";
+    public static final String BIGQUERY = "bigquery";
+
+    /**
+     * A limited call; the checked exception matches the pipeline's blocking stages.
+     */
+    @FunctionalInterface
+    public interface LimitedCall<T> {
+        T call() throws InterruptedException;
+    }
+
+    private final AdaptiveConcurrencyLimiter gemini;
+    private final AdaptiveConcurrencyLimiter bigQuery;
+    private final PipelineMetrics metrics;
+    private final long shedWindowMs;
+    private volatile long lastRejectionMillis;
+    private volatile String lastRejectedBackend;
+
+    @Autowired
+    public BackendLimiters(PipelineMetrics metrics,
+                           @Value("${concurrency.limits.enabled:true}") boolean enabled,
+                           @Value("${concurrency.limits.backoff-ratio:0.9}") double backoffRatio,
+                           @Value("${concurrency.limits.max-queue:20}") int maxQueue,
+                           @Value("${concurrency.limits.max-wait-ms:2000}") long maxWaitMs,
+                           @Value("${concurrency.limits.shed-window-ms:1000}") long shedWindowMs,
+                           @Value("${concurrency.limits.gemini.initial:10}") int geminiInitial,
+                           @Value("${concurrency.limits.gemini.min:2}") int geminiMin,
+                           @Value("${concurrency.limits.gemini.max:50}") int geminiMax,
+                           @Value("${concurrency.limits.gemini.latency-threshold-ms:30000}") long geminiLatencyThresholdMs,
+                           @Value("${concurrency.limits.bigquery.initial:20}") int bigQueryInitial,
+                           @Value("${concurrency.limits.bigquery.min:2}") int bigQueryMin,
+                           @Value("${concurrency.limits.bigquery.max:100}") int bigQueryMax,
+                           @Value("${concurrency.limits.bigquery.latency-threshold-ms:60000}") long bigQueryLatencyThresholdMs) {
+        this.metrics = metrics;
+        this.shedWindowMs = shedWindowMs;
+        if (enabled) {
+            this.gemini = new AdaptiveConcurrencyLimiter(GEMINI, geminiInitial, geminiMin, geminiMax,
+                    backoffRatio, geminiLatencyThresholdMs, maxQueue, maxWaitMs);
+            this.bigQuery = new AdaptiveConcurrencyLimiter(BIGQUERY, bigQueryInitial, bigQueryMin, bigQueryMax,
+                    backoffRatio, bigQueryLatencyThresholdMs, maxQueue, maxWaitMs);
+            metrics.registerLimiter(gemini);
+            metrics.registerLimiter(bigQuery);
+            logger.info("Backend concurrency limits enabled: geminiInitial={}, bigQueryInitial={}, maxQueue={}, maxWaitMs={}",
+                    geminiInitial, bigQueryInitial, maxQueue, maxWaitMs);
+        } else {
+            this.gemini = null;
+            this.bigQuery = null;
+        }
+    }
+
+    private BackendLimiters() {
+        this.gemini = null;
+        this.bigQuery = null;
+        this.metrics = null;
+        this.shedWindowMs = 0;
+    }
+
+    /**
+     * Limiters that let every call through, for callers constructed outside Spring.
+     */
+    public static BackendLimiters unlimited() {
+        return new BackendLimiters();
+    }
+
+    public <T> T gemini(LimitedCall<T> call) throws InterruptedException {
+        return run(gemini, call);
+    }
+
+    public <T> T bigQuery(LimitedCall<T> call) throws InterruptedException {
+        return run(bigQuery, call);
+    }
+
+    /**
+     * A BigQuery call for background work such as backfill. A rejection turns away only this
+     * call; chat requests keep going to the backends.
+     */
+    public <T> T backgroundBigQuery(LimitedCall<T> call) throws InterruptedException {
+        return run(bigQuery, call, false);
+    }
+
+    /**
+     * True shortly after a backend rejected a call; new work should be served from caches only.
+     */
+    public boolean isShedding() {
+        return gemini != null && System.currentTimeMillis() - lastRejectionMillis < shedWindowMs;
+    }
+
+    /**
+     * Rejects new backend work while shedding, without queueing for a permit.
+     *
+     * @throws BackendOverloadedException naming the backend that last rejected a call
+     */
+    public void rejectWhileShedding() {
+        if (isShedding()) {
+            throw new BackendOverloadedException(lastRejectedBackend);
+        }
+    }
+
+    /**
+     * Seconds a rejected client should wait before retrying: the shed window, at least one.
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (shedWindowMs + 999) / 1000);
+    }
+
+    private <T> T run(AdaptiveConcurrencyLimiter limiter, LimitedCall<T> call) throws InterruptedException {
+        return run(limiter, call, true);
+    }
+
+    private <T> T run(AdaptiveConcurrencyLimiter limiter, LimitedCall<T> call, boolean shedOnRejection)
+            throws InterruptedException {
+        if (limiter == null) {
+            return call.call();
+        }
+        Optional<AdaptiveConcurrencyLimiter.Permit> permit = limiter.tryAcquire();
+        if (permit.isEmpty()) {
+            if (shedOnRejection) {
+                lastRejectedBackend = limiter.getName();
+                lastRejectionMillis = System.currentTimeMillis();
+            }
+            metrics.recordLimiterRejection(limiter.getName());
+            logger.warn("Backend call rejected by concurrency limit: backend={}, limit={}, inFlight={}, queued={}, background={}",
+                    limiter.getName(), limiter.getLimit(), limiter.getInFlight(), limiter.getQueued(), !shedOnRejection);
+            throw new BackendOverloadedException(limiter.getName());
+        }
+        try {
+            T result = call.call();
+            permit.get().success();
+            return result;
+        } catch (Throwable t) {
+            if (isOverload(t)) {
+                permit.get().dropped();
+                logger.info("Backend overload signal, backing off: backend={}, limit={}, error={}",
+                        limiter.getName(), limiter.getLimit(), t.getMessage());
+            } else {
+                permit.get().ignore();
+            }
+            throw t;
+        }
+    }
+
+    /**
+     * Whether a failure means the backend is overloaded: deadline exceeded, quota or rate limit
+     * hit, or the service reporting itself unavailable.
+     */
+    static boolean isOverload(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof BigQueryTimeoutException) {
+                return true;
+            }
+            if (t instanceof ApiException apiException && (apiException.code() == 429 || apiException.code() == 503)) {
+                return true;
+            }
+            if (t instanceof BigQueryException bigQueryException
+                    && (bigQueryException.getCode() == 429 || "rateLimitExceeded".equals(bigQueryException.getReason())
+                        || "quotaExceeded".equals(bigQueryException.getReason()))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.ragchatbot.service.limit;
+
+/**
+ * Raised when a backend's concurrency limit is reached and the wait queue is full or the wait
+ * timed out. Nothing was sent to the backend.
+ */
+public class BackendOverloadedException extends RuntimeException {
+
+    private final String backend;
+
+    public BackendOverloadedException(String backend) {
+        super("Too many concurrent " + backend + " requests");
+        this.backend = backend;
+    }
+
+    public String getBackend() {
+        return backend;
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.ragchatbot.service.limit;
+
+/**
+ * Raised instead of calling a backend whose circuit breaker is open after a run of failures.
+ * Nothing was sent to the backend.
+ */
+public class CircuitOpenException extends RuntimeException {
+
+    private final String backend;
+    private final long retryAfterMillis;
+
+    public CircuitOpenException(String backend, long retryAfterMillis) {
+        super("Circuit open for " + backend + " after repeated failures");
+        this.backend = backend;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    public String getBackend() {
+        return backend;
+    }
+
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    /**
+     * Whole seconds until the breaker lets a trial call through, at least one.
+     */
+    public long getRetryAfterSeconds() {
+        return Math.max(1, (retryAfterMillis + 999) / 1000);
+    }
+}
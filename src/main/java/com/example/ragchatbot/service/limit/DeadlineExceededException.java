@@ -0,0 +1,19 @@
+package com.example.ragchatbot.service.limit;
+
+/**
+ * Raised when a stage of the chat pipeline cannot finish within its share of the request's
+ * time budget. Work still running for the stage has been cancelled.
+ */
+public class DeadlineExceededException extends RuntimeException {
+
+    private final String stage;
+
+    public DeadlineExceededException(String stage, long timeoutMs) {
+        super("Deadline of " + timeoutMs + " ms exceeded at " + stage);
+        this.stage = stage;
+    }
+
+    public String getStage() {
+        return stage;
+    }
+}
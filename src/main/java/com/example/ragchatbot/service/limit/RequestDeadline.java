@@ -0,0 +1,70 @@
+package com.example.ragchatbot.service.limit;
+
+/**
+ * End-to-end time budget of one chat request. Each backend call takes its timeout from what is
+ * left of the budget, capped at the call's own maximum, so a slow first stage leaves less time
+ * for the next one instead of stretching the request.
+ */
+public final class RequestDeadline {
+
+    private static final RequestDeadline NONE = new RequestDeadline(0, 0);
+
+    private final long budgetMs;
+    private final long deadlineMillis;
+
+    private RequestDeadline(long budgetMs, long deadlineMillis) {
+        this.budgetMs = budgetMs;
+        this.deadlineMillis = deadlineMillis;
+    }
+
+    /**
+     * @param startMillis When the request started, from {@link System#currentTimeMillis()}
+     * @param budgetMs End-to-end budget; 0 or less means no deadline
+     */
+    public static RequestDeadline startingAt(long startMillis, long budgetMs) {
+        return budgetMs > 0 ? new RequestDeadline(budgetMs, startMillis + budgetMs) : NONE;
+    }
+
+    public static RequestDeadline none() {
+        return NONE;
+    }
+
+    public boolean isBounded() {
+        return budgetMs > 0;
+    }
+
+    public long getBudgetMs() {
+        return budgetMs;
+    }
+
+    /**
+     * Milliseconds left, or {@link Long#MAX_VALUE} without a deadline.
+     */
+    public long remainingMs() {
+        return isBounded() ? deadlineMillis - System.currentTimeMillis() : Long.MAX_VALUE;
+    }
+
+    /**
+     * Timeout for a call that should take at most {@code maxMs} (0 for no limit of its own).
+     *
+     * @return The smaller of {@code maxMs} and the remaining budget, or 0 if neither bounds the call
+     * @throws DeadlineExceededException if the budget is already spent
+     */
+    public long timeoutMs(String stage, long maxMs) {
+        check(stage);
+        long remaining = remainingMs();
+        if (maxMs <= 0) {
+            return isBounded() ? remaining : 0;
+        }
+        return Math.min(maxMs, remaining);
+    }
+
+    /**
+     * @throws DeadlineExceededException if the budget is spent before {@code stage} starts
+     */
+    public void check(String stage) {
+        if (isBounded() && remainingMs() <= 0) {
+            throw new DeadlineExceededException(stage, budgetMs);
+        }
+    }
+}
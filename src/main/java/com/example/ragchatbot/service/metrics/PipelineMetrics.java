@@ -0,0 +1,277 @@
+package com.example.ragchatbot.service.metrics;
+
+import com.example.ragchatbot.util.AdaptiveConcurrencyLimiter;
+import com.example.ragchatbot.util.CircuitBreaker;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Micrometer meters for each stage of the chat pipeline, exported at /actuator/prometheus.
+ * All meters share the {@code ragchatbot} prefix; percentiles and histogram buckets for the
+ * timers are configured for that prefix in application.properties.
+ */
+@Component
+public class PipelineMetrics {
+
+    public static final String PREFIX = "ragchatbot";
+
+    private final MeterRegistry registry;
+    private final Timer sqlGeneration;
+    private final Timer bigQueryWait;
+    private final Timer format;
+    private final Counter bigQueryBytesProcessed;
+    private final Counter promptTokens;
+    private final Counter candidateTokens;
+    private final Counter totalTokens;
+
+    public PipelineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.sqlGeneration = timer("sql.generation", "SQL generation including the Gemini call and validation");
+        this.bigQueryWait = timer("bigquery.wait", "Time waiting for the BigQuery job to finish");
+        this.format = timer("response.format", "Response formatting");
+        this.bigQueryBytesProcessed = Counter.builder(PREFIX + ".bigquery.bytes.processed")
+                .description("Bytes processed by BigQuery jobs")
+                .baseUnit("bytes")
+                .register(registry);
+        this.promptTokens = tokens("prompt");
+        this.candidateTokens = tokens("candidates");
+        this.totalTokens = tokens("total");
+    }
+
+    public void recordSqlGeneration(long millis) {
+        sqlGeneration.record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records a Gemini generateContent call (all attempts, when hedged) by model.
+     */
+    public void recordGeminiCall(String model, long millis) {
+        Timer.builder(PREFIX + ".gemini.call")
+                .description("Gemini generateContent call")
+                .tag("model", model)
+                .register(registry)
+                .record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Counts a model routing decision; {@code tier} is fast or pro, {@code reason} why it was chosen.
+     */
+    public void recordModelRoute(String tier, String reason) {
+        Counter.builder(PREFIX + ".model.routes")
+                .description("SQL generation routing decisions")
+                .tag("tier", tier)
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Counts a fast-model answer retried on the larger model (validation, generation_error,
+     * execution, empty_result).
+     */
+    public void recordModelEscalation(String reason) {
+        Counter.builder(PREFIX + ".model.escalations")
+                .description("Fast-model answers escalated to the larger model")
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    public void recordGeminiTokens(Integer prompt, Integer candidates, Integer total) {
+        increment(promptTokens, prompt);
+        increment(candidateTokens, candidates);
+        increment(totalTokens, total);
+    }
+
+    /**
+     * Records a BigQuery execution by outcome (success, failure, timeout, interrupted).
+     */
+    public void recordBigQuery(String outcome, long millis) {
+        Timer.builder(PREFIX + ".bigquery.query")
+                .description("BigQuery query execution, from job creation to results")
+                .tag("outcome", outcome)
+                .register(registry)
+                .record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordBigQueryWait(long millis) {
+        bigQueryWait.record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    public void recordBigQueryBytesProcessed(Long bytes) {
+        if (bytes != null && bytes > 0) {
+            bigQueryBytesProcessed.increment(bytes);
+        }
+    }
+
+    public void recordFormat(long millis) {
+        format.record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Records an end-to-end chat request by where the answer came from
+     * (rendered, snapshot, cache, live, derived, followup, rejected, shed, timeout, unavailable, error).
+     */
+    public void recordChatRequest(String source, long millis) {
+        Timer.builder(PREFIX + ".chat.request")
+                .description("End-to-end chat request")
+                .tag("source", source)
+                .register(registry)
+                .record(millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Counts a cache lookup; {@code cache} is rendered (serialized bodies), results (stored query
+     * results) or superset (stored results containing the generated query's rows).
+     */
+    public void recordCacheLookup(String cache, boolean hit) {
+        Counter.builder(PREFIX + ".cache.lookups")
+                .description("Cache lookups by cache and result")
+                .tag("cache", cache)
+                .tag("result", hit ? "hit" : "miss")
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Counts generated SQL rejected by validation; {@code reason} is incomplete or unsafe.
+     */
+    public void recordValidationRejection(String reason) {
+        Counter.builder(PREFIX + ".sql.validation.rejections")
+                .description("Generated SQL rejected by validation")
+                .tag("reason", reason)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Publishes a backend concurrency limiter's current limit, in-flight and queued calls, and
+     * rejections, tagged with the backend name.
+     */
+    public void registerLimiter(AdaptiveConcurrencyLimiter limiter) {
+        Gauge.builder(PREFIX + ".limiter.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Adaptive concurrency limit")
+                .tag("backend", limiter.getName())
+                .register(registry);
+        Gauge.builder(PREFIX + ".limiter.inflight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Calls holding a permit")
+                .tag("backend", limiter.getName())
+                .register(registry);
+        Gauge.builder(PREFIX + ".limiter.queued", limiter, AdaptiveConcurrencyLimiter::getQueued)
+                .description("Calls waiting for a permit")
+                .tag("backend", limiter.getName())
+                .register(registry);
+    }
+
+    /**
+     * Counts a call rejected by a backend concurrency limit.
+     */
+    public void recordLimiterRejection(String backend) {
+        Counter.builder(PREFIX + ".limiter.rejections")
+                .description("Calls rejected by a backend concurrency limit")
+                .tag("backend", backend)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Publishes a backend circuit breaker's state: 0 closed, 1 half-open, 2 open.
+     */
+    public void registerCircuitBreaker(CircuitBreaker breaker) {
+        Gauge.builder(PREFIX + ".circuit.state", breaker, b -> b.getState().ordinal())
+                .description("Circuit breaker state (0 closed, 1 half-open, 2 open)")
+                .tag("backend", breaker.getName())
+                .register(registry);
+    }
+
+    /**
+     * Counts a call failed fast by an open circuit breaker.
+     */
+    public void recordCircuitRejection(String backend) {
+        Counter.builder(PREFIX + ".circuit.rejections")
+                .description("Calls rejected by an open circuit breaker")
+                .tag("backend", backend)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Counts a backend stage that ran out of request budget; {@code stage} is gemini or bigquery.
+     */
+    public void recordDeadlineExceeded(String stage) {
+        Counter.builder(PREFIX + ".deadline.exceeded")
+                .description("Backend stages cut off by the request deadline")
+                .tag("stage", stage)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Counts hedged Gemini calls by outcome (issued, skipped, primary_won, hedge_won).
+     */
+    public void recordGeminiHedge(String outcome) {
+        Counter.builder(PREFIX + ".gemini.hedges")
+                .description("Hedged Gemini calls")
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Publishes the number of SQL templates currently mined from the query log.
+     */
+    public <T> void registerSqlTemplates(T source, ToDoubleFunction<T> templates) {
+        Gauge.builder(PREFIX + ".sql.templates", source, templates)
+                .description("SQL templates mined from the query log")
+                .register(registry);
+    }
+
+    /**
+     * Counts questions looked up in the SQL templates; a hit skips the Gemini call.
+     */
+    public void recordSqlTemplateLookup(boolean hit) {
+        Counter.builder(PREFIX + ".sql.template.lookups")
+                .description("SQL template lookups by result")
+                .tag("result", hit ? "hit" : "miss")
+                .register(registry)
+                .increment();
+    }
+
+    /**
+     * Counts follow-up questions that named a previous response; {@code outcome} is local
+     * (answered in process), not_understood or unknown_response (both fall back to the model).
+     */
+    public void recordFollowUp(String outcome) {
+        Counter.builder(PREFIX + ".followup.requests")
+                .description("Follow-up questions by outcome")
+                .tag("outcome", outcome)
+                .register(registry)
+                .increment();
+    }
+
+    private Timer timer(String name, String description) {
+        return Timer.builder(PREFIX + "." + name)
+                .description(description)
+                .register(registry);
+    }
+
+    private Counter tokens(String type) {
+        return Counter.builder(PREFIX + ".gemini.tokens")
+                .description("Gemini tokens by type")
+                .baseUnit("tokens")
+                .tag("type", type)
+                .register(registry);
+    }
+
+    private static void increment(Counter counter, Integer amount) {
+        if (amount != null && amount > 0) {
+            counter.increment(amount);
+        }
+    }
+}
@@ -18,6 +18,7 @@ public class FormattingResult {
     private final String selectedChartType;
     private final TemplateResult templateResult;
     private final Optional<QueryLogRecommendation> recommendation;
+    private final Optional<Map<String, Object>> alternates;
 
     public FormattingResult(Map<String, Object> responseBody,
                             QueryIntent queryIntent,
@@ -25,12 +26,23 @@ public class FormattingResult {
                             String selectedChartType,
                             TemplateResult templateResult,
                             Optional<QueryLogRecommendation> recommendation) {
+        this(responseBody, queryIntent, resultStats, selectedChartType, templateResult, recommendation, Optional.empty());
+    }
+
+    public FormattingResult(Map<String, Object> responseBody,
+                            QueryIntent queryIntent,
+                            ResultStatsSummary resultStats,
+                            String selectedChartType,
+                            TemplateResult templateResult,
+                            Optional<QueryLogRecommendation> recommendation,
+                            Optional<Map<String, Object>> alternates) {
         this.responseBody = responseBody != null ? responseBody : Collections.emptyMap();
         this.queryIntent = queryIntent;
         this.resultStats = resultStats;
         this.selectedChartType = selectedChartType;
         this.templateResult = templateResult;
         this.recommendation = recommendation;
+        this.alternates = alternates;
     }
 
     public Map<String, Object> getResponseBody() {
@@ -56,5 +68,13 @@ public class FormattingResult {
     public Optional<QueryLogRecommendation> getRecommendation() {
         return recommendation;
     }
+
+    /**
+     * Handle and chart types of alternates being rendered speculatively for this response.
+     * Kept out of the response body so cached bodies never carry a handle that may expire.
+     */
+    public Optional<Map<String, Object>> getAlternates() {
+        return alternates;
+    }
 }
 
@@ -1,6 +1,7 @@
 package com.example.ragchatbot.service.response;
 
 import com.example.ragchatbot.service.SqlQueryStorageService;
+import com.example.ragchatbot.util.SqlSignature;
 import com.example.ragchatbot.util.SqlSignatureUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -23,28 +24,13 @@ public class QueryLogInsightsService {
     }
 
     public Optional<QueryLogRecommendation> findRecommendation(String sql, String userQuery) {
-        String normalized = SqlSignatureUtil.normalize(sql);
-        if (normalized == null) {
+        SqlSignature signature = SqlSignatureUtil.signature(sql);
+        if (signature == null) {
             return Optional.empty();
         }
+        String fingerprint = signature.toHex();
 
-        List<Map<String, Object>> queries = storageService.readAllQueriesSnapshot();
-        if (queries.isEmpty()) {
-            return Optional.empty();
-        }
-
-        List<Map<String, Object>> matches = new ArrayList<>();
-        for (Map<String, Object> query : queries) {
-            Map<String, Object> analysis = getMap(query.get("analysis"));
-            if (analysis == null) {
-                continue;
-            }
-            String storedSignature = (String) analysis.get("normalizedSql");
-            if (storedSignature != null && storedSignature.equals(normalized)) {
-                matches.add(query);
-            }
-        }
-
+        List<Map<String, Object>> matches = storageService.findQueriesBySignature(fingerprint);
         if (matches.isEmpty()) {
             return Optional.empty();
         }
@@ -82,7 +68,7 @@ public class QueryLogInsightsService {
             return Optional.empty();
         }
 
-        double support = matches.size() / (double) queries.size();
+        double support = matches.size() / (double) Math.max(matches.size(), storageService.countQueries());
         logger.debug("Retrieved recommendation from log: chart={}, template={}, support={}",
                 bestChart, bestTemplate, support);
         return Optional.of(new QueryLogRecommendation(bestChart, bestTemplate, support));
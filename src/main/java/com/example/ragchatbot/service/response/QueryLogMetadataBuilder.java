@@ -2,6 +2,7 @@ package com.example.ragchatbot.service.response;
 
 import com.example.ragchatbot.service.analysis.ResultStatsSummary;
 import com.example.ragchatbot.service.visualization.QueryIntent;
+import com.example.ragchatbot.util.SqlSignature;
 import com.example.ragchatbot.util.SqlSignatureUtil;
 
 import java.util.HashMap;
@@ -19,9 +20,10 @@ public final class QueryLogMetadataBuilder {
 
     public static Map<String, Object> build(String sql, FormattingResult result) {
         Map<String, Object> metadata = new HashMap<>();
-        String normalizedSql = SqlSignatureUtil.normalize(sql);
-        if (normalizedSql != null) {
-            metadata.put("normalizedSql", normalizedSql);
+        SqlSignature signature = SqlSignatureUtil.signature(sql);
+        if (signature != null) {
+            metadata.put("normalizedSql", signature.getNormalizedSql());
+            metadata.put("signatureFingerprint", signature.toHex());
         }
 
         metadata.put("selectedChartType", result.getSelectedChartType());
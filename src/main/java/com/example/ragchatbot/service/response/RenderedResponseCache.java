@@ -0,0 +1,282 @@
+package com.example.ragchatbot.service.response;
+
+import com.example.ragchatbot.service.ChatResponseFormatter;
+import com.example.ragchatbot.service.analysis.ResultStatsCollector;
+import com.example.ragchatbot.service.data.JsonValues;
+import com.example.ragchatbot.service.data.TableRows;
+import com.example.ragchatbot.service.data.TransformedData;
+import com.example.ragchatbot.service.data.transformer.ChartDownsampling;
+import com.example.ragchatbot.service.data.transformer.Downsampling;
+import com.example.ragchatbot.service.data.transformer.ResultTransformer;
+import com.example.ragchatbot.service.storage.QueryEntries;
+import com.example.ragchatbot.service.visualization.ChartQueryRewriter;
+import com.example.ragchatbot.service.visualization.QueryAnalyzer;
+import com.example.ragchatbot.service.visualization.QueryPatternDetector;
+import com.example.ragchatbot.service.visualization.SqlPatternAnalyzer;
+import com.example.ragchatbot.service.visualization.VisualizationStrategy;
+import com.example.ragchatbot.util.SqlSignature;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caches the serialized JSON body of chat responses, keyed by normalized query text and
+ * {@link ResponsePipelineVersion}, so repeating a question skips formatting entirely. Bodies
+ * are kept in an in-memory LRU and persisted under a per-version directory in the background;
+ * directories left by other pipeline versions are deleted at startup.
+ */
+@Service
+public class RenderedResponseCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(RenderedResponseCache.class);
+
+    // Pipeline code outside the transformer, strategy and template beans that shapes the output
+    private static final List<Class<?>> PIPELINE_CLASSES = List.of(
+            ChatResponseFormatter.class, TransformedData.class, TemplateResult.class,
+            ResultStatsCollector.class, QueryAnalyzer.class, QueryPatternDetector.class, SqlPatternAnalyzer.class,
+            TableRows.class, JsonValues.class, ResponseBodyWriter.class, Downsampling.class, ChartDownsampling.class,
+            ChartQueryRewriter.class);
+    private static final List<String> CHART_TYPES = List.of("line", "multi_line", "bar", "pie", "bubble");
+
+    private final ResponseBodyWriter bodyWriter;
+    private final String pipelineVersion;
+    private final boolean enabled;
+    private final int maxBodyBytes;
+    private final Path versionDirectory;
+    private final Map<String, byte[]> memory;
+    private final Set<String> persistedKeys = ConcurrentHashMap.newKeySet();
+    private final ExecutorService persistExecutor;
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    @Autowired
+    public RenderedResponseCache(ResponseBodyWriter bodyWriter,
+                                 List<ResultTransformer> transformers,
+                                 List<VisualizationStrategy> strategies,
+                                 ResponseTemplateEngine templateEngine,
+                                 ChartDownsampling downsampling,
+                                 @Value("${chart.sql-rewrite.enabled:true}") boolean chartRewriteEnabled,
+                                 @Value("${response.cache.enabled:true}") boolean enabled,
+                                 @Value("${response.cache.max-entries:500}") int maxEntries,
+                                 @Value("${response.cache.max-body-bytes:1048576}") int maxBodyBytes,
+                                 @Value("${response.cache.dir:logs/rendered}") String directory,
+                                 @Value("${response.cache.pipeline-version:}") String versionOverride) {
+        this(bodyWriter, ResponsePipelineVersion.of(pipelineClasses(transformers, strategies, templateEngine),
+                pipelineSettings(downsampling, chartRewriteEnabled), versionOverride),
+                enabled, maxEntries, maxBodyBytes, Paths.get(directory));
+    }
+
+    public RenderedResponseCache(ResponseBodyWriter bodyWriter, String pipelineVersion, boolean enabled,
+                                 int maxEntries, int maxBodyBytes, Path directory) {
+        this.bodyWriter = bodyWriter;
+        this.pipelineVersion = pipelineVersion;
+        this.enabled = enabled;
+        this.maxBodyBytes = maxBodyBytes;
+        this.versionDirectory = directory.resolve(pipelineVersion);
+        int capacity = Math.max(1, maxEntries);
+        this.memory = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, byte[]> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.persistExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "rendered-response-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        if (enabled) {
+            initializeDirectory(directory);
+        }
+        logger.info("Rendered response cache initialized: enabled={}, pipelineVersion={}, persisted={}",
+                enabled, pipelineVersion, persistedKeys.size());
+    }
+
+    /**
+     * Returns the rendered JSON body for a query, if one was stored by the current pipeline version.
+     */
+    public Optional<byte[]> get(String userQuery) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String key = keyOf(userQuery);
+        byte[] body;
+        synchronized (memory) {
+            body = memory.get(key);
+        }
+        if (body == null && persistedKeys.contains(key)) {
+            body = readPersisted(key);
+        }
+        if (body == null) {
+            misses.incrementAndGet();
+            return Optional.empty();
+        }
+        hits.incrementAndGet();
+        return Optional.of(body);
+    }
+
+    /**
+     * Stores a rendered response body for later hits, marked as served from cache. Bodies
+     * larger than {@code response.cache.max-body-bytes} are not cached.
+     */
+    public void put(String userQuery, Map<String, Object> responseBody) {
+        if (!enabled) {
+            return;
+        }
+        byte[] body;
+        try {
+            body = bodyWriter.write(responseBody, Map.of("fromCache", true));
+        } catch (IOException e) {
+            logger.warn("Failed to serialize response for cache: error={}", e.getMessage());
+            return;
+        }
+        put(userQuery, body);
+    }
+
+    /**
+     * Stores an already serialized response body, which must carry {@code "fromCache": true}.
+     */
+    public void put(String userQuery, byte[] body) {
+        if (!enabled) {
+            return;
+        }
+        if (body.length > maxBodyBytes) {
+            logger.debug("Response too large to cache: bytes={}, maxBodyBytes={}", body.length, maxBodyBytes);
+            return;
+        }
+        String key = keyOf(userQuery);
+        synchronized (memory) {
+            memory.put(key, body);
+        }
+        persistExecutor.execute(() -> persist(key, body));
+    }
+
+    public String getPipelineVersion() {
+        return pipelineVersion;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new HashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("pipelineVersion", pipelineVersion);
+        synchronized (memory) {
+            stats.put("inMemory", memory.size());
+        }
+        stats.put("persisted", persistedKeys.size());
+        stats.put("hits", hits.get());
+        stats.put("misses", misses.get());
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        persistExecutor.shutdown();
+        try {
+            persistExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void initializeDirectory(Path directory) {
+        try {
+            Files.createDirectories(versionDirectory);
+            try (DirectoryStream<Path> versions = Files.newDirectoryStream(directory)) {
+                for (Path version : versions) {
+                    if (Files.isDirectory(version) && !version.equals(versionDirectory)) {
+                        FileSystemUtils.deleteRecursively(version);
+                        logger.info("Removed responses rendered by an older pipeline: version={}", version.getFileName());
+                    }
+                }
+            }
+            try (DirectoryStream<Path> bodies = Files.newDirectoryStream(versionDirectory, "*.json")) {
+                for (Path body : bodies) {
+                    String fileName = body.getFileName().toString();
+                    persistedKeys.add(fileName.substring(0, fileName.length() - ".json".length()));
+                }
+            }
+        } catch (IOException e) {
+            logger.warn("Rendered response cache directory unavailable, using memory only: error={}", e.getMessage());
+        }
+    }
+
+    private byte[] readPersisted(String key) {
+        try {
+            byte[] body = Files.readAllBytes(versionDirectory.resolve(key + ".json"));
+            synchronized (memory) {
+                memory.put(key, body);
+            }
+            return body;
+        } catch (IOException e) {
+            persistedKeys.remove(key);
+            return null;
+        }
+    }
+
+    private void persist(String key, byte[] body) {
+        Path target = versionDirectory.resolve(key + ".json");
+        Path tempFile = versionDirectory.resolve(key + ".json.tmp");
+        try {
+            Files.write(tempFile, body);
+            try {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+            persistedKeys.add(key);
+        } catch (IOException e) {
+            logger.warn("Failed to persist rendered response: error={}", e.getMessage());
+        }
+    }
+
+    private static String keyOf(String userQuery) {
+        return SqlSignature.of(QueryEntries.normalizeQueryText(userQuery)).toHex();
+    }
+
+    private static List<Class<?>> pipelineClasses(List<ResultTransformer> transformers,
+                                                  List<VisualizationStrategy> strategies,
+                                                  ResponseTemplateEngine templateEngine) {
+        List<Class<?>> classes = new ArrayList<>(PIPELINE_CLASSES);
+        transformers.forEach(transformer -> classes.add(transformer.getClass()));
+        strategies.forEach(strategy -> classes.add(strategy.getClass()));
+        classes.add(templateEngine.getClass());
+        return classes;
+    }
+
+    /**
+     * Configuration that changes rendered bodies: chart limits decide which rows are drawn, and
+     * the chart SQL rewrite decides which rows BigQuery returns.
+     */
+    private static Map<String, Object> pipelineSettings(ChartDownsampling downsampling, boolean chartRewriteEnabled) {
+        Map<String, Object> settings = new HashMap<>();
+        for (String chartType : CHART_TYPES) {
+            settings.put("chart.downsample." + chartType, downsampling.limitFor(chartType));
+        }
+        settings.put("chart.sql-rewrite.enabled", chartRewriteEnabled);
+        return settings;
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.ragchatbot.service.response;
+
+import com.example.ragchatbot.service.data.JsonValues;
+import com.example.ragchatbot.service.data.JsonWritable;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Serializes chat response bodies with a streaming {@link JsonGenerator} into pooled byte
+ * buffers. Values are written by {@link JsonValues}: {@link JsonWritable} payloads (e.g. table
+ * rows) write themselves from the underlying result, and anything unusual falls back to the
+ * application {@link ObjectMapper}, so the output matches what the default message converter
+ * would produce.
+ */
+@Component
+public class ResponseBodyWriter {
+
+    private static final int INITIAL_BUFFER_BYTES = 8192;
+
+    private final ObjectMapper objectMapper;
+    private final BlockingQueue<PooledBuffer> pool;
+    private final int maxRetainedBufferBytes;
+
+    @Autowired
+    public ResponseBodyWriter(ObjectMapper objectMapper,
+                              @Value("${response.json.buffer-pool-size:16}") int poolSize,
+                              @Value("${response.json.max-retained-buffer-bytes:1048576}") int maxRetainedBufferBytes) {
+        this.objectMapper = objectMapper;
+        this.pool = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+        this.maxRetainedBufferBytes = maxRetainedBufferBytes;
+    }
+
+    public ResponseBodyWriter(ObjectMapper objectMapper) {
+        this(objectMapper, 16, 1024 * 1024);
+    }
+
+    /**
+     * Serializes a response body. Entries in {@code overrides} replace body entries with the
+     * same key, which lets callers add flags like "fromCache" without copying the body.
+     */
+    public byte[] write(Map<String, Object> body, Map<String, Object> overrides) throws IOException {
+        PooledBuffer buffer = acquire();
+        try {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(buffer)) {
+                generator.writeStartObject();
+                for (Map.Entry<String, Object> entry : body.entrySet()) {
+                    if (!overrides.containsKey(entry.getKey())) {
+                        generator.writeFieldName(entry.getKey());
+                        JsonValues.write(generator, entry.getValue());
+                    }
+                }
+                for (Map.Entry<String, Object> entry : overrides.entrySet()) {
+                    generator.writeFieldName(entry.getKey());
+                    JsonValues.write(generator, entry.getValue());
+                }
+                generator.writeEndObject();
+            }
+            return buffer.toByteArray();
+        } finally {
+            release(buffer);
+        }
+    }
+
+    /**
+     * Adds a field in front of the fields of an already serialized body. Lets a body stored
+     * without per-response fields (e.g. in the rendered cache) be returned with them, at the
+     * cost of one copy instead of a re-serialization.
+     */
+    public byte[] withField(byte[] body, String name, Object value) throws IOException {
+        if (body.length < 2 || body[0] != '{') {
+            throw new IllegalArgumentException("Body is not a JSON object");
+        }
+        // {"name":value} without its closing brace
+        byte[] field = objectMapper.writeValueAsBytes(Collections.singletonMap(name, value));
+        int fieldLength = field.length - 1;
+        boolean emptyBody = body[1] == '}';
+        byte[] combined = new byte[fieldLength + (emptyBody ? 0 : 1) + body.length - 1];
+        System.arraycopy(field, 0, combined, 0, fieldLength);
+        int position = fieldLength;
+        if (!emptyBody) {
+            combined[position++] = ',';
+        }
+        System.arraycopy(body, 1, combined, position, body.length - 1);
+        return combined;
+    }
+
+    private PooledBuffer acquire() {
+        PooledBuffer buffer = pool.poll();
+        return buffer != null ? buffer : new PooledBuffer();
+    }
+
+    private void release(PooledBuffer buffer) {
+        // Buffers grown by an unusually large response are left to the GC rather than pinned
+        if (buffer.capacity() <= maxRetainedBufferBytes) {
+            buffer.reset();
+            pool.offer(buffer);
+        }
+    }
+
+    private static final class PooledBuffer extends ByteArrayOutputStream {
+        PooledBuffer() {
+            super(INITIAL_BUFFER_BYTES);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.ragchatbot.service.response;
+
+import org.springframework.util.ClassUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Identifies the code and configuration that render chat responses: a digest of the bytecode of
+ * every class in the formatting pipeline, including its nested and anonymous classes (lambda
+ * bodies are compiled into the enclosing class), plus the settings that change the output. Any
+ * change to a transformer, strategy or template class, or to a chart limit, yields a new
+ * version, so responses rendered by older code are never served.
+ */
+public final class ResponsePipelineVersion {
+
+    private ResponsePipelineVersion() {
+    }
+
+    /**
+     * @param pipelineClasses Classes whose code determines the rendered output; Spring proxies
+     *                        are resolved to the user class
+     * @param override Optional extra version label (e.g. bumped by hand when a configuration
+     *                 change alters rendering); blank to ignore
+     * @return A 16-hex-digit version string
+     */
+    public static String of(Collection<Class<?>> pipelineClasses, String override) {
+        return of(pipelineClasses, Map.of(), override);
+    }
+
+    /**
+     * @param pipelineClasses Classes whose code determines the rendered output; Spring proxies
+     *                        are resolved to the user class
+     * @param settings Configuration values that change the rendered output, e.g. chart limits
+     * @param override Optional extra version label; blank to ignore
+     * @return A 16-hex-digit version string
+     */
+    public static String of(Collection<Class<?>> pipelineClasses, Map<String, ?> settings, String override) {
+        MessageDigest digest = sha256();
+        TreeSet<Class<?>> sorted = new TreeSet<>(Comparator.comparing(Class::getName));
+        for (Class<?> type : pipelineClasses) {
+            addWithMemberClasses(ClassUtils.getUserClass(type), sorted);
+        }
+        for (Class<?> type : sorted) {
+            digest.update(type.getName().getBytes(StandardCharsets.UTF_8));
+            byte[] bytes = classBytes(type, type.getName());
+            digest.update(bytes != null ? bytes : new byte[0]);
+            // Anonymous classes are compiled to Outer$1, Outer$2, ... and have no Class to list
+            for (int index = 1; (bytes = classBytes(type, type.getName() + "$" + index)) != null; index++) {
+                digest.update(bytes);
+            }
+        }
+        new TreeMap<String, Object>(settings).forEach((key, value) ->
+                digest.update((key + "=" + value + "\n").getBytes(StandardCharsets.UTF_8)));
+        if (override != null && !override.isBlank()) {
+            digest.update(override.getBytes(StandardCharsets.UTF_8));
+        }
+        return HexFormat.of().formatHex(digest.digest(), 0, 8);
+    }
+
+    private static void addWithMemberClasses(Class<?> type, Collection<Class<?>> into) {
+        if (into.add(type)) {
+            for (Class<?> member : type.getDeclaredClasses()) {
+                addWithMemberClasses(member, into);
+            }
+        }
+    }
+
+    /**
+     * @param context A class in the same package, used to locate the class file
+     * @return The class file of {@code binaryName}, or null if there is none to read; classes
+     *         without a readable class file still contribute their name
+     */
+    private static byte[] classBytes(Class<?> context, String binaryName) {
+        String resource = binaryName.substring(binaryName.lastIndexOf('.') + 1) + ".class";
+        try (InputStream in = context.getResourceAsStream(resource)) {
+            return in != null ? in.readAllBytes() : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.ragchatbot.service.response;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+import com.example.ragchatbot.service.data.transformer.ResultTransformer;
+import com.example.ragchatbot.service.data.transformer.TransformerFactory;
+import com.example.ragchatbot.service.visualization.QueryIntent;
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+/**
+ * Renders the next-best chart types for a response in the background, so switching the chart
+ * ("show as bar instead") is served from memory instead of a new chat round trip. Alternates
+ * are transformed and formatted in parallel on a dedicated fork-join pool and kept under a
+ * per-response handle in a bounded LRU; an evicted or unknown handle simply has no alternates.
+ * Tasks carry the submitting thread's observation context, so their spans join the request's trace.
+ */
+@Component
+public class SpeculativeChartRenderer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SpeculativeChartRenderer.class);
+
+    private final TransformerFactory transformerFactory;
+    private final boolean enabled;
+    private final int maxAlternates;
+    private final long waitMs;
+    private final ObservationRegistry observationRegistry;
+    private final ForkJoinPool pool;
+    private final ExecutorService executor;
+    private final Map<String, Map<String, CompletableFuture<Map<String, Object>>>> handles;
+
+    @Autowired
+    public SpeculativeChartRenderer(TransformerFactory transformerFactory,
+                                    @Value("${chart.speculative.enabled:false}") boolean enabled,
+                                    @Value("${chart.speculative.max-alternates:2}") int maxAlternates,
+                                    @Value("${chart.speculative.parallelism:2}") int parallelism,
+                                    @Value("${chart.speculative.max-handles:200}") int maxHandles,
+                                    @Value("${chart.speculative.wait-ms:2000}") long waitMs,
+                                    ObservationRegistry observationRegistry) {
+        this.transformerFactory = transformerFactory;
+        this.enabled = enabled && maxAlternates > 0;
+        this.maxAlternates = maxAlternates;
+        this.waitMs = waitMs;
+        this.observationRegistry = observationRegistry;
+        this.pool = this.enabled ? new ForkJoinPool(Math.max(1, parallelism)) : null;
+        ContextSnapshotFactory snapshotFactory = ContextSnapshotFactory.builder().build();
+        this.executor = pool != null ? ContextExecutorService.wrap(pool, snapshotFactory::captureAll) : null;
+        int capacity = Math.max(1, maxHandles);
+        this.handles = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Map<String, CompletableFuture<Map<String, Object>>>> eldest) {
+                return size() > capacity;
+            }
+        };
+        logger.info("Speculative chart rendering initialized: enabled={}, maxAlternates={}, parallelism={}",
+                this.enabled, maxAlternates, parallelism);
+    }
+
+    public static SpeculativeChartRenderer disabled(TransformerFactory transformerFactory) {
+        return new SpeculativeChartRenderer(transformerFactory, false, 0, 1, 1, 0, ObservationRegistry.NOOP);
+    }
+
+    /**
+     * Starts rendering the top candidate chart types other than the one already rendered.
+     *
+     * @param renderedChartType Chart type of the transformer used for the response
+     * @param render Transforms and formats the result with a transformer, as the response was
+     * @return Handle and chart types to advertise in the response, or empty if there are no alternates
+     */
+    public Optional<Map<String, Object>> speculate(BigQueryResult result, QueryIntent intent, String renderedChartType,
+                                                   Function<ResultTransformer, Map<String, Object>> render) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Map<String, CompletableFuture<Map<String, Object>>> alternates = new LinkedHashMap<>();
+        for (ResultTransformer transformer : transformerFactory.getCandidates(result, intent, maxAlternates + 1)) {
+            String chartType = transformer.getTargetChartType();
+            if (alternates.size() < maxAlternates && !chartType.equalsIgnoreCase(renderedChartType)) {
+                alternates.put(chartType, CompletableFuture.supplyAsync(() -> Observation
+                        .createNotStarted("chat.alternate.render", observationRegistry)
+                        .lowCardinalityKeyValue("chart.type", chartType)
+                        .observe(() -> render.apply(transformer)), executor));
+            }
+        }
+        if (alternates.isEmpty()) {
+            return Optional.empty();
+        }
+
+        String handle = UUID.randomUUID().toString();
+        synchronized (handles) {
+            handles.put(handle, alternates);
+        }
+        logger.debug("Speculative charts submitted: handle={}, chartTypes={}", handle, alternates.keySet());
+
+        Map<String, Object> descriptor = new HashMap<>();
+        descriptor.put("handle", handle);
+        descriptor.put("chartTypes", new ArrayList<>(alternates.keySet()));
+        return Optional.of(descriptor);
+    }
+
+    /**
+     * Returns a speculatively rendered chart, waiting up to {@code chart.speculative.wait-ms}
+     * for it to finish.
+     *
+     * @return The formatted chart data, or empty if the handle or chart type is unknown or rendering failed
+     */
+    public Optional<Map<String, Object>> getAlternate(String handle, String chartType) {
+        CompletableFuture<Map<String, Object>> future;
+        synchronized (handles) {
+            Map<String, CompletableFuture<Map<String, Object>>> alternates = handles.get(handle);
+            future = alternates != null ? alternates.get(chartType) : null;
+        }
+        if (future == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.ofNullable(future.get(waitMs, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return Optional.empty();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.warn("Speculative chart unavailable: handle={}, chartType={}, error={}",
+                    handle, chartType, e.toString());
+            return Optional.empty();
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (pool != null) {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.ragchatbot.service.sql;
+
+/**
+ * Named subquery declared in a WITH clause.
+ */
+public final class CommonTableExpression {
+    private final String name;
+    private final SelectQuery query;
+
+    public CommonTableExpression(String name, SelectQuery query) {
+        this.name = name;
+        this.query = query;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public SelectQuery getQuery() {
+        return query;
+    }
+
+    void render(StringBuilder out) {
+        out.append(name).append(" AS (");
+        query.render(out);
+        out.append(')');
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.ragchatbot.service.sql;
+
+import java.util.List;
+
+/**
+ * ORDER BY element: sort expression, direction and optional NULLS FIRST/LAST.
+ */
+public final class OrderItem {
+    private final SqlExpression expression;
+    private final boolean descending;
+    private final String nullOrdering;
+
+    public OrderItem(SqlExpression expression, boolean descending, String nullOrdering) {
+        this.expression = expression;
+        this.descending = descending;
+        this.nullOrdering = nullOrdering;
+    }
+
+    public SqlExpression getExpression() {
+        return expression;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * {@code FIRST}, {@code LAST} or null when not specified.
+     */
+    public String getNullOrdering() {
+        return nullOrdering;
+    }
+
+    public String toSql() {
+        StringBuilder builder = new StringBuilder();
+        render(builder);
+        return builder.toString();
+    }
+
+    void render(StringBuilder out) {
+        expression.render(out);
+        out.append(descending ? " DESC" : " ASC");
+        if (nullOrdering != null) {
+            out.append(" NULLS ").append(nullOrdering);
+        }
+    }
+
+    static void renderList(StringBuilder out, List<OrderItem> items) {
+        for (int i = 0; i < items.size(); i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            items.get(i).render(out);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toSql();
+    }
+}
@@ -0,0 +1,517 @@
+package com.example.ragchatbot.service.sql;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Predicate;
+
+/**
+ * Decides whether a query can be answered from the stored rows of another one, and derives its
+ * rows locally. Both must share WITH, FROM, GROUP BY, HAVING, QUALIFY and DISTINCT (see
+ * {@link #coreKey(SelectQuery)}), and every column the new query selects or sorts by must be a
+ * stored column. Then:
+ * <ul>
+ *   <li>If the stored rows are the complete result (no LIMIT, or fewer rows than the LIMIT, and
+ *       nothing truncated on storage), the new query may add simple filters on stored columns,
+ *       sort by any stored columns and take any LIMIT.</li>
+ *   <li>Otherwise the stored rows are only a top-N prefix: the new query must sort the same way,
+ *       add no filters and take a LIMIT no larger than the rows stored. "Top 10 ascending" is not
+ *       the reverse of "top 10 descending".</li>
+ * </ul>
+ * Added filters must be on grouping columns when the query aggregates, since a filter on any
+ * other column would have changed the aggregates.
+ */
+public final class QueryContainment {
+
+    private static final Set<String> AGGREGATE_FUNCTIONS = Set.of(
+            "SUM", "AVG", "COUNT", "COUNTIF", "MAX", "MIN", "STDDEV", "STDDEV_POP", "STDDEV_SAMP",
+            "VARIANCE", "VAR_POP", "VAR_SAMP", "ARRAY_AGG", "STRING_AGG", "ANY_VALUE", "APPROX_COUNT_DISTINCT",
+            "LOGICAL_AND", "LOGICAL_OR", "CORR", "COVAR_POP", "COVAR_SAMP");
+    private static final Set<String> COMPARISONS = Set.of("=", "!=", "<>", "<", "<=", ">", ">=");
+
+    private final int[] projection;
+    private final List<String> columnNames;
+    private final List<Predicate<List<Object>>> filters;
+    private final List<SortKey> sort;
+    private final Long limit;
+
+    private QueryContainment(int[] projection, List<String> columnNames, List<Predicate<List<Object>>> filters,
+                             List<SortKey> sort, Long limit) {
+        this.projection = projection;
+        this.columnNames = columnNames;
+        this.filters = filters;
+        this.sort = sort;
+        this.limit = limit;
+    }
+
+    /**
+     * The parts of a query that must be identical for one to contain the other.
+     */
+    public static String coreKey(SelectQuery query) {
+        StringBuilder out = new StringBuilder();
+        for (CommonTableExpression cte : query.getWithClauses()) {
+            cte.render(out);
+            out.append(", ");
+        }
+        out.append(query.isDistinct() ? "DISTINCT " : "").append("FROM ");
+        for (TableReference reference : query.getFrom()) {
+            reference.render(out);
+        }
+        out.append(" GROUP BY ");
+        SqlExpression.renderList(out, query.getGroupBy());
+        append(out, " HAVING ", query.getHaving());
+        append(out, " QUALIFY ", query.getQualify());
+        return out.toString();
+    }
+
+    /**
+     * @param stored The query whose rows are stored
+     * @param storedRows Number of rows stored for it
+     * @param storedTruncated True if storage kept only a prefix of its result
+     * @param query The query to answer
+     * @return How to derive {@code query}'s rows from the stored rows, or empty if it cannot be
+     */
+    public static Optional<QueryContainment> check(SelectQuery stored, int storedRows, boolean storedTruncated,
+                                                   SelectQuery query) {
+        if (stored.isCompound() || query.isCompound() || hasOffset(stored) || hasOffset(query)
+                || !coreKey(stored).equals(coreKey(query))) {
+            return Optional.empty();
+        }
+        Long storedLimit = stored.getLimit();
+        if (stored.hasLimit() && storedLimit == null || query.hasLimit() && query.getLimit() == null) {
+            return Optional.empty();
+        }
+
+        int[] projection = new int[query.getSelectItems().size()];
+        List<String> columnNames = new ArrayList<>(projection.length);
+        for (int i = 0; i < projection.length; i++) {
+            SelectItem item = query.getSelectItems().get(i);
+            projection[i] = item.isStar() ? -1 : storedColumn(stored, item.getExpression());
+            String name = item.getOutputName() != null ? item.getOutputName()
+                    : projection[i] >= 0 ? stored.getSelectItems().get(projection[i]).getOutputName() : null;
+            if (projection[i] < 0 || name == null) {
+                return Optional.empty();
+            }
+            columnNames.add(name);
+        }
+        // Dropping a column from a DISTINCT result could leave duplicate rows
+        if (stored.isDistinct() && new HashSet<>(asList(projection)).size() != stored.getSelectItems().size()) {
+            return Optional.empty();
+        }
+
+        List<SqlExpression> storedConjuncts = conjuncts(stored.getWhere());
+        List<SqlExpression> added = new ArrayList<>(conjuncts(query.getWhere()));
+        for (SqlExpression conjunct : storedConjuncts) {
+            if (!added.remove(conjunct)) {
+                return Optional.empty();
+            }
+        }
+
+        boolean complete = !storedTruncated && (storedLimit == null || storedRows < storedLimit);
+        if (complete) {
+            List<Predicate<List<Object>>> filters = new ArrayList<>();
+            for (SqlExpression conjunct : added) {
+                Predicate<List<Object>> filter = filter(stored, conjunct);
+                if (filter == null) {
+                    return Optional.empty();
+                }
+                filters.add(filter);
+            }
+            List<SortKey> sort = sortKeys(stored, query);
+            if (sort == null) {
+                return Optional.empty();
+            }
+            return Optional.of(new QueryContainment(projection, columnNames, filters, sort, query.getLimit()));
+        }
+
+        // A top-N prefix: same order, no new filters, no more rows than stored
+        if (!added.isEmpty() || query.getLimit() == null || query.getLimit() > storedRows
+                || stored.getOrderBy().isEmpty() || !sameOrder(stored, query)) {
+            return Optional.empty();
+        }
+        return Optional.of(new QueryContainment(projection, columnNames, List.of(), List.of(), query.getLimit()));
+    }
+
+    /**
+     * Output column names of the derived rows.
+     */
+    public List<String> getColumnNames() {
+        return columnNames;
+    }
+
+    /**
+     * Index of the stored column behind each derived column.
+     */
+    public int[] getProjection() {
+        return projection.clone();
+    }
+
+    /**
+     * Filters, sorts, limits and projects the stored rows.
+     */
+    public List<List<Object>> apply(List<List<Object>> storedRows) {
+        List<List<Object>> rows = new ArrayList<>();
+        for (List<Object> row : storedRows) {
+            if (filters.stream().allMatch(filter -> filter.test(row))) {
+                rows.add(row);
+            }
+        }
+        if (!sort.isEmpty()) {
+            Comparator<List<Object>> comparator = null;
+            for (SortKey key : sort) {
+                comparator = comparator == null ? key : comparator.thenComparing(key);
+            }
+            // Stable, so rows tied on the new keys keep their stored order
+            rows.sort(comparator);
+        }
+        int size = limit != null ? (int) Math.min(rows.size(), limit) : rows.size();
+        List<List<Object>> derived = new ArrayList<>(size);
+        for (List<Object> row : rows.subList(0, size)) {
+            List<Object> projected = new ArrayList<>(projection.length);
+            for (int column : projection) {
+                projected.add(column < row.size() ? row.get(column) : null);
+            }
+            derived.add(projected);
+        }
+        return derived;
+    }
+
+    private static boolean hasOffset(SelectQuery query) {
+        Long offset = query.getOffset();
+        return offset != null && offset != 0;
+    }
+
+    /**
+     * Index of the stored select item computing {@code expression}, also accepting a stored
+     * output name for a bare column reference, or -1.
+     */
+    private static int storedColumn(SelectQuery stored, SqlExpression expression) {
+        List<SelectItem> items = stored.getSelectItems();
+        for (int i = 0; i < items.size(); i++) {
+            if (!items.get(i).isStar() && items.get(i).getExpression().equals(expression)) {
+                return i;
+            }
+        }
+        if (expression.getKind() == SqlExpression.Kind.COLUMN && expression.getPath().size() == 1) {
+            SelectItem item = stored.findSelectItem(expression.getColumnName());
+            return item != null ? items.indexOf(item) : -1;
+        }
+        return -1;
+    }
+
+    /**
+     * Resolves an ORDER BY expression of {@code query} (an ordinal, one of its aliases or an
+     * expression) to a stored column, or -1.
+     */
+    private static int orderColumn(SelectQuery stored, SelectQuery query, SqlExpression expression) {
+        SelectItem item = query.resolveOrdinal(expression);
+        if (item == null && expression.getKind() == SqlExpression.Kind.COLUMN && expression.getPath().size() == 1) {
+            SelectItem aliased = query.findSelectItem(expression.getColumnName());
+            if (aliased != null && aliased.getAlias() != null) {
+                item = aliased;
+            }
+        }
+        if (item != null) {
+            return item.isStar() ? -1 : storedColumn(stored, item.getExpression());
+        }
+        return storedColumn(stored, expression);
+    }
+
+    private static List<SortKey> sortKeys(SelectQuery stored, SelectQuery query) {
+        List<SortKey> keys = new ArrayList<>();
+        for (OrderItem item : query.getOrderBy()) {
+            int column = orderColumn(stored, query, item.getExpression());
+            if (column < 0) {
+                return null;
+            }
+            keys.add(new SortKey(column, item.isDescending(), item.getNullOrdering()));
+        }
+        return keys;
+    }
+
+    private static boolean sameOrder(SelectQuery stored, SelectQuery query) {
+        List<OrderItem> storedOrder = stored.getOrderBy();
+        List<OrderItem> order = query.getOrderBy();
+        if (storedOrder.size() != order.size()) {
+            return false;
+        }
+        for (int i = 0; i < order.size(); i++) {
+            OrderItem a = storedOrder.get(i);
+            OrderItem b = order.get(i);
+            if (a.isDescending() != b.isDescending() || !String.valueOf(a.getNullOrdering()).equals(String.valueOf(b.getNullOrdering()))) {
+                return false;
+            }
+            if (a.getExpression().equals(b.getExpression())) {
+                continue;
+            }
+            int column = orderColumn(stored, stored, a.getExpression());
+            if (column < 0 || column != orderColumn(stored, query, b.getExpression())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<SqlExpression> conjuncts(SqlExpression where) {
+        List<SqlExpression> conjuncts = new ArrayList<>();
+        collectConjuncts(where, conjuncts);
+        return conjuncts;
+    }
+
+    private static void collectConjuncts(SqlExpression expression, List<SqlExpression> out) {
+        if (expression == null) {
+            return;
+        }
+        if (expression.getKind() == SqlExpression.Kind.BINARY && "AND".equals(expression.getName())) {
+            expression.getChildren().forEach(child -> collectConjuncts(child, out));
+        } else if (expression.getKind() == SqlExpression.Kind.LIST && expression.getChildren().size() == 1) {
+            collectConjuncts(expression.getChildren().get(0), out);
+        } else {
+            out.add(expression);
+        }
+    }
+
+    /**
+     * A row filter for an added WHERE conjunct, or null if it cannot be evaluated on stored rows.
+     */
+    private static Predicate<List<Object>> filter(SelectQuery stored, SqlExpression conjunct) {
+        List<SqlExpression> children = conjunct.getChildren();
+        switch (conjunct.getKind()) {
+            case BINARY: {
+                if (COMPARISONS.contains(conjunct.getName())) {
+                    boolean columnFirst = children.get(1).getKind() == SqlExpression.Kind.LITERAL;
+                    int column = filterColumn(stored, children.get(columnFirst ? 0 : 1));
+                    Literal literal = Literal.of(children.get(columnFirst ? 1 : 0));
+                    if (column < 0 || literal == null) {
+                        return null;
+                    }
+                    String operator = columnFirst ? conjunct.getName() : flip(conjunct.getName());
+                    return row -> compare(operator, literal.compareTo(value(row, column)));
+                }
+                if ("IN".equals(conjunct.getName()) && children.get(1).getKind() == SqlExpression.Kind.LIST) {
+                    int column = filterColumn(stored, children.get(0));
+                    List<Literal> values = new ArrayList<>();
+                    for (SqlExpression item : children.get(1).getChildren()) {
+                        Literal literal = Literal.of(item);
+                        if (literal == null) {
+                            return null;
+                        }
+                        values.add(literal);
+                    }
+                    if (column < 0) {
+                        return null;
+                    }
+                    return row -> values.stream().anyMatch(literal -> literal.compareTo(value(row, column)) == 0);
+                }
+                return null;
+            }
+            case BETWEEN: {
+                int column = filterColumn(stored, children.get(0));
+                Literal low = Literal.of(children.get(1));
+                Literal high = Literal.of(children.get(2));
+                if (column < 0 || low == null || high == null) {
+                    return null;
+                }
+                boolean negated = conjunct.getName().startsWith("NOT");
+                return row -> {
+                    Object value = value(row, column);
+                    Integer fromLow = low.compareTo(value);
+                    Integer fromHigh = high.compareTo(value);
+                    if (fromLow == null || fromHigh == null) {
+                        return false;
+                    }
+                    // compareTo is literal-vs-value, so low <= value means fromLow <= 0
+                    return (fromLow <= 0 && fromHigh >= 0) != negated;
+                };
+            }
+            case IS: {
+                int column = filterColumn(stored, children.get(0));
+                if (column < 0 || !conjunct.getName().endsWith("NULL")) {
+                    return null;
+                }
+                boolean negated = conjunct.getName().contains("NOT");
+                return row -> (value(row, column) == null) != negated;
+            }
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Stored column a filter may test: a grouping column of an aggregating query, or any stored
+     * column of a plain query. Window functions see the unfiltered rows, so never filter those.
+     */
+    private static int filterColumn(SelectQuery stored, SqlExpression expression) {
+        int column = storedColumn(stored, expression);
+        if (column < 0 || stored.getSelectItems().stream().anyMatch(item -> contains(item.getExpression(), true))) {
+            return -1;
+        }
+        SqlExpression computed = stored.getSelectItems().get(column).getExpression();
+        if (!stored.getGroupBy().isEmpty()) {
+            return stored.getGroupBy().contains(computed) || stored.getGroupBy().contains(expression) ? column : -1;
+        }
+        boolean aggregating = stored.getSelectItems().stream().anyMatch(item -> contains(item.getExpression(), false));
+        return aggregating ? -1 : column;
+    }
+
+    private static boolean contains(SqlExpression expression, boolean window) {
+        if (expression.getKind() == SqlExpression.Kind.FUNCTION
+                && (window ? expression.isWindowFunction()
+                        : !expression.isWindowFunction() && AGGREGATE_FUNCTIONS.contains(expression.getName()))) {
+            return true;
+        }
+        return expression.getChildren().stream().anyMatch(child -> contains(child, window));
+    }
+
+    private static String flip(String operator) {
+        switch (operator) {
+            case "<":
+                return ">";
+            case "<=":
+                return ">=";
+            case ">":
+                return "<";
+            case ">=":
+                return "<=";
+            default:
+                return operator;
+        }
+    }
+
+    /**
+     * @param fromLiteral Literal compared with the value (null when the value is NULL)
+     */
+    private static boolean compare(String operator, Integer fromLiteral) {
+        if (fromLiteral == null) {
+            return false;
+        }
+        // fromLiteral is literal-vs-value; the operator reads value-vs-literal
+        int cmp = -fromLiteral;
+        switch (operator) {
+            case "=":
+                return cmp == 0;
+            case "!=":
+            case "<>":
+                return cmp != 0;
+            case "<":
+                return cmp < 0;
+            case "<=":
+                return cmp <= 0;
+            case ">":
+                return cmp > 0;
+            default:
+                return cmp >= 0;
+        }
+    }
+
+    private static Object value(List<Object> row, int column) {
+        return column < row.size() ? row.get(column) : null;
+    }
+
+    private static void append(StringBuilder out, String keyword, SqlExpression expression) {
+        if (expression != null) {
+            out.append(keyword);
+            expression.render(out);
+        }
+    }
+
+    private static List<Integer> asList(int[] values) {
+        List<Integer> list = new ArrayList<>(values.length);
+        for (int value : values) {
+            list.add(value);
+        }
+        return list;
+    }
+
+    /**
+     * Number or string literal of an added filter.
+     */
+    private static final class Literal {
+        private final Double number;
+        private final String text;
+
+        private Literal(Double number, String text) {
+            this.number = number;
+            this.text = text;
+        }
+
+        private static Literal of(SqlExpression expression) {
+            if (expression.getKind() != SqlExpression.Kind.LITERAL) {
+                return null;
+            }
+            String source = expression.getName();
+            if (source.length() >= 2 && (source.charAt(0) == '\'' || source.charAt(0) == '"')
+                    && source.charAt(source.length() - 1) == source.charAt(0)) {
+                return source.contains("\\") ? null : new Literal(null, source.substring(1, source.length() - 1));
+            }
+            try {
+                return new Literal(Double.parseDouble(source), null);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+
+        /**
+         * Compares this literal with a stored value, or null if the value is NULL or not comparable.
+         */
+        private Integer compareTo(Object value) {
+            if (value == null) {
+                return null;
+            }
+            if (number == null) {
+                return Integer.signum(text.compareTo(String.valueOf(value)));
+            }
+            Double parsed = SortKey.number(value);
+            return parsed != null ? Integer.signum(Double.compare(number, parsed)) : null;
+        }
+    }
+
+    /**
+     * ORDER BY key over a stored column. Numbers (stored as numbers or numeric strings) compare
+     * numerically; NULLs sort first ascending and last descending unless the query says otherwise,
+     * as in BigQuery.
+     */
+    private static final class SortKey implements Comparator<List<Object>> {
+        private final int column;
+        private final boolean descending;
+        private final boolean nullsFirst;
+
+        private SortKey(int column, boolean descending, String nullOrdering) {
+            this.column = column;
+            this.descending = descending;
+            this.nullsFirst = nullOrdering != null ? nullOrdering.toUpperCase().endsWith("FIRST") : !descending;
+        }
+
+        @Override
+        public int compare(List<Object> a, List<Object> b) {
+            Object left = value(a, column);
+            Object right = value(b, column);
+            if (left == null || right == null) {
+                if (left == right) {
+                    return 0;
+                }
+                return (left == null) == nullsFirst ? -1 : 1;
+            }
+            Double leftNumber = number(left);
+            Double rightNumber = number(right);
+            int cmp = leftNumber != null && rightNumber != null
+                    ? Double.compare(leftNumber, rightNumber)
+                    : String.valueOf(left).compareTo(String.valueOf(right));
+            return descending ? -cmp : cmp;
+        }
+
+        private static Double number(Object value) {
+            if (value instanceof Number number) {
+                return number.doubleValue();
+            }
+            try {
+                return Double.parseDouble(String.valueOf(value));
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.example.ragchatbot.service.sql;
+
+/**
+ * Element of a SELECT list with its optional alias.
+ */
+public final class SelectItem {
+    private final SqlExpression expression;
+    private final String alias;
+
+    public SelectItem(SqlExpression expression, String alias) {
+        this.expression = expression;
+        this.alias = alias;
+    }
+
+    public SqlExpression getExpression() {
+        return expression;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    public boolean isStar() {
+        return expression.getKind() == SqlExpression.Kind.STAR;
+    }
+
+    /**
+     * Name of the result column this item produces: the alias, or the column name for a bare
+     * column reference. Returns null for unaliased expressions and stars.
+     */
+    public String getOutputName() {
+        if (alias != null) {
+            return alias;
+        }
+        if (expression.getKind() == SqlExpression.Kind.COLUMN) {
+            return expression.getColumnName();
+        }
+        return null;
+    }
+
+    void render(StringBuilder out) {
+        expression.render(out);
+        if (alias != null) {
+            out.append(" AS ").append(alias);
+        }
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        render(builder);
+        return builder.toString();
+    }
+}
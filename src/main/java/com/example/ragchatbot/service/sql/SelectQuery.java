@@ -0,0 +1,296 @@
+package com.example.ragchatbot.service.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Query block of the SQL AST: optional WITH clause, SELECT list, FROM/WHERE/GROUP BY/HAVING/QUALIFY,
+ * and trailing ORDER BY / LIMIT. When {@link #getSetOperations()} is non-empty, this block is the
+ * left-most branch of a compound query and ORDER BY / LIMIT apply to the compound result.
+ */
+public final class SelectQuery {
+
+    /**
+     * A UNION / INTERSECT / EXCEPT branch appended to the left-most query block.
+     */
+    public static final class SetOperation {
+        private final String operator;
+        private final SelectQuery query;
+
+        public SetOperation(String operator, SelectQuery query) {
+            this.operator = operator;
+            this.query = query;
+        }
+
+        /**
+         * Upper-cased operator including its quantifier, e.g. {@code UNION ALL}.
+         */
+        public String getOperator() {
+            return operator;
+        }
+
+        public SelectQuery getQuery() {
+            return query;
+        }
+    }
+
+    private final List<CommonTableExpression> withClauses = new ArrayList<>();
+    private boolean distinct;
+    private final List<SelectItem> selectItems = new ArrayList<>();
+    private final List<TableReference> from = new ArrayList<>();
+    private SqlExpression where;
+    private final List<SqlExpression> groupBy = new ArrayList<>();
+    private SqlExpression having;
+    private SqlExpression qualify;
+    private final List<SetOperation> setOperations = new ArrayList<>();
+    private final List<OrderItem> orderBy = new ArrayList<>();
+    private SqlExpression limit;
+    private SqlExpression offset;
+
+    public List<CommonTableExpression> getWithClauses() {
+        return Collections.unmodifiableList(withClauses);
+    }
+
+    public boolean isDistinct() {
+        return distinct;
+    }
+
+    public List<SelectItem> getSelectItems() {
+        return Collections.unmodifiableList(selectItems);
+    }
+
+    public List<TableReference> getFrom() {
+        return Collections.unmodifiableList(from);
+    }
+
+    public SqlExpression getWhere() {
+        return where;
+    }
+
+    public List<SqlExpression> getGroupBy() {
+        return Collections.unmodifiableList(groupBy);
+    }
+
+    public SqlExpression getHaving() {
+        return having;
+    }
+
+    public SqlExpression getQualify() {
+        return qualify;
+    }
+
+    public List<SetOperation> getSetOperations() {
+        return Collections.unmodifiableList(setOperations);
+    }
+
+    public boolean isCompound() {
+        return !setOperations.isEmpty();
+    }
+
+    public List<OrderItem> getOrderBy() {
+        return Collections.unmodifiableList(orderBy);
+    }
+
+    public SqlExpression getLimitExpression() {
+        return limit;
+    }
+
+    public boolean hasLimit() {
+        return limit != null;
+    }
+
+    /**
+     * Numeric LIMIT value, or null when there is no LIMIT or it is a query parameter.
+     */
+    public Long getLimit() {
+        return literalValue(limit);
+    }
+
+    /**
+     * Numeric OFFSET value, or null when absent or parameterized.
+     */
+    public Long getOffset() {
+        return literalValue(offset);
+    }
+
+    /**
+     * Resolves a GROUP BY / ORDER BY ordinal ({@code GROUP BY 1}) to the referenced select item.
+     *
+     * @return The 1-based select item, or null if the expression is not an in-range ordinal
+     */
+    public SelectItem resolveOrdinal(SqlExpression expression) {
+        if (expression == null || expression.getKind() != SqlExpression.Kind.LITERAL) {
+            return null;
+        }
+        Long ordinal = literalValue(expression);
+        if (ordinal == null || ordinal < 1 || ordinal > selectItems.size()) {
+            return null;
+        }
+        return selectItems.get(ordinal.intValue() - 1);
+    }
+
+    /**
+     * Finds the select item whose alias (or bare column name) matches the given name, ignoring case.
+     */
+    public SelectItem findSelectItem(String outputName) {
+        if (outputName == null) {
+            return null;
+        }
+        for (SelectItem item : selectItems) {
+            String name = item.getOutputName();
+            if (name != null && name.equalsIgnoreCase(outputName)) {
+                return item;
+            }
+        }
+        return null;
+    }
+
+    void addWithClause(CommonTableExpression cte) {
+        withClauses.add(cte);
+    }
+
+    void addWithClauses(int index, List<CommonTableExpression> ctes) {
+        withClauses.addAll(index, ctes);
+    }
+
+    void setDistinct(boolean distinct) {
+        this.distinct = distinct;
+    }
+
+    void addSelectItem(SelectItem item) {
+        selectItems.add(item);
+    }
+
+    void addFrom(TableReference reference) {
+        from.add(reference);
+    }
+
+    void replaceFrom(int position, TableReference reference) {
+        from.set(position, reference);
+    }
+
+    void setWhere(SqlExpression where) {
+        this.where = where;
+    }
+
+    void addGroupBy(SqlExpression expression) {
+        groupBy.add(expression);
+    }
+
+    void setHaving(SqlExpression having) {
+        this.having = having;
+    }
+
+    void setQualify(SqlExpression qualify) {
+        this.qualify = qualify;
+    }
+
+    void addSetOperation(SetOperation operation) {
+        setOperations.add(operation);
+    }
+
+    void setOrderBy(List<OrderItem> items) {
+        orderBy.clear();
+        orderBy.addAll(items);
+    }
+
+    void setLimit(SqlExpression limit) {
+        this.limit = limit;
+    }
+
+    void setOffset(SqlExpression offset) {
+        this.offset = offset;
+    }
+
+    /**
+     * Renders the query in canonical form (see {@link SqlExpression#toSql()}).
+     */
+    public String toSql() {
+        StringBuilder builder = new StringBuilder();
+        render(builder);
+        return builder.toString();
+    }
+
+    void render(StringBuilder out) {
+        if (!withClauses.isEmpty()) {
+            out.append("WITH ");
+            for (int i = 0; i < withClauses.size(); i++) {
+                if (i > 0) {
+                    out.append(", ");
+                }
+                withClauses.get(i).render(out);
+            }
+            out.append(' ');
+        }
+        renderBlock(out);
+        for (SetOperation operation : setOperations) {
+            out.append(' ').append(operation.getOperator()).append(" (");
+            operation.getQuery().render(out);
+            out.append(')');
+        }
+        if (!orderBy.isEmpty()) {
+            out.append(" ORDER BY ");
+            OrderItem.renderList(out, orderBy);
+        }
+        if (limit != null) {
+            out.append(" LIMIT ");
+            limit.render(out);
+        }
+        if (offset != null) {
+            out.append(" OFFSET ");
+            offset.render(out);
+        }
+    }
+
+    private void renderBlock(StringBuilder out) {
+        out.append("SELECT ");
+        if (distinct) {
+            out.append("DISTINCT ");
+        }
+        for (int i = 0; i < selectItems.size(); i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            selectItems.get(i).render(out);
+        }
+        if (!from.isEmpty()) {
+            out.append(" FROM ");
+            for (TableReference reference : from) {
+                reference.render(out);
+            }
+        }
+        if (where != null) {
+            out.append(" WHERE ");
+            where.render(out);
+        }
+        if (!groupBy.isEmpty()) {
+            out.append(" GROUP BY ");
+            SqlExpression.renderList(out, groupBy);
+        }
+        if (having != null) {
+            out.append(" HAVING ");
+            having.render(out);
+        }
+        if (qualify != null) {
+            out.append(" QUALIFY ");
+            qualify.render(out);
+        }
+    }
+
+    private static Long literalValue(SqlExpression expression) {
+        if (expression == null || expression.getKind() != SqlExpression.Kind.LITERAL) {
+            return null;
+        }
+        try {
+            return Long.parseLong(expression.getName());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return toSql();
+    }
+}
@@ -0,0 +1,324 @@
+package com.example.ragchatbot.service.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Expression node of the SQL AST. A single node type with a {@link Kind} discriminator keeps
+ * traversal simple; kind-specific data lives in {@link #getName()}, {@link #getChildren()},
+ * {@link #getSubquery()} and {@link #getWindow()}.
+ */
+public final class SqlExpression {
+
+    public enum Kind {
+        /** Column or field reference; {@link #getPath()} holds the dotted parts. */
+        COLUMN,
+        /** Literal; {@link #getName()} holds the source text (typed literals include the type keyword). */
+        LITERAL,
+        PARAMETER,
+        /** {@code *} or {@code alias.*}. */
+        STAR,
+        /** Function call; {@link #getName()} is upper-cased, arguments are the children. */
+        FUNCTION,
+        /** Binary operator; {@link #getName()} is the upper-cased operator, e.g. {@code =}, {@code AND}, {@code NOT IN}. */
+        BINARY,
+        /** Prefix operator such as {@code NOT}, {@code -} or {@code EXISTS}. */
+        UNARY,
+        /** {@code x BETWEEN a AND b}; children are {@code [x, a, b]}. */
+        BETWEEN,
+        /** {@code x IS [NOT] NULL/TRUE/FALSE}; {@link #getName()} holds the tested keyword(s). */
+        IS,
+        /** Parenthesized list or single parenthesized expression. */
+        LIST,
+        /** Bracketed array literal. */
+        ARRAY,
+        /** Scalar, IN or EXISTS subquery. */
+        SUBQUERY,
+        /** CASE expression; see {@link #hasCaseOperand()} and {@link #hasElse()}. */
+        CASE
+    }
+
+    private final Kind kind;
+    private final String name;
+    private final List<String> path;
+    private final List<SqlExpression> children;
+    private final SelectQuery subquery;
+    private final WindowSpecification window;
+    private final boolean distinct;
+    private final String modifier;
+    private final boolean caseOperand;
+    private final boolean caseElse;
+
+    private SqlExpression(Kind kind, String name, List<String> path, List<SqlExpression> children,
+                          SelectQuery subquery, WindowSpecification window, boolean distinct,
+                          String modifier, boolean caseOperand, boolean caseElse) {
+        this.kind = kind;
+        this.name = name;
+        this.path = path != null ? Collections.unmodifiableList(new ArrayList<>(path)) : Collections.emptyList();
+        this.children = children != null ? Collections.unmodifiableList(new ArrayList<>(children)) : Collections.emptyList();
+        this.subquery = subquery;
+        this.window = window;
+        this.distinct = distinct;
+        this.modifier = modifier;
+        this.caseOperand = caseOperand;
+        this.caseElse = caseElse;
+    }
+
+    public static SqlExpression column(List<String> path) {
+        return new SqlExpression(Kind.COLUMN, String.join(".", path), path, null, null, null, false, null, false, false);
+    }
+
+    public static SqlExpression literal(String text) {
+        return new SqlExpression(Kind.LITERAL, text, null, null, null, null, false, null, false, false);
+    }
+
+    public static SqlExpression parameter(String text) {
+        return new SqlExpression(Kind.PARAMETER, text, null, null, null, null, false, null, false, false);
+    }
+
+    public static SqlExpression star(List<String> qualifier) {
+        return new SqlExpression(Kind.STAR, "*", qualifier, null, null, null, false, null, false, false);
+    }
+
+    public static SqlExpression function(String name, List<SqlExpression> arguments, boolean distinct,
+                                         String modifier, WindowSpecification window) {
+        return new SqlExpression(Kind.FUNCTION, name, null, arguments, null, window, distinct, modifier, false, false);
+    }
+
+    public static SqlExpression binary(String operator, SqlExpression left, SqlExpression right) {
+        return new SqlExpression(Kind.BINARY, operator, null, List.of(left, right), null, null, false, null, false, false);
+    }
+
+    public static SqlExpression unary(String operator, SqlExpression operand) {
+        return new SqlExpression(Kind.UNARY, operator, null, List.of(operand), null, null, false, null, false, false);
+    }
+
+    public static SqlExpression between(boolean negated, SqlExpression value, SqlExpression low, SqlExpression high) {
+        return new SqlExpression(Kind.BETWEEN, negated ? "NOT BETWEEN" : "BETWEEN", null,
+                List.of(value, low, high), null, null, false, null, false, false);
+    }
+
+    public static SqlExpression is(String test, SqlExpression operand) {
+        return new SqlExpression(Kind.IS, test, null, List.of(operand), null, null, false, null, false, false);
+    }
+
+    public static SqlExpression list(List<SqlExpression> items) {
+        return new SqlExpression(Kind.LIST, null, null, items, null, null, false, null, false, false);
+    }
+
+    public static SqlExpression array(List<SqlExpression> items) {
+        return new SqlExpression(Kind.ARRAY, null, null, items, null, null, false, null, false, false);
+    }
+
+    public static SqlExpression subquery(SelectQuery query) {
+        return new SqlExpression(Kind.SUBQUERY, null, null, null, query, null, false, null, false, false);
+    }
+
+    public static SqlExpression caseExpression(List<SqlExpression> parts, boolean hasOperand, boolean hasElse) {
+        return new SqlExpression(Kind.CASE, "CASE", null, parts, null, null, false, null, hasOperand, hasElse);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getPath() {
+        return path;
+    }
+
+    /**
+     * Last path component of a column reference (the column name without table qualifier).
+     */
+    public String getColumnName() {
+        return path.isEmpty() ? name : path.get(path.size() - 1);
+    }
+
+    public List<SqlExpression> getChildren() {
+        return children;
+    }
+
+    public SelectQuery getSubquery() {
+        return subquery;
+    }
+
+    public WindowSpecification getWindow() {
+        return window;
+    }
+
+    public boolean isWindowFunction() {
+        return kind == Kind.FUNCTION && window != null;
+    }
+
+    public boolean isDistinct() {
+        return distinct;
+    }
+
+    /**
+     * Trailing function-call modifiers kept verbatim, e.g. {@code AS INT64} for CAST or
+     * {@code IGNORE NULLS} for aggregates.
+     */
+    public String getModifier() {
+        return modifier;
+    }
+
+    public boolean hasCaseOperand() {
+        return caseOperand;
+    }
+
+    public boolean hasElse() {
+        return caseElse;
+    }
+
+    /**
+     * Renders a canonical SQL form: upper-case keywords and function names, single spaces.
+     * Two expressions that differ only in whitespace, comments or keyword case render identically.
+     */
+    public String toSql() {
+        StringBuilder builder = new StringBuilder();
+        render(builder);
+        return builder.toString();
+    }
+
+    void render(StringBuilder out) {
+        switch (kind) {
+            case COLUMN:
+            case LITERAL:
+            case PARAMETER:
+                out.append(name);
+                break;
+            case STAR:
+                if (!path.isEmpty()) {
+                    out.append(String.join(".", path)).append('.');
+                }
+                out.append('*');
+                break;
+            case FUNCTION:
+                renderFunction(out);
+                break;
+            case BINARY:
+                children.get(0).render(out);
+                if ("[]".equals(name)) {
+                    out.append('[');
+                    children.get(1).render(out);
+                    out.append(']');
+                } else {
+                    out.append(' ').append(name).append(' ');
+                    children.get(1).render(out);
+                }
+                break;
+            case UNARY:
+                out.append(name);
+                if (Character.isLetter(name.charAt(0))) {
+                    out.append(' ');
+                }
+                children.get(0).render(out);
+                break;
+            case BETWEEN:
+                children.get(0).render(out);
+                out.append(' ').append(name).append(' ');
+                children.get(1).render(out);
+                out.append(" AND ");
+                children.get(2).render(out);
+                break;
+            case IS:
+                children.get(0).render(out);
+                out.append(" IS ").append(name);
+                break;
+            case LIST:
+                out.append('(');
+                renderList(out, children);
+                out.append(')');
+                break;
+            case ARRAY:
+                out.append('[');
+                renderList(out, children);
+                out.append(']');
+                break;
+            case SUBQUERY:
+                out.append('(');
+                subquery.render(out);
+                out.append(')');
+                break;
+            case CASE:
+                renderCase(out);
+                break;
+            default:
+                throw new IllegalStateException("Unknown expression kind " + kind);
+        }
+    }
+
+    private void renderFunction(StringBuilder out) {
+        out.append(name).append('(');
+        if (distinct) {
+            out.append("DISTINCT ");
+        }
+        if ("EXTRACT".equals(name) && children.size() == 2) {
+            children.get(0).render(out);
+            out.append(" FROM ");
+            children.get(1).render(out);
+        } else {
+            renderList(out, children);
+        }
+        if (modifier != null && !modifier.isEmpty()) {
+            out.append(' ').append(modifier);
+        }
+        out.append(')');
+        if (window != null) {
+            out.append(" OVER ");
+            window.render(out);
+        }
+    }
+
+    private void renderCase(StringBuilder out) {
+        out.append("CASE");
+        int index = 0;
+        if (caseOperand) {
+            out.append(' ');
+            children.get(index++).render(out);
+        }
+        int whenEnd = caseElse ? children.size() - 1 : children.size();
+        while (index + 1 < whenEnd) {
+            out.append(" WHEN ");
+            children.get(index++).render(out);
+            out.append(" THEN ");
+            children.get(index++).render(out);
+        }
+        if (caseElse) {
+            out.append(" ELSE ");
+            children.get(children.size() - 1).render(out);
+        }
+        out.append(" END");
+    }
+
+    static void renderList(StringBuilder out, List<SqlExpression> expressions) {
+        for (int i = 0; i < expressions.size(); i++) {
+            if (i > 0) {
+                out.append(", ");
+            }
+            expressions.get(i).render(out);
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        return other instanceof SqlExpression expression && toSql().equals(expression.toSql());
+    }
+
+    @Override
+    public int hashCode() {
+        return toSql().hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return toSql();
+    }
+}
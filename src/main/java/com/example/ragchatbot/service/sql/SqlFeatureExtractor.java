@@ -0,0 +1,204 @@
+package com.example.ragchatbot.service.sql;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Collects {@link SqlFeatures} from a parsed statement in a single walk over the AST.
+ * Query blocks are visited outermost first, then derived tables and set-operation branches,
+ * then CTE bodies, so the outermost GROUP BY / LIMIT wins when several blocks have one.
+ */
+public final class SqlFeatureExtractor {
+
+    private static final Set<String> AGGREGATE_FUNCTIONS = Set.of(
+            "SUM", "AVG", "COUNT", "COUNTIF", "MAX", "MIN", "STDDEV", "STDDEV_POP", "STDDEV_SAMP",
+            "VARIANCE", "VAR_POP", "VAR_SAMP", "ARRAY_AGG", "STRING_AGG", "ANY_VALUE",
+            "APPROX_COUNT_DISTINCT", "APPROX_QUANTILES", "APPROX_TOP_COUNT", "APPROX_TOP_SUM",
+            "LOGICAL_AND", "LOGICAL_OR", "BIT_AND", "BIT_OR", "BIT_XOR", "CORR", "COVAR_POP", "COVAR_SAMP");
+
+    private static final String[] TEMPORAL_TERMS = {
+            "date", "time", "year", "season", "month", "day", "week",
+            "scheduled_date", "game_date", "timestamp", "datetime"
+    };
+
+    private boolean aggregation;
+    private boolean windowFunction;
+    private SelectQuery groupingQuery;
+    private SelectQuery limitQuery;
+    private final Set<String> cteNames = new HashSet<>();
+    private final Set<String> tables = new LinkedHashSet<>();
+    private final Set<String> columns = new LinkedHashSet<>();
+
+    private SqlFeatureExtractor() {
+    }
+
+    /**
+     * Extracts features from a parsed statement.
+     */
+    public static SqlFeatures extract(SqlStatement statement) {
+        SqlFeatureExtractor extractor = new SqlFeatureExtractor();
+        extractor.visitQuery(statement.getQuery());
+        return extractor.toFeatures(statement.getQuery());
+    }
+
+    private SqlFeatures toFeatures(SelectQuery root) {
+        List<String> groupByColumns = new ArrayList<>();
+        boolean temporal = false;
+        if (groupingQuery != null) {
+            for (SqlExpression key : groupingQuery.getGroupBy()) {
+                SelectItem item = groupingQuery.resolveOrdinal(key);
+                SqlExpression resolved = item != null ? item.getExpression() : key;
+                String name = groupKeyName(groupingQuery, key, item);
+                groupByColumns.add(name);
+                temporal |= isTemporal(name) || isTemporal(resolved.toSql());
+            }
+        }
+
+        SelectQuery limited = root.hasLimit() ? root : limitQuery;
+        Long limitValue = limited != null ? limited.getLimit() : null;
+        return new SqlFeatures(aggregation, windowFunction, groupByColumns, temporal,
+                limited != null, limitValue, tables, columns, groupingQuery);
+    }
+
+    private static String groupKeyName(SelectQuery query, SqlExpression key, SelectItem ordinalItem) {
+        if (ordinalItem != null) {
+            String outputName = ordinalItem.getOutputName();
+            return outputName != null ? outputName : ordinalItem.getExpression().toSql();
+        }
+        if (key.getKind() == SqlExpression.Kind.COLUMN) {
+            return key.getColumnName();
+        }
+        for (SelectItem item : query.getSelectItems()) {
+            if (item.getAlias() != null && item.getExpression().equals(key)) {
+                return item.getAlias();
+            }
+        }
+        return key.toSql();
+    }
+
+    /**
+     * Whether a column name or expression looks like a date, time or season.
+     */
+    public static boolean isTemporal(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (String term : TEMPORAL_TERMS) {
+            if (lower.contains(term)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void visitQuery(SelectQuery query) {
+        for (CommonTableExpression cte : query.getWithClauses()) {
+            cteNames.add(cte.getName().toLowerCase(Locale.ROOT));
+        }
+        visitBlock(query);
+        for (SelectQuery.SetOperation operation : query.getSetOperations()) {
+            visitQuery(operation.getQuery());
+        }
+        for (OrderItem item : query.getOrderBy()) {
+            visitKey(query, item.getExpression());
+        }
+        for (CommonTableExpression cte : query.getWithClauses()) {
+            visitQuery(cte.getQuery());
+        }
+    }
+
+    private void visitBlock(SelectQuery block) {
+        if (groupingQuery == null && !block.getGroupBy().isEmpty()) {
+            groupingQuery = block;
+        }
+        if (limitQuery == null && block.hasLimit()) {
+            limitQuery = block;
+        }
+        for (SelectItem item : block.getSelectItems()) {
+            visitExpression(item.getExpression());
+        }
+        for (TableReference reference : block.getFrom()) {
+            visitTable(reference);
+        }
+        visitExpression(block.getWhere());
+        for (SqlExpression key : block.getGroupBy()) {
+            visitKey(block, key);
+        }
+        visitExpression(block.getHaving());
+        visitExpression(block.getQualify());
+    }
+
+    private void visitTable(TableReference reference) {
+        switch (reference.getKind()) {
+            case TABLE:
+                String path = reference.getTablePath();
+                if (path.indexOf('.') >= 0 || !cteNames.contains(path.toLowerCase(Locale.ROOT))) {
+                    tables.add(path);
+                }
+                break;
+            case SUBQUERY:
+                visitQuery(reference.getSubquery());
+                break;
+            case UNNEST:
+                visitExpression(reference.getUnnestExpression());
+                break;
+            default:
+                break;
+        }
+        visitExpression(reference.getJoinCondition());
+        columns.addAll(reference.getUsingColumns());
+    }
+
+    /**
+     * Visits a GROUP BY / ORDER BY key, skipping bare references to select-list aliases
+     * (they name output columns, not source columns).
+     */
+    private void visitKey(SelectQuery block, SqlExpression key) {
+        if (key.getKind() == SqlExpression.Kind.COLUMN && key.getPath().size() == 1) {
+            SelectItem item = block.findSelectItem(key.getColumnName());
+            if (item != null && item.getAlias() != null
+                    && item.getExpression().getKind() != SqlExpression.Kind.COLUMN) {
+                return;
+            }
+        }
+        visitExpression(key);
+    }
+
+    private void visitExpression(SqlExpression expression) {
+        if (expression == null) {
+            return;
+        }
+        switch (expression.getKind()) {
+            case COLUMN:
+                columns.add(expression.getColumnName());
+                return;
+            case SUBQUERY:
+                visitQuery(expression.getSubquery());
+                return;
+            case FUNCTION:
+                if (expression.isWindowFunction()) {
+                    windowFunction = true;
+                    visitWindow(expression.getWindow());
+                } else if (AGGREGATE_FUNCTIONS.contains(expression.getName())) {
+                    aggregation = true;
+                }
+                break;
+            default:
+                break;
+        }
+        for (SqlExpression child : expression.getChildren()) {
+            visitExpression(child);
+        }
+    }
+
+    private void visitWindow(WindowSpecification window) {
+        for (SqlExpression partition : window.getPartitionBy()) {
+            visitExpression(partition);
+        }
+        for (OrderItem item : window.getOrderBy()) {
+            visitExpression(item.getExpression());
+        }
+    }
+}
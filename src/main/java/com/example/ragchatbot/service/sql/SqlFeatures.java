@@ -0,0 +1,92 @@
+package com.example.ragchatbot.service.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Visualization-relevant facts extracted from a parsed statement by {@link SqlFeatureExtractor}.
+ */
+public final class SqlFeatures {
+    private final boolean aggregation;
+    private final boolean windowFunction;
+    private final List<String> groupByColumns;
+    private final boolean temporalGrouping;
+    private final boolean limit;
+    private final Long limitValue;
+    private final Set<String> referencedTables;
+    private final Set<String> referencedColumns;
+    private final SelectQuery groupingQuery;
+
+    SqlFeatures(boolean aggregation, boolean windowFunction, List<String> groupByColumns,
+                boolean temporalGrouping, boolean limit, Long limitValue,
+                Set<String> referencedTables, Set<String> referencedColumns, SelectQuery groupingQuery) {
+        this.aggregation = aggregation;
+        this.windowFunction = windowFunction;
+        this.groupByColumns = Collections.unmodifiableList(new ArrayList<>(groupByColumns));
+        this.temporalGrouping = temporalGrouping;
+        this.limit = limit;
+        this.limitValue = limitValue;
+        this.referencedTables = Collections.unmodifiableSet(new LinkedHashSet<>(referencedTables));
+        this.referencedColumns = Collections.unmodifiableSet(new LinkedHashSet<>(referencedColumns));
+        this.groupingQuery = groupingQuery;
+    }
+
+    /**
+     * True when any non-windowed aggregate function (SUM, AVG, COUNT, ...) appears in the statement.
+     */
+    public boolean hasAggregation() {
+        return aggregation;
+    }
+
+    public boolean hasWindowFunction() {
+        return windowFunction;
+    }
+
+    /**
+     * Output names of the GROUP BY keys of the grouping block, with ordinals resolved to
+     * their select items and table qualifiers removed.
+     */
+    public List<String> getGroupByColumns() {
+        return groupByColumns;
+    }
+
+    public boolean hasTemporalGrouping() {
+        return temporalGrouping;
+    }
+
+    public boolean hasLimit() {
+        return limit;
+    }
+
+    /**
+     * Numeric LIMIT of the outermost query (or of the first limited block), or null.
+     */
+    public Long getLimitValue() {
+        return limitValue;
+    }
+
+    /**
+     * Physical tables read by the statement, excluding CTE names.
+     */
+    public Set<String> getReferencedTables() {
+        return referencedTables;
+    }
+
+    /**
+     * Source column names referenced anywhere in the statement, excluding select aliases.
+     */
+    public Set<String> getReferencedColumns() {
+        return referencedColumns;
+    }
+
+    /**
+     * Query block whose GROUP BY was used for {@link #getGroupByColumns()}: the outermost block
+     * with a GROUP BY, falling back to derived tables and then CTEs. Null when nothing groups.
+     */
+    public SelectQuery getGroupingQuery() {
+        return groupingQuery;
+    }
+}
@@ -0,0 +1,254 @@
+package com.example.ragchatbot.service.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass tokenizer for BigQuery standard SQL.
+ * Handles quoted/raw/bytes string literals (including triple-quoted forms), backtick
+ * identifiers, query parameters and the three comment styles BigQuery accepts.
+ */
+public final class SqlLexer {
+
+    private final String sql;
+    private final int length;
+    private int pos;
+
+    private SqlLexer(String sql) {
+        this.sql = sql;
+        this.length = sql.length();
+    }
+
+    /**
+     * Tokenizes SQL text. The returned list always ends with an {@link SqlTokenType#EOF} token.
+     *
+     * @param sql SQL text
+     * @return Tokens in source order, comments and whitespace removed
+     */
+    public static List<SqlToken> tokenize(String sql) {
+        return new SqlLexer(sql != null ? sql : "").run();
+    }
+
+    private List<SqlToken> run() {
+        List<SqlToken> tokens = new ArrayList<>(Math.max(16, length / 4));
+        while (true) {
+            skipWhitespaceAndComments();
+            if (pos >= length) {
+                tokens.add(new SqlToken(SqlTokenType.EOF, "", length));
+                return tokens;
+            }
+            tokens.add(nextToken());
+        }
+    }
+
+    private void skipWhitespaceAndComments() {
+        while (pos < length) {
+            char c = sql.charAt(pos);
+            if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (c == '#' || (c == '-' && peek(1) == '-')) {
+                while (pos < length && sql.charAt(pos) != '\n') {
+                    pos++;
+                }
+            } else if (c == '/' && peek(1) == '*') {
+                int end = sql.indexOf("*/", pos + 2);
+                pos = end < 0 ? length : end + 2;
+            } else {
+                return;
+            }
+        }
+    }
+
+    private SqlToken nextToken() {
+        int start = pos;
+        char c = sql.charAt(pos);
+
+        if (c == '\'' || c == '"') {
+            return readString(start, false);
+        }
+        if (isStringPrefix(c)) {
+            int prefixLength = stringPrefixLength();
+            if (prefixLength > 0) {
+                boolean raw = Character.toLowerCase(c) == 'r'
+                        || (prefixLength == 2 && Character.toLowerCase(peek(1)) == 'r');
+                pos += prefixLength;
+                return readString(start, raw);
+            }
+        }
+        if (c == '`') {
+            int end = sql.indexOf('`', pos + 1);
+            if (end < 0) {
+                throw new SqlParseException("Unterminated quoted identifier", start);
+            }
+            pos = end + 1;
+            return new SqlToken(SqlTokenType.QUOTED_IDENTIFIER, sql.substring(start, pos), start);
+        }
+        if (isDigit(c) || (c == '.' && isDigit(peek(1)))) {
+            return readNumber(start);
+        }
+        if (Character.isLetter(c) || c == '_') {
+            pos++;
+            while (pos < length && isIdentifierPart(sql.charAt(pos))) {
+                pos++;
+            }
+            return new SqlToken(SqlTokenType.WORD, sql.substring(start, pos), start);
+        }
+        if (c == '@' || c == '?') {
+            pos++;
+            if (c == '@') {
+                if (peek(0) == '@') {
+                    pos++;
+                }
+                while (pos < length && isIdentifierPart(sql.charAt(pos))) {
+                    pos++;
+                }
+            }
+            return new SqlToken(SqlTokenType.PARAMETER, sql.substring(start, pos), start);
+        }
+
+        pos++;
+        switch (c) {
+            case '(':
+                return new SqlToken(SqlTokenType.LEFT_PAREN, "(", start);
+            case ')':
+                return new SqlToken(SqlTokenType.RIGHT_PAREN, ")", start);
+            case '[':
+                return new SqlToken(SqlTokenType.LEFT_BRACKET, "[", start);
+            case ']':
+                return new SqlToken(SqlTokenType.RIGHT_BRACKET, "]", start);
+            case ',':
+                return new SqlToken(SqlTokenType.COMMA, ",", start);
+            case '.':
+                return new SqlToken(SqlTokenType.DOT, ".", start);
+            case ';':
+                return new SqlToken(SqlTokenType.SEMICOLON, ";", start);
+            default:
+                return readOperator(start, c);
+        }
+    }
+
+    private SqlToken readOperator(int start, char first) {
+        char next = peek(0);
+        String twoChar = null;
+        switch (first) {
+            case '<':
+                if (next == '=' || next == '>' || next == '<') twoChar = "<" + next;
+                break;
+            case '>':
+                if (next == '=' || next == '>') twoChar = ">" + next;
+                break;
+            case '!':
+                if (next == '=') twoChar = "!=";
+                break;
+            case '|':
+                if (next == '|') twoChar = "||";
+                break;
+            case '=':
+                if (next == '>') twoChar = "=>";
+                break;
+            default:
+                break;
+        }
+        if (twoChar != null) {
+            pos++;
+            return new SqlToken(SqlTokenType.OPERATOR, twoChar, start);
+        }
+        if ("+-*/%=<>!~&|^:".indexOf(first) >= 0) {
+            return new SqlToken(SqlTokenType.OPERATOR, String.valueOf(first), start);
+        }
+        throw new SqlParseException("Unexpected character '" + first + "'", start);
+    }
+
+    private SqlToken readString(int start, boolean raw) {
+        char quote = sql.charAt(pos);
+        boolean triple = peek(1) == quote && peek(2) == quote;
+        pos += triple ? 3 : 1;
+        while (pos < length) {
+            char c = sql.charAt(pos);
+            if (c == '\\' && !raw) {
+                pos += 2;
+                continue;
+            }
+            if (c == quote) {
+                if (!triple) {
+                    pos++;
+                    return new SqlToken(SqlTokenType.STRING, sql.substring(start, pos), start);
+                }
+                if (peek(1) == quote && peek(2) == quote) {
+                    pos += 3;
+                    return new SqlToken(SqlTokenType.STRING, sql.substring(start, pos), start);
+                }
+            }
+            pos++;
+        }
+        throw new SqlParseException("Unterminated string literal", start);
+    }
+
+    private SqlToken readNumber(int start) {
+        if (sql.charAt(pos) == '0' && (peek(1) == 'x' || peek(1) == 'X')) {
+            pos += 2;
+            while (pos < length && Character.digit(sql.charAt(pos), 16) >= 0) {
+                pos++;
+            }
+            return new SqlToken(SqlTokenType.NUMBER, sql.substring(start, pos), start);
+        }
+        while (pos < length && isDigit(sql.charAt(pos))) {
+            pos++;
+        }
+        if (peek(0) == '.' && isDigit(peek(1))) {
+            pos++;
+            while (pos < length && isDigit(sql.charAt(pos))) {
+                pos++;
+            }
+        }
+        if (peek(0) == 'e' || peek(0) == 'E') {
+            int exponentStart = pos;
+            pos++;
+            if (peek(0) == '+' || peek(0) == '-') {
+                pos++;
+            }
+            if (isDigit(peek(0))) {
+                while (pos < length && isDigit(sql.charAt(pos))) {
+                    pos++;
+                }
+            } else {
+                pos = exponentStart;
+            }
+        }
+        return new SqlToken(SqlTokenType.NUMBER, sql.substring(start, pos), start);
+    }
+
+    private boolean isStringPrefix(char c) {
+        return c == 'r' || c == 'R' || c == 'b' || c == 'B';
+    }
+
+    /**
+     * Returns the length of an r/b/rb/br prefix immediately followed by a quote, or 0.
+     */
+    private int stringPrefixLength() {
+        char second = peek(1);
+        if (second == '\'' || second == '"') {
+            return 1;
+        }
+        char first = Character.toLowerCase(sql.charAt(pos));
+        char secondLower = Character.toLowerCase(second);
+        boolean pair = (first == 'r' && secondLower == 'b') || (first == 'b' && secondLower == 'r');
+        if (pair && (peek(2) == '\'' || peek(2) == '"')) {
+            return 2;
+        }
+        return 0;
+    }
+
+    private char peek(int offset) {
+        int index = pos + offset;
+        return index < length ? sql.charAt(index) : '\0';
+    }
+
+    private static boolean isDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean isIdentifierPart(char c) {
+        return Character.isLetterOrDigit(c) || c == '_';
+    }
+}
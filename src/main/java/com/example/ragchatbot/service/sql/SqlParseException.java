@@ -0,0 +1,17 @@
+package com.example.ragchatbot.service.sql;
+
+/**
+ * Raised when SQL text cannot be tokenized or parsed.
+ */
+public class SqlParseException extends RuntimeException {
+    private final int offset;
+
+    public SqlParseException(String message, int offset) {
+        super(message + " at offset " + offset);
+        this.offset = offset;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+}
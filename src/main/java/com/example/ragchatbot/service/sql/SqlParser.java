@@ -0,0 +1,874 @@
+package com.example.ragchatbot.service.sql;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Recursive-descent parser for the SELECT subset of BigQuery standard SQL.
+ * Covers WITH clauses, set operations, joins, UNNEST, subqueries at any depth, window functions,
+ * CASE/CAST/EXTRACT and GROUP BY ordinals. Constructs the parser does not model (function-call
+ * modifiers such as {@code IGNORE NULLS}, window frames) are kept verbatim rather than rejected.
+ */
+public final class SqlParser {
+
+    /**
+     * Words that end an expression or cannot be used as an implicit alias.
+     */
+    private static final Set<String> RESERVED = Set.of(
+            "ALL", "AND", "AS", "ASC", "BETWEEN", "BY", "CASE", "CROSS", "DESC", "DISTINCT", "ELSE", "END",
+            "EXCEPT", "FETCH", "FOR", "FROM", "FULL", "GROUP", "HAVING", "IN", "INNER", "INTERSECT", "IS",
+            "JOIN", "LEFT", "LIKE", "LIMIT", "NOT", "NULLS", "OFFSET", "ON", "OR", "ORDER", "OUTER", "OVER",
+            "QUALIFY", "RIGHT", "SELECT", "THEN", "UNION", "USING", "WHEN", "WHERE", "WINDOW", "WITH", "TABLESAMPLE");
+
+    private static final Set<String> TYPED_LITERAL_PREFIXES = Set.of(
+            "DATE", "TIME", "DATETIME", "TIMESTAMP", "NUMERIC", "BIGNUMERIC", "JSON", "RANGE");
+
+    private static final Set<String> COMPARISON_OPERATORS = Set.of("=", "!=", "<>", "<", ">", "<=", ">=");
+
+    private final List<SqlToken> tokens;
+    private int index;
+
+    private SqlParser(List<SqlToken> tokens) {
+        this.tokens = tokens;
+    }
+
+    /**
+     * Parses a single SELECT statement (optionally terminated by a semicolon).
+     *
+     * @param sql SQL text
+     * @return Parsed statement
+     * @throws SqlParseException if the text is not a supported query
+     */
+    public static SqlStatement parse(String sql) {
+        if (sql == null || sql.trim().isEmpty()) {
+            throw new SqlParseException("Empty SQL", 0);
+        }
+        SqlParser parser = new SqlParser(SqlLexer.tokenize(sql));
+        SelectQuery query = parser.parseQueryExpression();
+        while (parser.peek().is(SqlTokenType.SEMICOLON)) {
+            parser.advance();
+        }
+        if (!parser.peek().is(SqlTokenType.EOF)) {
+            throw parser.error("Unexpected trailing input '" + parser.peek().getText() + "'");
+        }
+        return new SqlStatement(sql, query);
+    }
+
+    // ---------------------------------------------------------------- queries
+
+    private SelectQuery parseQueryExpression() {
+        List<CommonTableExpression> ctes = new ArrayList<>();
+        if (acceptWord("WITH")) {
+            acceptWord("RECURSIVE");
+            do {
+                String name = expectIdentifier();
+                expectWord("AS");
+                expect(SqlTokenType.LEFT_PAREN);
+                SelectQuery cteQuery = parseQueryExpression();
+                expect(SqlTokenType.RIGHT_PAREN);
+                ctes.add(new CommonTableExpression(name, cteQuery));
+            } while (accept(SqlTokenType.COMMA));
+        }
+
+        SelectQuery head = parseQueryTerm();
+        while (peekWord("UNION") || peekWord("INTERSECT") || peekWord("EXCEPT")) {
+            String operator = advance().getUpper();
+            if (peekWord("ALL") || peekWord("DISTINCT")) {
+                operator = operator + " " + advance().getUpper();
+            }
+            head.addSetOperation(new SelectQuery.SetOperation(operator, parseQueryTerm()));
+        }
+
+        if (peekWord("ORDER")) {
+            advance();
+            expectWord("BY");
+            head.setOrderBy(parseOrderItems());
+        }
+        if (acceptWord("LIMIT")) {
+            head.setLimit(parsePrimary());
+            if (acceptWord("OFFSET")) {
+                head.setOffset(parsePrimary());
+            }
+        }
+        if (!ctes.isEmpty()) {
+            head.addWithClauses(0, ctes);
+        }
+        return head;
+    }
+
+    private SelectQuery parseQueryTerm() {
+        if (peek().is(SqlTokenType.LEFT_PAREN)) {
+            advance();
+            SelectQuery inner = parseQueryExpression();
+            expect(SqlTokenType.RIGHT_PAREN);
+            return inner;
+        }
+        expectWord("SELECT");
+        return parseSelectBody();
+    }
+
+    private SelectQuery parseSelectBody() {
+        SelectQuery query = new SelectQuery();
+        if (peekWord("AS") && (peekWord(1, "STRUCT") || peekWord(1, "VALUE"))) {
+            index += 2;
+        }
+        if (acceptWord("DISTINCT")) {
+            query.setDistinct(true);
+        } else {
+            acceptWord("ALL");
+        }
+
+        do {
+            query.addSelectItem(parseSelectItem());
+        } while (accept(SqlTokenType.COMMA) && !startsClause());
+
+        if (acceptWord("FROM")) {
+            parseFromClause(query);
+        }
+        if (acceptWord("WHERE")) {
+            query.setWhere(parseExpression());
+        }
+        if (peekWord("GROUP")) {
+            advance();
+            expectWord("BY");
+            do {
+                query.addGroupBy(parseExpression());
+            } while (accept(SqlTokenType.COMMA));
+        }
+        if (acceptWord("HAVING")) {
+            query.setHaving(parseExpression());
+        }
+        if (acceptWord("QUALIFY")) {
+            query.setQualify(parseExpression());
+        }
+        if (acceptWord("WINDOW")) {
+            do {
+                expectIdentifier();
+                expectWord("AS");
+                skipBalanced();
+            } while (accept(SqlTokenType.COMMA));
+        }
+        return query;
+    }
+
+    private SelectItem parseSelectItem() {
+        SqlExpression expression;
+        if (peek().isOperator("*")) {
+            advance();
+            expression = SqlExpression.star(List.of());
+        } else {
+            expression = parseExpression();
+        }
+        if (expression.getKind() == SqlExpression.Kind.STAR) {
+            // SELECT * EXCEPT (a, b) / REPLACE (x AS y)
+            while ((peekWord("EXCEPT") || peekWord("REPLACE")) && peek(1).is(SqlTokenType.LEFT_PAREN)) {
+                advance();
+                skipBalanced();
+            }
+            return new SelectItem(expression, null);
+        }
+        return new SelectItem(expression, parseAlias());
+    }
+
+    private String parseAlias() {
+        if (acceptWord("AS")) {
+            return expectIdentifier();
+        }
+        SqlToken token = peek();
+        if (token.is(SqlTokenType.QUOTED_IDENTIFIER) || (token.is(SqlTokenType.WORD) && !RESERVED.contains(token.getUpper()))) {
+            advance();
+            return token.identifierText();
+        }
+        return null;
+    }
+
+    private void parseFromClause(SelectQuery query) {
+        parseFromItems(query, null);
+        while (true) {
+            if (accept(SqlTokenType.COMMA)) {
+                parseFromItems(query, ",");
+                continue;
+            }
+            String joinType = parseJoinType();
+            if (joinType == null) {
+                return;
+            }
+            parseFromItems(query, joinType);
+        }
+    }
+
+    /**
+     * Parses one FROM item and appends it (or, for a parenthesized join group, all of its items).
+     */
+    private void parseFromItems(SelectQuery query, String joinType) {
+        int firstIndex = query.getFrom().size();
+        if (peek().is(SqlTokenType.LEFT_PAREN) && !startsQuery(index + 1)) {
+            advance();
+            parseFromClause(query);
+            expect(SqlTokenType.RIGHT_PAREN);
+        } else {
+            query.addFrom(parseFromItem());
+        }
+
+        SqlExpression condition = null;
+        List<String> usingColumns = null;
+        if (joinType != null && !",".equals(joinType)) {
+            if (acceptWord("ON")) {
+                condition = parseExpression();
+            } else if (acceptWord("USING")) {
+                expect(SqlTokenType.LEFT_PAREN);
+                usingColumns = new ArrayList<>();
+                do {
+                    usingColumns.add(expectIdentifier());
+                } while (accept(SqlTokenType.COMMA));
+                expect(SqlTokenType.RIGHT_PAREN);
+            }
+        }
+        if (joinType != null && firstIndex < query.getFrom().size()) {
+            TableReference first = query.getFrom().get(firstIndex);
+            query.replaceFrom(firstIndex, first.withJoin(joinType, condition, usingColumns));
+        }
+    }
+
+    private TableReference parseFromItem() {
+        if (peek().is(SqlTokenType.LEFT_PAREN)) {
+            advance();
+            SelectQuery subquery = parseQueryExpression();
+            expect(SqlTokenType.RIGHT_PAREN);
+            return TableReference.subquery(subquery, parseAlias());
+        }
+        if (peekWord("UNNEST") && peek(1).is(SqlTokenType.LEFT_PAREN)) {
+            advance();
+            advance();
+            SqlExpression expression = parseExpression();
+            expect(SqlTokenType.RIGHT_PAREN);
+            String alias = parseAlias();
+            if (peekWord("WITH") && peekWord(1, "OFFSET")) {
+                index += 2;
+                parseAlias();
+            }
+            return TableReference.unnest(expression, alias);
+        }
+
+        StringBuilder path = new StringBuilder(expectIdentifier());
+        while (peek().is(SqlTokenType.DOT) || (peek().isOperator("-") && adjacent())) {
+            path.append(advance().getText());
+            path.append(expectIdentifier());
+        }
+        if (peek().is(SqlTokenType.LEFT_PAREN)) {
+            // Table-valued function: arguments are not modelled.
+            skipBalanced();
+        }
+        if (peekWord("FOR") && peekWord(1, "SYSTEM_TIME")) {
+            index += 2;
+            expectWord("AS");
+            expectWord("OF");
+            parseExpression();
+        }
+        String alias = parseAlias();
+        if (acceptWord("TABLESAMPLE")) {
+            acceptWord("SYSTEM");
+            skipBalanced();
+        }
+        return TableReference.table(path.toString(), alias);
+    }
+
+    private String parseJoinType() {
+        int start = index;
+        StringBuilder joinType = new StringBuilder();
+        if (peekWord("INNER") || peekWord("CROSS")) {
+            joinType.append(advance().getUpper()).append(' ');
+        } else if (peekWord("LEFT") || peekWord("RIGHT") || peekWord("FULL")) {
+            joinType.append(advance().getUpper()).append(' ');
+            if (acceptWord("OUTER")) {
+                joinType.append("OUTER ");
+            }
+        }
+        if (acceptWord("JOIN")) {
+            return joinType.append("JOIN").toString();
+        }
+        index = start;
+        return null;
+    }
+
+    private List<OrderItem> parseOrderItems() {
+        List<OrderItem> items = new ArrayList<>();
+        do {
+            SqlExpression expression = parseExpression();
+            boolean descending = false;
+            if (acceptWord("DESC")) {
+                descending = true;
+            } else {
+                acceptWord("ASC");
+            }
+            String nulls = null;
+            if (acceptWord("NULLS")) {
+                nulls = advance().getUpper();
+            }
+            items.add(new OrderItem(expression, descending, nulls));
+        } while (accept(SqlTokenType.COMMA));
+        return items;
+    }
+
+    // ---------------------------------------------------------------- expressions
+
+    private SqlExpression parseExpression() {
+        return parseOr();
+    }
+
+    private SqlExpression parseOr() {
+        SqlExpression left = parseAnd();
+        while (acceptWord("OR")) {
+            left = SqlExpression.binary("OR", left, parseAnd());
+        }
+        return left;
+    }
+
+    private SqlExpression parseAnd() {
+        SqlExpression left = parseNot();
+        while (acceptWord("AND")) {
+            left = SqlExpression.binary("AND", left, parseNot());
+        }
+        return left;
+    }
+
+    private SqlExpression parseNot() {
+        if (acceptWord("NOT")) {
+            return SqlExpression.unary("NOT", parseNot());
+        }
+        return parseComparison();
+    }
+
+    private SqlExpression parseComparison() {
+        SqlExpression left = parseBitwiseOr();
+        while (true) {
+            SqlToken token = peek();
+            if (token.is(SqlTokenType.OPERATOR) && COMPARISON_OPERATORS.contains(token.getText())) {
+                advance();
+                left = SqlExpression.binary(token.getText(), left, parseBitwiseOr());
+                continue;
+            }
+            boolean negated = false;
+            int start = index;
+            if (peekWord("NOT") && (peekWord(1, "LIKE") || peekWord(1, "IN") || peekWord(1, "BETWEEN"))) {
+                advance();
+                negated = true;
+            }
+            if (acceptWord("LIKE")) {
+                left = SqlExpression.binary(negated ? "NOT LIKE" : "LIKE", left, parseBitwiseOr());
+            } else if (acceptWord("IN")) {
+                left = SqlExpression.binary(negated ? "NOT IN" : "IN", left, parseInOperand());
+            } else if (acceptWord("BETWEEN")) {
+                SqlExpression low = parseBitwiseOr();
+                expectWord("AND");
+                SqlExpression high = parseBitwiseOr();
+                left = SqlExpression.between(negated, left, low, high);
+            } else if (acceptWord("IS")) {
+                StringBuilder test = new StringBuilder();
+                if (acceptWord("NOT")) {
+                    test.append("NOT ");
+                }
+                if (acceptWord("DISTINCT")) {
+                    expectWord("FROM");
+                    left = SqlExpression.binary("IS " + test + "DISTINCT FROM", left, parseBitwiseOr());
+                } else {
+                    test.append(advance().getUpper());
+                    left = SqlExpression.is(test.toString(), left);
+                }
+            } else {
+                index = start;
+                return left;
+            }
+        }
+    }
+
+    private SqlExpression parseInOperand() {
+        if (peekWord("UNNEST") && peek(1).is(SqlTokenType.LEFT_PAREN)) {
+            return parsePrimary();
+        }
+        expect(SqlTokenType.LEFT_PAREN);
+        if (startsQuery(index)) {
+            SelectQuery subquery = parseQueryExpression();
+            expect(SqlTokenType.RIGHT_PAREN);
+            return SqlExpression.subquery(subquery);
+        }
+        List<SqlExpression> items = new ArrayList<>();
+        if (!peek().is(SqlTokenType.RIGHT_PAREN)) {
+            do {
+                items.add(parseExpression());
+            } while (accept(SqlTokenType.COMMA));
+        }
+        expect(SqlTokenType.RIGHT_PAREN);
+        return SqlExpression.list(items);
+    }
+
+    private SqlExpression parseBitwiseOr() {
+        SqlExpression left = parseBitwiseXor();
+        while (peek().isOperator("|")) {
+            advance();
+            left = SqlExpression.binary("|", left, parseBitwiseXor());
+        }
+        return left;
+    }
+
+    private SqlExpression parseBitwiseXor() {
+        SqlExpression left = parseBitwiseAnd();
+        while (peek().isOperator("^")) {
+            advance();
+            left = SqlExpression.binary("^", left, parseBitwiseAnd());
+        }
+        return left;
+    }
+
+    private SqlExpression parseBitwiseAnd() {
+        SqlExpression left = parseShift();
+        while (peek().isOperator("&")) {
+            advance();
+            left = SqlExpression.binary("&", left, parseShift());
+        }
+        return left;
+    }
+
+    private SqlExpression parseShift() {
+        SqlExpression left = parseAdditive();
+        while (peek().isOperator("<<") || peek().isOperator(">>")) {
+            String operator = advance().getText();
+            left = SqlExpression.binary(operator, left, parseAdditive());
+        }
+        return left;
+    }
+
+    private SqlExpression parseAdditive() {
+        SqlExpression left = parseMultiplicative();
+        while (peek().isOperator("+") || peek().isOperator("-") || peek().isOperator("||")) {
+            String operator = advance().getText();
+            left = SqlExpression.binary(operator, left, parseMultiplicative());
+        }
+        return left;
+    }
+
+    private SqlExpression parseMultiplicative() {
+        SqlExpression left = parseUnary();
+        while (peek().isOperator("*") || peek().isOperator("/") || peek().isOperator("%")) {
+            String operator = advance().getText();
+            left = SqlExpression.binary(operator, left, parseUnary());
+        }
+        return left;
+    }
+
+    private SqlExpression parseUnary() {
+        if (peek().isOperator("-") || peek().isOperator("+") || peek().isOperator("~")) {
+            String operator = advance().getText();
+            SqlExpression operand = parseUnary();
+            if (operand.getKind() == SqlExpression.Kind.LITERAL && "-".equals(operator)
+                    && Character.isDigit(operand.getName().charAt(0))) {
+                return SqlExpression.literal("-" + operand.getName());
+            }
+            return SqlExpression.unary(operator, operand);
+        }
+        return parsePostfix();
+    }
+
+    private SqlExpression parsePostfix() {
+        SqlExpression expression = parsePrimary();
+        while (true) {
+            if (accept(SqlTokenType.LEFT_BRACKET)) {
+                SqlExpression subscript = parseExpression();
+                expect(SqlTokenType.RIGHT_BRACKET);
+                expression = SqlExpression.binary("[]", expression, subscript);
+            } else if (peek().is(SqlTokenType.DOT)) {
+                advance();
+                String field = expectIdentifier();
+                expression = SqlExpression.binary(".", expression, SqlExpression.column(List.of(field)));
+            } else {
+                return expression;
+            }
+        }
+    }
+
+    private SqlExpression parsePrimary() {
+        SqlToken token = peek();
+        switch (token.getType()) {
+            case NUMBER:
+            case STRING:
+                advance();
+                return SqlExpression.literal(token.getText());
+            case PARAMETER:
+                advance();
+                return SqlExpression.parameter(token.getText());
+            case LEFT_PAREN:
+                return parseParenthesized();
+            case LEFT_BRACKET:
+                advance();
+                return SqlExpression.array(parseExpressionListUntil(SqlTokenType.RIGHT_BRACKET));
+            case QUOTED_IDENTIFIER:
+                return parseIdentifierExpression();
+            case OPERATOR:
+                if (token.isOperator("*")) {
+                    advance();
+                    return SqlExpression.star(List.of());
+                }
+                throw error("Unexpected operator '" + token.getText() + "'");
+            case WORD:
+                return parseWordExpression(token);
+            default:
+                throw error("Unexpected token '" + token.getText() + "'");
+        }
+    }
+
+    private SqlExpression parseParenthesized() {
+        if (startsQuery(index + 1)) {
+            int start = index;
+            try {
+                advance();
+                SelectQuery subquery = parseQueryExpression();
+                expect(SqlTokenType.RIGHT_PAREN);
+                return SqlExpression.subquery(subquery);
+            } catch (SqlParseException e) {
+                // ((SELECT ...) + 1): the query was only the first operand of an expression.
+                index = start;
+            }
+        }
+        advance();
+        return SqlExpression.list(parseExpressionListUntil(SqlTokenType.RIGHT_PAREN));
+    }
+
+    private SqlExpression parseWordExpression(SqlToken token) {
+        String upper = token.getUpper();
+        if (upper.equals("CASE")) {
+            advance();
+            return parseCase();
+        }
+        if (upper.equals("NULL") || upper.equals("TRUE") || upper.equals("FALSE")) {
+            advance();
+            return SqlExpression.literal(upper);
+        }
+        if (TYPED_LITERAL_PREFIXES.contains(upper) && peek(1).is(SqlTokenType.STRING)) {
+            advance();
+            return SqlExpression.literal(upper + " " + advance().getText());
+        }
+        if (upper.equals("INTERVAL")) {
+            advance();
+            SqlExpression amount = parseAdditive();
+            StringBuilder unit = new StringBuilder(advance().getUpper());
+            if (acceptWord("TO")) {
+                unit.append(" TO ").append(advance().getUpper());
+            }
+            return SqlExpression.function("INTERVAL", List.of(amount), false, unit.toString(), null);
+        }
+        if (upper.equals("EXISTS") && peek(1).is(SqlTokenType.LEFT_PAREN)) {
+            advance();
+            advance();
+            SelectQuery subquery = parseQueryExpression();
+            expect(SqlTokenType.RIGHT_PAREN);
+            return SqlExpression.unary("EXISTS", SqlExpression.subquery(subquery));
+        }
+        if ((upper.equals("ARRAY") || upper.equals("STRUCT")) && (peek(1).isOperator("<") || peek(1).isOperator("<<"))) {
+            advance();
+            skipTypeParameters();
+            if (peek().is(SqlTokenType.LEFT_BRACKET)) {
+                advance();
+                return SqlExpression.array(parseExpressionListUntil(SqlTokenType.RIGHT_BRACKET));
+            }
+            return parseFunctionCall(upper);
+        }
+        if (upper.equals("ARRAY") && peek(1).is(SqlTokenType.LEFT_PAREN) && startsQuery(index + 2)) {
+            advance();
+            advance();
+            SelectQuery subquery = parseQueryExpression();
+            expect(SqlTokenType.RIGHT_PAREN);
+            return SqlExpression.function("ARRAY", List.of(SqlExpression.subquery(subquery)), false, null, null);
+        }
+        if (RESERVED.contains(upper) && !peek(1).is(SqlTokenType.LEFT_PAREN)) {
+            throw error("Unexpected keyword '" + token.getText() + "'");
+        }
+        return parseIdentifierExpression();
+    }
+
+    private SqlExpression parseIdentifierExpression() {
+        List<String> path = new ArrayList<>();
+        path.add(advance().identifierText());
+        while (peek().is(SqlTokenType.DOT)) {
+            if (peek(1).isOperator("*")) {
+                index += 2;
+                return SqlExpression.star(path);
+            }
+            if (!peek(1).is(SqlTokenType.WORD) && !peek(1).is(SqlTokenType.QUOTED_IDENTIFIER)) {
+                break;
+            }
+            advance();
+            path.add(advance().identifierText());
+        }
+        if (peek().is(SqlTokenType.LEFT_PAREN)) {
+            return parseFunctionCall(String.join(".", path).toUpperCase(Locale.ENGLISH));
+        }
+        return SqlExpression.column(path);
+    }
+
+    private SqlExpression parseFunctionCall(String name) {
+        expect(SqlTokenType.LEFT_PAREN);
+        if (name.equals("EXTRACT")) {
+            SqlExpression part = SqlExpression.literal(advance().getUpper());
+            if (accept(SqlTokenType.LEFT_PAREN)) {
+                // EXTRACT(WEEK(MONDAY) FROM ...)
+                part = SqlExpression.literal(part.getName() + "(" + advance().getUpper() + ")");
+                expect(SqlTokenType.RIGHT_PAREN);
+            }
+            expectWord("FROM");
+            SqlExpression source = parseExpression();
+            String modifier = collectModifier();
+            expect(SqlTokenType.RIGHT_PAREN);
+            return SqlExpression.function(name, List.of(part, source), false, modifier, parseWindow());
+        }
+
+        boolean distinct = acceptWord("DISTINCT");
+        List<SqlExpression> arguments = new ArrayList<>();
+        StringBuilder modifiers = new StringBuilder();
+        if (!peek().is(SqlTokenType.RIGHT_PAREN)) {
+            do {
+                SqlExpression argument = parseExpression();
+                if (peek().isOperator("=>")) {
+                    advance();
+                    argument = SqlExpression.binary("=>", argument, parseExpression());
+                }
+                arguments.add(argument);
+                String modifier = collectModifier();
+                if (modifier != null) {
+                    if (modifiers.length() > 0) {
+                        modifiers.append(' ');
+                    }
+                    modifiers.append(modifier);
+                }
+            } while (accept(SqlTokenType.COMMA));
+        }
+        expect(SqlTokenType.RIGHT_PAREN);
+        return SqlExpression.function(name, arguments, distinct,
+                modifiers.length() > 0 ? modifiers.toString() : null, parseWindow());
+    }
+
+    /**
+     * Collects tokens between a function argument and the next top-level comma or closing
+     * parenthesis ({@code AS INT64}, {@code IGNORE NULLS}, {@code ORDER BY x LIMIT 1}).
+     */
+    private String collectModifier() {
+        StringBuilder modifier = new StringBuilder();
+        int depth = 0;
+        while (!peek().is(SqlTokenType.EOF)) {
+            SqlToken token = peek();
+            if (depth == 0 && (token.is(SqlTokenType.COMMA) || token.is(SqlTokenType.RIGHT_PAREN))) {
+                break;
+            }
+            if (token.is(SqlTokenType.LEFT_PAREN) || token.is(SqlTokenType.LEFT_BRACKET)) {
+                depth++;
+            } else if (token.is(SqlTokenType.RIGHT_PAREN) || token.is(SqlTokenType.RIGHT_BRACKET)) {
+                depth--;
+            }
+            appendToken(modifier, advance());
+        }
+        return modifier.length() > 0 ? modifier.toString() : null;
+    }
+
+    private WindowSpecification parseWindow() {
+        if (!acceptWord("OVER")) {
+            return null;
+        }
+        if (!peek().is(SqlTokenType.LEFT_PAREN)) {
+            return new WindowSpecification(expectIdentifier(), null, null, null);
+        }
+        advance();
+        String name = null;
+        if (peek().is(SqlTokenType.WORD) && !RESERVED.contains(peek().getUpper())
+                && !peekWord("PARTITION") && !peekWord("ROWS") && !peekWord("RANGE")) {
+            name = advance().getText();
+        }
+        List<SqlExpression> partitionBy = new ArrayList<>();
+        if (acceptWord("PARTITION")) {
+            expectWord("BY");
+            do {
+                partitionBy.add(parseExpression());
+            } while (accept(SqlTokenType.COMMA));
+        }
+        List<OrderItem> orderBy = new ArrayList<>();
+        if (acceptWord("ORDER")) {
+            expectWord("BY");
+            orderBy = parseOrderItems();
+        }
+        String frame = collectModifier();
+        expect(SqlTokenType.RIGHT_PAREN);
+        return new WindowSpecification(name, partitionBy, orderBy, frame);
+    }
+
+    private SqlExpression parseCase() {
+        List<SqlExpression> parts = new ArrayList<>();
+        boolean hasOperand = false;
+        if (!peekWord("WHEN")) {
+            parts.add(parseExpression());
+            hasOperand = true;
+        }
+        while (acceptWord("WHEN")) {
+            parts.add(parseExpression());
+            expectWord("THEN");
+            parts.add(parseExpression());
+        }
+        boolean hasElse = false;
+        if (acceptWord("ELSE")) {
+            parts.add(parseExpression());
+            hasElse = true;
+        }
+        expectWord("END");
+        return SqlExpression.caseExpression(parts, hasOperand, hasElse);
+    }
+
+    private List<SqlExpression> parseExpressionListUntil(SqlTokenType closing) {
+        List<SqlExpression> items = new ArrayList<>();
+        if (!peek().is(closing)) {
+            do {
+                SqlExpression item = parseExpression();
+                // STRUCT field aliases: (1 AS a, 'x' AS b)
+                if (acceptWord("AS")) {
+                    expectIdentifier();
+                }
+                items.add(item);
+            } while (accept(SqlTokenType.COMMA));
+        }
+        expect(closing);
+        return items;
+    }
+
+    // ---------------------------------------------------------------- token helpers
+
+    private boolean startsQuery(int position) {
+        int i = position;
+        while (i < tokens.size() && tokens.get(i).is(SqlTokenType.LEFT_PAREN)) {
+            i++;
+        }
+        return i < tokens.size() && (tokens.get(i).isWord("SELECT") || tokens.get(i).isWord("WITH"));
+    }
+
+    private boolean startsClause() {
+        SqlToken token = peek();
+        return token.isWord("FROM") || token.is(SqlTokenType.EOF) || token.is(SqlTokenType.RIGHT_PAREN);
+    }
+
+    /**
+     * True when the current token directly abuts the previous one (used for unquoted
+     * {@code my-project.dataset.table} paths).
+     */
+    private boolean adjacent() {
+        SqlToken previous = tokens.get(index - 1);
+        return previous.getOffset() + previous.getText().length() == peek().getOffset();
+    }
+
+    private void skipBalanced() {
+        expect(SqlTokenType.LEFT_PAREN);
+        int depth = 1;
+        while (depth > 0) {
+            SqlToken token = advance();
+            if (token.is(SqlTokenType.EOF)) {
+                throw error("Unbalanced parentheses");
+            }
+            if (token.is(SqlTokenType.LEFT_PAREN)) {
+                depth++;
+            } else if (token.is(SqlTokenType.RIGHT_PAREN)) {
+                depth--;
+            }
+        }
+    }
+
+    private void skipTypeParameters() {
+        int depth = 0;
+        do {
+            SqlToken token = advance();
+            if (token.is(SqlTokenType.EOF)) {
+                throw error("Unterminated type parameters");
+            }
+            if (token.isOperator("<")) {
+                depth++;
+            } else if (token.isOperator("<<")) {
+                depth += 2;
+            } else if (token.isOperator(">")) {
+                depth--;
+            } else if (token.isOperator(">>")) {
+                depth -= 2;
+            }
+        } while (depth > 0);
+    }
+
+    private static void appendToken(StringBuilder out, SqlToken token) {
+        boolean tight = token.is(SqlTokenType.RIGHT_PAREN) || token.is(SqlTokenType.COMMA)
+                || token.is(SqlTokenType.DOT) || token.is(SqlTokenType.RIGHT_BRACKET);
+        boolean afterOpen = out.length() > 0 && (out.charAt(out.length() - 1) == '(' || out.charAt(out.length() - 1) == '.');
+        if (out.length() > 0 && !tight && !afterOpen) {
+            out.append(' ');
+        }
+        out.append(token.is(SqlTokenType.WORD) ? token.getUpper() : token.getText());
+    }
+
+    private SqlToken peek() {
+        return tokens.get(index);
+    }
+
+    private SqlToken peek(int ahead) {
+        int position = Math.min(index + ahead, tokens.size() - 1);
+        return tokens.get(position);
+    }
+
+    private boolean peekWord(String keyword) {
+        return peek().isWord(keyword);
+    }
+
+    private boolean peekWord(int ahead, String keyword) {
+        return peek(ahead).isWord(keyword);
+    }
+
+    private SqlToken advance() {
+        SqlToken token = tokens.get(index);
+        if (!token.is(SqlTokenType.EOF)) {
+            index++;
+        }
+        return token;
+    }
+
+    private boolean accept(SqlTokenType type) {
+        if (peek().is(type)) {
+            advance();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean acceptWord(String keyword) {
+        if (peekWord(keyword)) {
+            advance();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(SqlTokenType type) {
+        if (!accept(type)) {
+            throw error("Expected " + type + " but found '" + peek().getText() + "'");
+        }
+    }
+
+    private void expectWord(String keyword) {
+        if (!acceptWord(keyword)) {
+            throw error("Expected " + keyword + " but found '" + peek().getText() + "'");
+        }
+    }
+
+    private String expectIdentifier() {
+        SqlToken token = peek();
+        if (token.is(SqlTokenType.WORD) || token.is(SqlTokenType.QUOTED_IDENTIFIER)) {
+            advance();
+            return token.identifierText();
+        }
+        throw error("Expected identifier but found '" + token.getText() + "'");
+    }
+
+    private SqlParseException error(String message) {
+        return new SqlParseException(message, peek().getOffset());
+    }
+}
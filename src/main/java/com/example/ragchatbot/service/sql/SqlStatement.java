@@ -0,0 +1,31 @@
+package com.example.ragchatbot.service.sql;
+
+/**
+ * Root of a parsed SQL statement: the source text and its top-level query.
+ */
+public final class SqlStatement {
+    private final String sql;
+    private final SelectQuery query;
+
+    public SqlStatement(String sql, SelectQuery query) {
+        this.sql = sql;
+        this.query = query;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    public SelectQuery getQuery() {
+        return query;
+    }
+
+    public String toSql() {
+        return query.toSql();
+    }
+
+    @Override
+    public String toString() {
+        return toSql();
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.ragchatbot.service.sql;
+
+import java.util.Locale;
+
+/**
+ * Single lexical token with its source offset. Word tokens carry a pre-computed
+ * upper-case form so keyword checks do not allocate.
+ */
+public final class SqlToken {
+    private final SqlTokenType type;
+    private final String text;
+    private final String upper;
+    private final int offset;
+
+    public SqlToken(SqlTokenType type, String text, int offset) {
+        this.type = type;
+        this.text = text;
+        this.upper = type == SqlTokenType.WORD ? text.toUpperCase(Locale.ENGLISH) : text;
+        this.offset = offset;
+    }
+
+    public SqlTokenType getType() {
+        return type;
+    }
+
+    /**
+     * Raw token text. Strings keep their quotes, quoted identifiers keep their backticks.
+     */
+    public String getText() {
+        return text;
+    }
+
+    public String getUpper() {
+        return upper;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public boolean is(SqlTokenType expected) {
+        return type == expected;
+    }
+
+    public boolean isWord(String keyword) {
+        return type == SqlTokenType.WORD && upper.equals(keyword);
+    }
+
+    public boolean isOperator(String operator) {
+        return type == SqlTokenType.OPERATOR && text.equals(operator);
+    }
+
+    /**
+     * Identifier text with backticks removed.
+     */
+    public String identifierText() {
+        if (type == SqlTokenType.QUOTED_IDENTIFIER && text.length() >= 2) {
+            return text.substring(1, text.length() - 1);
+        }
+        return text;
+    }
+
+    @Override
+    public String toString() {
+        return type + "(" + text + ")@" + offset;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.ragchatbot.service.sql;
+
+/**
+ * Lexical categories produced by {@link SqlLexer}.
+ */
+public enum SqlTokenType {
+    /** Bare identifier or keyword (keywords are recognised by the parser, not the lexer). */
+    WORD,
+    /** Backtick-quoted identifier such as {@code `project.dataset.table`}. */
+    QUOTED_IDENTIFIER,
+    STRING,
+    NUMBER,
+    /** Named ({@code @season}) or positional ({@code ?}) query parameter. */
+    PARAMETER,
+    OPERATOR,
+    LEFT_PAREN,
+    RIGHT_PAREN,
+    LEFT_BRACKET,
+    RIGHT_BRACKET,
+    COMMA,
+    DOT,
+    SEMICOLON,
+    EOF
+}
@@ -0,0 +1,139 @@
+package com.example.ragchatbot.service.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * FROM-clause item: a table path, a derived table (subquery) or an UNNEST, together with the
+ * join that attaches it to the preceding items. The first item of a FROM clause has no join type.
+ */
+public final class TableReference {
+
+    public enum Kind {
+        TABLE,
+        SUBQUERY,
+        UNNEST
+    }
+
+    private final Kind kind;
+    private final String tablePath;
+    private final SelectQuery subquery;
+    private final SqlExpression unnestExpression;
+    private final String alias;
+    private final String joinType;
+    private final SqlExpression joinCondition;
+    private final List<String> usingColumns;
+
+    private TableReference(Kind kind, String tablePath, SelectQuery subquery, SqlExpression unnestExpression,
+                           String alias, String joinType, SqlExpression joinCondition, List<String> usingColumns) {
+        this.kind = kind;
+        this.tablePath = tablePath;
+        this.subquery = subquery;
+        this.unnestExpression = unnestExpression;
+        this.alias = alias;
+        this.joinType = joinType;
+        this.joinCondition = joinCondition;
+        this.usingColumns = usingColumns != null ? Collections.unmodifiableList(new ArrayList<>(usingColumns)) : Collections.emptyList();
+    }
+
+    public static TableReference table(String tablePath, String alias) {
+        return new TableReference(Kind.TABLE, tablePath, null, null, alias, null, null, null);
+    }
+
+    public static TableReference subquery(SelectQuery query, String alias) {
+        return new TableReference(Kind.SUBQUERY, null, query, null, alias, null, null, null);
+    }
+
+    public static TableReference unnest(SqlExpression expression, String alias) {
+        return new TableReference(Kind.UNNEST, null, null, expression, alias, null, null, null);
+    }
+
+    /**
+     * Returns a copy of this reference attached with the given join.
+     */
+    public TableReference withJoin(String joinType, SqlExpression condition, List<String> usingColumns) {
+        return new TableReference(kind, tablePath, subquery, unnestExpression, alias, joinType, condition, usingColumns);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Table path without backticks, e.g. {@code bigquery-public-data.ncaa_basketball.mbb_teams}.
+     */
+    public String getTablePath() {
+        return tablePath;
+    }
+
+    /**
+     * Last component of the table path.
+     */
+    public String getTableName() {
+        if (tablePath == null) {
+            return null;
+        }
+        int dot = tablePath.lastIndexOf('.');
+        return dot >= 0 ? tablePath.substring(dot + 1) : tablePath;
+    }
+
+    public SelectQuery getSubquery() {
+        return subquery;
+    }
+
+    public SqlExpression getUnnestExpression() {
+        return unnestExpression;
+    }
+
+    public String getAlias() {
+        return alias;
+    }
+
+    /**
+     * Join keyword(s) such as {@code JOIN}, {@code LEFT JOIN} or {@code ,}; null for the first item.
+     */
+    public String getJoinType() {
+        return joinType;
+    }
+
+    public SqlExpression getJoinCondition() {
+        return joinCondition;
+    }
+
+    public List<String> getUsingColumns() {
+        return usingColumns;
+    }
+
+    void render(StringBuilder out) {
+        if (joinType != null) {
+            out.append(",".equals(joinType) ? ", " : " " + joinType + " ");
+        }
+        switch (kind) {
+            case TABLE:
+                out.append('`').append(tablePath).append('`');
+                break;
+            case SUBQUERY:
+                out.append('(');
+                subquery.render(out);
+                out.append(')');
+                break;
+            case UNNEST:
+                out.append("UNNEST(");
+                unnestExpression.render(out);
+                out.append(')');
+                break;
+            default:
+                break;
+        }
+        if (alias != null) {
+            out.append(" AS ").append(alias);
+        }
+        if (joinCondition != null) {
+            out.append(" ON ");
+            joinCondition.render(out);
+        } else if (!usingColumns.isEmpty()) {
+            out.append(" USING (").append(String.join(", ", usingColumns)).append(')');
+        }
+    }
+}
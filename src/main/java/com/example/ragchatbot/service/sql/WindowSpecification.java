@@ -0,0 +1,71 @@
+package com.example.ragchatbot.service.sql;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * OVER clause of a window function. Either references a named window or carries an
+ * inline PARTITION BY / ORDER BY / frame specification.
+ */
+public final class WindowSpecification {
+    private final String windowName;
+    private final List<SqlExpression> partitionBy;
+    private final List<OrderItem> orderBy;
+    private final String frame;
+
+    public WindowSpecification(String windowName, List<SqlExpression> partitionBy,
+                               List<OrderItem> orderBy, String frame) {
+        this.windowName = windowName;
+        this.partitionBy = partitionBy != null ? Collections.unmodifiableList(new ArrayList<>(partitionBy)) : Collections.emptyList();
+        this.orderBy = orderBy != null ? Collections.unmodifiableList(new ArrayList<>(orderBy)) : Collections.emptyList();
+        this.frame = frame;
+    }
+
+    public String getWindowName() {
+        return windowName;
+    }
+
+    public List<SqlExpression> getPartitionBy() {
+        return partitionBy;
+    }
+
+    public List<OrderItem> getOrderBy() {
+        return orderBy;
+    }
+
+    /**
+     * Frame clause kept verbatim (e.g. {@code ROWS BETWEEN 2 PRECEDING AND CURRENT ROW}), or null.
+     */
+    public String getFrame() {
+        return frame;
+    }
+
+    void render(StringBuilder out) {
+        boolean inline = !partitionBy.isEmpty() || !orderBy.isEmpty() || frame != null;
+        if (windowName != null && !inline) {
+            out.append(windowName);
+            return;
+        }
+        out.append('(');
+        boolean needsSpace = false;
+        if (windowName != null) {
+            out.append(windowName);
+            needsSpace = true;
+        }
+        if (!partitionBy.isEmpty()) {
+            out.append(needsSpace ? " " : "").append("PARTITION BY ");
+            SqlExpression.renderList(out, partitionBy);
+            needsSpace = true;
+        }
+        if (!orderBy.isEmpty()) {
+            out.append(needsSpace ? " " : "").append("ORDER BY ");
+            OrderItem.renderList(out, orderBy);
+            needsSpace = true;
+        }
+        if (frame != null) {
+            out.append(needsSpace ? " " : "").append(frame);
+        }
+        out.append(')');
+    }
+}
@@ -0,0 +1,219 @@
+package com.example.ragchatbot.service.storage;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.CollectionType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Stores the whole query log as one pretty-printed JSON array. Every operation reads the file
+ * and every write rewrites it, which keeps the file human-readable and diffable but makes
+ * lookups and inserts linear in the log size.
+ */
+public class JsonFileQueryStore implements QueryStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(JsonFileQueryStore.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Path storageFile;
+
+    public JsonFileQueryStore(Path storageFile) throws IOException {
+        this.storageFile = storageFile;
+        Path parent = storageFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        if (!Files.exists(storageFile)) {
+            Files.writeString(storageFile, "[]");
+            logger.info("Created SQL query storage file: {}", storageFile.toAbsolutePath());
+        } else {
+            logger.info("Using existing SQL query storage file: {}", storageFile.toAbsolutePath());
+        }
+    }
+
+    @Override
+    public synchronized int insertIfAbsent(List<Map<String, Object>> entries) throws IOException {
+        List<Map<String, Object>> queries = readQueries();
+        Set<String> knownQueries = new HashSet<>();
+        for (Map<String, Object> existingQuery : queries) {
+            knownQueries.add(QueryEntries.normalizedQueryOf(existingQuery));
+        }
+
+        int appended = 0;
+        for (Map<String, Object> entry : entries) {
+            if (knownQueries.add(QueryEntries.normalizedQueryOf(entry))) {
+                queries.add(entry);
+                appended++;
+            }
+        }
+        if (appended > 0) {
+            writeQueries(queries);
+        }
+        return appended;
+    }
+
+    @Override
+    public synchronized Optional<Map<String, Object>> findWithResults(String normalizedQuery) throws IOException {
+        for (Map<String, Object> entry : readQueries()) {
+            if (QueryEntries.hasResults(entry) && normalizedQuery.equals(QueryEntries.normalizedQueryOf(entry))) {
+                return Optional.of(entry);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public synchronized List<Map<String, Object>> findBySignature(String signatureKey) throws IOException {
+        List<Map<String, Object>> matches = new ArrayList<>();
+        for (Map<String, Object> entry : readQueries()) {
+            if (signatureKey.equals(QueryEntries.signatureKeyOf(entry))) {
+                matches.add(entry);
+            }
+        }
+        return matches;
+    }
+
+    @Override
+    public synchronized List<Map<String, Object>> findByTimestampRange(LocalDateTime from, LocalDateTime to)
+            throws IOException {
+        List<Map<String, Object>> matches = new ArrayList<>();
+        for (Map<String, Object> entry : readQueries()) {
+            LocalDateTime timestamp = QueryEntries.timestampOf(entry);
+            if (timestamp != null && !timestamp.isBefore(from) && timestamp.isBefore(to)) {
+                matches.add(entry);
+            }
+        }
+        matches.sort((a, b) -> QueryEntries.timestampOf(a).compareTo(QueryEntries.timestampOf(b)));
+        return matches;
+    }
+
+    @Override
+    public synchronized List<Map<String, Object>> findNewest(int limit) throws IOException {
+        List<Map<String, Object>> queries = readQueries();
+        List<Map<String, Object>> newest = new ArrayList<>(Math.min(limit, queries.size()));
+        for (int i = queries.size() - 1; i >= 0 && newest.size() < limit; i--) {
+            newest.add(queries.get(i));
+        }
+        return newest;
+    }
+
+    @Override
+    public synchronized List<Map<String, Object>> readAll() throws IOException {
+        return readQueries();
+    }
+
+    @Override
+    public synchronized long count() throws IOException {
+        return readQueries().size();
+    }
+
+    @Override
+    public synchronized int removeDuplicateSql() throws IOException {
+        List<Map<String, Object>> queries = readQueries();
+        Set<String> seenSql = new HashSet<>();
+        List<Map<String, Object>> deduplicated = new ArrayList<>(queries.size());
+        for (Map<String, Object> entry : queries) {
+            String sql = QueryEntries.sqlOf(entry);
+            if (sql == null || seenSql.add(sql)) {
+                deduplicated.add(entry);
+            } else {
+                logger.debug("Removed duplicate query with SQL: {}",
+                        sql.length() > 100 ? sql.substring(0, 100) + "..." : sql);
+            }
+        }
+        int removed = queries.size() - deduplicated.size();
+        if (removed > 0) {
+            writeQueries(deduplicated);
+        }
+        return removed;
+    }
+
+    @Override
+    public synchronized List<String> findSqlWithoutResults() throws IOException {
+        List<String> pending = new ArrayList<>();
+        for (Map<String, Object> entry : readQueries()) {
+            String sql = QueryEntries.sqlOf(entry);
+            if (!QueryEntries.hasResults(entry) && sql != null && !sql.trim().isEmpty()) {
+                pending.add(sql);
+            }
+        }
+        return pending;
+    }
+
+    @Override
+    public synchronized int applyResults(Map<String, Map<String, Object>> resultsBySql) throws IOException {
+        List<Map<String, Object>> queries = readQueries();
+        int updated = 0;
+        for (Map<String, Object> entry : queries) {
+            if (QueryEntries.hasResults(entry)) {
+                continue;
+            }
+            Map<String, Object> results = resultsBySql.get(QueryEntries.sqlOf(entry));
+            if (results != null) {
+                entry.put("results", results);
+                updated++;
+            }
+        }
+        if (updated > 0) {
+            writeQueries(queries);
+        }
+        return updated;
+    }
+
+    @Override
+    public void close() {
+        // Nothing is held open between operations
+    }
+
+    private List<Map<String, Object>> readQueries() throws IOException {
+        if (!Files.exists(storageFile) || Files.size(storageFile) == 0) {
+            return new ArrayList<>();
+        }
+
+        String content = Files.readString(storageFile);
+        if (content.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        CollectionType listType = objectMapper.getTypeFactory()
+                .constructCollectionType(List.class, Map.class);
+        return objectMapper.readValue(content, listType);
+    }
+
+    /**
+     * Writes the full query list to a temporary file, forces it to disk and atomically
+     * replaces the storage file, so a crash never leaves a truncated log behind.
+     */
+    private void writeQueries(List<Map<String, Object>> queries) throws IOException {
+        byte[] json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsBytes(queries);
+        Path tempFile = storageFile.resolveSibling(storageFile.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.wrap(json);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        try {
+            Files.move(tempFile, storageFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, storageFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.ragchatbot.service.storage;
+
+import com.example.ragchatbot.util.SqlSignature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.type.MapType;
+import org.h2.mvstore.Cursor;
+import org.h2.mvstore.MVMap;
+import org.h2.mvstore.MVStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Query log stored in an embedded H2 MVStore file. Entries live in a B-tree keyed by an
+ * increasing id, with secondary B-tree indexes on normalized query text, SQL signature,
+ * timestamp and SQL text, plus a map of entries still waiting for results. Lookups and dedup
+ * touch only the matching index range, and each write commits only the pages it changed, so
+ * costs stay logarithmic as the log grows to millions of entries.
+ *
+ * <p>Index keys are {@code <key>\0<id as 16 hex digits>}, so all entries for a key form one
+ * contiguous range ordered by insertion. Writes are serialized; reads run concurrently against
+ * the MVStore's copy-on-write snapshots.
+ */
+public class MvStoreQueryStore implements QueryStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(MvStoreQueryStore.class);
+    private static final char SEPARATOR = '\u0000';
+    // Fixed width so that lexical order of index keys is chronological order
+    private static final DateTimeFormatter TIMESTAMP_KEY_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSSSSSSS");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final MapType entryType = objectMapper.getTypeFactory()
+            .constructMapType(HashMap.class, String.class, Object.class);
+    private final MVStore store;
+    private final MVMap<Long, String> entries;
+    private final MVMap<String, Long> byQuery;
+    private final MVMap<String, Long> bySignature;
+    private final MVMap<String, Long> byTimestamp;
+    private final MVMap<String, Long> bySql;
+    private final MVMap<Long, String> pendingSql;
+    private long nextId;
+
+    public MvStoreQueryStore(Path storeFile) throws IOException {
+        Path parent = storeFile.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.store = new MVStore.Builder()
+                .fileName(storeFile.toString())
+                .autoCommitDisabled()
+                .compress()
+                .open();
+        this.entries = store.openMap("entries");
+        this.byQuery = store.openMap("idx_query");
+        this.bySignature = store.openMap("idx_signature");
+        this.byTimestamp = store.openMap("idx_timestamp");
+        this.bySql = store.openMap("idx_sql");
+        this.pendingSql = store.openMap("pending_sql");
+        Long lastId = entries.lastKey();
+        this.nextId = lastId == null ? 1 : lastId + 1;
+        logger.info("Using MVStore query storage: file={}, entries={}", storeFile.toAbsolutePath(), entries.sizeAsLong());
+    }
+
+    @Override
+    public synchronized int insertIfAbsent(List<Map<String, Object>> newEntries) throws IOException {
+        int appended = 0;
+        for (Map<String, Object> entry : newEntries) {
+            if (!idsFor(byQuery, QueryEntries.normalizedQueryOf(entry)).isEmpty()) {
+                continue;
+            }
+            long id = nextId++;
+            entries.put(id, objectMapper.writeValueAsString(entry));
+            index(id, entry);
+            appended++;
+        }
+        if (appended > 0) {
+            commit();
+        }
+        return appended;
+    }
+
+    @Override
+    public Optional<Map<String, Object>> findWithResults(String normalizedQuery) throws IOException {
+        for (long id : idsFor(byQuery, normalizedQuery)) {
+            Map<String, Object> entry = load(id);
+            if (entry != null && QueryEntries.hasResults(entry)) {
+                return Optional.of(entry);
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public List<Map<String, Object>> findBySignature(String signatureKey) throws IOException {
+        return loadAll(idsFor(bySignature, signatureKey));
+    }
+
+    @Override
+    public List<Map<String, Object>> findByTimestampRange(LocalDateTime from, LocalDateTime to) throws IOException {
+        String toKey = TIMESTAMP_KEY_FORMAT.format(to);
+        List<Long> ids = new ArrayList<>();
+        Iterator<String> keys = byTimestamp.keyIterator(TIMESTAMP_KEY_FORMAT.format(from));
+        while (keys.hasNext()) {
+            String key = keys.next();
+            if (key.compareTo(toKey) >= 0) {
+                break;
+            }
+            ids.add(idOf(key));
+        }
+        return loadAll(ids);
+    }
+
+    @Override
+    public List<Map<String, Object>> findNewest(int limit) throws IOException {
+        List<Long> ids = new ArrayList<>();
+        for (Long id = entries.lastKey(); id != null && ids.size() < limit; id = entries.lowerKey(id)) {
+            ids.add(id);
+        }
+        return loadAll(ids);
+    }
+
+    @Override
+    public List<Map<String, Object>> readAll() throws IOException {
+        List<Map<String, Object>> all = new ArrayList<>();
+        Cursor<Long, String> cursor = entries.cursor(null);
+        while (cursor.hasNext()) {
+            cursor.next();
+            all.add(parse(cursor.getValue()));
+        }
+        return all;
+    }
+
+    @Override
+    public long count() {
+        return entries.sizeAsLong();
+    }
+
+    @Override
+    public synchronized int removeDuplicateSql() throws IOException {
+        // Entries with the same SQL share a hash prefix in idx_sql, ordered by id within it;
+        // only groups with more than one id need their entries loaded
+        List<Long> duplicates = new ArrayList<>();
+        List<Long> group = new ArrayList<>();
+        String groupHash = null;
+        Iterator<String> keys = bySql.keyIterator(null);
+        while (keys.hasNext()) {
+            String key = keys.next();
+            String hash = key.substring(0, key.indexOf(SEPARATOR));
+            if (!hash.equals(groupHash)) {
+                collectDuplicates(group, duplicates);
+                group.clear();
+                groupHash = hash;
+            }
+            group.add(idOf(key));
+        }
+        collectDuplicates(group, duplicates);
+
+        for (long id : duplicates) {
+            remove(id);
+        }
+        if (!duplicates.isEmpty()) {
+            commit();
+        }
+        return duplicates.size();
+    }
+
+    private void collectDuplicates(List<Long> group, List<Long> duplicates) throws IOException {
+        if (group.size() < 2) {
+            return;
+        }
+        Map<String, Long> firstBySql = new HashMap<>();
+        for (long id : group) {
+            Map<String, Object> entry = load(id);
+            if (entry != null && firstBySql.putIfAbsent(QueryEntries.sqlOf(entry), id) != null) {
+                duplicates.add(id);
+            }
+        }
+    }
+
+    @Override
+    public List<String> findSqlWithoutResults() {
+        return new ArrayList<>(pendingSql.values());
+    }
+
+    @Override
+    public synchronized int applyResults(Map<String, Map<String, Object>> resultsBySql) throws IOException {
+        int updated = 0;
+        for (Map.Entry<String, Map<String, Object>> result : resultsBySql.entrySet()) {
+            String sql = result.getKey();
+            if (sql == null) {
+                continue;
+            }
+            for (long id : idsFor(bySql, sqlKey(sql))) {
+                if (!pendingSql.containsKey(id)) {
+                    continue;
+                }
+                Map<String, Object> entry = load(id);
+                if (entry == null || !sql.equals(QueryEntries.sqlOf(entry))) {
+                    continue;
+                }
+                entry.put("results", result.getValue());
+                entries.put(id, objectMapper.writeValueAsString(entry));
+                pendingSql.remove(id);
+                updated++;
+            }
+        }
+        if (updated > 0) {
+            commit();
+        }
+        return updated;
+    }
+
+    @Override
+    public synchronized void close() {
+        if (!store.isClosed()) {
+            store.close();
+        }
+    }
+
+    private void index(long id, Map<String, Object> entry) {
+        for (Map.Entry<MVMap<String, Long>, String> index : indexKeys(entry).entrySet()) {
+            index.getKey().put(compositeKey(index.getValue(), id), id);
+        }
+        String sql = QueryEntries.sqlOf(entry);
+        if (!QueryEntries.hasResults(entry) && sql != null && !sql.trim().isEmpty()) {
+            pendingSql.put(id, sql);
+        }
+    }
+
+    private void remove(long id) throws IOException {
+        Map<String, Object> entry = load(id);
+        if (entry == null) {
+            return;
+        }
+        // Unindex before deleting; readers treat an index key whose entry is gone as absent
+        for (Map.Entry<MVMap<String, Long>, String> index : indexKeys(entry).entrySet()) {
+            index.getKey().remove(compositeKey(index.getValue(), id));
+        }
+        pendingSql.remove(id);
+        entries.remove(id);
+    }
+
+    private Map<MVMap<String, Long>, String> indexKeys(Map<String, Object> entry) {
+        Map<MVMap<String, Long>, String> keys = new HashMap<>();
+        keys.put(byQuery, QueryEntries.normalizedQueryOf(entry));
+        String signature = QueryEntries.signatureKeyOf(entry);
+        if (signature != null) {
+            keys.put(bySignature, signature);
+        }
+        LocalDateTime timestamp = QueryEntries.timestampOf(entry);
+        if (timestamp != null) {
+            keys.put(byTimestamp, TIMESTAMP_KEY_FORMAT.format(timestamp));
+        }
+        String sql = QueryEntries.sqlOf(entry);
+        if (sql != null) {
+            keys.put(bySql, sqlKey(sql));
+        }
+        return keys;
+    }
+
+    private List<Long> idsFor(MVMap<String, Long> index, String key) {
+        String prefix = key + SEPARATOR;
+        List<Long> ids = new ArrayList<>();
+        Iterator<String> keys = index.keyIterator(prefix);
+        while (keys.hasNext()) {
+            String candidate = keys.next();
+            if (!candidate.startsWith(prefix)) {
+                break;
+            }
+            ids.add(idOf(candidate));
+        }
+        return ids;
+    }
+
+    private List<Map<String, Object>> loadAll(List<Long> ids) throws IOException {
+        List<Map<String, Object>> loaded = new ArrayList<>(ids.size());
+        for (long id : ids) {
+            Map<String, Object> entry = load(id);
+            if (entry != null) {
+                loaded.add(entry);
+            }
+        }
+        return loaded;
+    }
+
+    private Map<String, Object> load(long id) throws IOException {
+        String json = entries.get(id);
+        return json != null ? parse(json) : null;
+    }
+
+    private Map<String, Object> parse(String json) throws IOException {
+        return objectMapper.readValue(json, entryType);
+    }
+
+    /**
+     * Persists the changes as a new chunk and forces it to disk.
+     */
+    private void commit() {
+        store.commit();
+        store.sync();
+    }
+
+    private static String sqlKey(String sql) {
+        return SqlSignature.of(sql).toHex();
+    }
+
+    private static String compositeKey(String key, long id) {
+        return key + SEPARATOR + String.format("%016x", id);
+    }
+
+    private static long idOf(String compositeKey) {
+        return Long.parseUnsignedLong(compositeKey.substring(compositeKey.lastIndexOf(SEPARATOR) + 1), 16);
+    }
+}
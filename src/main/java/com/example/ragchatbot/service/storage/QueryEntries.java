@@ -0,0 +1,94 @@
+package com.example.ragchatbot.service.storage;
+
+import com.example.ragchatbot.util.SqlSignature;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+
+/**
+ * Key extraction shared by the {@link QueryStore} implementations, so every backend dedups and
+ * indexes entries the same way.
+ */
+public final class QueryEntries {
+
+    private QueryEntries() {
+    }
+
+    /**
+     * Normalizes user query text for comparison.
+     * Removes punctuation, extra whitespace, and converts to lowercase.
+     */
+    public static String normalizeQueryText(String query) {
+        if (query == null) {
+            return "";
+        }
+
+        return query
+            .toLowerCase()
+            .replaceAll("[^a-z0-9\\s]", "")       // Remove punctuation
+            .replaceAll("\\s+", " ")              // Normalize whitespace
+            .trim();
+    }
+
+    public static String normalizedQueryOf(Map<String, Object> entry) {
+        Object query = entry.get("query");
+        return normalizeQueryText(query instanceof String text ? text : null);
+    }
+
+    /**
+     * Returns the SQL signature fingerprint of an entry. Entries logged before fingerprints were
+     * recorded are keyed by the fingerprint of their normalized SQL, which is what the
+     * fingerprint would have been.
+     *
+     * @return Hex fingerprint, or null if the entry has no signature information
+     */
+    public static String signatureKeyOf(Map<String, Object> entry) {
+        Object analysis = entry.get("analysis");
+        Object normalizedSql = entry.get("normalizedSql");
+        if (analysis instanceof Map<?, ?> analysisMap) {
+            if (analysisMap.get("signatureFingerprint") instanceof String fingerprint) {
+                return fingerprint;
+            }
+            if (analysisMap.get("normalizedSql") instanceof String normalized) {
+                normalizedSql = normalized;
+            }
+        }
+        if (normalizedSql instanceof String normalized && !normalized.isEmpty()) {
+            return SqlSignature.of(normalized).toHex();
+        }
+        return null;
+    }
+
+    /**
+     * @return The entry timestamp, or null if it is missing or unparseable
+     */
+    public static LocalDateTime timestampOf(Map<String, Object> entry) {
+        if (entry.get("timestamp") instanceof String timestamp) {
+            try {
+                return LocalDateTime.parse(timestamp, DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+            } catch (DateTimeParseException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Whether the entry's results came from SQL rewritten for a chart, with the smallest
+     * categories folded into an "Other" row.
+     */
+    public static boolean isChartRewritten(Map<String, Object> entry) {
+        return entry.get("analysis") instanceof Map<?, ?> analysis && analysis.get("chartRewrite") != null;
+    }
+
+    public static boolean hasResults(Map<String, Object> entry) {
+        return entry.get("results") != null;
+    }
+
+    public static String sqlOf(Map<String, Object> entry) {
+        Object sql = entry.get("sql");
+        return sql instanceof String text ? text : null;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.ragchatbot.service.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Persistence SPI for the query log. Entries are the maps written by
+ * {@link com.example.ragchatbot.service.SqlQueryStorageService}: {@code query}, {@code sql},
+ * {@code timestamp}, and optionally {@code results}, {@code analysis} and {@code normalizedSql}.
+ * Implementations keep entries in insertion order and must be safe for concurrent use.
+ */
+public interface QueryStore extends Closeable {
+
+    /**
+     * Appends entries whose normalized query text is not stored yet, also skipping repeats
+     * within the batch. The batch is made durable before this method returns.
+     *
+     * @return Number of entries appended
+     */
+    int insertIfAbsent(List<Map<String, Object>> entries) throws IOException;
+
+    /**
+     * Finds the first entry for a normalized query text that has results.
+     *
+     * @param normalizedQuery Text produced by {@link QueryEntries#normalizeQueryText(String)}
+     */
+    Optional<Map<String, Object>> findWithResults(String normalizedQuery) throws IOException;
+
+    /**
+     * Finds entries whose SQL signature matches, in insertion order.
+     *
+     * @param signatureKey Hex fingerprint as produced by {@link QueryEntries#signatureKeyOf(Map)}
+     */
+    List<Map<String, Object>> findBySignature(String signatureKey) throws IOException;
+
+    /**
+     * Finds entries logged in {@code [from, to)}, oldest first. Entries without a timestamp
+     * are never returned.
+     */
+    List<Map<String, Object>> findByTimestampRange(LocalDateTime from, LocalDateTime to) throws IOException;
+
+    /**
+     * Returns up to {@code limit} of the most recently inserted entries, newest first.
+     */
+    List<Map<String, Object>> findNewest(int limit) throws IOException;
+
+    /**
+     * Returns every entry in insertion order.
+     */
+    List<Map<String, Object>> readAll() throws IOException;
+
+    long count() throws IOException;
+
+    /**
+     * Removes entries whose SQL text repeats an earlier entry, keeping the first occurrence.
+     *
+     * @return Number of entries removed
+     */
+    int removeDuplicateSql() throws IOException;
+
+    /**
+     * Lists the SQL of entries that have no results yet, in insertion order, skipping blank SQL.
+     */
+    List<String> findSqlWithoutResults() throws IOException;
+
+    /**
+     * Attaches results to entries that lack them, matching on exact SQL text. Entries that
+     * already have results are left untouched.
+     *
+     * @return Number of entries updated
+     */
+    int applyResults(Map<String, Map<String, Object>> resultsBySql) throws IOException;
+}
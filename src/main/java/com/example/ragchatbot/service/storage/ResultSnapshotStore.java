@@ -0,0 +1,86 @@
+package com.example.ragchatbot.service.storage;
+
+import com.example.ragchatbot.service.data.snapshot.ResultSnapshot;
+import com.example.ragchatbot.service.data.snapshot.ResultSnapshotWriter;
+import com.example.ragchatbot.util.SqlSignature;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Directory of binary result snapshots, one file per normalized query text, with the most
+ * recently used snapshots kept mapped. A hit on a mapped snapshot is a map lookup; the first
+ * hit after startup maps the file without parsing it.
+ */
+public class ResultSnapshotStore {
+
+    private static final String EXTENSION = ".rsnp";
+
+    private final Path directory;
+    private final Map<String, ResultSnapshot> openSnapshots;
+
+    public ResultSnapshotStore(Path directory, int maxOpenSnapshots) throws IOException {
+        this.directory = directory;
+        Files.createDirectories(directory);
+        int capacity = Math.max(1, maxOpenSnapshots);
+        this.openSnapshots = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, ResultSnapshot> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the snapshot for a normalized query text, mapping it if it exists on disk.
+     */
+    public Optional<ResultSnapshot> find(String normalizedQuery) throws IOException {
+        String key = keyOf(normalizedQuery);
+        synchronized (openSnapshots) {
+            ResultSnapshot snapshot = openSnapshots.get(key);
+            if (snapshot != null) {
+                return Optional.of(snapshot);
+            }
+        }
+        Path file = fileFor(key);
+        if (!Files.exists(file)) {
+            return Optional.empty();
+        }
+        return Optional.of(remember(key, ResultSnapshot.open(file)));
+    }
+
+    /**
+     * Writes a snapshot for a normalized query text from a stored "results" map and maps it.
+     *
+     * @throws IllegalArgumentException if the results hold values the format cannot encode
+     */
+    @SuppressWarnings("unchecked")
+    public ResultSnapshot write(String normalizedQuery, String sql, Map<String, Object> results) throws IOException {
+        String key = keyOf(normalizedQuery);
+        List<List<Object>> rows = (List<List<Object>>) results.get("rows");
+        Path file = fileFor(key);
+        ResultSnapshotWriter.write(file, sql, (List<String>) results.get("columns"),
+                (List<String>) results.get("columnTypes"), rows != null ? rows : List.of());
+        return remember(key, ResultSnapshot.open(file));
+    }
+
+    private ResultSnapshot remember(String key, ResultSnapshot snapshot) {
+        synchronized (openSnapshots) {
+            openSnapshots.put(key, snapshot);
+        }
+        return snapshot;
+    }
+
+    private Path fileFor(String key) {
+        return directory.resolve(key + EXTENSION);
+    }
+
+    private static String keyOf(String normalizedQuery) {
+        return SqlSignature.of(normalizedQuery).toHex();
+    }
+}
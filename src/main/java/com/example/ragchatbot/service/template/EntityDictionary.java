@@ -0,0 +1,133 @@
+package com.example.ragchatbot.service.template;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Teams, players and seasons known from the data, used to fill template slots. Names are
+ * matched on question tokens (case-insensitive, punctuation ignored) and filled with the value
+ * as it appears in the data, so "jordan howard's" fills {@code 'Jordan Howard'}.
+ * <p>
+ * Built by one thread during a refresh and only read once published.
+ */
+public final class EntityDictionary {
+
+    private final Map<SlotKind, Map<String, List<Phrase>>> phrasesByFirstToken = new EnumMap<>(SlotKind.class);
+    private final Map<SlotKind, Map<String, Phrase>> phrasesByKey = new EnumMap<>(SlotKind.class);
+    private final Set<Integer> seasons = new HashSet<>();
+
+    /**
+     * Adds a team or player name. A value already known in lower case only (as typed into an
+     * earlier question) is replaced by a capitalized spelling from the data.
+     */
+    void addName(SlotKind kind, String value) {
+        if (value == null || value.isBlank() || kind == SlotKind.SEASON || kind == SlotKind.NUMBER) {
+            return;
+        }
+        List<String> tokens = SqlTemplateMatcher.tokens(value);
+        if (tokens.isEmpty()) {
+            return;
+        }
+        String key = String.join(" ", tokens);
+        Map<String, Phrase> byKey = phrasesByKey.computeIfAbsent(kind, k -> new HashMap<>());
+        Phrase existing = byKey.get(key);
+        if (existing != null) {
+            if (existing.value.equals(existing.value.toLowerCase()) && !value.equals(value.toLowerCase())) {
+                existing.value = value.trim();
+            }
+            return;
+        }
+        Phrase phrase = new Phrase(tokens.toArray(new String[0]), value.trim());
+        byKey.put(key, phrase);
+        List<Phrase> candidates = phrasesByFirstToken.computeIfAbsent(kind, k -> new HashMap<>())
+                .computeIfAbsent(tokens.get(0), t -> new ArrayList<>());
+        candidates.add(phrase);
+        // Longest names first, so "north carolina state" is tried before "north carolina"
+        candidates.sort((a, b) -> Integer.compare(b.tokens.length, a.tokens.length));
+    }
+
+    void addSeason(int season) {
+        if (season >= 1900 && season <= 2100) {
+            seasons.add(season);
+        }
+    }
+
+    public boolean isSeason(int season) {
+        return seasons.contains(season);
+    }
+
+    /**
+     * Names of the given kind that start at {@code start} in the question tokens, longest first.
+     */
+    List<Phrase> phrasesAt(SlotKind kind, List<String> tokens, int start) {
+        Map<String, List<Phrase>> byFirst = phrasesByFirstToken.get(kind);
+        if (byFirst == null || start >= tokens.size()) {
+            return Collections.emptyList();
+        }
+        List<Phrase> candidates = byFirst.get(tokens.get(start));
+        if (candidates == null) {
+            return Collections.emptyList();
+        }
+        List<Phrase> matches = new ArrayList<>(1);
+        for (Phrase phrase : candidates) {
+            if (phrase.matches(tokens, start)) {
+                matches.add(phrase);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Copies the dictionary, so a refresh can keep adding to its own copy after publishing one.
+     */
+    EntityDictionary copy() {
+        EntityDictionary copy = new EntityDictionary();
+        phrasesByKey.forEach((kind, byKey) -> byKey.values().forEach(phrase -> copy.addName(kind, phrase.value)));
+        copy.seasons.addAll(seasons);
+        return copy;
+    }
+
+    public int size(SlotKind kind) {
+        if (kind == SlotKind.SEASON) {
+            return seasons.size();
+        }
+        Map<String, Phrase> byKey = phrasesByKey.get(kind);
+        return byKey != null ? byKey.size() : 0;
+    }
+
+    static final class Phrase {
+        private final String[] tokens;
+        private String value;
+
+        private Phrase(String[] tokens, String value) {
+            this.tokens = tokens;
+            this.value = value;
+        }
+
+        private boolean matches(List<String> question, int start) {
+            if (start + tokens.length > question.size()) {
+                return false;
+            }
+            for (int i = 0; i < tokens.length; i++) {
+                if (!tokens[i].equals(question.get(start + i))) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        int length() {
+            return tokens.length;
+        }
+
+        String value() {
+            return value;
+        }
+    }
+}
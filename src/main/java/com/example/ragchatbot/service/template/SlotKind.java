@@ -0,0 +1,15 @@
+package com.example.ragchatbot.service.template;
+
+/**
+ * What a template slot accepts, decided by the SQL context of the literal it replaces.
+ */
+public enum SlotKind {
+    /** A season year compared against a {@code season} column. */
+    SEASON,
+    /** A small positive integer, typically a LIMIT. */
+    NUMBER,
+    /** A team market or name. */
+    TEAM,
+    /** A player's full name. */
+    PLAYER
+}
@@ -0,0 +1,164 @@
+package com.example.ragchatbot.service.template;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Parameterized SQL mined from a repeated query signature: the SQL of the most recent entry with
+ * the literals that varied between entries turned into slots, and the question phrasings that
+ * produced it. Literals that never varied stay as written.
+ */
+public final class SqlTemplate {
+
+    private final String id;
+    private final String sql;
+    private final List<Literal> literals;
+    private final int support;
+    private final List<QuestionPattern> patterns = new ArrayList<>();
+
+    SqlTemplate(String id, String sql, List<Literal> literals, int support) {
+        this.id = id;
+        this.sql = sql;
+        this.literals = List.copyOf(literals);
+        this.support = support;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getSql() {
+        return sql;
+    }
+
+    /**
+     * Number of logged queries (with results) the template was mined from.
+     */
+    public int getSupport() {
+        return support;
+    }
+
+    public List<QuestionPattern> getPatterns() {
+        return Collections.unmodifiableList(patterns);
+    }
+
+    void addPattern(QuestionPattern pattern) {
+        patterns.add(pattern);
+    }
+
+    /**
+     * Fills the template's slots.
+     *
+     * @param slotValues Values in question order
+     * @param binding For each slotted literal, the index of its value in {@code slotValues}
+     */
+    String render(List<String> slotValues, int[] binding) {
+        StringBuilder out = new StringBuilder(sql);
+        for (int i = literals.size() - 1; i >= 0; i--) {
+            Literal literal = literals.get(i);
+            out.replace(literal.offset, literal.offset + literal.length, literal.render(slotValues.get(binding[i])));
+        }
+        return out.toString();
+    }
+
+    /**
+     * A literal of the template SQL that is filled from the question.
+     */
+    static final class Literal {
+        private final int offset;
+        private final int length;
+        private final SlotKind kind;
+        // Quote character of a string literal, 0 for numbers
+        private final char quote;
+
+        Literal(int offset, int length, SlotKind kind, char quote) {
+            this.offset = offset;
+            this.length = length;
+            this.kind = kind;
+            this.quote = quote;
+        }
+
+        SlotKind kind() {
+            return kind;
+        }
+
+        private String render(String value) {
+            if (quote == 0) {
+                return value;
+            }
+            StringBuilder out = new StringBuilder(value.length() + 2).append(quote);
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\\' || c == quote) {
+                    out.append('\\');
+                }
+                out.append(c);
+            }
+            return out.append(quote).toString();
+        }
+    }
+
+    /**
+     * One phrasing of the question: normalized tokens with slots in place of the values that
+     * became SQL literals.
+     */
+    public static final class QuestionPattern {
+        private final SqlTemplate template;
+        private final String[] tokens;
+        // Slot kind at each token position, null for words that must match exactly
+        private final SlotKind[] slots;
+        private final int[] binding;
+        private int support;
+
+        QuestionPattern(SqlTemplate template, String[] tokens, SlotKind[] slots, int[] binding) {
+            this.template = template;
+            this.tokens = tokens;
+            this.slots = slots;
+            this.binding = binding;
+        }
+
+        public SqlTemplate getTemplate() {
+            return template;
+        }
+
+        /**
+         * Number of logged questions with this phrasing.
+         */
+        public int getSupport() {
+            return support;
+        }
+
+        void incrementSupport() {
+            support++;
+        }
+
+        int size() {
+            return tokens.length;
+        }
+
+        String token(int index) {
+            return tokens[index];
+        }
+
+        SlotKind slot(int index) {
+            return slots[index];
+        }
+
+        int[] binding() {
+            return binding;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder out = new StringBuilder();
+            for (int i = 0; i < tokens.length; i++) {
+                if (i > 0) {
+                    out.append(' ');
+                }
+                out.append(slots[i] != null ? "{" + slots[i].name().toLowerCase() + "}" : tokens[i]);
+            }
+            return out.toString();
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.example.ragchatbot.service.template;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Matches questions against mined question patterns and fills the template SQL. Literal words
+ * must match exactly (after lower-casing and dropping punctuation and greetings); a season slot
+ * takes a year known from the data, a number slot a small integer, and team and player slots the
+ * longest dictionary name at that position. Patterns are indexed by their first word, so a
+ * question is only compared with the few patterns that can start the same way.
+ * <p>
+ * Immutable; a refresh builds a new matcher.
+ */
+public final class SqlTemplateMatcher {
+
+    private static final Pattern WORD = Pattern.compile("[\\p{L}\\p{N}]+");
+    // Dropped from questions and patterns alike: they never change what is asked
+    private static final Set<String> FILLER = Set.of(
+            "hi", "hey", "hello", "please", "kindly", "can", "could", "would", "you", "thanks", "thank");
+    private static final int MAX_NUMBER = 1000;
+
+    private final Map<String, List<SqlTemplate.QuestionPattern>> byFirstWord = new HashMap<>();
+    private final List<SqlTemplate.QuestionPattern> slotFirst = new ArrayList<>();
+    private final List<SqlTemplate> templates;
+    private final EntityDictionary dictionary;
+
+    public SqlTemplateMatcher(List<SqlTemplate> templates, EntityDictionary dictionary) {
+        this.templates = List.copyOf(templates);
+        this.dictionary = dictionary;
+        List<SqlTemplate.QuestionPattern> patterns = new ArrayList<>();
+        templates.forEach(template -> patterns.addAll(template.getPatterns()));
+        // Most frequently asked phrasings win when two patterns match the same question
+        patterns.sort(Comparator.comparingInt(SqlTemplate.QuestionPattern::getSupport)
+                .thenComparingInt(pattern -> pattern.getTemplate().getSupport()).reversed());
+        for (SqlTemplate.QuestionPattern pattern : patterns) {
+            if (pattern.slot(0) != null) {
+                slotFirst.add(pattern);
+            } else {
+                byFirstWord.computeIfAbsent(pattern.token(0), t -> new ArrayList<>()).add(pattern);
+            }
+        }
+    }
+
+    public static SqlTemplateMatcher empty() {
+        return new SqlTemplateMatcher(List.of(), new EntityDictionary());
+    }
+
+    public List<SqlTemplate> getTemplates() {
+        return templates;
+    }
+
+    public EntityDictionary getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * @return The filled SQL if the question matches a pattern, empty otherwise
+     */
+    public Optional<Match> match(String question) {
+        List<String> tokens = tokens(question);
+        if (tokens.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<Match> match = match(byFirstWord.getOrDefault(tokens.get(0), List.of()), tokens);
+        return match.isPresent() ? match : match(slotFirst, tokens);
+    }
+
+    private Optional<Match> match(List<SqlTemplate.QuestionPattern> candidates, List<String> tokens) {
+        for (SqlTemplate.QuestionPattern pattern : candidates) {
+            List<String> values = new ArrayList<>();
+            if (matches(pattern, 0, tokens, 0, values)) {
+                return Optional.of(new Match(pattern, pattern.getTemplate().render(values, pattern.binding())));
+            }
+        }
+        return Optional.empty();
+    }
+
+    private boolean matches(SqlTemplate.QuestionPattern pattern, int p, List<String> tokens, int t, List<String> values) {
+        if (p == pattern.size() || t == tokens.size()) {
+            return p == pattern.size() && t == tokens.size();
+        }
+        SlotKind slot = pattern.slot(p);
+        if (slot == null) {
+            return pattern.token(p).equals(tokens.get(t)) && matches(pattern, p + 1, tokens, t + 1, values);
+        }
+        if (slot == SlotKind.SEASON || slot == SlotKind.NUMBER) {
+            String token = tokens.get(t);
+            if (!isAcceptedNumber(slot, token)) {
+                return false;
+            }
+            values.add(token);
+            if (matches(pattern, p + 1, tokens, t + 1, values)) {
+                return true;
+            }
+            values.remove(values.size() - 1);
+            return false;
+        }
+        for (EntityDictionary.Phrase phrase : dictionary.phrasesAt(slot, tokens, t)) {
+            values.add(phrase.value());
+            if (matches(pattern, p + 1, tokens, t + phrase.length(), values)) {
+                return true;
+            }
+            values.remove(values.size() - 1);
+        }
+        return false;
+    }
+
+    private boolean isAcceptedNumber(SlotKind slot, String token) {
+        if (token.length() > 4 || !token.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            return false;
+        }
+        int value = Integer.parseInt(token);
+        return slot == SlotKind.SEASON ? dictionary.isSeason(value) : value > 0 && value <= MAX_NUMBER;
+    }
+
+    /**
+     * Question words as compared by patterns and dictionaries: lower-case letter and digit runs
+     * without greetings and politeness words.
+     */
+    static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        Matcher matcher = WORD.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            String token = matcher.group();
+            if (!FILLER.contains(token)) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * A question answered by a template.
+     */
+    public static final class Match {
+        private final SqlTemplate.QuestionPattern pattern;
+        private final String sql;
+
+        private Match(SqlTemplate.QuestionPattern pattern, String sql) {
+            this.pattern = pattern;
+            this.sql = sql;
+        }
+
+        public SqlTemplate getTemplate() {
+            return pattern.getTemplate();
+        }
+
+        public SqlTemplate.QuestionPattern getPattern() {
+            return pattern;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+    }
+}
@@ -0,0 +1,420 @@
+package com.example.ragchatbot.service.template;
+
+import com.example.ragchatbot.service.sql.SqlLexer;
+import com.example.ragchatbot.service.sql.SqlParseException;
+import com.example.ragchatbot.service.sql.SqlToken;
+import com.example.ragchatbot.service.sql.SqlTokenType;
+import com.example.ragchatbot.service.storage.QueryEntries;
+import com.example.ragchatbot.util.SqlSignatureUtil;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Extracts {@link SqlTemplate}s from the query log. Entries are grouped by SQL signature (SQL
+ * with literals normalized away); within a group, a literal whose value differs between entries
+ * and whose value appears exactly once in each entry's question becomes a slot, and the question
+ * with that value replaced becomes a pattern. A group is only templated when every varying
+ * literal can be slotted, so the template never silently keeps a value the question changed.
+ */
+public final class SqlTemplateMiner {
+
+    static final Set<String> PLAYER_COLUMNS = Set.of("full_name", "player_name");
+    static final Set<String> TEAM_COLUMNS = Set.of(
+            "market", "name", "team_name", "team_market", "win_market", "win_name", "lose_market", "lose_name",
+            "opp_market", "opp_name", "winning_team", "losing_team", "opponent");
+    private static final Set<String> SEASON_COLUMNS = Set.of("season", "year");
+    // Tokens between a compared column and its literal: = 2016, IN ('a', 'b'), BETWEEN 2003 AND 2014
+    private static final Set<String> COMPARISON_WORDS = Set.of("IN", "BETWEEN", "AND", "NOT", "LIKE");
+
+    private SqlTemplateMiner() {
+    }
+
+    /**
+     * Mines templates from logged queries that have non-empty results.
+     *
+     * @param minSupport Minimum number of entries sharing a signature
+     * @return Templates in log order of their signature's first entry
+     */
+    public static List<SqlTemplate> mine(List<Map<String, Object>> entries, int minSupport) {
+        return new ArrayList<>(mineBySignature(entries, minSupport).values());
+    }
+
+    /**
+     * Like {@link #mine(List, int)}, keyed by the signature each template was mined from.
+     */
+    public static Map<String, SqlTemplate> mineBySignature(List<Map<String, Object>> entries, int minSupport) {
+        Map<String, List<Map<String, Object>>> groups = new LinkedHashMap<>();
+        for (Map<String, Object> entry : entries) {
+            String signature = signatureOf(entry);
+            if (signature != null) {
+                groups.computeIfAbsent(signature, s -> new ArrayList<>()).add(entry);
+            }
+        }
+
+        Map<String, SqlTemplate> templates = new LinkedHashMap<>();
+        for (Map.Entry<String, List<Map<String, Object>>> group : groups.entrySet()) {
+            if (group.getValue().size() >= Math.max(2, minSupport)) {
+                SqlTemplate template = mineGroup(group.getKey(), group.getValue(), Math.max(2, minSupport));
+                if (template != null) {
+                    templates.put(group.getKey(), template);
+                }
+            }
+        }
+        return templates;
+    }
+
+    /**
+     * Signature an entry is grouped under when mining: its stored fingerprint where it has one,
+     * which is also the key of the store's signature index.
+     *
+     * @return Hex signature, or null if the entry cannot take part in a template
+     */
+    public static String signatureOf(Map<String, Object> entry) {
+        String sql = QueryEntries.sqlOf(entry);
+        if (sql == null || !(entry.get("query") instanceof String) || !hasRows(entry)) {
+            return null;
+        }
+        String signature = QueryEntries.signatureKeyOf(entry);
+        return signature != null ? signature : SqlSignatureUtil.signature(sql).toHex();
+    }
+
+    /**
+     * Collects team and player names and seasons from logged SQL literals and result columns.
+     */
+    public static EntityDictionary buildDictionary(List<Map<String, Object>> entries) {
+        EntityDictionary dictionary = new EntityDictionary();
+        for (Map<String, Object> entry : entries) {
+            addEntities(dictionary, entry);
+        }
+        return dictionary;
+    }
+
+    /**
+     * Adds the names and seasons of one logged entry to a dictionary.
+     */
+    public static void addEntities(EntityDictionary dictionary, Map<String, Object> entry) {
+        addResultValues(dictionary, entry.get("results"));
+        String sql = QueryEntries.sqlOf(entry);
+        if (sql == null) {
+            return;
+        }
+        List<SqlToken> tokens;
+        try {
+            tokens = SqlLexer.tokenize(sql);
+        } catch (SqlParseException e) {
+            return;
+        }
+        for (int i = 0; i < tokens.size(); i++) {
+            SqlToken token = tokens.get(i);
+            if (token.is(SqlTokenType.STRING) || token.is(SqlTokenType.NUMBER)) {
+                SlotKind kind = literalKind(tokens, i);
+                if (kind == SlotKind.SEASON) {
+                    dictionary.addSeason(Integer.parseInt(token.getText()));
+                } else if (kind == SlotKind.TEAM || kind == SlotKind.PLAYER) {
+                    dictionary.addName(kind, stringValue(token.getText()));
+                }
+            }
+        }
+    }
+
+    private static SqlTemplate mineGroup(String signature, List<Map<String, Object>> group, int minSupport) {
+        List<ParsedEntry> parsed = new ArrayList<>(group.size());
+        for (Map<String, Object> entry : group) {
+            ParsedEntry candidate = ParsedEntry.parse(entry);
+            if (candidate != null && (parsed.isEmpty()
+                    || candidate.literals.size() == parsed.get(0).literals.size())) {
+                parsed.add(candidate);
+            }
+        }
+        if (parsed.size() < minSupport) {
+            return null;
+        }
+
+        // Slot every literal that varies; give up on the group if one of them cannot be slotted
+        ParsedEntry representative = parsed.get(parsed.size() - 1);
+        List<Integer> varying = new ArrayList<>();
+        List<SqlTemplate.Literal> literals = new ArrayList<>();
+        for (int i = 0; i < representative.literals.size(); i++) {
+            String value = representative.values.get(i);
+            final int index = i;
+            if (parsed.stream().allMatch(p -> p.values.get(index).equals(value))) {
+                continue;
+            }
+            int tokenIndex = representative.literals.get(i);
+            SqlToken token = representative.tokens.get(tokenIndex);
+            SlotKind kind = literalKind(representative.tokens, tokenIndex);
+            if (kind == null) {
+                return null;
+            }
+            varying.add(i);
+            literals.add(new SqlTemplate.Literal(token.getOffset(), token.getText().length(), kind,
+                    token.is(SqlTokenType.STRING) ? token.getText().charAt(0) : 0));
+        }
+        if (varying.isEmpty()) {
+            return null;
+        }
+
+        List<PatternShape> shapes = new ArrayList<>();
+        for (ParsedEntry entry : parsed) {
+            PatternShape shape = PatternShape.of(entry, varying, literals);
+            if (shape != null) {
+                shapes.add(shape);
+            }
+        }
+        if (shapes.size() < minSupport) {
+            return null;
+        }
+
+        SqlTemplate template = new SqlTemplate(signature.length() > 12 ? signature.substring(0, 12) : signature,
+                representative.sql, literals, shapes.size());
+        Map<String, SqlTemplate.QuestionPattern> patterns = new LinkedHashMap<>();
+        for (PatternShape shape : shapes) {
+            patterns.computeIfAbsent(shape.key(), k -> {
+                SqlTemplate.QuestionPattern pattern =
+                        new SqlTemplate.QuestionPattern(template, shape.tokens, shape.slots, shape.binding);
+                template.addPattern(pattern);
+                return pattern;
+            }).incrementSupport();
+        }
+        return template;
+    }
+
+    /**
+     * Slot kind of the literal at {@code index}, from the column it is compared with, or null if
+     * the literal cannot be filled from a question.
+     */
+    static SlotKind literalKind(List<SqlToken> tokens, int index) {
+        SqlToken literal = tokens.get(index);
+        String column = comparedColumn(tokens, index);
+        if (literal.is(SqlTokenType.NUMBER)) {
+            if (!literal.getText().chars().allMatch(Character::isDigit) || literal.getText().length() > 9) {
+                return null;
+            }
+            if (column != null && SEASON_COLUMNS.contains(column)) {
+                return SlotKind.SEASON;
+            }
+            return SlotKind.NUMBER;
+        }
+        String text = literal.getText();
+        // Prefixed (raw, bytes) and triple-quoted strings are never filled
+        if (text.length() < 2 || (text.charAt(0) != '\'' && text.charAt(0) != '"') || text.startsWith("'''")
+                || text.startsWith("\"\"\"") || column == null) {
+            return null;
+        }
+        if (PLAYER_COLUMNS.contains(column)) {
+            return SlotKind.PLAYER;
+        }
+        return TEAM_COLUMNS.contains(column) ? SlotKind.TEAM : null;
+    }
+
+    private static String comparedColumn(List<SqlToken> tokens, int index) {
+        for (int i = index - 1; i >= 0; i--) {
+            SqlToken token = tokens.get(i);
+            if (token.is(SqlTokenType.NUMBER) || token.is(SqlTokenType.STRING) || token.is(SqlTokenType.COMMA)
+                    || token.is(SqlTokenType.LEFT_PAREN) || token.is(SqlTokenType.OPERATOR)
+                    || (token.is(SqlTokenType.WORD) && COMPARISON_WORDS.contains(token.getUpper()))) {
+                continue;
+            }
+            if (token.is(SqlTokenType.WORD) || token.is(SqlTokenType.QUOTED_IDENTIFIER)) {
+                return token.identifierText().toLowerCase(Locale.ROOT);
+            }
+            return null;
+        }
+        return null;
+    }
+
+    /**
+     * Content of a quoted string literal with backslash escapes resolved.
+     */
+    static String stringValue(String literal) {
+        StringBuilder value = new StringBuilder(literal.length());
+        for (int i = 1; i < literal.length() - 1; i++) {
+            char c = literal.charAt(i);
+            if (c == '\\' && i + 1 < literal.length() - 1) {
+                c = literal.charAt(++i);
+            }
+            value.append(c);
+        }
+        return value.toString();
+    }
+
+    private static String literalValue(SqlToken token) {
+        return token.is(SqlTokenType.STRING) ? stringValue(token.getText()) : token.getText();
+    }
+
+    private static boolean hasRows(Map<String, Object> entry) {
+        return entry.get("results") instanceof Map<?, ?> results
+                && results.get("rows") instanceof List<?> rows && !rows.isEmpty();
+    }
+
+    private static void addResultValues(EntityDictionary dictionary, Object results) {
+        if (!(results instanceof Map<?, ?> map) || !(map.get("columns") instanceof List<?> columns)
+                || !(map.get("rows") instanceof List<?> rows)) {
+            return;
+        }
+        for (int c = 0; c < columns.size(); c++) {
+            String column = String.valueOf(columns.get(c)).toLowerCase(Locale.ROOT);
+            SlotKind kind = PLAYER_COLUMNS.contains(column) ? SlotKind.PLAYER
+                    : TEAM_COLUMNS.contains(column) ? SlotKind.TEAM
+                    : SEASON_COLUMNS.contains(column) ? SlotKind.SEASON : null;
+            if (kind == null) {
+                continue;
+            }
+            for (Object row : rows) {
+                if (row instanceof List<?> values && c < values.size() && values.get(c) != null) {
+                    addValue(dictionary, kind, String.valueOf(values.get(c)));
+                }
+            }
+        }
+    }
+
+    static void addValue(EntityDictionary dictionary, SlotKind kind, String value) {
+        if (kind != SlotKind.SEASON) {
+            dictionary.addName(kind, value);
+            return;
+        }
+        try {
+            double season = Double.parseDouble(value);
+            if (season == Math.rint(season)) {
+                dictionary.addSeason((int) season);
+            }
+        } catch (NumberFormatException e) {
+            // Not a year
+        }
+    }
+
+    private static final class ParsedEntry {
+        private final String question;
+        private final String sql;
+        private final List<SqlToken> tokens;
+        // Token index and value of each literal, in SQL order
+        private final List<Integer> literals = new ArrayList<>();
+        private final List<String> values = new ArrayList<>();
+
+        private ParsedEntry(String question, String sql, List<SqlToken> tokens) {
+            this.question = question;
+            this.sql = sql;
+            this.tokens = tokens;
+        }
+
+        private static ParsedEntry parse(Map<String, Object> entry) {
+            String sql = QueryEntries.sqlOf(entry);
+            List<SqlToken> tokens;
+            try {
+                tokens = SqlLexer.tokenize(sql);
+            } catch (SqlParseException e) {
+                return null;
+            }
+            ParsedEntry parsed = new ParsedEntry((String) entry.get("query"), sql, tokens);
+            for (int i = 0; i < tokens.size(); i++) {
+                SqlToken token = tokens.get(i);
+                if (token.is(SqlTokenType.STRING) || token.is(SqlTokenType.NUMBER)) {
+                    parsed.literals.add(i);
+                    parsed.values.add(literalValue(token));
+                }
+            }
+            return parsed;
+        }
+    }
+
+    /**
+     * An entry's question with the slotted literal values located in it.
+     */
+    private static final class PatternShape {
+        private final String[] tokens;
+        private final SlotKind[] slots;
+        private final int[] binding;
+
+        private PatternShape(String[] tokens, SlotKind[] slots, int[] binding) {
+            this.tokens = tokens;
+            this.slots = slots;
+            this.binding = binding;
+        }
+
+        private static PatternShape of(ParsedEntry entry, List<Integer> varying, List<SqlTemplate.Literal> literals) {
+            List<String> question = SqlTemplateMatcher.tokens(entry.question);
+            int[] starts = new int[varying.size()];
+            int[] lengths = new int[varying.size()];
+            for (int i = 0; i < varying.size(); i++) {
+                String value = entry.values.get(varying.get(i));
+                SlotKind kind = literals.get(i).kind();
+                List<String> valueTokens = kind == SlotKind.SEASON || kind == SlotKind.NUMBER
+                        ? List.of(value) : SqlTemplateMatcher.tokens(value);
+                int found = valueTokens.isEmpty() ? -1 : find(question, valueTokens);
+                if (found < 0) {
+                    return null;
+                }
+                starts[i] = found;
+                lengths[i] = valueTokens.size();
+            }
+
+            // Literals with the same value share one slot; any other overlap is ambiguous
+            SlotKind[] kindAt = new SlotKind[question.size()];
+            int[] lengthAt = new int[question.size()];
+            for (int i = 0; i < varying.size(); i++) {
+                SlotKind kind = literals.get(i).kind();
+                if (kindAt[starts[i]] != null) {
+                    if (kindAt[starts[i]] != kind || lengthAt[starts[i]] != lengths[i]) {
+                        return null;
+                    }
+                    continue;
+                }
+                for (int p = 0; p < question.size(); p++) {
+                    if (kindAt[p] != null && p < starts[i] + lengths[i] && starts[i] < p + lengthAt[p]) {
+                        return null;
+                    }
+                }
+                kindAt[starts[i]] = kind;
+                lengthAt[starts[i]] = lengths[i];
+            }
+
+            List<String> tokens = new ArrayList<>();
+            List<SlotKind> slots = new ArrayList<>();
+            int[] ordinalAt = new int[question.size()];
+            int ordinal = 0;
+            for (int p = 0; p < question.size(); ) {
+                if (kindAt[p] != null) {
+                    ordinalAt[p] = ordinal++;
+                    tokens.add("{" + kindAt[p].name().toLowerCase(Locale.ROOT) + "}");
+                    slots.add(kindAt[p]);
+                    p += lengthAt[p];
+                } else {
+                    tokens.add(question.get(p));
+                    slots.add(null);
+                    p++;
+                }
+            }
+            int[] binding = new int[varying.size()];
+            for (int i = 0; i < varying.size(); i++) {
+                binding[i] = ordinalAt[starts[i]];
+            }
+            return new PatternShape(tokens.toArray(new String[0]), slots.toArray(new SlotKind[0]), binding);
+        }
+
+        /**
+         * @return Start of the only occurrence of {@code value}, or -1 if it is missing or repeated
+         */
+        private static int find(List<String> question, List<String> value) {
+            int found = -1;
+            for (int start = 0; start + value.size() <= question.size(); start++) {
+                if (question.subList(start, start + value.size()).equals(value)) {
+                    if (found >= 0) {
+                        return -1;
+                    }
+                    found = start;
+                }
+            }
+            return found;
+        }
+
+        private String key() {
+            return String.join(" ", tokens) + Arrays.toString(binding);
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.ragchatbot.service.template;
+
+import com.example.ragchatbot.service.BigQueryExecutionService;
+import com.example.ragchatbot.service.SqlQueryStorageService;
+import com.example.ragchatbot.service.metrics.PipelineMetrics;
+import com.example.ragchatbot.service.storage.QueryEntries;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Answers high-frequency question shapes from SQL templates mined from the query log, without
+ * calling Gemini. Templates and the entity dictionary are updated in the background from the
+ * entries logged since the last run; lookups read the last published {@link SqlTemplateMatcher}
+ * and never block on an update. With {@code sql.templates.dictionary.bigquery} on, the dictionary
+ * also gets every season, team and player in the dataset (loaded once), not only those already
+ * asked about.
+ */
+@Service
+public class SqlTemplateService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlTemplateService.class);
+
+    private final SqlQueryStorageService storageService;
+    private final BigQueryExecutionService bigQueryService;
+    private final PipelineMetrics metrics;
+    private final boolean enabled;
+    private final int minSupport;
+    private final long refreshIntervalMs;
+    private final boolean loadDictionaryFromBigQuery;
+    private final String tablePrefix;
+    private final ScheduledExecutorService refresher;
+
+    private volatile SqlTemplateMatcher matcher = SqlTemplateMatcher.empty();
+    // Owned by the refresher thread; the matcher gets a copy of the dictionary
+    private final Map<String, SqlTemplate> templatesBySignature = new LinkedHashMap<>();
+    private EntityDictionary knownEntities = new EntityDictionary();
+    private LocalDateTime minedThrough;
+    private long minedEntries = -1;
+    private Map<SlotKind, List<String>> datasetEntities;
+
+    @Autowired
+    public SqlTemplateService(SqlQueryStorageService storageService, BigQueryExecutionService bigQueryService,
+                              PipelineMetrics metrics,
+                              @Value("${sql.templates.enabled:true}") boolean enabled,
+                              @Value("${sql.templates.min-support:2}") int minSupport,
+                              @Value("${sql.templates.refresh-interval-ms:300000}") long refreshIntervalMs,
+                              @Value("${sql.templates.dictionary.bigquery:false}") boolean loadDictionaryFromBigQuery,
+                              @Value("${gcp.bigquery.dataset}") String datasetName,
+                              @Value("${gcp.bigquery.schema}") String schemaName) {
+        this.storageService = storageService;
+        this.bigQueryService = bigQueryService;
+        this.metrics = metrics;
+        this.enabled = enabled;
+        this.minSupport = Math.max(2, minSupport);
+        this.refreshIntervalMs = Math.max(1000, refreshIntervalMs);
+        this.loadDictionaryFromBigQuery = loadDictionaryFromBigQuery;
+        this.tablePrefix = "`" + datasetName + "." + schemaName + ".";
+        this.refresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "sql-template-miner");
+            thread.setDaemon(true);
+            return thread;
+        });
+        metrics.registerSqlTemplates(this, service -> service.matcher.getTemplates().size());
+        logger.info("SQL templates initialized: enabled={}, minSupport={}, refreshIntervalMs={}, dictionaryFromBigQuery={}",
+                enabled, this.minSupport, this.refreshIntervalMs, loadDictionaryFromBigQuery);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (enabled) {
+            refresher.scheduleWithFixedDelay(this::refreshSafely, 0, refreshIntervalMs, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdownNow();
+    }
+
+    /**
+     * @return The template SQL for the question, if one of the mined patterns matches it
+     */
+    public Optional<SqlTemplateMatcher.Match> match(String question) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        Optional<SqlTemplateMatcher.Match> match = matcher.match(question);
+        metrics.recordSqlTemplateLookup(match.isPresent());
+        return match;
+    }
+
+    /**
+     * Updates templates if the query log changed since the last run. The first run, or a log
+     * that shrank, mines the whole log once; later runs read only the entries logged since the
+     * newest one mined and re-mine just their signature groups, loaded through the store's
+     * signature index.
+     */
+    void refresh() throws InterruptedException {
+        long entries = storageService.countQueries();
+        if (entries == minedEntries && (datasetEntities != null || !loadDictionaryFromBigQuery)) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        boolean reload = minedEntries < 0 || entries < minedEntries || minedThrough == null;
+        int read;
+        int regrouped = 0;
+        if (reload) {
+            List<Map<String, Object>> snapshot = storageService.readAllQueriesSnapshot();
+            knownEntities = new EntityDictionary();
+            minedThrough = null;
+            for (Map<String, Object> entry : snapshot) {
+                addEntities(entry);
+            }
+            templatesBySignature.clear();
+            templatesBySignature.putAll(SqlTemplateMiner.mineBySignature(snapshot, minSupport));
+            if (datasetEntities != null) {
+                addDatasetEntities();
+            }
+            read = snapshot.size();
+        } else {
+            // Inclusive lower bound: entries sharing the cursor's timestamp are re-read, which is harmless
+            List<Map<String, Object>> added =
+                    storageService.findQueriesBetween(minedThrough, LocalDateTime.now().plusDays(1));
+            Set<String> signatures = new LinkedHashSet<>();
+            for (Map<String, Object> entry : added) {
+                addEntities(entry);
+                // Entries without a stored fingerprint are not in the signature index; the next full pass mines them
+                if (SqlTemplateMiner.signatureOf(entry) != null && QueryEntries.signatureKeyOf(entry) != null) {
+                    signatures.add(QueryEntries.signatureKeyOf(entry));
+                }
+            }
+            for (String signature : signatures) {
+                SqlTemplate template = SqlTemplateMiner
+                        .mineBySignature(storageService.findQueriesBySignature(signature), minSupport).get(signature);
+                if (template != null) {
+                    templatesBySignature.put(signature, template);
+                } else {
+                    templatesBySignature.remove(signature);
+                }
+            }
+            read = added.size();
+            regrouped = signatures.size();
+        }
+        if (loadDictionaryFromBigQuery && datasetEntities == null) {
+            try {
+                datasetEntities = loadDatasetEntities();
+                addDatasetEntities();
+            } catch (RuntimeException e) {
+                // Mine with the names from the log for now; the next run retries
+                logger.warn("SQL template dictionary load from BigQuery failed: error={}", e.getMessage());
+            }
+        }
+        EntityDictionary dictionary = knownEntities.copy();
+        List<SqlTemplate> templates = new ArrayList<>(templatesBySignature.values());
+        matcher = new SqlTemplateMatcher(templates, dictionary);
+        minedEntries = entries;
+        logger.info("SQL templates mined: reload={}, entriesRead={}, signaturesRemined={}, templates={}, patterns={}, "
+                        + "seasons={}, teams={}, players={}, durationMs={}",
+                reload, read, regrouped, templates.size(), templates.stream().mapToInt(t -> t.getPatterns().size()).sum(),
+                dictionary.size(SlotKind.SEASON), dictionary.size(SlotKind.TEAM), dictionary.size(SlotKind.PLAYER),
+                System.currentTimeMillis() - start);
+    }
+
+    private void addEntities(Map<String, Object> entry) {
+        SqlTemplateMiner.addEntities(knownEntities, entry);
+        LocalDateTime timestamp = QueryEntries.timestampOf(entry);
+        if (timestamp != null && (minedThrough == null || timestamp.isAfter(minedThrough))) {
+            minedThrough = timestamp;
+        }
+    }
+
+    private void addDatasetEntities() {
+        datasetEntities.forEach((kind, values) ->
+                values.forEach(value -> SqlTemplateMiner.addValue(knownEntities, kind, value)));
+    }
+
+    private void refreshSafely() {
+        try {
+            refresh();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            // Keep serving the previous templates; the next run retries
+            logger.warn("SQL template mining failed: error={}", e.getMessage(), e);
+        }
+    }
+
+    private Map<SlotKind, List<String>> loadDatasetEntities() throws InterruptedException {
+        Map<SlotKind, List<String>> entities = new EnumMap<>(SlotKind.class);
+        addColumnValues(entities, "SELECT DISTINCT season FROM " + tablePrefix + "mbb_teams_games_sr`", SlotKind.SEASON);
+        addColumnValues(entities, "SELECT market, name FROM " + tablePrefix + "mbb_teams`", SlotKind.TEAM);
+        addColumnValues(entities, "SELECT DISTINCT full_name FROM " + tablePrefix + "mbb_players_games_sr` "
+                + "WHERE full_name IS NOT NULL", SlotKind.PLAYER);
+        logger.info("SQL template dictionary loaded from BigQuery: seasons={}, teams={}, players={}",
+                entities.get(SlotKind.SEASON).size(), entities.get(SlotKind.TEAM).size(), entities.get(SlotKind.PLAYER).size());
+        return entities;
+    }
+
+    private void addColumnValues(Map<SlotKind, List<String>> entities, String sql, SlotKind kind)
+            throws InterruptedException {
+        List<String> values = entities.computeIfAbsent(kind, k -> new ArrayList<>());
+        for (List<Object> row : bigQueryService.executeBackgroundQueryRich(sql, 0).getAllRows()) {
+            for (Object value : row) {
+                if (value != null) {
+                    values.add(String.valueOf(value));
+                }
+            }
+        }
+    }
+}
@@ -5,7 +5,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -29,14 +28,7 @@ public class BubbleChartStrategy implements VisualizationStrategy {
     @Override
     public Map<String, Object> format(TransformedData transformedData) {
         logger.debug("Formatting bubble chart from transformed data");
-        
-        Map<String, Object> graphData = new HashMap<>();
-        
-        // Copy all data from transformed data
-        graphData.putAll(transformedData.getData());
-        graphData.put("chartType", "bubble");
-        
-        return graphData;
+        return transformedData.viewWith("chartType", "bubble");
     }
     
     @Override
@@ -0,0 +1,53 @@
+package com.example.ragchatbot.service.visualization;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A generated query rewritten by {@link ChartQueryRewriter} to return only the rows a chart
+ * needs: the top categories plus an aggregated "Other" row.
+ */
+public class ChartQueryRewrite {
+
+    private final String originalSql;
+    private final String sql;
+    private final String chartType;
+    private final int maxCategories;
+
+    public ChartQueryRewrite(String originalSql, String sql, String chartType, int maxCategories) {
+        this.originalSql = originalSql;
+        this.sql = sql;
+        this.chartType = chartType;
+        this.maxCategories = maxCategories;
+    }
+
+    public String getOriginalSql() {
+        return originalSql;
+    }
+
+    /**
+     * @return The SQL to execute
+     */
+    public String getSql() {
+        return sql;
+    }
+
+    public String getChartType() {
+        return chartType;
+    }
+
+    /**
+     * @return The maximum number of rows the rewritten query returns, including "Other"
+     */
+    public int getMaxCategories() {
+        return maxCategories;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> map = new HashMap<>();
+        map.put("originalSql", originalSql);
+        map.put("chartType", chartType);
+        map.put("maxCategories", maxCategories);
+        return map;
+    }
+}
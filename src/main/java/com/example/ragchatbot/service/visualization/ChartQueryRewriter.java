@@ -0,0 +1,155 @@
+package com.example.ragchatbot.service.visualization;
+
+import com.example.ragchatbot.service.data.transformer.ChartDownsampling;
+import com.example.ragchatbot.service.sql.OrderItem;
+import com.example.ragchatbot.service.sql.SelectItem;
+import com.example.ragchatbot.service.sql.SelectQuery;
+import com.example.ragchatbot.service.sql.SqlExpression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Rewrites generated SQL for bar and pie charts so BigQuery returns only the rows the chart
+ * shows. A query grouping by one dimension with an additive measure ({@code SUM} or
+ * {@code COUNT}) is wrapped in an outer query that keeps the largest categories and sums the
+ * rest into a single "Other" row, using the same limits as {@link ChartDownsampling}. The kept
+ * categories are the first ones in the query's own order: an {@code ORDER BY} on the measure
+ * (either direction) ranks them, no {@code ORDER BY} means largest first, and any other order
+ * leaves the query unchanged.
+ *
+ * <p>Queries that do not match that shape, are already limited to the chart size, or are
+ * likely to be drawn as something else are left unchanged.
+ */
+@Component
+public class ChartQueryRewriter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChartQueryRewriter.class);
+
+    private static final Set<String> CATEGORY_CHART_TYPES = Set.of("bar", "pie");
+
+    private final QueryAnalyzer queryAnalyzer;
+    private final ChartDownsampling downsampling;
+    private final boolean enabled;
+
+    @Autowired
+    public ChartQueryRewriter(QueryAnalyzer queryAnalyzer,
+                              ChartDownsampling downsampling,
+                              @Value("${chart.sql-rewrite.enabled:true}") boolean enabled) {
+        this.queryAnalyzer = queryAnalyzer;
+        this.downsampling = downsampling;
+        this.enabled = enabled;
+    }
+
+    /**
+     * @param userQuery The question the SQL was generated for, used to predict the chart type
+     * @param sql The generated SQL
+     * @return The rewrite, or empty if the SQL should run as generated
+     */
+    public Optional<ChartQueryRewrite> rewrite(String userQuery, String sql) {
+        if (!enabled || sql == null || sql.isBlank()) {
+            return Optional.empty();
+        }
+        QueryIntent intent = queryAnalyzer.analyze(userQuery, sql, null);
+        String chartType = intent.getPreferredChartType();
+        SqlAnalysisResult analysis = intent.getSqlAnalysis();
+        if (!CATEGORY_CHART_TYPES.contains(chartType) || analysis == null || analysis.getStatement() == null
+                || analysis.hasTemporalGrouping()) {
+            return Optional.empty();
+        }
+
+        int maxCategories = downsampling.limitFor(chartType);
+        if (maxCategories == Integer.MAX_VALUE || maxCategories < 2) {
+            return Optional.empty();
+        }
+        SelectQuery query = analysis.getStatement().getQuery();
+        if (query.isCompound() || query.isDistinct() || query.getSelectItems().size() != 2
+                || query.getGroupBy().size() != 1) {
+            return Optional.empty();
+        }
+        if (query.hasLimit() && (query.getLimit() == null || query.getLimit() <= maxCategories)) {
+            return Optional.empty();
+        }
+
+        SelectItem first = query.getSelectItems().get(0);
+        SelectItem second = query.getSelectItems().get(1);
+        SelectItem measure = isAdditiveAggregate(second) ? second : isAdditiveAggregate(first) ? first : null;
+        SelectItem dimension = measure == second ? first : second;
+        if (measure == null || isAdditiveAggregate(dimension) || dimension.isStar()
+                || measure.getOutputName() == null || dimension.getOutputName() == null) {
+            return Optional.empty();
+        }
+
+        String ranking = rankingOrder(query, measure);
+        if (ranking == null) {
+            return Optional.empty();
+        }
+
+        String rewritten = topCategoriesQuery(sql, quote(dimension.getOutputName()), quote(measure.getOutputName()),
+                ranking, maxCategories, measure == first);
+        logger.debug("Rewrote SQL for chart: chartType={}, maxCategories={}, dimension={}, measure={}",
+                chartType, maxCategories, dimension.getOutputName(), measure.getOutputName());
+        return Optional.of(new ChartQueryRewrite(sql, rewritten, chartType, maxCategories));
+    }
+
+    /**
+     * The direction (and null ordering) to rank categories by, taken from the query's ORDER BY.
+     *
+     * @return e.g. {@code "DESC"} or {@code "ASC NULLS LAST"}, or null if the query orders by
+     *         something other than the measure alone
+     */
+    private static String rankingOrder(SelectQuery query, SelectItem measure) {
+        if (query.getOrderBy().isEmpty()) {
+            return "DESC";
+        }
+        if (query.getOrderBy().size() != 1) {
+            return null;
+        }
+        OrderItem order = query.getOrderBy().get(0);
+        SqlExpression key = order.getExpression();
+        SelectItem target = query.resolveOrdinal(key);
+        if (target == null && key.getKind() == SqlExpression.Kind.COLUMN && key.getPath().size() <= 1) {
+            target = query.findSelectItem(key.getColumnName());
+        }
+        if (target != measure && !key.equals(measure.getExpression())) {
+            return null;
+        }
+        return (order.isDescending() ? "DESC" : "ASC")
+                + (order.getNullOrdering() != null ? " NULLS " + order.getNullOrdering() : "");
+    }
+
+    private static String topCategoriesQuery(String sql, String dimension, String measure, String ranking,
+                                             int maxCategories, boolean measureFirst) {
+        String category = "IF(chart_rank < " + maxCategories + ", CAST(" + dimension + " AS STRING), '"
+                + ChartDownsampling.OTHER_LABEL + "') AS " + dimension;
+        String total = "SUM(" + measure + ") AS " + measure;
+        return "SELECT " + (measureFirst ? total + ", " + category : category + ", " + total) + "\n"
+                + "FROM (\n"
+                + "  SELECT chart_source.*, ROW_NUMBER() OVER (ORDER BY " + measure + " " + ranking + ") AS chart_rank\n"
+                + "  FROM (\n" + stripTerminator(sql) + "\n  ) AS chart_source\n"
+                + ")\n"
+                + "GROUP BY " + (measureFirst ? 2 : 1) + "\n"
+                + "ORDER BY MIN(chart_rank)";
+    }
+
+    private static boolean isAdditiveAggregate(SelectItem item) {
+        return ChartDownsampling.isAdditiveAggregate(item.getExpression());
+    }
+
+    private static String quote(String identifier) {
+        return "`" + identifier.replace("`", "") + "`";
+    }
+
+    private static String stripTerminator(String sql) {
+        String trimmed = sql.trim();
+        while (trimmed.endsWith(";")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1).trim();
+        }
+        return trimmed;
+    }
+}
@@ -5,7 +5,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -26,11 +25,7 @@ public class MultiLineChartStrategy implements VisualizationStrategy {
     @Override
     public Map<String, Object> format(TransformedData transformedData) {
         logger.debug("Formatting multi-series line chart from transformed data");
-
-        Map<String, Object> graphData = new HashMap<>();
-        graphData.putAll(transformedData.getData());
-        graphData.put("chartType", "multi_line");
-        return graphData;
+        return transformedData.viewWith("chartType", "multi_line");
     }
 
     @Override
@@ -5,7 +5,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -28,14 +27,7 @@ public class PieChartStrategy implements VisualizationStrategy {
     @Override
     public Map<String, Object> format(TransformedData transformedData) {
         logger.debug("Formatting pie chart from transformed data");
-        
-        Map<String, Object> graphData = new HashMap<>();
-        
-        // Copy all data from transformed data
-        graphData.putAll(transformedData.getData());
-        graphData.put("chartType", "pie");
-        
-        return graphData;
+        return transformedData.viewWith("chartType", "pie");
     }
     
     @Override
@@ -1,9 +1,14 @@
 package com.example.ragchatbot.service.visualization;
 
+import com.example.ragchatbot.service.sql.SqlStatement;
+
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 /**
  * Contains the results of SQL pattern analysis for visualization intent detection.
@@ -14,16 +19,35 @@ public class SqlAnalysisResult {
     private final int groupByColumnCount;
     private final boolean hasLimit;
     private final List<String> groupByColumns;
+    private final Long limitValue;
+    private final boolean hasWindowFunction;
+    private final Set<String> referencedTables;
+    private final Set<String> referencedColumns;
+    private final SqlStatement statement;
     private final Map<String, Double> chartTypeScores;
     
     public SqlAnalysisResult(boolean hasTemporalGrouping, boolean hasAggregation,
                            int groupByColumnCount, boolean hasLimit,
                            List<String> groupByColumns) {
+        this(hasTemporalGrouping, hasAggregation, groupByColumnCount, hasLimit, groupByColumns,
+                null, false, Collections.emptySet(), Collections.emptySet(), null);
+    }
+    
+    public SqlAnalysisResult(boolean hasTemporalGrouping, boolean hasAggregation,
+                           int groupByColumnCount, boolean hasLimit,
+                           List<String> groupByColumns, Long limitValue,
+                           boolean hasWindowFunction, Set<String> referencedTables,
+                           Set<String> referencedColumns, SqlStatement statement) {
         this.hasTemporalGrouping = hasTemporalGrouping;
         this.hasAggregation = hasAggregation;
         this.groupByColumnCount = groupByColumnCount;
         this.hasLimit = hasLimit;
         this.groupByColumns = groupByColumns != null ? new ArrayList<>(groupByColumns) : new ArrayList<>();
+        this.limitValue = limitValue;
+        this.hasWindowFunction = hasWindowFunction;
+        this.referencedTables = referencedTables != null ? new LinkedHashSet<>(referencedTables) : new LinkedHashSet<>();
+        this.referencedColumns = referencedColumns != null ? new LinkedHashSet<>(referencedColumns) : new LinkedHashSet<>();
+        this.statement = statement;
         this.chartTypeScores = new HashMap<>();
         calculateScores();
     }
@@ -75,6 +99,32 @@ public class SqlAnalysisResult {
         return new ArrayList<>(groupByColumns);
     }
     
+    /**
+     * LIMIT value of the outermost query, or null when absent or parameterized.
+     */
+    public Long getLimitValue() {
+        return limitValue;
+    }
+    
+    public boolean hasWindowFunction() {
+        return hasWindowFunction;
+    }
+    
+    public Set<String> getReferencedTables() {
+        return new LinkedHashSet<>(referencedTables);
+    }
+    
+    public Set<String> getReferencedColumns() {
+        return new LinkedHashSet<>(referencedColumns);
+    }
+    
+    /**
+     * Parsed statement the analysis was derived from, or null when the SQL could not be parsed.
+     */
+    public SqlStatement getStatement() {
+        return statement;
+    }
+    
     public Map<String, Double> getChartTypeScores() {
         return new HashMap<>(chartTypeScores);
     }
@@ -1,111 +1,154 @@
 package com.example.ragchatbot.service.visualization;
 
+import com.example.ragchatbot.service.sql.SqlFeatureExtractor;
+import com.example.ragchatbot.service.sql.SqlFeatures;
+import com.example.ragchatbot.service.sql.SqlLexer;
+import com.example.ragchatbot.service.sql.SqlParseException;
+import com.example.ragchatbot.service.sql.SqlParser;
+import com.example.ragchatbot.service.sql.SqlStatement;
+import com.example.ragchatbot.service.sql.SqlToken;
+import com.example.ragchatbot.service.sql.SqlTokenType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * Analyzes SQL queries to detect patterns that indicate visualization preferences.
+ * SQL is parsed into an AST and all features are collected in one traversal; results are
+ * cached per normalized SQL text so repeated queries skip parsing entirely. SQL the parser
+ * does not understand falls back to keyword detection of aggregates, GROUP BY and LIMIT.
  */
 @Component
 public class SqlPatternAnalyzer {
-    
+
     private static final Logger logger = LoggerFactory.getLogger(SqlPatternAnalyzer.class);
-    
-    // Temporal column patterns
-    private static final String[] TEMPORAL_COLUMNS = {
-        "date", "time", "year", "season", "month", "day", "week",
-        "scheduled_date", "game_date", "timestamp", "datetime"
-    };
-    
-    // Aggregation function patterns
+
+    private static final int MAX_CACHE_ENTRIES = 256;
+
+    // Keyword detection for SQL the parser rejects
     private static final Pattern AGGREGATION_PATTERN = Pattern.compile(
         "\\b(SUM|AVG|COUNT|MAX|MIN|STDDEV|VARIANCE)\\s*\\(",
         Pattern.CASE_INSENSITIVE
     );
-    
-    // GROUP BY pattern
     private static final Pattern GROUP_BY_PATTERN = Pattern.compile(
         "GROUP\\s+BY\\s+([^\\s(]+(?:\\s*,\\s*[^\\s(]+)*)",
         Pattern.CASE_INSENSITIVE | Pattern.DOTALL
     );
-    
-    // LIMIT pattern
     private static final Pattern LIMIT_PATTERN = Pattern.compile(
         "\\bLIMIT\\s+(\\d+)",
         Pattern.CASE_INSENSITIVE
     );
-    
+
+    private final Map<String, SqlAnalysisResult> cache = Collections.synchronizedMap(
+        new LinkedHashMap<String, SqlAnalysisResult>(64, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, SqlAnalysisResult> eldest) {
+                return size() > MAX_CACHE_ENTRIES;
+            }
+        });
+
     /**
      * Analyzes SQL query to detect visualization patterns.
      */
     public SqlAnalysisResult analyze(String sql) {
         if (sql == null || sql.trim().isEmpty()) {
-            return new SqlAnalysisResult(false, false, 0, false, new ArrayList<>());
+            return emptyResult();
         }
-        
-        String sqlUpper = sql.toUpperCase();
-        boolean hasAggregation = hasAggregations(sqlUpper);
-        List<String> groupByColumns = extractGroupByColumns(sql);
-        boolean hasTemporalGrouping = hasTemporalGroupBy(groupByColumns);
-        boolean hasLimit = hasLimitClause(sqlUpper);
-        int groupByCount = groupByColumns.size();
-        
-        logger.debug("SQL analysis: hasAggregation={}, groupByCount={}, hasTemporal={}, hasLimit={}",
-                hasAggregation, groupByCount, hasTemporalGrouping, hasLimit);
-        
-        return new SqlAnalysisResult(hasTemporalGrouping, hasAggregation,
-                groupByCount, hasLimit, groupByColumns);
-    }
-    
-    private boolean hasAggregations(String sql) {
-        return AGGREGATION_PATTERN.matcher(sql).find();
-    }
-    
-    private boolean hasTemporalGroupBy(List<String> groupByColumns) {
-        if (groupByColumns.isEmpty()) {
-            return false;
+
+        String cacheKey = normalizeForCache(sql);
+        SqlAnalysisResult cached = cache.get(cacheKey);
+        if (cached != null) {
+            return cached;
         }
-        
-        String columnsLower = String.join(" ", groupByColumns).toLowerCase();
-        for (String temporal : TEMPORAL_COLUMNS) {
-            if (columnsLower.contains(temporal)) {
-                return true;
-            }
+
+        SqlAnalysisResult result;
+        try {
+            SqlStatement statement = SqlParser.parse(sql);
+            SqlFeatures features = SqlFeatureExtractor.extract(statement);
+            result = new SqlAnalysisResult(features.hasTemporalGrouping(), features.hasAggregation(),
+                    features.getGroupByColumns().size(), features.hasLimit(), features.getGroupByColumns(),
+                    features.getLimitValue(), features.hasWindowFunction(),
+                    features.getReferencedTables(), features.getReferencedColumns(), statement);
+
+            logger.debug("SQL analysis: hasAggregation={}, groupByCount={}, hasTemporal={}, hasLimit={}, limit={}, tables={}",
+                    result.hasAggregation(), result.getGroupByColumnCount(), result.hasTemporalGrouping(),
+                    result.hasLimit(), result.getLimitValue(), result.getReferencedTables());
+        } catch (SqlParseException e) {
+            logger.debug("Could not parse SQL for pattern analysis, using keyword detection: error={}", e.getMessage());
+            result = keywordAnalysis(sql);
         }
-        return false;
+
+        cache.put(cacheKey, result);
+        return result;
+    }
+
+    private SqlAnalysisResult emptyResult() {
+        return new SqlAnalysisResult(false, false, 0, false, new ArrayList<>());
     }
-    
-    private List<String> extractGroupByColumns(String sql) {
-        List<String> columns = new ArrayList<>();
-        Matcher matcher = GROUP_BY_PATTERN.matcher(sql);
-        
-        if (matcher.find()) {
-            String groupByClause = matcher.group(1);
-            // Split by comma and clean up column names
-            String[] parts = groupByClause.split(",");
-            for (String part : parts) {
-                // Remove table aliases and clean up
+
+    /**
+     * Best-effort analysis from keywords alone; has no statement, tables or columns.
+     */
+    private static SqlAnalysisResult keywordAnalysis(String sql) {
+        boolean hasAggregation = AGGREGATION_PATTERN.matcher(sql).find();
+        List<String> groupByColumns = new ArrayList<>();
+        Matcher groupBy = GROUP_BY_PATTERN.matcher(sql);
+        if (groupBy.find()) {
+            for (String part : groupBy.group(1).split(",")) {
                 String column = part.trim()
                     .replaceAll("^[a-zA-Z_][a-zA-Z0-9_]*\\.", "") // Remove table alias
-                    .replaceAll("\\s+.*$", ""); // Remove any trailing clauses
-                
+                    .replaceAll("\\s+.*$", "");
                 if (!column.isEmpty()) {
-                    columns.add(column);
+                    groupByColumns.add(column);
                 }
             }
         }
-        
-        return columns;
+        boolean hasTemporalGrouping = groupByColumns.stream().anyMatch(SqlFeatureExtractor::isTemporal);
+        Matcher limit = LIMIT_PATTERN.matcher(sql);
+        Long limitValue = null;
+        boolean hasLimit = limit.find();
+        if (hasLimit) {
+            try {
+                limitValue = Long.parseLong(limit.group(1));
+            } catch (NumberFormatException e) {
+                // Too large to be a meaningful row count; keep only that there is a LIMIT
+            }
+        }
+        return new SqlAnalysisResult(hasTemporalGrouping, hasAggregation, groupByColumns.size(), hasLimit,
+                groupByColumns, limitValue, false, Collections.emptySet(), Collections.emptySet(), null);
     }
-    
-    private boolean hasLimitClause(String sql) {
-        return LIMIT_PATTERN.matcher(sql).find();
+
+    /**
+     * Joins the SQL's tokens with single spaces, as {@link SqlLexer} splits them for the parser:
+     * whitespace and comments are dropped, so formatting-only differences share a cache entry,
+     * while literal values (e.g. LIMIT counts, filters) stay distinct. SQL that does not
+     * tokenize is keyed by its trimmed text.
+     */
+    static String normalizeForCache(String sql) {
+        List<SqlToken> tokens;
+        try {
+            tokens = SqlLexer.tokenize(sql);
+        } catch (SqlParseException e) {
+            return sql.trim();
+        }
+        StringBuilder builder = new StringBuilder(sql.length());
+        for (SqlToken token : tokens) {
+            if (token.is(SqlTokenType.EOF)) {
+                break;
+            }
+            if (builder.length() > 0) {
+                builder.append(' ');
+            }
+            builder.append(token.getText());
+        }
+        return builder.toString();
     }
 }
-
@@ -5,7 +5,6 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -26,13 +25,7 @@ public class TableStrategy implements VisualizationStrategy {
     @Override
     public Map<String, Object> format(TransformedData transformedData) {
         logger.debug("Formatting table from transformed data");
-        
-        Map<String, Object> tableData = new HashMap<>();
-        
-        // Copy all data from transformed data
-        tableData.putAll(transformedData.getData());
-        
-        return tableData;
+        return transformedData.getData();
     }
     
     @Override
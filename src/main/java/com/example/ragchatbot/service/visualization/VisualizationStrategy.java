@@ -22,7 +22,8 @@ public interface VisualizationStrategy {
      * Formats the transformed data into frontend visualization format.
      * 
      * @param transformedData The transformed data optimized for visualization
-     * @return A map containing the formatted visualization data for the frontend
+     * @return A read-only map containing the formatted visualization data for the frontend;
+     *         typically a view over the transformed data rather than a copy
      */
     Map<String, Object> format(TransformedData transformedData);
     
@@ -0,0 +1,184 @@
+package com.example.ragchatbot.util;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limiter whose limit adapts with AIMD (additive increase, multiplicative decrease),
+ * as in Netflix's concurrency-limits: a sample that was dropped by the backend (overload, quota,
+ * timeout) or took longer than the latency threshold multiplies the limit by the backoff ratio;
+ * a successful sample while at least half the limit is in use raises it by one. Callers over the
+ * limit wait in a bounded FIFO queue for a bounded time; when the queue is full they are
+ * rejected immediately.
+ */
+public final class AdaptiveConcurrencyLimiter {
+
+    /**
+     * Held while a call is in flight. Exactly one of the completion methods must be called.
+     */
+    public final class Permit {
+        private final long startNanos = System.nanoTime();
+        private boolean released;
+
+        /** The call succeeded; its latency feeds the limit. */
+        public void success() {
+            release(System.nanoTime() - startNanos, false);
+        }
+
+        /** The backend shed or timed out the call; the limit backs off. */
+        public void dropped() {
+            release(System.nanoTime() - startNanos, true);
+        }
+
+        /** The call failed for a reason unrelated to load; the limit is left alone. */
+        public void ignore() {
+            release(-1, false);
+        }
+
+        private void release(long latencyNanos, boolean didDrop) {
+            lock.lock();
+            try {
+                if (released) {
+                    return;
+                }
+                released = true;
+                inFlight--;
+                if (latencyNanos >= 0) {
+                    adjust(latencyNanos, didDrop);
+                }
+                permitAvailable.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double backoffRatio;
+    private final long latencyThresholdNanos;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition permitAvailable = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long rejections;
+
+    /**
+     * @param name Backend name, used in messages and metrics
+     * @param initialLimit Starting concurrency limit
+     * @param minLimit Floor the limit never backs off below
+     * @param maxLimit Ceiling the limit never grows past
+     * @param backoffRatio Multiplier applied on a drop, e.g. 0.9
+     * @param latencyThresholdMs Successful calls slower than this count as drops; 0 disables
+     * @param maxQueue Callers allowed to wait for a permit; further callers are rejected
+     * @param maxWaitMs Longest a queued caller waits before it is rejected
+     */
+    public AdaptiveConcurrencyLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                                      double backoffRatio, long latencyThresholdMs, int maxQueue, long maxWaitMs) {
+        this.name = name;
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.backoffRatio = backoffRatio;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMs);
+        this.maxQueue = Math.max(0, maxQueue);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMs);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+    }
+
+    /**
+     * Takes a permit, waiting in the queue if the limit is reached.
+     *
+     * @return The permit, or empty if the queue was full or the wait timed out
+     * @throws InterruptedException if interrupted while queued
+     */
+    public Optional<Permit> tryAcquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit && queued == 0) {
+                inFlight++;
+                return Optional.of(new Permit());
+            }
+            if (queued >= maxQueue) {
+                rejections++;
+                return Optional.empty();
+            }
+            queued++;
+            try {
+                long remaining = maxWaitNanos;
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        rejections++;
+                        return Optional.empty();
+                    }
+                    remaining = permitAvailable.awaitNanos(remaining);
+                }
+            } finally {
+                queued--;
+            }
+            inFlight++;
+            // More headroom may have opened up than this caller used
+            if (inFlight < (int) limit) {
+                permitAvailable.signal();
+            }
+            return Optional.of(new Permit());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void adjust(long latencyNanos, boolean didDrop) {
+        if (didDrop || (latencyThresholdNanos > 0 && latencyNanos > latencyThresholdNanos)) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (inFlight + 1 >= limit / 2) {
+            // inFlight was already decremented for this sample
+            limit = Math.min(maxLimit, limit + 1);
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejections() {
+        lock.lock();
+        try {
+            return rejections;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.ragchatbot.util;
+
+/**
+ * Count-based circuit breaker. While closed, the outcomes of the last {@code windowSize} calls
+ * are kept; once at least {@code minimumCalls} are recorded and the failure rate reaches the
+ * threshold, the breaker opens and rejects calls for {@code openMs}. It then goes half-open and
+ * lets {@code halfOpenCalls} trial calls through: all succeeding closes it again, any failing
+ * reopens it.
+ */
+public final class CircuitBreaker {
+
+    public enum State {
+        CLOSED, HALF_OPEN, OPEN
+    }
+
+    private final String name;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openMs;
+    private final int halfOpenCalls;
+
+    private final boolean[] window;
+    private int windowCount;
+    private int windowIndex;
+    private int windowFailures;
+
+    private State state = State.CLOSED;
+    private long openedAtMillis;
+    private int halfOpenStarted;
+    private int halfOpenSucceeded;
+    private long rejections;
+
+    /**
+     * @param name Backend name, used in messages and metrics
+     * @param windowSize Number of recent calls the failure rate is computed over
+     * @param minimumCalls Calls needed in the window before the breaker may open
+     * @param failureRateThreshold Failure rate (0-1) that opens the breaker
+     * @param openMs How long an open breaker rejects calls before trying again
+     * @param halfOpenCalls Trial calls allowed through while half-open
+     */
+    public CircuitBreaker(String name, int windowSize, int minimumCalls, double failureRateThreshold,
+                          long openMs, int halfOpenCalls) {
+        this.name = name;
+        this.window = new boolean[Math.max(1, windowSize)];
+        this.minimumCalls = Math.max(1, Math.min(window.length, minimumCalls));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openMs = openMs;
+        this.halfOpenCalls = Math.max(1, halfOpenCalls);
+    }
+
+    /**
+     * Asks to make a call. Every permitted call must be completed with exactly one of
+     * {@link #onSuccess()}, {@link #onFailure()} or {@link #onIgnored()}.
+     *
+     * @return false if the breaker is open, or half-open with all trial calls taken
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN) {
+            if (System.currentTimeMillis() - openedAtMillis < openMs) {
+                rejections++;
+                return false;
+            }
+            state = State.HALF_OPEN;
+            halfOpenStarted = 0;
+            halfOpenSucceeded = 0;
+        }
+        if (state == State.HALF_OPEN) {
+            if (halfOpenStarted >= halfOpenCalls) {
+                rejections++;
+                return false;
+            }
+            halfOpenStarted++;
+        }
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            if (++halfOpenSucceeded >= halfOpenCalls) {
+                state = State.CLOSED;
+                resetWindow();
+            }
+        } else if (state == State.CLOSED) {
+            record(false);
+        }
+    }
+
+    public synchronized void onFailure() {
+        if (state == State.HALF_OPEN) {
+            open();
+        } else if (state == State.CLOSED) {
+            record(true);
+            if (windowCount >= minimumCalls && windowFailures >= failureRateThreshold * windowCount) {
+                open();
+            }
+        }
+    }
+
+    /**
+     * The call ended without saying anything about the backend's health (cancelled, rejected
+     * locally, bad input); a half-open trial slot is handed back.
+     */
+    public synchronized void onIgnored() {
+        if (state == State.HALF_OPEN && halfOpenStarted > halfOpenSucceeded) {
+            halfOpenStarted--;
+        }
+    }
+
+    private void record(boolean failure) {
+        if (windowCount == window.length) {
+            if (window[windowIndex]) {
+                windowFailures--;
+            }
+        } else {
+            windowCount++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            windowFailures++;
+        }
+        windowIndex = (windowIndex + 1) % window.length;
+    }
+
+    private void open() {
+        state = State.OPEN;
+        openedAtMillis = System.currentTimeMillis();
+        resetWindow();
+    }
+
+    private void resetWindow() {
+        windowCount = 0;
+        windowIndex = 0;
+        windowFailures = 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized State getState() {
+        // Report half-open as soon as the open period is over, not only on the next call
+        if (state == State.OPEN && System.currentTimeMillis() - openedAtMillis >= openMs) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    /**
+     * Milliseconds until an open breaker lets a trial call through; 0 when not open.
+     */
+    public synchronized long getRetryAfterMillis() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openMs - (System.currentTimeMillis() - openedAtMillis));
+    }
+
+    public synchronized long getRejections() {
+        return rejections;
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.ragchatbot.util;
+
+/**
+ * Normalized SQL signature together with its 128-bit fingerprint.
+ * Two signatures are equal when their fingerprints are equal, so they can be compared and
+ * used as map keys without touching the (potentially long) normalized text.
+ */
+public final class SqlSignature {
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final String normalizedSql;
+    private final long high;
+    private final long low;
+
+    private SqlSignature(String normalizedSql, long high, long low) {
+        this.normalizedSql = normalizedSql;
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Builds a signature for text that is already normalized (see {@link SqlSignatureUtil#normalize(String)}).
+     */
+    public static SqlSignature of(String normalizedSql) {
+        long[] hash = Murmur3.hash128(normalizedSql);
+        return new SqlSignature(normalizedSql, hash[0], hash[1]);
+    }
+
+    public String getNormalizedSql() {
+        return normalizedSql;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    /**
+     * 64-bit fingerprint (upper half of the 128-bit hash).
+     */
+    public long fingerprint64() {
+        return high;
+    }
+
+    /**
+     * 128-bit fingerprint as 32 lower-case hex characters, suitable for persisting.
+     */
+    public String toHex() {
+        char[] out = new char[32];
+        writeHex(out, 0, high);
+        writeHex(out, 16, low);
+        return new String(out);
+    }
+
+    private static void writeHex(char[] out, int offset, long value) {
+        for (int i = 15; i >= 0; i--) {
+            out[offset + i] = HEX[(int) (value & 0xF)];
+            value >>>= 4;
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        }
+        return other instanceof SqlSignature signature && high == signature.high && low == signature.low;
+    }
+
+    @Override
+    public int hashCode() {
+        return (int) (low ^ (low >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return toHex();
+    }
+
+    /**
+     * MurmurHash3 x64 128-bit over the UTF-16LE code units of a string, seed 0.
+     */
+    static final class Murmur3 {
+        private static final long C1 = 0x87c37b91114253d5L;
+        private static final long C2 = 0x4cf5ad432745937fL;
+
+        private Murmur3() {
+        }
+
+        static long[] hash128(String text) {
+            int length = text.length();
+            long h1 = 0;
+            long h2 = 0;
+            int index = 0;
+            int blockEnd = length - (length % 8);
+            while (index < blockEnd) {
+                long k1 = pack(text, index, 4);
+                long k2 = pack(text, index + 4, 4);
+                index += 8;
+
+                h1 ^= mixK1(k1);
+                h1 = Long.rotateLeft(h1, 27);
+                h1 += h2;
+                h1 = h1 * 5 + 0x52dce729;
+
+                h2 ^= mixK2(k2);
+                h2 = Long.rotateLeft(h2, 31);
+                h2 += h1;
+                h2 = h2 * 5 + 0x38495ab5;
+            }
+
+            int remaining = length - index;
+            if (remaining > 4) {
+                h2 ^= mixK2(pack(text, index + 4, remaining - 4));
+            }
+            if (remaining > 0) {
+                h1 ^= mixK1(pack(text, index, Math.min(remaining, 4)));
+            }
+
+            long byteLength = 2L * length;
+            h1 ^= byteLength;
+            h2 ^= byteLength;
+            h1 += h2;
+            h2 += h1;
+            h1 = fmix64(h1);
+            h2 = fmix64(h2);
+            h1 += h2;
+            h2 += h1;
+            return new long[]{h1, h2};
+        }
+
+        private static long pack(String text, int start, int count) {
+            long value = 0;
+            for (int i = 0; i < count; i++) {
+                value |= ((long) text.charAt(start + i)) << (16 * i);
+            }
+            return value;
+        }
+
+        private static long mixK1(long k1) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            return k1 * C2;
+        }
+
+        private static long mixK2(long k2) {
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            return k2 * C1;
+        }
+
+        private static long fmix64(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+}
@@ -19,6 +19,8 @@ public final class SqlSignatureUtil {
 
     /**
      * Normalizes SQL text by stripping literals and collapsing whitespace.
+     * Single- and double-quoted literals become {@code ''} / {@code ""}, standalone numbers
+     * become {@code #}, whitespace runs collapse to one space and the result is upper-cased.
      *
      * @param sql Raw SQL text
      * @return Normalized signature safe for matching, or null if input empty
@@ -33,6 +35,26 @@ public final class SqlSignatureUtil {
             return null;
         }
 
+        String normalized = normalizeSinglePass(trimmed);
+        return normalized != null ? normalized : normalizeWithRegex(trimmed);
+    }
+
+    /**
+     * Normalizes SQL and fingerprints the result.
+     *
+     * @param sql Raw SQL text
+     * @return Signature with its 128-bit fingerprint, or null if input empty
+     */
+    public static SqlSignature signature(String sql) {
+        String normalized = normalize(sql);
+        return normalized != null ? SqlSignature.of(normalized) : null;
+    }
+
+    /**
+     * Reference implementation: the original four regex passes. Used as the fallback for
+     * malformed quoting and as the baseline in benchmarks and tests.
+     */
+    static String normalizeWithRegex(String trimmed) {
         // Replace string and double-quoted literals with placeholders
         String withoutStrings = STRING_LITERAL.matcher(trimmed).replaceAll("''");
         withoutStrings = DOUBLE_QUOTE_LITERAL.matcher(withoutStrings).replaceAll("\"\"");
@@ -44,5 +66,141 @@ public final class SqlSignatureUtil {
         String collapsed = EXTRA_WHITESPACE.matcher(withoutNumbers).replaceAll(" ").trim();
         return collapsed.toUpperCase(Locale.ENGLISH);
     }
-}
 
+    /**
+     * Hand-written lexer equivalent to {@link #normalizeWithRegex(String)} for well-formed input.
+     * Returns null for input the regexes treat specially through backtracking (an unterminated
+     * literal, or a single quote inside a double-quoted span) and for non-ASCII text outside
+     * literals, whose word-boundary and upper-casing rules are left to the regex path.
+     */
+    static String normalizeSinglePass(String trimmed) {
+        int length = trimmed.length();
+        StringBuilder out = new StringBuilder(length);
+        boolean pendingSpace = false;
+        // Last character of the literal-stripped text, used for \b decisions
+        char previous = ' ';
+        int i = 0;
+        while (i < length) {
+            char c = trimmed.charAt(i);
+            if (isRegexWhitespace(c)) {
+                pendingSpace = true;
+                previous = c;
+                i++;
+                continue;
+            }
+            if (pendingSpace) {
+                out.append(' ');
+                pendingSpace = false;
+            }
+
+            if (c >= 0x80) {
+                return null;
+            }
+            if (c == '\'' || c == '"') {
+                int end = skipQuoted(trimmed, i, c);
+                if (end < 0) {
+                    return null;
+                }
+                out.append(c).append(c);
+                previous = c;
+                i = end;
+                continue;
+            }
+
+            if (!isWordChar(c)) {
+                out.append(c);
+                previous = c;
+                i++;
+                continue;
+            }
+
+            int wordEnd = i + 1;
+            while (wordEnd < length && isWordChar(trimmed.charAt(wordEnd))) {
+                wordEnd++;
+            }
+            if (!isWordChar(previous) && isAsciiDigit(c)) {
+                int numberEnd = matchNumber(trimmed, i, wordEnd);
+                if (numberEnd > 0) {
+                    out.append('#');
+                    previous = trimmed.charAt(numberEnd - 1);
+                    i = numberEnd;
+                    continue;
+                }
+            }
+            for (int j = i; j < wordEnd; j++) {
+                char w = trimmed.charAt(j);
+                out.append(w >= 'a' && w <= 'z' ? (char) (w - ('a' - 'A')) : w);
+            }
+            previous = trimmed.charAt(wordEnd - 1);
+            i = wordEnd;
+        }
+
+        return out.toString();
+    }
+
+    /**
+     * Returns the index after the closing quote of the literal starting at {@code start},
+     * treating a doubled quote as an escape, or -1 when the regex would need to backtrack.
+     */
+    private static int skipQuoted(String text, int start, char quote) {
+        int length = text.length();
+        int i = start + 1;
+        while (i < length) {
+            char c = text.charAt(i);
+            if (c == quote) {
+                if (i + 1 < length && text.charAt(i + 1) == quote) {
+                    i += 2;
+                    continue;
+                }
+                return i + 1;
+            }
+            if (quote == '"' && c == '\'') {
+                // The single-quote pass runs first and would start a literal here
+                return -1;
+            }
+            i++;
+        }
+        return -1;
+    }
+
+    /**
+     * Matches {@code \d+(?:\.\d+)?\b} at {@code start}, where {@code wordEnd} is the end of the
+     * word-character run beginning there. Returns the end of the match, or -1 if none.
+     */
+    private static int matchNumber(String text, int start, int wordEnd) {
+        int i = start;
+        while (i < wordEnd && isAsciiDigit(text.charAt(i))) {
+            i++;
+        }
+        if (i < wordEnd) {
+            // Digits run straight into another word character: no boundary
+            return -1;
+        }
+        int length = text.length();
+        if (i + 1 < length && text.charAt(i) == '.' && isAsciiDigit(text.charAt(i + 1))) {
+            int fraction = i + 1;
+            while (fraction < length && isAsciiDigit(text.charAt(fraction))) {
+                fraction++;
+            }
+            if (fraction >= length || !isWordChar(text.charAt(fraction))) {
+                return fraction;
+            }
+        }
+        return i;
+    }
+
+    private static boolean isRegexWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\u000B' || c == '\f' || c == '\r';
+    }
+
+    /**
+     * Regex word character ({@code \b} semantics) restricted to ASCII; non-ASCII input never reaches here.
+     */
+    private static boolean isWordChar(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || c == '_';
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.ragchatbot.util;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Blocking token-bucket rate limiter. Permits accrue at a fixed rate up to a burst capacity;
+ * callers that find the bucket empty reserve the next permit and sleep until it is due, so
+ * waiting threads are served in arrival order without holding the lock while sleeping.
+ */
+public final class TokenBucketRateLimiter {
+
+    private final double permitsPerSecond;
+    private final double capacity;
+    private final long nanosPerPermit;
+    private double availablePermits;
+    private long lastRefillNanos;
+
+    /**
+     * @param permitsPerSecond Sustained rate; values &lt;= 0 disable limiting
+     * @param burst Maximum permits that may be taken back to back after an idle period
+     */
+    public TokenBucketRateLimiter(double permitsPerSecond, int burst) {
+        this.permitsPerSecond = permitsPerSecond;
+        this.capacity = Math.max(1, burst);
+        this.nanosPerPermit = permitsPerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond) : 0;
+        this.availablePermits = this.capacity;
+        this.lastRefillNanos = System.nanoTime();
+    }
+
+    /**
+     * Takes one permit, waiting as long as necessary.
+     *
+     * @return Nanoseconds spent waiting
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public long acquire() throws InterruptedException {
+        if (permitsPerSecond <= 0) {
+            return 0;
+        }
+        long waitNanos = reserve();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return waitNanos;
+    }
+
+    public double getPermitsPerSecond() {
+        return permitsPerSecond;
+    }
+
+    private synchronized long reserve() {
+        long now = System.nanoTime();
+        availablePermits = Math.min(capacity, availablePermits + (now - lastRefillNanos) / (double) nanosPerPermit);
+        lastRefillNanos = now;
+        availablePermits -= 1;
+        if (availablePermits >= 0) {
+            return 0;
+        }
+        // Negative balance: this caller owns a permit that becomes available in the future
+        return (long) (-availablePermits * nanosPerPermit);
+    }
+}
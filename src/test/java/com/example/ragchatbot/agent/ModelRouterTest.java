@@ -0,0 +1,37 @@
+package com.example.ragchatbot.agent;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ModelRouterTest {
+
+    private final ModelRouter router = new ModelRouter(true, "flash", "pro", 12);
+
+    @Test
+    void simpleRankingQuestionsGoToTheFastModel() {
+        ModelRouter.ModelRoute route = router.route("Top 10 scorers in 2016");
+
+        assertThat(route.getModel()).isEqualTo("flash");
+        assertThat(route.isFast()).isTrue();
+        assertThat(router.route("Average points per game by season for Duke").isFast()).isTrue();
+        // Greetings and filler do not make a question long
+        assertThat(router.route("hi can you find the top 10 players of all time in this dataset").isFast()).isTrue();
+    }
+
+    @Test
+    void comparisonsConditionsAndLongQuestionsGoToTheProModel() {
+        assertThat(router.route("Compare Duke and Kentucky wins since 2010").getReason()).isEqualTo("complex_question");
+        assertThat(router.route("Players with at least 20 points in 2017").getModel()).isEqualTo("pro");
+        assertThat(router.route("Give me the top 5 players based on 3 pointers avg across all games from the seasons "
+                + "2003 to 2014 in the madison venue at home games during march").getReason()).isEqualTo("long_question");
+    }
+
+    @Test
+    void singleModelRouterNeverPicksTheFastTier() {
+        ModelRouter single = ModelRouter.single("pro");
+
+        assertThat(single.route("Top 10 scorers in 2016").getModel()).isEqualTo("pro");
+        assertThat(single.route("Top 10 scorers in 2016").isFast()).isFalse();
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.ragchatbot.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.spy;
+
+class QueryLogWriterTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path storageFile;
+    private SqlQueryStorageService storageService;
+
+    @BeforeEach
+    void setUp() {
+        storageFile = tempDir.resolve("sql-queries.json");
+        storageService = new SqlQueryStorageService();
+        ReflectionTestUtils.setField(storageService, "storageFilePath", storageFile.toString());
+        ReflectionTestUtils.setField(storageService, "maxResultRows", 100);
+        storageService.initialize();
+    }
+
+    @Test
+    void batchesQueuedEntriesAndFlushesOnShutdown() throws Exception {
+        QueryLogWriter writer = new QueryLogWriter(storageService, true, 100, 10, 50,
+                QueryLogWriter.OverflowPolicy.BLOCK, 50, 5000);
+        writer.start();
+
+        for (int i = 0; i < 25; i++) {
+            assertThat(writer.enqueue("query " + i, "SELECT " + i, null, Map.of("normalizedSql", "select ?"))).isTrue();
+        }
+        writer.enqueue("QUERY 0", "SELECT 0", null, null);
+        writer.shutdown();
+
+        List<Map<String, Object>> stored = readStored();
+        assertThat(stored).hasSize(25);
+        assertThat(stored.get(0)).containsEntry("normalizedSql", "select ?");
+        assertThat(writer.getStats()).containsEntry("written", 25L).containsEntry("dropped", 0L);
+        assertThat((Long) writer.getStats().get("batches")).isLessThan(25L);
+        assertThat(Files.exists(tempDir.resolve("sql-queries.json.tmp"))).isFalse();
+    }
+
+    @Test
+    void overflowPolicyDecidesWhichEntriesSurvive() throws Exception {
+        SqlQueryStorageService blockedStorage = spy(storageService);
+        CountDownLatch writerBusy = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            writerBusy.countDown();
+            release.await();
+            return invocation.callRealMethod();
+        }).when(blockedStorage).storeQueries(anyList());
+
+        QueryLogWriter writer = new QueryLogWriter(blockedStorage, true, 2, 1, 0,
+                QueryLogWriter.OverflowPolicy.DROP_OLDEST, 0, 5000);
+        writer.start();
+        writer.enqueue("in flight", "SELECT 0", null, null);
+        writerBusy.await();
+        for (int i = 1; i <= 4; i++) {
+            assertThat(writer.enqueue("query " + i, "SELECT " + i, null, null)).isTrue();
+        }
+        release.countDown();
+        assertThat(writer.flush(5000)).isTrue();
+        writer.shutdown();
+
+        assertThat(readStored()).extracting(entry -> entry.get("query"))
+                .containsExactly("in flight", "query 3", "query 4");
+        assertThat(writer.getStats()).containsEntry("dropped", 2L);
+    }
+
+    @Test
+    void entriesEnqueuedWhileShuttingDownAreNotLost() throws Exception {
+        QueryLogWriter writer = new QueryLogWriter(storageService, true, 1000, 10, 0,
+                QueryLogWriter.OverflowPolicy.BLOCK, 50, 5000);
+        writer.start();
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int producer = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    go.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int i = 0; i < 50; i++) {
+                    writer.enqueue("query " + producer + " " + i, "SELECT " + i, null, null);
+                }
+            });
+            thread.start();
+            producers.add(thread);
+        }
+
+        go.countDown();
+        writer.shutdown();
+        for (Thread thread : producers) {
+            thread.join();
+        }
+
+        assertThat(readStored()).hasSize(200);
+        assertThat(writer.getStats()).containsEntry("written", 200L).containsEntry("dropped", 0L);
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> readStored() throws Exception {
+        return new ObjectMapper().readValue(Files.readString(storageFile), List.class);
+    }
+}
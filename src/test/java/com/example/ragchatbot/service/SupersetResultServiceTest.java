@@ -0,0 +1,94 @@
+package com.example.ragchatbot.service;
+
+import com.example.ragchatbot.service.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SupersetResultServiceTest {
+
+    private static final String SCORERS = "SELECT full_name, SUM(points) AS total_points FROM games "
+            + "WHERE season = %d GROUP BY full_name ORDER BY total_points DESC LIMIT %d";
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private final SqlQueryStorageService storage = mock(SqlQueryStorageService.class);
+    private final SupersetResultService service = new SupersetResultService(storage,
+            new PipelineMetrics(new SimpleMeterRegistry()), true, 2, 30000);
+
+    @Test
+    void loadsTheNewestEntriesOnceThenAppliesOnlyNewOnes() {
+        Map<String, Object> season2016 = storedEntry(2016, BASE);
+        when(storage.countQueries()).thenReturn(1L);
+        when(storage.findNewestQueries(2)).thenReturn(List.of(season2016));
+        service.refresh();
+
+        assertThat(service.derive(String.format(SCORERS, 2016, 2))).isPresent();
+        assertThat(service.derive(String.format(SCORERS, 2017, 2))).isEmpty();
+
+        when(storage.countQueries()).thenReturn(2L);
+        when(storage.findQueriesBetween(eq(BASE), any())).thenReturn(List.of(season2016, storedEntry(2017, BASE.plusMinutes(1))));
+        service.refresh();
+        // Unchanged count: nothing is read
+        service.refresh();
+
+        assertThat(service.derive(String.format(SCORERS, 2016, 2))).isPresent();
+        assertThat(service.derive(String.format(SCORERS, 2017, 1)).orElseThrow().getResult().getAllRows())
+                .containsExactly(List.of("A", "900"));
+        verify(storage, times(1)).findNewestQueries(anyInt());
+        verify(storage, times(1)).findQueriesBetween(any(), any());
+        verify(storage, never()).readAllQueriesSnapshot();
+    }
+
+    @Test
+    void oldestSqlIsEvictedPastMaxEntries() {
+        when(storage.countQueries()).thenReturn(1L);
+        when(storage.findNewestQueries(2)).thenReturn(List.of(storedEntry(2016, BASE)));
+        service.refresh();
+        when(storage.countQueries()).thenReturn(3L);
+        when(storage.findQueriesBetween(eq(BASE), any()))
+                .thenReturn(List.of(storedEntry(2017, BASE.plusMinutes(1)), storedEntry(2018, BASE.plusMinutes(2))));
+        service.refresh();
+
+        assertThat(service.derive(String.format(SCORERS, 2016, 2))).isEmpty();
+        assertThat(service.derive(String.format(SCORERS, 2017, 2))).isPresent();
+        assertThat(service.derive(String.format(SCORERS, 2018, 2))).isPresent();
+    }
+
+    @Test
+    void chartRewrittenResultsAreNotIndexed() {
+        Map<String, Object> rewritten = storedEntry(2016, BASE);
+        rewritten.put("analysis", Map.of("chartRewrite", Map.of("kind", "TOP_N_WITH_OTHER")));
+        when(storage.countQueries()).thenReturn(1L);
+        when(storage.findNewestQueries(2)).thenReturn(List.of(rewritten));
+        service.refresh();
+
+        assertThat(service.derive(String.format(SCORERS, 2016, 2))).isEmpty();
+    }
+
+    private static Map<String, Object> storedEntry(int season, LocalDateTime timestamp) {
+        Map<String, Object> results = new HashMap<>();
+        results.put("columns", List.of("full_name", "total_points"));
+        results.put("columnTypes", List.of("STRING", "INTEGER"));
+        results.put("rows", List.of(List.of("A", "900"), List.of("B", "850"), List.of("C", "800")));
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("query", "top scorers in " + season);
+        entry.put("sql", String.format(SCORERS, season, 3));
+        entry.put("timestamp", timestamp.toString());
+        entry.put("results", results);
+        return entry;
+    }
+}
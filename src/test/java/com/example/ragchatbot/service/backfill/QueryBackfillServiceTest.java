@@ -0,0 +1,152 @@
+package com.example.ragchatbot.service.backfill;
+
+import com.example.ragchatbot.service.BigQueryExecutionService;
+import com.example.ragchatbot.service.BigQueryTimeoutException;
+import com.example.ragchatbot.service.SqlQueryStorageService;
+import com.example.ragchatbot.service.data.BigQueryResult;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class QueryBackfillServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    private Path storageFile;
+    private SqlQueryStorageService storageService;
+    private BigQueryExecutionService bigQueryService;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        storageFile = tempDir.resolve("sql-queries.json");
+        Files.writeString(storageFile, "["
+                + "{\"query\":\"q1\",\"sql\":\"SELECT 1\"},"
+                + "{\"query\":\"q1 again\",\"sql\":\"SELECT 1\"},"
+                + "{\"query\":\"q2\",\"sql\":\"SELECT 2\"},"
+                + "{\"query\":\"q3\",\"sql\":\"SELECT 3\"},"
+                + "{\"query\":\"slow\",\"sql\":\"SELECT slow\"},"
+                + "{\"query\":\"broken\",\"sql\":\"SELECT broken\"},"
+                + "{\"query\":\"done\",\"sql\":\"SELECT done\",\"results\":{\"rows\":[]}}"
+                + "]");
+
+        storageService = new SqlQueryStorageService();
+        ReflectionTestUtils.setField(storageService, "storageFilePath", storageFile.toString());
+        ReflectionTestUtils.setField(storageService, "maxResultRows", 100);
+        storageService.initialize();
+        bigQueryService = mock(BigQueryExecutionService.class);
+    }
+
+    @Test
+    void executesPendingQueriesConcurrentlyWithoutHoldingStorageLock() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        when(bigQueryService.executeBackgroundQueryRich(anyString(), anyLong())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+            try {
+                // Chat traffic must not be blocked by a running backfill
+                storageService.storeQuery("stored during " + sql, "SELECT chat");
+                Thread.sleep(100);
+                if (sql.contains("slow")) {
+                    throw new BigQueryTimeoutException("Query did not complete within 50 ms");
+                }
+                if (sql.contains("broken")) {
+                    throw new RuntimeException("Query failed: syntax error");
+                }
+                return BigQueryResult.fromCachedData(List.of("n"), List.of("INT64"), List.of(List.of(sql.length())));
+            } finally {
+                running.decrementAndGet();
+            }
+        });
+
+        QueryBackfillService backfillService = new QueryBackfillService(storageService, bigQueryService, 3, 50, 0, 2);
+        Map<String, Object> stats = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> backfillService.processQueriesAndUpdateResults());
+
+        assertThat(stats).containsEntry("originalCount", 7)
+                .containsEntry("duplicatesRemoved", 1)
+                .containsEntry("queriesProcessed", 5)
+                .containsEntry("queriesSucceeded", 3)
+                .containsEntry("queriesFailed", 2)
+                .containsEntry("queriesTimedOut", 1)
+                .containsEntry("resultsPersisted", 3);
+        assertThat(maxRunning.get()).isGreaterThan(1);
+
+        List<Map<String, Object>> stored = readStored();
+        assertThat(stored).filteredOn(entry -> entry.get("results") != null)
+                .extracting(entry -> entry.get("sql"))
+                .containsExactlyInAnyOrder("SELECT 1", "SELECT 2", "SELECT 3", "SELECT done");
+        assertThat(stored).extracting(entry -> entry.get("query")).contains("stored during SELECT 2");
+    }
+
+    @Test
+    void rerunOnlyExecutesQueriesStillMissingResults() throws Exception {
+        when(bigQueryService.executeBackgroundQueryRich(anyString(), anyLong())).thenAnswer(invocation -> {
+            String sql = invocation.getArgument(0);
+            if (sql.contains("slow") || sql.contains("broken")) {
+                throw new RuntimeException("still failing");
+            }
+            return BigQueryResult.fromCachedData(List.of("n"), List.of("INT64"), List.of(List.of(1)));
+        });
+        QueryBackfillService backfillService = new QueryBackfillService(storageService, bigQueryService, 2, 1000, 0, 10);
+
+        backfillService.processQueriesAndUpdateResults();
+        Map<String, Object> second = backfillService.processQueriesAndUpdateResults();
+
+        assertThat(second).containsEntry("queriesProcessed", 2)
+                .containsEntry("queriesSucceeded", 0)
+                .containsEntry("duplicatesRemoved", 0);
+    }
+
+    @Test
+    void jobCanBeCancelledWhileRunning() throws Exception {
+        when(bigQueryService.executeBackgroundQueryRich(anyString(), anyLong())).thenAnswer(invocation -> {
+            Thread.sleep(10_000);
+            return BigQueryResult.fromCachedData(List.of("n"), List.of("INT64"), List.of(List.of(1)));
+        });
+        QueryBackfillService backfillService = new QueryBackfillService(storageService, bigQueryService, 1, 60_000, 0, 10);
+        BackfillJobManager manager = new BackfillJobManager(backfillService, 5);
+
+        BackfillJob job = manager.submit().orElseThrow();
+        assertThat(manager.submit()).isEmpty();
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            while (job.getProgress().getTotal() == 0) {
+                Thread.sleep(20);
+            }
+        });
+        assertThat(manager.cancel(job.getId())).contains(job);
+
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            while (!job.getState().isTerminal()) {
+                Thread.sleep(20);
+            }
+        });
+        assertThat(job.getState()).isEqualTo(BackfillJob.State.CANCELLED);
+        assertThat(job.getProgress().getTotal()).isEqualTo(5);
+        assertThat(job.getProgress().getSkipped()).isEqualTo(5);
+        assertThat(manager.getActiveJob()).isEmpty();
+        manager.shutdown();
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Map<String, Object>> readStored() throws Exception {
+        return new ObjectMapper().readValue(Files.readString(storageFile), List.class);
+    }
+}
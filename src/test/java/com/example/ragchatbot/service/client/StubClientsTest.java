@@ -0,0 +1,75 @@
+package com.example.ragchatbot.service.client;
+
+import com.example.ragchatbot.service.BigQueryExecutionService;
+import com.example.ragchatbot.service.BigQueryTimeoutException;
+import com.example.ragchatbot.service.data.BigQueryResult;
+import com.example.ragchatbot.service.metrics.PipelineMetrics;
+import com.google.cloud.bigquery.StandardSQLTypeName;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StubClientsTest {
+
+    private static final String RANKING_SQL = "SELECT full_name, AVG(points) AS avg_points, COUNT(*) AS games\n"
+            + "FROM `bigquery-public-data.ncaa_basketball.mbb_players_games_sr`\n"
+            + "GROUP BY full_name ORDER BY avg_points DESC LIMIT 10";
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @Test
+    void fabricatesResultsShapedLikeTheSelectList() throws InterruptedException {
+        StubBigQueryClient client = new StubBigQueryClient(0, 0, 0.0, 500, 500);
+
+        BigQueryJob job = client.submit("job-1", RANKING_SQL, 0);
+
+        assertThat(job.await(0)).isTrue();
+        assertThat(job.getError()).isNull();
+        BigQueryResult result = job.fetchResults();
+        assertThat(result.getColumnNames()).containsExactly("full_name", "avg_points", "games");
+        assertThat(result.getColumnTypes()).containsExactly(
+                StandardSQLTypeName.STRING, StandardSQLTypeName.FLOAT64, StandardSQLTypeName.INT64);
+        assertThat(result.getRowCount()).isEqualTo(10);
+        assertThat(result.getNumericColumns()).containsExactly("avg_points", "games");
+    }
+
+    @Test
+    void slowJobsHitTheServiceDeadline() {
+        StubBigQueryClient client = new StubBigQueryClient(2000, 2000, 0.0, 10, 10);
+        BigQueryExecutionService service = new BigQueryExecutionService(
+                client, new PipelineMetrics(registry), ObservationRegistry.NOOP);
+
+        assertThatThrownBy(() -> service.executeQueryRich(RANKING_SQL, 100))
+                .isInstanceOf(BigQueryTimeoutException.class);
+        assertThat(registry.get("ragchatbot.bigquery.query").tag("outcome", "timeout").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void injectedErrorsFailTheQuery() {
+        StubBigQueryClient client = new StubBigQueryClient(0, 0, 1.0, 10, 10);
+        BigQueryExecutionService service = new BigQueryExecutionService(
+                client, new PipelineMetrics(registry), ObservationRegistry.NOOP);
+
+        assertThatThrownBy(() -> service.executeQueryRich(RANKING_SQL))
+                .hasMessageContaining("injected error");
+        assertThat(registry.get("ragchatbot.bigquery.query").tag("outcome", "failure").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void geminiStubReplaysLoggedSqlForExtendedQuestions() {
+        StubGeminiClient gemini = new StubGeminiClient(List.of(
+                new StubGeminiClient.ReplayEntry("Top scorers in 2016", RANKING_SQL),
+                new StubGeminiClient.ReplayEntry("Top scorers", "SELECT 1 FROM t")), 0, 0, 0.0);
+
+        GeminiResponse response = gemini.generateContent("model",
+                "System prompt\n\nUser query: Top scorers in 2016? (run abc 7)\n\nGenerate a BigQuery SQL query");
+
+        assertThat(response.getText()).isEqualTo(RANKING_SQL);
+        assertThat(response.getTotalTokenCount()).isPositive();
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.ragchatbot.service.data;
+
+import com.google.cloud.bigquery.Field;
+import com.google.cloud.bigquery.FieldList;
+import com.google.cloud.bigquery.FieldValue;
+import com.google.cloud.bigquery.FieldValueList;
+import com.google.cloud.bigquery.LegacySQLTypeName;
+import com.google.cloud.bigquery.Schema;
+import com.google.cloud.bigquery.TableResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BigQueryResultTest {
+
+    @Test
+    void extractsEveryColumnOfLiveResultInOnePass() {
+        FieldList fields = FieldList.of(
+                Field.of("team_name", LegacySQLTypeName.STRING),
+                Field.of("wins", LegacySQLTypeName.INTEGER),
+                Field.of("pct", LegacySQLTypeName.FLOAT));
+        List<FieldValueList> rows = new ArrayList<>();
+        for (int row = 0; row < 3; row++) {
+            rows.add(FieldValueList.of(List.of(
+                    FieldValue.of(FieldValue.Attribute.PRIMITIVE, "team_" + row),
+                    FieldValue.of(FieldValue.Attribute.PRIMITIVE, String.valueOf(20 + row)),
+                    FieldValue.of(FieldValue.Attribute.PRIMITIVE, "0." + (5 + row))), fields));
+        }
+        TableResult tableResult = mock(TableResult.class);
+        when(tableResult.getSchema()).thenReturn(Schema.of(fields));
+        when(tableResult.getTotalRows()).thenReturn(3L);
+        when(tableResult.iterateAll()).thenReturn(rows);
+
+        BigQueryResult result = new BigQueryResult(tableResult);
+
+        assertThat(result.getColumn("team_name")).containsExactly("team_0", "team_1", "team_2");
+        assertThat(result.getColumnByIndex(1)).containsExactly("20", "21", "22");
+        assertThat(result.getColumn("pct")).containsExactly("0.5", "0.6", "0.7");
+        assertThat(result.getAllRows()).hasSize(3);
+        verify(tableResult, times(1)).iterateAll();
+    }
+}
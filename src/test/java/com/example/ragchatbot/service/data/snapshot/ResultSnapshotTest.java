@@ -0,0 +1,105 @@
+package com.example.ragchatbot.service.data.snapshot;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResultSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    private static final List<String> COLUMNS = List.of("team", "wins", "points", "ratio", "active", "mixed");
+    private static final List<String> TYPES = List.of("STRING", "INT64", "INT64", "FLOAT64", "BOOL", "STRING");
+    private static final List<List<Object>> ROWS = List.of(
+            Arrays.asList("Duke", 30, 3_000_000_000L, 0.75, true, "12"),
+            Arrays.asList("Kansas", null, 2_500_000_000L, null, false, 12),
+            Arrays.asList("Duke", 25, null, 1.5, null, null),
+            Arrays.asList("Gonzaga – Bulldogs", 28, 1L, -0.0, true, 4.5));
+
+    @Test
+    void roundTripsValuesWithTheirJavaTypes() throws Exception {
+        Path file = tempDir.resolve("result.rsnp");
+        ResultSnapshotWriter.write(file, "SELECT team FROM games", COLUMNS, TYPES, ROWS);
+
+        ResultSnapshot snapshot = ResultSnapshot.open(file);
+
+        assertThat(snapshot.getSql()).isEqualTo("SELECT team FROM games");
+        assertThat(snapshot.getRowCount()).isEqualTo(4);
+        assertThat(snapshot.getColumnName(3)).isEqualTo("ratio");
+        assertThat(snapshot.getColumnType(4)).isEqualTo("BOOL");
+        assertThat(snapshot.rows()).isEqualTo(ROWS);
+        assertThat(snapshot.getValue(0, 1)).isInstanceOf(Integer.class);
+        assertThat(snapshot.getValue(0, 2)).isInstanceOf(Long.class);
+        assertThat(snapshot.getValue(1, 5)).isInstanceOf(Integer.class);
+        assertThat(snapshot.getDouble(1, 2)).isEqualTo(2.5e9);
+        assertThat(snapshot.getDouble(1, 3)).isNaN();
+        assertThat(snapshot.column(0)).containsExactly("Duke", "Kansas", "Duke", "Gonzaga – Bulldogs");
+        // Dictionary strings are decoded once and shared
+        assertThat(snapshot.getValue(0, 0)).isSameAs(snapshot.getValue(2, 0));
+    }
+
+    @Test
+    void concurrentWritersOfTheSameSnapshotDoNotCollide() throws Exception {
+        Path file = tempDir.resolve("result.rsnp");
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> writes = new ArrayList<>();
+            for (int i = 0; i < 32; i++) {
+                writes.add(executor.submit(() -> {
+                    ResultSnapshotWriter.write(file, "SELECT team FROM games", COLUMNS, TYPES, ROWS);
+                    return null;
+                }));
+            }
+            for (Future<?> write : writes) {
+                write.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(ResultSnapshot.open(file).rows()).isEqualTo(ROWS);
+        try (Stream<Path> files = Files.list(tempDir)) {
+            assertThat(files).containsExactly(file);
+        }
+    }
+
+    @Test
+    void backsBigQueryResultWithoutChangingWhatTransformersSee() {
+        ResultSnapshot snapshot = ResultSnapshot.wrap(ResultSnapshotWriter.encode("SELECT 1", COLUMNS, TYPES, ROWS));
+
+        BigQueryResult fromSnapshot = BigQueryResult.fromSnapshot(snapshot);
+        BigQueryResult fromCache = BigQueryResult.fromCachedData(COLUMNS, TYPES, ROWS);
+
+        assertThat(fromSnapshot.getColumnNames()).isEqualTo(fromCache.getColumnNames());
+        assertThat(fromSnapshot.getColumnTypes()).isEqualTo(fromCache.getColumnTypes());
+        assertThat(fromSnapshot.getAllRows()).isEqualTo(fromCache.getAllRows());
+        assertThat(fromSnapshot.getColumn("wins")).isEqualTo(fromCache.getColumn("wins"));
+        assertThat(fromSnapshot.getNumericColumns()).isEqualTo(fromCache.getNumericColumns());
+    }
+
+    @Test
+    void handlesEmptyResultsAndRejectsUnsupportedValues() {
+        ResultSnapshot empty = ResultSnapshot.wrap(ResultSnapshotWriter.encode(null, List.of("n"), List.of("INT64"), List.of()));
+        assertThat(empty.getRowCount()).isZero();
+        assertThat(empty.getSql()).isNull();
+        assertThat(empty.rows()).isEmpty();
+
+        assertThatThrownBy(() -> ResultSnapshotWriter.encode("SELECT 1", List.of("tags"), List.of("STRING"),
+                List.of(List.of(List.of("nested")))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
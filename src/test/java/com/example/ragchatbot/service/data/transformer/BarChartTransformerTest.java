@@ -0,0 +1,62 @@
+package com.example.ragchatbot.service.data.transformer;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+import com.example.ragchatbot.service.data.TransformedData;
+import com.example.ragchatbot.service.visualization.QueryIntent;
+import com.example.ragchatbot.service.visualization.SqlPatternAnalyzer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BarChartTransformerTest {
+
+    private final BarChartTransformer transformer =
+            new BarChartTransformer(new ChartDownsampling(true, 1000, 500, 6, 10, 500));
+
+    @Test
+    void foldsSmallestCategoriesIntoOther() {
+        TransformedData transformed = transformer.transform(teams(40),
+                intent("SELECT team_name, SUM(win) AS wins FROM games GROUP BY team_name"));
+
+        assertThat(transformed.get("x")).asList()
+                .containsExactly("team_36", "team_37", "team_38", "team_39", "team_40", "Other");
+        // Other holds teams 1..35: 35 * 36 / 2
+        assertThat(transformed.get("y")).asList().containsExactly(36L, 37L, 38L, 39L, 40L, 630.0);
+        assertThat(transformed.get("labels")).asList().hasSize(6).endsWith("Other: 35 more");
+        assertThat(transformed.containsKey("truncated")).isFalse();
+    }
+
+    @Test
+    void truncatesNonAdditiveMeasuresInsteadOfSummingThem() {
+        TransformedData transformed = transformer.transform(teams(40),
+                intent("SELECT team_name, AVG(points) AS wins FROM games GROUP BY team_name"));
+
+        assertThat(transformed.get("x")).asList()
+                .containsExactly("team_35", "team_36", "team_37", "team_38", "team_39", "team_40");
+        assertThat(transformed.get("truncated")).isEqualTo(true);
+        assertThat(transformed.get("totalCategories")).isEqualTo(40);
+    }
+
+    @Test
+    void acceptsMoreRowsThanTheCategoryLimit() {
+        Map<String, Double> scores = Map.of("bar", 2.0);
+        assertThat(transformer.canTransform(teams(80), new QueryIntent(scores, "comparison"))).isTrue();
+    }
+
+    private static BigQueryResult teams(int count) {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int team = 1; team <= count; team++) {
+            rows.add(List.of("team_" + team, (long) team));
+        }
+        return BigQueryResult.fromCachedData(List.of("team_name", "wins"), List.of("STRING", "INT64"), rows);
+    }
+
+    private static QueryIntent intent(String sql) {
+        return new QueryIntent(Map.of("bar", 10.0), "comparison", false, null,
+                new SqlPatternAnalyzer().analyze(sql), 1.0);
+    }
+}
@@ -5,6 +5,7 @@ import com.example.ragchatbot.service.data.TransformedData;
 import com.example.ragchatbot.service.visualization.QueryIntent;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -115,6 +116,21 @@ class LineChartTransformerTest {
         assertThat(series).hasSize(2);
         assertThat(series.get(0).get("x")).asList().contains(2013, 2014);
     }
-}
 
+    @Test
+    void downsamplesLongSeriesKeepingEndpointsAndPeaks() {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int game = 0; game < 5000; game++) {
+            rows.add(List.of(game, game == 2500 ? 140.0 : 70.0 + (game % 7)));
+        }
+        BigQueryResult result = BigQueryResult.fromCachedData(
+                List.of("game_day", "points"), List.of("INT64", "FLOAT64"), rows);
 
+        LineChartTransformer transformer = new LineChartTransformer(new ChartDownsampling(true, 200, 100, 30, 10, 500));
+        TransformedData transformed = transformer.transform(result);
+
+        assertThat(transformed.get("x")).asList().hasSize(200).startsWith(0).endsWith(4999).contains(2500);
+        assertThat(transformed.get("y")).asList().hasSize(200).contains(140.0);
+        assertThat(transformed.get("labels")).asList().hasSize(200);
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.ragchatbot.service.data.transformer;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+import com.example.ragchatbot.service.data.TransformedData;
+import com.example.ragchatbot.service.visualization.QueryIntent;
+import com.example.ragchatbot.service.visualization.SqlPatternAnalyzer;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PieChartTransformerTest {
+
+    @Test
+    void drawsMoreRowsThanTheSliceLimitWithOther() {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int conference = 1; conference <= 15; conference++) {
+            rows.add(List.of("conference_" + conference, (long) conference));
+        }
+        BigQueryResult result = BigQueryResult.fromCachedData(
+                List.of("conference", "games"), List.of("STRING", "INT64"), rows);
+        QueryIntent intent = new QueryIntent(Map.of("pie", 10.0), "distribution", false, null,
+                new SqlPatternAnalyzer().analyze("SELECT conference, COUNT(*) AS games FROM g GROUP BY conference"), 1.0);
+
+        PieChartTransformer transformer = new PieChartTransformer(new ChartDownsampling(true, 1000, 500, 30, 12, 500));
+        assertThat(transformer.canTransform(result, intent)).isTrue();
+        TransformedData transformed = transformer.transform(result, intent);
+
+        assertThat(transformed.get("labels")).asList().hasSize(12).startsWith("conference_5").endsWith("Other");
+        // Other holds conferences 1..4
+        assertThat(transformed.get("values")).asList().endsWith(10.0);
+    }
+}
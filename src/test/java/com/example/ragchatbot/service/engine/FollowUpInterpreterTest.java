@@ -0,0 +1,74 @@
+package com.example.ragchatbot.service.engine;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FollowUpInterpreterTest {
+
+    private static final String PREVIOUS_SQL = "SELECT name, conference, wins, total_rebounds "
+            + "FROM `bigquery-public-data.ncaa_basketball.mbb_teams` ORDER BY wins DESC;";
+    // Stored results keep numbers as text
+    private static final ColumnarTable TEAMS = ColumnarTable.of(BigQueryResult.fromCachedData(
+            List.of("name", "conference", "wins", "total_rebounds"),
+            List.of("STRING", "STRING", "INT64", "INT64"),
+            List.of(
+                    List.of("Kansas", "Big 12", "31", "1320"),
+                    List.of("Duke", "ACC", "29", "1402"),
+                    List.of("Virginia", "ACC", "28", "1105"),
+                    Arrays.asList("Baylor", "Big 12", "26", null),
+                    List.of("North Carolina", "ACC", "26", "1510"))));
+
+    @Test
+    void valueFromTheResultFiltersAndSortKeepsTheFilter() {
+        LocalQuery query = interpret("Now just the ACC teams, sorted by rebounds").orElseThrow();
+
+        assertThat(rows(query.execute(TEAMS))).containsExactly(
+                List.of("North Carolina", "ACC", "26", "1510"),
+                List.of("Duke", "ACC", "29", "1402"),
+                List.of("Virginia", "ACC", "28", "1105"));
+        assertThat(query.toSql(PREVIOUS_SQL)).isEqualTo("SELECT * FROM (" + PREVIOUS_SQL.replace(";", "")
+                + ") AS previous WHERE conference IN ('ACC') ORDER BY total_rebounds DESC");
+    }
+
+    @Test
+    void topKAndAggregatesFollowSqlSemantics() {
+        // Ties keep input order; NULLs sort first ascending
+        assertThat(rows(interpret("bottom 2 by rebounds").orElseThrow().execute(TEAMS)))
+                .extracting(row -> row.get(0)).containsExactly("Baylor", "Virginia");
+        assertThat(rows(interpret("top 3 by wins").orElseThrow().execute(TEAMS)))
+                .extracting(row -> row.get(0)).containsExactly("Kansas", "Duke", "Virginia");
+
+        LocalQuery totals = interpret("total rebounds by conference").orElseThrow();
+        assertThat(rows(totals.execute(TEAMS))).containsExactly(
+                Arrays.asList("ACC", 4017L),
+                Arrays.asList("Big 12", 1320L));
+        assertThat(totals.toSql("SELECT 1")).isEqualTo("SELECT conference, SUM(total_rebounds) AS sum_total_rebounds "
+                + "FROM (SELECT 1) AS previous GROUP BY conference ORDER BY sum_total_rebounds DESC");
+        assertThat(rows(interpret("how many per conference with more than 27 wins").orElseThrow().execute(TEAMS)))
+                .containsExactly(Arrays.asList("ACC", 2L), Arrays.asList("Big 12", 1L));
+    }
+
+    @Test
+    void questionsWithWordsTheRulesDoNotExplainAreLeftToTheModel() {
+        assertThat(interpret("what about 2017 instead")).isEmpty();
+        assertThat(interpret("just the SEC teams")).isEmpty();
+        assertThat(interpret("sort by steals")).isEmpty();
+        assertThat(interpret("compare Duke and Kansas")).isEmpty();
+        assertThat(interpret("without Duke, only the name and wins columns").orElseThrow().toSql("t"))
+                .isEqualTo("SELECT name, wins FROM (t) AS previous WHERE name NOT IN ('Duke')");
+    }
+
+    private static Optional<LocalQuery> interpret(String question) {
+        return FollowUpInterpreter.interpret(question, TEAMS);
+    }
+
+    private static List<List<Object>> rows(ColumnarTable table) {
+        return table.toResult().getAllRows();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.ragchatbot.service.engine;
+
+import com.example.ragchatbot.service.SqlQueryStorageService;
+import com.example.ragchatbot.service.data.BigQueryResult;
+import com.example.ragchatbot.service.data.snapshot.ResultSnapshot;
+import com.example.ragchatbot.service.data.snapshot.ResultSnapshotWriter;
+import com.example.ragchatbot.service.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class FollowUpServiceTest {
+
+    private static final String QUESTION = "points by conference";
+    private static final String SQL = "SELECT conference, SUM(points) AS points FROM t GROUP BY conference";
+
+    private final SqlQueryStorageService storage = mock(SqlQueryStorageService.class);
+    private final FollowUpService service = new FollowUpService(storage,
+            new PipelineMetrics(new SimpleMeterRegistry()), true, 10, 100);
+
+    @Test
+    void answersFollowUpsOverARegisteredResult() {
+        String responseId = service.register(SQL, conferences(3)).orElseThrow();
+
+        FollowUpService.FollowUpAnswer answer = service.answer(responseId, "top 1 by points").orElseThrow();
+
+        assertThat(answer.getResult().getAllRows()).containsExactly(List.of("conference_3", "3"));
+        assertThat(answer.getSql()).startsWith("SELECT * FROM (" + SQL + ") AS previous");
+    }
+
+    @Test
+    void unknownIdsAndQuestionsOutsideTheRulesAreNotAnswered() {
+        String responseId = service.register(SQL, conferences(3)).orElseThrow();
+
+        assertThat(service.answer("no-such-response", "top 1 by points")).isEmpty();
+        assertThat(service.answer(null, "top 1 by points")).isEmpty();
+        assertThat(service.answer(responseId, "what about 2017 instead")).isEmpty();
+    }
+
+    @Test
+    void leastRecentlyUsedResultsAreEvicted() {
+        FollowUpService small = new FollowUpService(storage, new PipelineMetrics(new SimpleMeterRegistry()), true, 2, 100);
+        String first = small.register(SQL, conferences(3)).orElseThrow();
+        String second = small.register(SQL, conferences(3)).orElseThrow();
+        assertThat(small.answer(first, "top 1 by points")).isPresent();
+
+        small.register(SQL, conferences(3));
+
+        assertThat(small.answer(second, "top 1 by points")).isEmpty();
+        assertThat(small.answer(first, "top 1 by points")).isPresent();
+    }
+
+    @Test
+    void resultsOverTheRowLimitAreNotHeld() {
+        assertThat(service.register(SQL, conferences(101))).isEmpty();
+        assertThat(service.register(SQL, conferences(100))).isPresent();
+    }
+
+    @Test
+    void storedResultsAreLoadedOnceWhenFirstNeeded() {
+        storedEntry(false);
+        String responseId = service.registerStored(QUESTION).orElseThrow();
+        verifyNoInteractions(storage);
+
+        assertThat(service.answer(responseId, "top 1 by points")).isPresent();
+        assertThat(service.answer(responseId, "bottom 1 by points")).isPresent();
+        verify(storage, times(1)).findCachedResultsByQuery(QUESTION);
+    }
+
+    @Test
+    void truncatedStoredResultsAreNotHeldEvenWithASnapshot() {
+        storedEntry(true);
+        when(storage.findCachedSnapshot(anyString())).thenReturn(Optional.of(
+                ResultSnapshot.wrap(ResultSnapshotWriter.encode(SQL, List.of("conference", "points"),
+                        List.of("STRING", "INT64"), List.of(List.of("ACC", 120L))))));
+        String responseId = service.registerStored(QUESTION).orElseThrow();
+
+        assertThat(service.answer(responseId, "top 1 by points")).isEmpty();
+    }
+
+    @Test
+    void storedChartRewriteResultsAreNotHeld() {
+        Map<String, Object> entry = storedEntry(false);
+        entry.put("analysis", Map.of("chartRewrite", Map.of("maxCategories", 2)));
+        String responseId = service.registerStored(QUESTION).orElseThrow();
+
+        assertThat(service.answer(responseId, "top 1 by points")).isEmpty();
+    }
+
+    private static BigQueryResult conferences(int count) {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int conference = 1; conference <= count; conference++) {
+            rows.add(List.of("conference_" + conference, String.valueOf(conference)));
+        }
+        return BigQueryResult.fromCachedData(List.of("conference", "points"), List.of("STRING", "INT64"), rows);
+    }
+
+    private Map<String, Object> storedEntry(boolean truncated) {
+        Map<String, Object> results = new HashMap<>();
+        results.put("columns", List.of("conference", "points"));
+        results.put("columnTypes", List.of("STRING", "INT64"));
+        results.put("rows", List.of(List.of("ACC", "120"), List.of("Other", "300")));
+        results.put("truncated", truncated);
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("query", QUESTION);
+        entry.put("sql", SQL);
+        entry.put("results", results);
+        when(storage.findCachedResultsByQuery(anyString())).thenReturn(entry);
+        when(storage.getCachedResults(entry)).thenReturn(results);
+        when(storage.findCachedSnapshot(anyString())).thenReturn(Optional.empty());
+        return entry;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.ragchatbot.service.engine;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class GroupByOperatorTest {
+
+    private static final ColumnarTable GAMES = ColumnarTable.of(BigQueryResult.fromCachedData(
+            List.of("conference", "team", "points", "rating"),
+            List.of("STRING", "STRING", "INT64", "FLOAT64"),
+            List.of(
+                    Arrays.asList("ACC", "Duke", "80", "1.5"),
+                    Arrays.asList(null, "Gonzaga", "90", null),
+                    Arrays.asList("ACC", "Virginia", null, "0.5"),
+                    Arrays.asList("Big 12", "Kansas", "70", "2.0"),
+                    Arrays.asList(null, "Saint Mary's", "60", null),
+                    Arrays.asList("Big 12", "Baylor", null, null))));
+
+    @Test
+    void groupsInFirstAppearanceOrderWithNullAsAGroup() {
+        ColumnarTable grouped = new GroupByOperator(List.of("conference"),
+                List.of(Aggregate.of(Aggregate.Function.COUNT, null))).apply(GAMES);
+
+        assertThat(grouped.toResult().getAllRows()).containsExactly(
+                Arrays.asList("ACC", 2L),
+                Arrays.asList(null, 2L),
+                Arrays.asList("Big 12", 2L));
+    }
+
+    @Test
+    void aggregatesSkipNullsAndKeepSqlTypes() {
+        ColumnarTable grouped = new GroupByOperator(List.of("conference"), List.of(
+                Aggregate.of(Aggregate.Function.SUM, "points"),
+                Aggregate.of(Aggregate.Function.AVG, "points"),
+                Aggregate.of(Aggregate.Function.COUNT, "points"),
+                Aggregate.of(Aggregate.Function.MAX, "rating"))).apply(GAMES);
+
+        assertThat(grouped.toResult().getAllRows()).containsExactly(
+                Arrays.asList("ACC", 80L, 80.0, 1L, 1.5),
+                Arrays.asList(null, 150L, 75.0, 2L, null),
+                Arrays.asList("Big 12", 70L, 70.0, 1L, 2.0));
+        assertThat(grouped.getColumn(1).getType()).isEqualTo("INT64");
+        assertThat(grouped.getColumn(2).getType()).isEqualTo("FLOAT64");
+    }
+
+    @Test
+    void groupsByMultipleKeysAndAfterAFilter() {
+        ColumnarTable filtered = GAMES.withSelection(new int[] {3, 0, 5}, 3);
+
+        ColumnarTable grouped = new GroupByOperator(List.of("conference", "points"),
+                List.of(Aggregate.of(Aggregate.Function.COUNT, null))).apply(filtered);
+
+        assertThat(grouped.toResult().getAllRows()).containsExactly(
+                Arrays.asList("Big 12", "70", 1L),
+                Arrays.asList("ACC", "80", 1L),
+                Arrays.asList("Big 12", null, 1L));
+    }
+
+    @Test
+    void rejectsSumsOfTextAndUnknownColumns() {
+        assertThatThrownBy(() -> new GroupByOperator(List.of("conference"),
+                List.of(Aggregate.of(Aggregate.Function.SUM, "team"))).apply(GAMES))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new GroupByOperator(List.of("season"), List.of()).apply(GAMES))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
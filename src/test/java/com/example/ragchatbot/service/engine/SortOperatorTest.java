@@ -0,0 +1,70 @@
+package com.example.ragchatbot.service.engine;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SortOperatorTest {
+
+    private static final ColumnarTable TEAMS = ColumnarTable.of(BigQueryResult.fromCachedData(
+            List.of("team", "wins", "conference"),
+            List.of("STRING", "INT64", "STRING"),
+            List.of(
+                    Arrays.asList("Duke", "29", "ACC"),
+                    Arrays.asList("Baylor", null, "Big 12"),
+                    Arrays.asList("Kansas", "31", null),
+                    Arrays.asList("Virginia", "29", "ACC"),
+                    Arrays.asList("Gonzaga", "9", "WCC"))));
+
+    @Test
+    void sortsNumbersNumericallyWithNullsFirstAscendingAndLastDescending() {
+        assertThat(teams(new SortOperator(List.of(new SortKey("wins", false))).apply(TEAMS)))
+                .containsExactly("Baylor", "Gonzaga", "Duke", "Virginia", "Kansas");
+        assertThat(teams(new SortOperator(List.of(new SortKey("wins", true))).apply(TEAMS)))
+                .containsExactly("Kansas", "Duke", "Virginia", "Gonzaga", "Baylor");
+        assertThat(teams(new SortOperator(List.of(new SortKey("conference", true))).apply(TEAMS)))
+                .containsExactly("Gonzaga", "Baylor", "Duke", "Virginia", "Kansas");
+    }
+
+    @Test
+    void tiesKeepInputOrderAndFallThroughToLaterKeys() {
+        assertThat(teams(new SortOperator(List.of(new SortKey("conference", false))).apply(TEAMS)))
+                .containsExactly("Kansas", "Duke", "Virginia", "Baylor", "Gonzaga");
+        assertThat(teams(new SortOperator(List.of(new SortKey("wins", true), new SortKey("team", true))).apply(TEAMS)))
+                .containsExactly("Kansas", "Virginia", "Duke", "Gonzaga", "Baylor");
+    }
+
+    @Test
+    void topKReturnsTheSameRowsAsASortFollowedByALimit() {
+        Random random = new Random(7);
+        List<List<Object>> rows = new ArrayList<>();
+        for (int row = 0; row < 500; row++) {
+            rows.add(Arrays.asList("row_" + row, random.nextInt(10) == 0 ? null : String.valueOf(random.nextInt(50))));
+        }
+        ColumnarTable table = ColumnarTable.of(BigQueryResult.fromCachedData(
+                List.of("name", "value"), List.of("STRING", "INT64"), rows));
+
+        for (boolean descending : new boolean[] {false, true}) {
+            List<SortKey> keys = List.of(new SortKey("value", descending));
+            List<List<Object>> sorted = new SortOperator(keys).apply(table).toResult().getAllRows();
+            for (int k : new int[] {0, 1, 17, 499, 500, 600}) {
+                assertThat(new TopKOperator(keys, k).apply(table).toResult().getAllRows())
+                        .isEqualTo(sorted.subList(0, Math.min(k, sorted.size())));
+            }
+        }
+    }
+
+    private static List<Object> teams(ColumnarTable table) {
+        List<Object> teams = new ArrayList<>();
+        for (int row = 0; row < table.getRowCount(); row++) {
+            teams.add(table.getValue(row, 0));
+        }
+        return teams;
+    }
+}
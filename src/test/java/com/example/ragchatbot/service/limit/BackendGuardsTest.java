@@ -0,0 +1,110 @@
+package com.example.ragchatbot.service.limit;
+
+import com.example.ragchatbot.service.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BackendGuardsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private BackendGuards guards;
+
+    @AfterEach
+    void shutdown() {
+        guards.shutdown();
+    }
+
+    @Test
+    void hedgeAnswersWhenThePrimaryIsSlow() throws InterruptedException {
+        guards = guards(1000, true);
+        AtomicInteger attempts = new AtomicInteger();
+
+        long start = System.currentTimeMillis();
+        String answer = guards.gemini(RequestDeadline.none(), () -> {
+            if (attempts.getAndIncrement() == 0) {
+                Thread.sleep(5000);
+                return "primary";
+            }
+            return "hedge";
+        });
+
+        assertThat(answer).isEqualTo("hedge");
+        assertThat(System.currentTimeMillis() - start).isLessThan(2000);
+        assertThat(registry.get("ragchatbot.gemini.hedges").tag("outcome", "hedge_won").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void halfOpenBreakerWaitsForThePrimaryWithoutHedging() throws InterruptedException {
+        guards = new BackendGuards(new PipelineMetrics(registry), true, 0, 2000, 0,
+                4, 4, 0.5, 50, 1, true, 95, 50, 50);
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> guards.gemini(RequestDeadline.none(), () -> {
+                throw new IllegalStateException("backend error");
+            })).isInstanceOf(IllegalStateException.class);
+        }
+        Thread.sleep(100);
+        AtomicInteger attempts = new AtomicInteger();
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+
+        long cpuStart = threads.getCurrentThreadCpuTime();
+        String answer = guards.gemini(RequestDeadline.none(), () -> {
+            attempts.incrementAndGet();
+            Thread.sleep(500);
+            return "primary";
+        });
+
+        assertThat(answer).isEqualTo("primary");
+        assertThat(attempts).hasValue(1);
+        assertThat(registry.get("ragchatbot.gemini.hedges").tag("outcome", "skipped").counter().count()).isEqualTo(1);
+        // Waiting on the primary, not polling in a loop
+        assertThat(threads.getCurrentThreadCpuTime() - cpuStart).isLessThan(TimeUnit.MILLISECONDS.toNanos(200));
+    }
+
+    @Test
+    void slowGeminiCallIsCutOffAtTheDeadline() {
+        guards = guards(100, false);
+
+        assertThatThrownBy(() -> guards.gemini(RequestDeadline.none(), () -> {
+            Thread.sleep(5000);
+            return "late";
+        })).isInstanceOf(DeadlineExceededException.class);
+        assertThat(registry.get("ragchatbot.deadline.exceeded").tag("stage", "gemini").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void repeatedFailuresOpenTheCircuit() {
+        guards = guards(1000, false);
+        for (int i = 0; i < 4; i++) {
+            assertThatThrownBy(() -> guards.bigQuery(() -> {
+                throw new IllegalStateException("backend error");
+            })).isInstanceOf(IllegalStateException.class);
+        }
+
+        AtomicInteger calls = new AtomicInteger();
+        assertThatThrownBy(() -> guards.bigQuery(calls::incrementAndGet))
+                .isInstanceOf(CircuitOpenException.class);
+        assertThat(calls).hasValue(0);
+    }
+
+    @Test
+    void spentBudgetFailsBeforeCallingTheBackend() {
+        guards = guards(1000, false);
+        RequestDeadline deadline = RequestDeadline.startingAt(System.currentTimeMillis() - 2000, 1000);
+
+        assertThatThrownBy(() -> guards.bigQueryTimeoutMs(deadline)).isInstanceOf(DeadlineExceededException.class);
+    }
+
+    private BackendGuards guards(long geminiTimeoutMs, boolean hedge) {
+        return new BackendGuards(new PipelineMetrics(registry), true, 0, geminiTimeoutMs, 0,
+                4, 4, 0.5, 60_000, 1, hedge, 95, 50, 50);
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.ragchatbot.service.limit;
+
+import com.example.ragchatbot.service.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BackendLimitersTest {
+
+    @Test
+    void backgroundRejectionsDoNotShedChatTraffic() throws Exception {
+        BackendLimiters limiters = new BackendLimiters(new PipelineMetrics(new SimpleMeterRegistry()), true,
+                0.9, 0, 0, 60_000, 1, 1, 1, 0, 1, 1, 1, 0);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            executor.submit(() -> limiters.bigQuery(() -> {
+                holding.countDown();
+                return release.await(5, TimeUnit.SECONDS);
+            }));
+            assertThat(holding.await(5, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> limiters.backgroundBigQuery(() -> "backfill"))
+                    .isInstanceOf(BackendOverloadedException.class);
+            assertThat(limiters.isShedding()).isFalse();
+
+            assertThatThrownBy(() -> limiters.bigQuery(() -> "chat"))
+                    .isInstanceOf(BackendOverloadedException.class);
+            assertThat(limiters.isShedding()).isTrue();
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.ragchatbot.service.metrics;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PipelineMetricsTest {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final PipelineMetrics metrics = new PipelineMetrics(registry);
+
+    @Test
+    void recordsStageTimersAndTaggedCounters() {
+        metrics.recordBigQuery("success", 120);
+        metrics.recordBigQuery("success", 80);
+        metrics.recordBigQuery("timeout", 5000);
+        metrics.recordCacheLookup("rendered", true);
+        metrics.recordCacheLookup("rendered", false);
+        metrics.recordCacheLookup("rendered", false);
+        metrics.recordBigQueryBytesProcessed(1024L);
+        metrics.recordBigQueryBytesProcessed(null);
+        metrics.recordGeminiTokens(900, 60, null);
+
+        assertThat(registry.get("ragchatbot.bigquery.query").tag("outcome", "success").timer().count()).isEqualTo(2);
+        assertThat(registry.get("ragchatbot.bigquery.query").tag("outcome", "success").timer().totalTime(TimeUnit.MILLISECONDS))
+                .isEqualTo(200.0);
+        assertThat(registry.get("ragchatbot.bigquery.query").tag("outcome", "timeout").timer().count()).isEqualTo(1);
+        assertThat(registry.get("ragchatbot.cache.lookups").tag("result", "miss").counter().count()).isEqualTo(2.0);
+        assertThat(registry.get("ragchatbot.bigquery.bytes.processed").counter().count()).isEqualTo(1024.0);
+        assertThat(registry.get("ragchatbot.gemini.tokens").tag("type", "prompt").counter().count()).isEqualTo(900.0);
+        assertThat(registry.get("ragchatbot.gemini.tokens").tag("type", "total").counter().count()).isZero();
+    }
+}
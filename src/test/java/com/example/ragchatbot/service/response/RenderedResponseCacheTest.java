@@ -0,0 +1,79 @@
+package com.example.ragchatbot.service.response;
+
+import com.example.ragchatbot.service.data.transformer.BarChartTransformer;
+import com.example.ragchatbot.service.data.transformer.LineChartTransformer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RenderedResponseCacheTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ResponseBodyWriter bodyWriter = new ResponseBodyWriter(objectMapper);
+
+    @Test
+    void servesStoredBodyForSameNormalizedQueryAcrossRestarts() throws Exception {
+        RenderedResponseCache cache = new RenderedResponseCache(bodyWriter, "v1", true, 10, 1024, tempDir);
+        assertThat(cache.get("Top scorers?")).isEmpty();
+
+        cache.put("Top scorers?", Map.of("message", "Here you go", "fromCache", false));
+        cache.shutdown();
+
+        assertThat(readBody(cache.get("top  SCORERS").orElseThrow()))
+                .containsEntry("message", "Here you go")
+                .containsEntry("fromCache", true);
+
+        RenderedResponseCache restarted = new RenderedResponseCache(bodyWriter, "v1", true, 10, 1024, tempDir);
+        assertThat(restarted.get("top scorers")).isPresent();
+    }
+
+    @Test
+    void newPipelineVersionDiscardsOlderRenderings() throws Exception {
+        RenderedResponseCache cache = new RenderedResponseCache(bodyWriter, "v1", true, 10, 1024, tempDir);
+        cache.put("Top scorers?", Map.of("message", "old rendering"));
+        cache.put("huge", Map.of("message", "x".repeat(2048)));
+        cache.shutdown();
+        assertThat(cache.get("huge")).isEmpty();
+
+        RenderedResponseCache upgraded = new RenderedResponseCache(bodyWriter, "v2", true, 10, 1024, tempDir);
+
+        assertThat(upgraded.get("Top scorers?")).isEmpty();
+        assertThat(Files.exists(tempDir.resolve("v1"))).isFalse();
+    }
+
+    @Test
+    void pipelineVersionTracksPipelineCode() {
+        String base = ResponsePipelineVersion.of(List.of(BarChartTransformer.class), "");
+
+        assertThat(ResponsePipelineVersion.of(List.of(BarChartTransformer.class), null)).isEqualTo(base);
+        assertThat(ResponsePipelineVersion.of(List.of(LineChartTransformer.class), "")).isNotEqualTo(base);
+        assertThat(ResponsePipelineVersion.of(List.of(BarChartTransformer.class), "2")).isNotEqualTo(base);
+        assertThat(base).hasSize(16);
+        assertThat(ResponsePipelineVersion.of(List.of(BarChartTransformer.class), Map.of("chart.downsample.bar", 30), ""))
+                .isNotEqualTo(ResponsePipelineVersion.of(List.of(BarChartTransformer.class), Map.of("chart.downsample.bar", 20), ""));
+        // Member classes are digested with the class that declares them
+        assertThat(ResponsePipelineVersion.of(List.of(Outer.class), ""))
+                .isEqualTo(ResponsePipelineVersion.of(List.of(Outer.class, Outer.Inner.class), ""))
+                .isNotEqualTo(ResponsePipelineVersion.of(List.of(Outer.Inner.class), ""));
+    }
+
+    private static final class Outer {
+        private static final class Inner {
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> readBody(byte[] body) throws Exception {
+        return objectMapper.readValue(body, Map.class);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.ragchatbot.service.response;
+
+import com.example.ragchatbot.service.data.TableRows;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ResponseBodyWriterTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final ResponseBodyWriter writer = new ResponseBodyWriter(objectMapper, 1, 1024);
+
+    @Test
+    void matchesObjectMapperOutputForPaddedTableRows() throws Exception {
+        List<List<Object>> rows = List.of(
+                Arrays.asList("Duke", 31L, 0.78, true),
+                Arrays.asList("UNC", null),
+                List.of("Kansas", 28L, 0.71, false, "extra"));
+        Map<String, Object> tableData = new HashMap<>();
+        tableData.put("columns", List.of("team", "wins", "pct", "champion"));
+        tableData.put("rows", new TableRows(rows, 4));
+        tableData.put("asOf", LocalDate.of(2024, 4, 8));
+        Map<String, Object> body = new HashMap<>();
+        body.put("tableData", tableData);
+        body.put("message", "Here are the standings.");
+        body.put("fromCache", true);
+
+        byte[] written = writer.write(body, Map.of("fromCache", false));
+
+        Map<String, Object> expected = new HashMap<>(body);
+        expected.put("fromCache", false);
+        assertThat(objectMapper.readTree(written)).isEqualTo(objectMapper.readTree(objectMapper.writeValueAsBytes(expected)));
+        assertThat(objectMapper.readTree(written).at("/tableData/rows/1").toString()).isEqualTo("[\"UNC\",null,null,null]");
+    }
+
+    @Test
+    void pooledBufferIsResetBetweenResponses() throws Exception {
+        writer.write(Map.of("message", "x".repeat(500)), Map.of());
+
+        byte[] second = writer.write(Map.of("message", "short"), Map.of());
+
+        assertThat(new String(second)).isEqualTo("{\"message\":\"short\"}");
+    }
+
+    @Test
+    void fieldIsAddedInFrontOfASerializedBody() throws Exception {
+        byte[] body = writer.write(Map.of("message", "hi"), Map.of("fromCache", true));
+
+        byte[] withId = writer.withField(body, "responseId", "r-1");
+
+        assertThat(objectMapper.readTree(withId)).isEqualTo(objectMapper.readTree(
+                "{\"responseId\":\"r-1\",\"message\":\"hi\",\"fromCache\":true}"));
+        assertThat(new String(writer.withField("{}".getBytes(), "responseId", "r-1"))).isEqualTo("{\"responseId\":\"r-1\"}");
+    }
+}
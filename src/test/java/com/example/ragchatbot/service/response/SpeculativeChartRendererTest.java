@@ -0,0 +1,89 @@
+package com.example.ragchatbot.service.response;
+
+import com.example.ragchatbot.service.data.BigQueryResult;
+import com.example.ragchatbot.service.data.transformer.BarChartTransformer;
+import com.example.ragchatbot.service.data.transformer.BubbleChartTransformer;
+import com.example.ragchatbot.service.data.transformer.LineChartTransformer;
+import com.example.ragchatbot.service.data.transformer.PieChartTransformer;
+import com.example.ragchatbot.service.data.transformer.TableTransformer;
+import com.example.ragchatbot.service.data.transformer.TransformerFactory;
+import com.example.ragchatbot.service.visualization.QueryIntent;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.handler.DefaultTracingObservationHandler;
+import io.micrometer.tracing.test.simple.SimpleSpan;
+import io.micrometer.tracing.test.simple.SimpleTracer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpeculativeChartRendererTest {
+
+    private final SimpleTracer tracer = new SimpleTracer();
+    private final ObservationRegistry observationRegistry = ObservationRegistry.create();
+    private final SpeculativeChartRenderer renderer = new SpeculativeChartRenderer(
+            new TransformerFactory(List.of(new TableTransformer(), new BarChartTransformer(), new PieChartTransformer(),
+                    new BubbleChartTransformer(), new LineChartTransformer())),
+            true, 2, 2, 10, 5000, observationRegistry);
+
+    SpeculativeChartRendererTest() {
+        observationRegistry.observationConfig().observationHandler(new DefaultTracingObservationHandler(tracer));
+    }
+
+    @AfterEach
+    void tearDown() {
+        renderer.shutdown();
+    }
+
+    @Test
+    void rendersOtherCandidateChartTypesUnderHandle() {
+        BigQueryResult result = teamWins();
+        QueryIntent intent = new QueryIntent(Map.of("bar", 2.0, "pie", 3.0), "comparison");
+
+        Optional<Map<String, Object>> descriptor = renderer.speculate(result, intent, "bar",
+                transformer -> transformer.transform(result).getData());
+
+        assertThat(descriptor).isPresent();
+        assertThat(descriptor.get().get("chartTypes")).isEqualTo(List.of("pie"));
+        String handle = (String) descriptor.get().get("handle");
+        assertThat(renderer.getAlternate(handle, "pie")).hasValueSatisfying(
+                chart -> assertThat(chart.get("labels")).isEqualTo(List.of("team_0", "team_1", "team_2", "team_3", "team_4", "team_5")));
+        assertThat(renderer.getAlternate(handle, "bar")).isEmpty();
+        assertThat(renderer.getAlternate("unknown", "pie")).isEmpty();
+    }
+
+    @Test
+    void alternateRenderSpansJoinTheSubmittingTrace() {
+        BigQueryResult result = teamWins();
+        QueryIntent intent = new QueryIntent(Map.of("bar", 2.0, "pie", 3.0), "comparison");
+
+        Observation request = Observation.start("chat.format", observationRegistry);
+        Optional<Map<String, Object>> descriptor;
+        try (Observation.Scope scope = request.openScope()) {
+            descriptor = renderer.speculate(result, intent, "bar", transformer -> transformer.transform(result).getData());
+        }
+        assertThat(renderer.getAlternate((String) descriptor.orElseThrow().get("handle"), "pie")).isPresent();
+        request.stop();
+
+        SimpleSpan parent = tracer.getSpans().stream().filter(span -> span.getName().equals("chat.format")).findFirst().orElseThrow();
+        SimpleSpan alternate = tracer.getSpans().stream()
+                .filter(span -> span.getName().equals("chat.alternate.render")).findFirst().orElseThrow();
+        assertThat(alternate.getTraceId()).isEqualTo(parent.getTraceId());
+        assertThat(alternate.getParentId()).isEqualTo(parent.getSpanId());
+        assertThat(alternate.getTags()).containsEntry("chart.type", "pie");
+    }
+
+    private static BigQueryResult teamWins() {
+        List<List<Object>> rows = new ArrayList<>();
+        for (int row = 0; row < 6; row++) {
+            rows.add(List.of("team_" + row, 10.0 + row));
+        }
+        return BigQueryResult.fromCachedData(List.of("team_name", "wins"), List.of("STRING", "FLOAT64"), rows);
+    }
+}
@@ -0,0 +1,62 @@
+package com.example.ragchatbot.service.sql;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class QueryContainmentTest {
+
+    private static final String SCORERS = "SELECT full_name, SUM(points) AS total_points "
+            + "FROM `bigquery-public-data.ncaa_basketball.mbb_players_games_sr` WHERE season = 2016 "
+            + "GROUP BY full_name ORDER BY total_points DESC LIMIT %d";
+    private static final List<List<Object>> TOP_SCORERS = List.of(
+            List.of("A", "900"), List.of("B", "850"), List.of("C", "800"), List.of("D", "790"));
+
+    @Test
+    void smallerLimitInTheSameOrderIsTheStoredPrefix() {
+        Optional<QueryContainment> containment = check(String.format(SCORERS, 4), 4, String.format(SCORERS, 2));
+
+        assertThat(containment).isPresent();
+        assertThat(containment.get().apply(TOP_SCORERS)).containsExactly(List.of("A", "900"), List.of("B", "850"));
+        // Projecting and renaming columns of the stored result
+        Optional<QueryContainment> projected = check(String.format(SCORERS, 4), 4,
+                "SELECT SUM(points) AS pts FROM `bigquery-public-data.ncaa_basketball.mbb_players_games_sr` "
+                        + "WHERE season = 2016 GROUP BY full_name ORDER BY pts DESC LIMIT 1");
+        assertThat(projected.get().getColumnNames()).containsExactly("pts");
+        assertThat(projected.get().apply(TOP_SCORERS)).containsExactly(List.of("900"));
+    }
+
+    @Test
+    void reversedOrderNeedsTheCompleteResult() {
+        String bottom = String.format(SCORERS, 2).replace("DESC", "ASC");
+
+        // The stored rows are a top-4 cut, so its bottom rows are not the overall bottom
+        assertThat(check(String.format(SCORERS, 4), 4, bottom)).isEmpty();
+        // Fewer rows than the LIMIT: the stored rows are everything there is
+        Optional<QueryContainment> complete = check(String.format(SCORERS, 10), 4, bottom);
+        assertThat(complete).isPresent();
+        assertThat(complete.get().apply(TOP_SCORERS)).containsExactly(List.of("D", "790"), List.of("C", "800"));
+    }
+
+    @Test
+    void addedFiltersOnlyApplyToGroupingColumnsOfCompleteResults() {
+        String stored = String.format(SCORERS, 10);
+        String byName = String.format(SCORERS, 10).replace("season = 2016", "season = 2016 AND full_name IN ('B', 'D')");
+
+        Optional<QueryContainment> filtered = check(stored, 4, byName);
+        assertThat(filtered).isPresent();
+        assertThat(filtered.get().apply(TOP_SCORERS)).containsExactly(List.of("B", "850"), List.of("D", "790"));
+        // A filter on a column that was aggregated away changes the sums
+        assertThat(check(stored, 4, String.format(SCORERS, 10).replace("season = 2016", "season = 2016 AND points > 10")))
+                .isEmpty();
+        assertThat(check(stored, 4, String.format(SCORERS, 10).replace("2016", "2017"))).isEmpty();
+    }
+
+    private static Optional<QueryContainment> check(String stored, int storedRows, String query) {
+        return QueryContainment.check(SqlParser.parse(stored).getQuery(), storedRows, false,
+                SqlParser.parse(query).getQuery());
+    }
+}
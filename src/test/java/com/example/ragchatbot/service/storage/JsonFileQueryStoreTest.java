@@ -0,0 +1,12 @@
+package com.example.ragchatbot.service.storage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+class JsonFileQueryStoreTest extends QueryStoreContractTest {
+
+    @Override
+    protected QueryStore openStore(Path directory) throws IOException {
+        return new JsonFileQueryStore(directory.resolve("sql-queries.json"));
+    }
+}
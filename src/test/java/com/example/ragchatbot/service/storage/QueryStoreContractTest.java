@@ -0,0 +1,165 @@
+package com.example.ragchatbot.service.storage;
+
+import com.example.ragchatbot.util.SqlSignature;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Behaviour every {@link QueryStore} backend must share. Subclasses only say how to open a
+ * store in a directory.
+ */
+abstract class QueryStoreContractTest {
+
+    @TempDir
+    Path tempDir;
+
+    private QueryStore store;
+
+    protected abstract QueryStore openStore(Path directory) throws IOException;
+
+    @BeforeEach
+    void openStore() throws IOException {
+        store = openStore(tempDir);
+    }
+
+    @AfterEach
+    void closeStore() throws IOException {
+        store.close();
+    }
+
+    @Test
+    void insertSkipsQueriesAlreadyStoredOrRepeatedInBatch() throws IOException {
+        assertThat(store.insertIfAbsent(List.of(entry("Top scorers?", "SELECT 1", null)))).isEqualTo(1);
+        int appended = store.insertIfAbsent(List.of(
+                entry("top   SCORERS", "SELECT 1", null),
+                entry("Team wins", "SELECT 2", null),
+                entry("team wins!", "SELECT 3", null)));
+
+        assertThat(appended).isEqualTo(1);
+        assertThat(store.count()).isEqualTo(2);
+        assertThat(store.readAll()).extracting(e -> e.get("query")).containsExactly("Top scorers?", "Team wins");
+    }
+
+    @Test
+    void findWithResultsOnlyReturnsEntriesThatHaveResults() throws IOException {
+        store.insertIfAbsent(List.of(
+                entry("pending query", "SELECT 1", null),
+                entry("Cached query", "SELECT 2", results(42))));
+
+        assertThat(store.findWithResults("pending query")).isEmpty();
+        assertThat(store.findWithResults(QueryEntries.normalizeQueryText("cached QUERY?")))
+                .hasValueSatisfying(e -> assertThat(e).containsEntry("sql", "SELECT 2")
+                        .containsEntry("results", results(42)));
+        assertThat(store.findWithResults("unknown")).isEmpty();
+    }
+
+    @Test
+    void findsBySignatureIncludingEntriesWithoutStoredFingerprint() throws IOException {
+        String normalized = "select team from games where season = ?";
+        String fingerprint = SqlSignature.of(normalized).toHex();
+        Map<String, Object> withFingerprint = entry("q1", "SELECT team FROM games WHERE season = 2020", null);
+        withFingerprint.put("analysis", Map.of("normalizedSql", normalized, "signatureFingerprint", fingerprint));
+        Map<String, Object> legacy = entry("q2", "SELECT team FROM games WHERE season = 2021", null);
+        legacy.put("analysis", Map.of("normalizedSql", normalized));
+        Map<String, Object> other = entry("q3", "SELECT 1", null);
+        other.put("analysis", Map.of("normalizedSql", "select ?"));
+        store.insertIfAbsent(List.of(withFingerprint, legacy, other));
+
+        assertThat(store.findBySignature(fingerprint)).extracting(e -> e.get("query")).containsExactly("q1", "q2");
+        assertThat(store.findBySignature(SqlSignature.of("select 2").toHex())).isEmpty();
+    }
+
+    @Test
+    void findsByHalfOpenTimestampRangeOldestFirst() throws IOException {
+        LocalDateTime base = LocalDateTime.of(2024, 3, 1, 12, 0);
+        store.insertIfAbsent(List.of(
+                entryAt("late", base.plusHours(2)),
+                entryAt("early", base.plusMinutes(30).plusNanos(500_000_000)),
+                entryAt("boundary", base.plusHours(3)),
+                entryAt("start", base),
+                entryAt("before", base.minusSeconds(1))));
+        store.insertIfAbsent(List.of(entry("undated", "SELECT 9", null)));
+
+        List<Map<String, Object>> found = store.findByTimestampRange(base, base.plusHours(3));
+
+        assertThat(found).extracting(e -> e.get("query")).containsExactly("start", "early", "late");
+    }
+
+    @Test
+    void findsNewestEntriesNewestFirst() throws IOException {
+        store.insertIfAbsent(List.of(entry("a", "SELECT 1", null), entry("b", "SELECT 2", null)));
+        store.insertIfAbsent(List.of(entry("c", "SELECT 3", null)));
+
+        assertThat(store.findNewest(2)).extracting(e -> e.get("query")).containsExactly("c", "b");
+        assertThat(store.findNewest(10)).extracting(e -> e.get("query")).containsExactly("c", "b", "a");
+        assertThat(store.findNewest(0)).isEmpty();
+    }
+
+    @Test
+    void backfillRemovesDuplicateSqlAndAppliesResultsOnlyToPendingEntries() throws IOException {
+        store.insertIfAbsent(List.of(
+                entry("a", "SELECT 1", null),
+                entry("b", "SELECT 2", results(2)),
+                entry("c", "SELECT 1", null),
+                entry("d", "SELECT 3", null),
+                entry("e", "  ", null)));
+
+        assertThat(store.removeDuplicateSql()).isEqualTo(1);
+        assertThat(store.readAll()).extracting(e -> e.get("query")).containsExactly("a", "b", "d", "e");
+        assertThat(store.findSqlWithoutResults()).containsExactly("SELECT 1", "SELECT 3");
+
+        int updated = store.applyResults(Map.of("SELECT 1", results(1), "SELECT 2", results(99)));
+
+        assertThat(updated).isEqualTo(1);
+        assertThat(store.findSqlWithoutResults()).containsExactly("SELECT 3");
+        assertThat(store.findWithResults("a")).hasValueSatisfying(e -> assertThat(e).containsEntry("results", results(1)));
+        assertThat(store.findWithResults("b")).hasValueSatisfying(e -> assertThat(e).containsEntry("results", results(2)));
+    }
+
+    @Test
+    void entriesSurviveReopen() throws IOException {
+        store.insertIfAbsent(List.of(entry("persisted", "SELECT 1", null), entry("second", "SELECT 2", null)));
+        store.applyResults(Map.of("SELECT 2", results(7)));
+        store.close();
+
+        store = openStore(tempDir);
+
+        assertThat(store.count()).isEqualTo(2);
+        assertThat(store.findWithResults("second")).isPresent();
+        assertThat(store.insertIfAbsent(List.of(entry("Persisted!", "SELECT 1", null)))).isZero();
+        assertThat(store.insertIfAbsent(List.of(entry("third", "SELECT 3", null)))).isEqualTo(1);
+        assertThat(store.readAll()).extracting(e -> e.get("query")).containsExactly("persisted", "second", "third");
+    }
+
+    private static Map<String, Object> entry(String query, String sql, Map<String, Object> results) {
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("query", query);
+        entry.put("sql", sql);
+        entry.put("timestamp", "2024-01-01T00:00:00");
+        if (results != null) {
+            entry.put("results", results);
+        }
+        return entry;
+    }
+
+    private static Map<String, Object> entryAt(String query, LocalDateTime timestamp) {
+        Map<String, Object> entry = entry(query, "SELECT '" + query + "'", null);
+        entry.put("timestamp", timestamp.toString());
+        return entry;
+    }
+
+    private static Map<String, Object> results(int value) {
+        return Map.of("columns", List.of("n"), "rows", List.of(List.of(value)), "rowCount", 1);
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.ragchatbot.service.template;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlTemplateMinerTest {
+
+    private static final String TEAMS_SQL = "SELECT name AS team_name, AVG(points) AS average_points "
+            + "FROM `bigquery-public-data.ncaa_basketball.mbb_teams_games_sr` WHERE season = %d "
+            + "GROUP BY team_name ORDER BY average_points DESC LIMIT 10";
+    private static final String PLAYER_SQL = "SELECT p.scheduled_date, p.points "
+            + "FROM `bigquery-public-data.ncaa_basketball.mbb_players_games_sr` AS p "
+            + "WHERE p.full_name = '%s' AND p.season = %d ORDER BY p.scheduled_date";
+
+    @Test
+    void varyingSeasonBecomesASlotFilledFromTheQuestion() {
+        List<Map<String, Object>> log = List.of(
+                entry("Show average points per game by team in the 2013 season (top 10 teams)",
+                        String.format(TEAMS_SQL, 2013), "season", "2016"),
+                entry("Show average points per game by team in the 2009 season (top 10 teams)",
+                        String.format(TEAMS_SQL, 2009), "team_name", "Duke"));
+        SqlTemplateMatcher matcher = matcher(log);
+
+        Optional<SqlTemplateMatcher.Match> match =
+                matcher.match("Hi, please show average points per game by team in the 2016 season (top 10 teams).");
+
+        assertThat(match).isPresent();
+        assertThat(match.get().getSql()).isEqualTo(String.format(TEAMS_SQL, 2016));
+        assertThat(match.get().getPattern().getSupport()).isEqualTo(2);
+        // The limit never varied, so it stays part of the phrasing; unknown seasons do not match
+        assertThat(matcher.match("Show average points per game by team in the 2016 season (top 5 teams)")).isEmpty();
+        assertThat(matcher.match("Show average points per game by team in the 1950 season (top 10 teams)")).isEmpty();
+    }
+
+    @Test
+    void playerNamesAreFilledWithTheSpellingFromTheData() {
+        List<Map<String, Object>> log = List.of(
+                entry("Scoring trends across games of Jordan Howard in the season 2014",
+                        String.format(PLAYER_SQL, "Jordan Howard", 2014), "full_name", "Jeremy Senglin"),
+                entry("scoring trends across games of austin rettig in the season 2013",
+                        String.format(PLAYER_SQL, "Austin Rettig", 2013), "season", "2015"));
+
+        Optional<SqlTemplateMatcher.Match> match =
+                matcher(log).match("Scoring trends across games of jeremy senglin in the season 2015");
+
+        assertThat(match).isPresent();
+        assertThat(match.get().getSql()).isEqualTo(String.format(PLAYER_SQL, "Jeremy Senglin", 2015));
+        assertThat(matcher(log).match("Scoring trends across games of someone else in the season 2015")).isEmpty();
+    }
+
+    @Test
+    void groupIsNotTemplatedWhenAVaryingLiteralIsMissingFromTheQuestion() {
+        List<Map<String, Object>> log = List.of(
+                entry("Best teams this year", String.format(TEAMS_SQL, 2013), "season", "2013"),
+                entry("Best teams this year", String.format(TEAMS_SQL, 2009), "season", "2009"));
+
+        assertThat(SqlTemplateMiner.mine(log, 2)).isEmpty();
+    }
+
+    private static SqlTemplateMatcher matcher(List<Map<String, Object>> log) {
+        return new SqlTemplateMatcher(SqlTemplateMiner.mine(log, 2), SqlTemplateMiner.buildDictionary(log));
+    }
+
+    private static Map<String, Object> entry(String query, String sql, String column, String value) {
+        Map<String, Object> results = new HashMap<>();
+        results.put("columns", List.of(column));
+        results.put("rows", List.of(List.of(value)));
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("query", query);
+        entry.put("sql", sql);
+        entry.put("results", results);
+        return entry;
+    }
+}
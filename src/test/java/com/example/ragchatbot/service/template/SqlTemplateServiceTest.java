@@ -0,0 +1,88 @@
+package com.example.ragchatbot.service.template;
+
+import com.example.ragchatbot.service.BigQueryExecutionService;
+import com.example.ragchatbot.service.SqlQueryStorageService;
+import com.example.ragchatbot.service.metrics.PipelineMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SqlTemplateServiceTest {
+
+    private static final String TEAMS_SQL = "SELECT name AS team_name, AVG(points) AS average_points "
+            + "FROM `bigquery-public-data.ncaa_basketball.mbb_teams_games_sr` WHERE season = %d "
+            + "GROUP BY team_name ORDER BY average_points DESC LIMIT 10";
+    private static final String QUESTION = "Show average points per game by team in the %d season";
+    private static final LocalDateTime BASE = LocalDateTime.of(2024, 3, 1, 12, 0);
+
+    private final SqlQueryStorageService storage = mock(SqlQueryStorageService.class);
+    private final SqlTemplateService service = new SqlTemplateService(storage, mock(BigQueryExecutionService.class),
+            new PipelineMetrics(new SimpleMeterRegistry()), true, 2, 300000, false,
+            "bigquery-public-data", "ncaa_basketball");
+
+    @Test
+    void newEntriesReMineOnlyTheirSignatureGroup() throws InterruptedException {
+        Map<String, Object> first = entry(2013, BASE);
+        when(storage.countQueries()).thenReturn(1L);
+        when(storage.readAllQueriesSnapshot()).thenReturn(List.of(first));
+        service.refresh();
+
+        assertThat(service.match(String.format(QUESTION, 2013))).isEmpty();
+
+        Map<String, Object> second = entry(2009, BASE.plusMinutes(1));
+        when(storage.countQueries()).thenReturn(2L);
+        when(storage.findQueriesBetween(eq(BASE), any())).thenReturn(List.of(first, second));
+        when(storage.findQueriesBySignature("teams")).thenReturn(List.of(first, second));
+        service.refresh();
+        // Unchanged count: nothing is read
+        service.refresh();
+
+        assertThat(service.match(String.format(QUESTION, 2009)).orElseThrow().getSql())
+                .isEqualTo(String.format(TEAMS_SQL, 2009));
+        assertThat(service.match(String.format(QUESTION, 2013)).orElseThrow().getSql())
+                .isEqualTo(String.format(TEAMS_SQL, 2013));
+        verify(storage, times(1)).readAllQueriesSnapshot();
+        verify(storage, times(1)).findQueriesBetween(any(), any());
+        verify(storage, times(1)).findQueriesBySignature("teams");
+    }
+
+    @Test
+    void aShrunkLogIsMinedAgainInFull() throws InterruptedException {
+        when(storage.countQueries()).thenReturn(2L);
+        when(storage.readAllQueriesSnapshot()).thenReturn(List.of(entry(2013, BASE), entry(2009, BASE)));
+        service.refresh();
+        assertThat(service.match(String.format(QUESTION, 2009))).isPresent();
+
+        when(storage.countQueries()).thenReturn(1L);
+        when(storage.readAllQueriesSnapshot()).thenReturn(List.of(entry(2013, BASE)));
+        service.refresh();
+
+        assertThat(service.match(String.format(QUESTION, 2009))).isEmpty();
+        verify(storage, times(2)).readAllQueriesSnapshot();
+    }
+
+    private static Map<String, Object> entry(int season, LocalDateTime timestamp) {
+        Map<String, Object> results = new HashMap<>();
+        results.put("columns", List.of("team_name"));
+        results.put("rows", List.of(List.of("Duke")));
+        Map<String, Object> entry = new HashMap<>();
+        entry.put("query", String.format(QUESTION, season));
+        entry.put("sql", String.format(TEAMS_SQL, season));
+        entry.put("timestamp", timestamp.toString());
+        entry.put("analysis", Map.of("signatureFingerprint", "teams"));
+        entry.put("results", results);
+        return entry;
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.ragchatbot.service.visualization;
+
+import com.example.ragchatbot.service.data.transformer.ChartDownsampling;
+import com.example.ragchatbot.service.sql.SelectQuery;
+import com.example.ragchatbot.service.sql.SqlParser;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChartQueryRewriterTest {
+
+    private final SqlPatternAnalyzer sqlPatternAnalyzer = new SqlPatternAnalyzer();
+    private final QueryAnalyzer queryAnalyzer = mock(QueryAnalyzer.class);
+    private final ChartQueryRewriter rewriter = new ChartQueryRewriter(
+            queryAnalyzer, new ChartDownsampling(true, 1000, 500, 10, 6, 500), true);
+
+    @Test
+    void wrapsAdditiveGroupingInTopCategoriesWithOther() {
+        String sql = "SELECT team_market, SUM(points) AS total_points\n"
+                + "FROM `bigquery-public-data.ncaa_basketball.mbb_teams_games_sr`\n"
+                + "GROUP BY team_market ORDER BY total_points DESC;";
+        predict("bar", sql);
+
+        ChartQueryRewrite rewrite = rewriter.rewrite("points by school", sql).orElseThrow();
+
+        assertThat(rewrite.getMaxCategories()).isEqualTo(10);
+        assertThat(rewrite.getSql())
+                .contains("IF(chart_rank < 10, CAST(`team_market` AS STRING), 'Other') AS `team_market`")
+                .contains("SUM(`total_points`) AS `total_points`")
+                .doesNotContain(";");
+        SelectQuery outer = SqlParser.parse(rewrite.getSql()).getQuery();
+        assertThat(outer.getSelectItems()).extracting(item -> item.getOutputName())
+                .containsExactly("team_market", "total_points");
+    }
+
+    @Test
+    void leavesQueriesThatCannotBeFoldedUnchanged() {
+        String limited = "SELECT team_market, COUNT(*) AS games FROM t GROUP BY team_market LIMIT 5";
+        predict("pie", limited);
+        assertThat(rewriter.rewrite("share of games", limited)).isEmpty();
+
+        String average = "SELECT team_market, AVG(points) AS avg_points FROM t GROUP BY team_market";
+        predict("bar", average);
+        assertThat(rewriter.rewrite("average points by school", average)).isEmpty();
+
+        String grouped = "SELECT team_market, SUM(points) AS total_points FROM t GROUP BY team_market";
+        predict("table", grouped);
+        assertThat(rewriter.rewrite("list points by school", grouped)).isEmpty();
+    }
+
+    @Test
+    void ranksCategoriesInTheQuerysOwnOrder() {
+        String bottom = "SELECT team_market, SUM(wins) AS total_wins FROM t GROUP BY team_market ORDER BY total_wins ASC";
+        predict("bar", bottom);
+
+        ChartQueryRewrite rewrite = rewriter.rewrite("bottom teams by wins", bottom).orElseThrow();
+
+        assertThat(rewrite.getSql()).contains("ROW_NUMBER() OVER (ORDER BY `total_wins` ASC) AS chart_rank")
+                .endsWith("ORDER BY MIN(chart_rank)");
+        // Ordered by the category itself: the "largest" categories are not the ones asked for
+        String byName = "SELECT team_market, SUM(wins) AS total_wins FROM t GROUP BY team_market ORDER BY team_market";
+        predict("bar", byName);
+        assertThat(rewriter.rewrite("wins by school", byName)).isEmpty();
+    }
+
+    private void predict(String chartType, String sql) {
+        Map<String, Double> scores = Map.of(chartType, 10.0);
+        when(queryAnalyzer.analyze(anyString(), any(), any()))
+                .thenReturn(new QueryIntent(scores, "comparison", false, null, sqlPatternAnalyzer.analyze(sql), 1.0));
+    }
+}
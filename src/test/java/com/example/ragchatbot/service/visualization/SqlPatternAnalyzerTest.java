@@ -0,0 +1,98 @@
+package com.example.ragchatbot.service.visualization;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlPatternAnalyzerTest {
+
+    private final SqlPatternAnalyzer analyzer = new SqlPatternAnalyzer();
+
+    @Test
+    void resolvesOrdinalGroupByAgainstSelectList() {
+        SqlAnalysisResult result = analyzer.analyze(
+                "SELECT season, market, AVG(points_game) AS avg_points\n"
+                        + "FROM `bigquery-public-data.ncaa_basketball.mbb_teams_games_sr`\n"
+                        + "WHERE season BETWEEN 2010 AND 2017\n"
+                        + "GROUP BY 1, 2 ORDER BY avg_points DESC LIMIT 25");
+
+        assertThat(result.getGroupByColumns()).containsExactly("season", "market");
+        assertThat(result.hasAggregation()).isTrue();
+        assertThat(result.hasTemporalGrouping()).isTrue();
+        assertThat(result.getLimitValue()).isEqualTo(25L);
+        assertThat(result.getReferencedTables())
+                .containsExactly("bigquery-public-data.ncaa_basketball.mbb_teams_games_sr");
+        assertThat(result.getReferencedColumns())
+                .contains("season", "market", "points_game")
+                .doesNotContain("avg_points");
+    }
+
+    @Test
+    void prefersOuterGroupingAndIgnoresCteNamesAndStringContents() {
+        SqlAnalysisResult result = analyzer.analyze(
+                "WITH team_totals AS (\n"
+                        + "  SELECT t.market, g.season, SUM(g.points) AS total_points\n"
+                        + "  FROM `bigquery-public-data.ncaa_basketball.mbb_games_sr` g\n"
+                        + "  JOIN `bigquery-public-data.ncaa_basketball.mbb_teams` t ON g.team_id = t.id\n"
+                        + "  WHERE t.conf_name = 'Group by; limit 5' -- LIMIT 3\n"
+                        + "  GROUP BY t.market, g.season\n"
+                        + ")\n"
+                        + "SELECT market, SUM(total_points) AS points FROM team_totals\n"
+                        + "WHERE season >= (SELECT MAX(season) - 5 FROM team_totals)\n"
+                        + "GROUP BY market ORDER BY points DESC");
+
+        assertThat(result.getGroupByColumns()).containsExactly("market");
+        assertThat(result.hasTemporalGrouping()).isFalse();
+        assertThat(result.hasLimit()).isFalse();
+        assertThat(result.getReferencedTables()).containsExactly(
+                "bigquery-public-data.ncaa_basketball.mbb_games_sr",
+                "bigquery-public-data.ncaa_basketball.mbb_teams");
+    }
+
+    @Test
+    void windowFunctionsAreNotAggregations() {
+        SqlAnalysisResult result = analyzer.analyze(
+                "SELECT name, points, RANK() OVER (PARTITION BY season ORDER BY points DESC) AS rnk,\n"
+                        + "SUM(points) OVER (PARTITION BY season) AS season_points\n"
+                        + "FROM (SELECT name, season, points FROM `bigquery-public-data.ncaa_basketball.mbb_players_games_sr`)\n"
+                        + "QUALIFY rnk <= 10");
+
+        assertThat(result.hasWindowFunction()).isTrue();
+        assertThat(result.hasAggregation()).isFalse();
+        assertThat(result.getGroupByColumnCount()).isZero();
+        assertThat(result.getScore("table")).isEqualTo(5.0);
+    }
+
+    @Test
+    void fallsBackToKeywordDetectionForUnparseableSql() {
+        SqlAnalysisResult result = analyzer.analyze(
+                "SELECT season, COUNT(*) AS games FROM t GROUP BY season ORDER BY games DESC LIMIT 10 '");
+
+        assertThat(result.getStatement()).isNull();
+        assertThat(result.hasAggregation()).isTrue();
+        assertThat(result.getGroupByColumns()).containsExactly("season");
+        assertThat(result.hasTemporalGrouping()).isTrue();
+        assertThat(result.getLimitValue()).isEqualTo(10L);
+        assertThat(analyzer.analyze("SELECT 'unterminated FROM t").hasAggregation()).isFalse();
+    }
+
+    @Test
+    void cacheKeyCollapsesWhitespaceOutsideLiteralsOnly() {
+        assertThat(SqlPatternAnalyzer.normalizeForCache("  SELECT\n a ,  'x  y'  FROM t "))
+                .isEqualTo("SELECT a , 'x  y' FROM t");
+        assertThat(analyzer.analyze("SELECT a FROM t LIMIT 5"))
+                .isSameAs(analyzer.analyze("SELECT a\n  FROM t\tLIMIT 5"));
+    }
+
+    @Test
+    void cacheKeyFollowsCommentsAsTheParserSeesThem() {
+        // The newline ends the line comment, so only the first query has a FROM clause
+        assertThat(SqlPatternAnalyzer.normalizeForCache("SELECT a -- x\nFROM t"))
+                .isNotEqualTo(SqlPatternAnalyzer.normalizeForCache("SELECT a -- x FROM t"));
+        // An apostrophe inside a comment does not open a string
+        assertThat(SqlPatternAnalyzer.normalizeForCache("SELECT a /* team's */  FROM   t"))
+                .isEqualTo("SELECT a FROM t");
+        assertThat(SqlPatternAnalyzer.normalizeForCache("SELECT a -- it's\nFROM   t  LIMIT 5"))
+                .isEqualTo("SELECT a FROM t LIMIT 5");
+    }
+}
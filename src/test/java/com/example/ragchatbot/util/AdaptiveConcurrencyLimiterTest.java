@@ -0,0 +1,80 @@
+package com.example.ragchatbot.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    @Test
+    void rejectsImmediatelyWhenQueueIsFull() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 2, 1, 10, 0.5, 0, 0, 1000);
+
+        Optional<AdaptiveConcurrencyLimiter.Permit> first = limiter.tryAcquire();
+        Optional<AdaptiveConcurrencyLimiter.Permit> second = limiter.tryAcquire();
+        long start = System.nanoTime();
+        Optional<AdaptiveConcurrencyLimiter.Permit> third = limiter.tryAcquire();
+
+        assertThat(first).isPresent();
+        assertThat(second).isPresent();
+        assertThat(third).isEmpty();
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(500);
+        assertThat(limiter.getRejections()).isEqualTo(1);
+    }
+
+    @Test
+    void queuedCallerGetsReleasedPermit() throws Exception {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 1, 1, 10, 0.5, 0, 1, 5000);
+        AdaptiveConcurrencyLimiter.Permit held = limiter.tryAcquire().orElseThrow();
+
+        CompletableFuture<Optional<AdaptiveConcurrencyLimiter.Permit>> waiter = CompletableFuture.supplyAsync(() -> {
+            try {
+                return limiter.tryAcquire();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        while (limiter.getQueued() == 0) {
+            Thread.sleep(5);
+        }
+        held.success();
+
+        assertThat(waiter.get(5, TimeUnit.SECONDS)).isPresent();
+        assertThat(limiter.getInFlight()).isEqualTo(1);
+    }
+
+    @Test
+    void queuedCallerTimesOut() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 1, 1, 10, 0.5, 0, 1, 50);
+        limiter.tryAcquire().orElseThrow();
+
+        assertThat(limiter.tryAcquire()).isEmpty();
+        assertThat(limiter.getQueued()).isZero();
+    }
+
+    @Test
+    void dropsBackOffMultiplicativelyAndSuccessesGrowAdditively() throws InterruptedException {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter("test", 8, 2, 10, 0.5, 0, 0, 0);
+
+        limiter.tryAcquire().orElseThrow().dropped();
+        assertThat(limiter.getLimit()).isEqualTo(4);
+        limiter.tryAcquire().orElseThrow().dropped();
+        limiter.tryAcquire().orElseThrow().dropped();
+        assertThat(limiter.getLimit()).isEqualTo(2);
+
+        // Growth only when the limit is actually being used
+        AdaptiveConcurrencyLimiter.Permit a = limiter.tryAcquire().orElseThrow();
+        AdaptiveConcurrencyLimiter.Permit b = limiter.tryAcquire().orElseThrow();
+        a.success();
+        assertThat(limiter.getLimit()).isEqualTo(3);
+        b.success();
+        assertThat(limiter.getLimit()).isEqualTo(3);
+
+        limiter.tryAcquire().orElseThrow().ignore();
+        assertThat(limiter.getLimit()).isEqualTo(3);
+    }
+}
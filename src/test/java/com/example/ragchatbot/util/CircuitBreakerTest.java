@@ -0,0 +1,54 @@
+package com.example.ragchatbot.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensOnceFailureRateReachesThresholdOverMinimumCalls() {
+        CircuitBreaker breaker = new CircuitBreaker("test", 10, 4, 0.5, 60_000, 1);
+
+        complete(breaker, true);
+        complete(breaker, true);
+        complete(breaker, false);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+
+        complete(breaker, false);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.getRejections()).isEqualTo(1);
+        assertThat(breaker.getRetryAfterMillis()).isPositive();
+    }
+
+    @Test
+    void halfOpenTrialsCloseOrReopenTheBreaker() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("test", 2, 2, 0.5, 20, 2);
+        complete(breaker, false);
+        complete(breaker, false);
+        Thread.sleep(30);
+
+        // Only the configured number of trial calls get through
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.tryAcquire()).isFalse();
+        breaker.onSuccess();
+        breaker.onFailure();
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+
+        Thread.sleep(30);
+        complete(breaker, true);
+        complete(breaker, true);
+        assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.CLOSED);
+    }
+
+    private static void complete(CircuitBreaker breaker, boolean success) {
+        assertThat(breaker.tryAcquire()).isTrue();
+        if (success) {
+            breaker.onSuccess();
+        } else {
+            breaker.onFailure();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.ragchatbot.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SqlSignatureUtilTest {
+
+    @Test
+    void matchesRegexNormalizationOnRepresentativeQueries() {
+        List<String> samples = List.of(
+                "SELECT full_name, AVG(three_points_made) AS avg_3pm\nFROM `bigquery-public-data.ncaa_basketball.mbb_players_games_sr`\n"
+                        + "WHERE season BETWEEN 2003 AND 2014 AND played = TRUE GROUP BY full_name LIMIT 5",
+                "select * from t where name = 'O''Brien' and nick = \"The \"\"Mailman\"\"\" limit 10",
+                "SELECT 1.5, 2.5x, 3., .5, 12a, a12, 1.2.3, 10_000 FROM t",
+                "SELECT x FROM t WHERE a='x'123 AND b=4'y' AND c=\"q\"5",
+                "  SELECT\t\ta\r\n,\u000Bb  \f FROM t  ",
+                "SELECT 'it\\'s' FROM t",
+                "SELECT \"it's\" FROM t",
+                "SELECT 'unterminated FROM t WHERE x = ''",
+                "SELECT name FROM t WHERE city = 'Zürich' AND 1 = 1",
+                "SELECT straße, 5 FROM t"
+        );
+        for (String sql : samples) {
+            assertThat(SqlSignatureUtil.normalize(sql))
+                    .as(sql)
+                    .isEqualTo(SqlSignatureUtil.normalizeWithRegex(sql.trim()));
+        }
+    }
+
+    @Test
+    void matchesRegexNormalizationOnRandomInput() {
+        String alphabet = "aZ_09.'\" \n\t,()=#-x1";
+        Random random = new Random(42);
+        for (int n = 0; n < 20_000; n++) {
+            int length = random.nextInt(24) + 1;
+            StringBuilder builder = new StringBuilder(length);
+            for (int i = 0; i < length; i++) {
+                builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            String sql = builder.toString();
+            if (sql.trim().isEmpty()) {
+                continue;
+            }
+            assertThat(SqlSignatureUtil.normalize(sql))
+                    .as("input [%s]", sql)
+                    .isEqualTo(SqlSignatureUtil.normalizeWithRegex(sql.trim()));
+        }
+    }
+
+    @Test
+    void signaturesOfEquivalentQueriesShareFingerprint() {
+        SqlSignature first = SqlSignatureUtil.signature("select team from t where season = 2016 limit 5");
+        SqlSignature second = SqlSignatureUtil.signature("SELECT team\n FROM t WHERE season = 2017 LIMIT 10");
+        SqlSignature other = SqlSignatureUtil.signature("SELECT market FROM t WHERE season = 2017 LIMIT 10");
+
+        assertThat(first).isEqualTo(second);
+        assertThat(first.toHex()).hasSize(32).isEqualTo(second.toHex());
+        assertThat(first.fingerprint64()).isNotEqualTo(other.fingerprint64());
+        assertThat(SqlSignatureUtil.signature("   ")).isNull();
+    }
+}